@@ -219,6 +219,10 @@ populateDB(){
     if mysql -u $2 -p$3 -h $1 -e "SELECT * FROM \`$4\`.restcomm_clients;" &>/dev/null ; then
         # Update config settings
         echo "Database already populated"
+        for FILE in $RESTCOMM_DEPLOY/WEB-INF/scripts/mariadb/upgrade/*.sql; do
+            echo "Applying upgrade script $FILE"
+            mysql -u $2 -p$3 -h $1 $4 < $FILE
+        done
     else
         echo "Database not populated, importing schema and updating config file"
         FILE=$RESTCOMM_DEPLOY/WEB-INF/scripts/mariadb/init.sql
@@ -3,12 +3,15 @@ package org.restcomm.connect.application;
 import static org.restcomm.connect.dao.entities.Profile.DEFAULT_PROFILE_SID;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.UnknownHostException;
 import java.sql.SQLException;
 import java.util.Date;
 import java.util.List;
 import java.util.Properties;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
 import javax.media.mscontrol.MsControlException;
 import javax.media.mscontrol.MsControlFactory;
 import javax.media.mscontrol.spi.Driver;
@@ -36,21 +39,27 @@ import org.restcomm.connect.commons.configuration.RestcommConfiguration;
 import org.restcomm.connect.commons.dao.Sid;
 import org.restcomm.connect.commons.loader.ObjectFactory;
 import org.restcomm.connect.commons.loader.ObjectInstantiationException;
+import org.restcomm.connect.commons.metrics.CallSetupTracer;
+import org.restcomm.connect.commons.metrics.CallSetupTracerMXBean;
 import org.restcomm.connect.commons.util.DNSUtils;
 import org.restcomm.connect.core.service.RestcommConnectServiceProvider;
 import org.restcomm.connect.dao.DaoManager;
+import org.restcomm.connect.dao.cache.CachingDaoManager;
 import org.restcomm.connect.dao.entities.InstanceId;
 import org.restcomm.connect.dao.entities.Organization;
 import org.restcomm.connect.dao.entities.Profile;
 import org.restcomm.connect.dao.entities.shiro.ShiroResources;
+import org.restcomm.connect.extension.configuration.ExtensionConfigurationRegistry;
 import org.restcomm.connect.extension.controller.ExtensionBootstrapper;
 import org.restcomm.connect.identity.IdentityContext;
+import org.restcomm.connect.monitoringservice.ConferenceOccupancy;
 import org.restcomm.connect.monitoringservice.MonitoringService;
 import org.restcomm.connect.mrb.api.StartMediaResourceBroker;
 import org.restcomm.connect.mscontrol.api.MediaServerControllerFactory;
 import org.restcomm.connect.mscontrol.api.MediaServerInfo;
 import org.restcomm.connect.mscontrol.jsr309.Jsr309ControllerFactory;
 import org.restcomm.connect.mscontrol.mms.MmsControllerFactory;
+import org.restcomm.connect.provisioning.number.api.PhoneNumberProvisioningManagerProvider;
 import org.restcomm.connect.sdr.api.StartSdrService;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -75,8 +84,11 @@ public final class Bootstrapper extends SipServlet implements SipServletListener
     private static final long serialVersionUID = 1L;
     private static final Logger logger = Logger.getLogger(Bootstrapper.class);
 
+    private static final int STARTUP_THREADS = 4;
+
     private ActorSystem system;
     private ExecutionContext ec;
+    private StartupGraph startup;
 
     public Bootstrapper() {
         super();
@@ -84,6 +96,18 @@ public final class Bootstrapper extends SipServlet implements SipServletListener
 
     @Override
     public void destroy() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(CallSetupTracerMXBean.OBJECT_NAME));
+        } catch (JMException exception) {
+            logger.warn("Exception while unregistering the call setup MBean: " + exception);
+        }
+        CallSetupTracer.getInstance().stopPurging();
+        ExtensionConfigurationRegistry.getInstance().stop();
+        final ServletContext context = getServletContext();
+        new PhoneNumberProvisioningManagerProvider((Configuration) context.getAttribute(Configuration.class.getName()), context).shutdown();
+        if (startup != null) {
+            startup.shutdown();
+        }
         CustomHttpClientBuilder.stopDefaultClient();
         system.shutdown();
         system.awaitTermination();
@@ -236,12 +260,19 @@ public final class Bootstrapper extends SipServlet implements SipServletListener
 
     private DaoManager storage(final Configuration configuration, Configuration daoManagerConfiguration, final ClassLoader loader) throws ObjectInstantiationException {
         final String classpath = daoManagerConfiguration.getString("dao-manager[@class]");
-        final DaoManager daoManager = (DaoManager) new ObjectFactory(loader).getObjectInstance(classpath);
+        DaoManager daoManager = (DaoManager) new ObjectFactory(loader).getObjectInstance(classpath);
+        if (daoManagerConfiguration.getBoolean("dao-manager.cache[@enabled]", false)) {
+            daoManager = new CachingDaoManager(daoManager);
+        }
         daoManager.configure(configuration, daoManagerConfiguration);
         daoManager.start();
         return daoManager;
     }
 
+    private DaoManager storage(final ServletContext context) {
+        return (DaoManager) context.getAttribute(DaoManager.class.getName());
+    }
+
     private ActorRef monitoringService(final Configuration configuration, final DaoManager daoManager, final ClassLoader loader) {
         final Props props = new Props(new UntypedActorFactory() {
             private static final long serialVersionUID = 1L;
@@ -255,6 +286,24 @@ public final class Bootstrapper extends SipServlet implements SipServletListener
 
     }
 
+    private void callSetupTracer(final Configuration configuration) {
+        final CallSetupTracer tracer = CallSetupTracer.getInstance();
+        tracer.setSlowThreshold(configuration.subset("runtime-settings").getLong("call-setup-slow-threshold", 2000));
+        tracer.startPurging();
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(tracer, new ObjectName(CallSetupTracerMXBean.OBJECT_NAME));
+        } catch (JMException exception) {
+            logger.error("Exception while registering the call setup MBean: ", exception);
+        }
+    }
+
+    private void conferenceOccupancy(final Configuration configuration) {
+        final Configuration capacity = configuration.subset("runtime-settings").subset("conference-capacity");
+        final ConferenceOccupancy occupancy = ConferenceOccupancy.getInstance();
+        occupancy.setMaxParticipantsPerRoom(capacity.getInt("max-participants-per-room", 0));
+        occupancy.setMaxParticipantsPerMediaServer(capacity.getInt("max-participants-per-media-server", 0));
+    }
+
     private ActorRef sdrService(final Configuration configuration, final ClassLoader loader) throws Exception {
         final String className = configuration.subset("runtime-settings").getString("sdr-service[@class]");
         if (className != null) {
@@ -412,129 +461,174 @@ public final class Bootstrapper extends SipServlet implements SipServletListener
             ec = system.dispatchers().lookup("restcomm-blocking-dispatcher");
             context.setAttribute(ExecutionContext.class.getName(), ec);
 
-            S3AccessTool s3AccessTool = prepareS3AccessTool(xml);
-            context.setAttribute(S3AccessTool.class.getName(), s3AccessTool);
-
-            // Create the storage system.
-            DaoManager storage = null;
-            try {
-                storage = storage(xml, daoManagerConf, loader);
-            } catch (final ObjectInstantiationException exception) {
-                logger.error("ObjectInstantiationException during initialization: ", exception);
-            }
-            context.setAttribute(DaoManager.class.getName(), storage);
-            //ShiroResources.getInstance().set(DaoManager.class, storage);
-            ShiroResources.getInstance().set(Configuration.class, xml.subset("runtime-settings"));
-            // Initialize identityContext
-            IdentityContext identityContext = new IdentityContext(xml);
-            context.setAttribute(IdentityContext.class.getName(), identityContext);
-
-            // Initialize CoreServices
-            RestcommConnectServiceProvider.getInstance().startServices(context);
-
-            // Create the media gateway.
-
-            //Initialize Monitoring Service
-            ActorRef monitoring = monitoringService(xml, storage, loader);
-            if (monitoring != null) {
-                context.setAttribute(MonitoringService.class.getName(), monitoring);
-                if (logger.isInfoEnabled()) {
-                    logger.info("Monitoring Service created and stored in the context");
+            final Configuration configuration = xml;
+            final Configuration daoManagerConfiguration = daoManagerConf;
+            // Independent steps run concurrently, see StartupGraph
+            startup = new StartupGraph(STARTUP_THREADS);
+            startup.add("s3-access-tool", new StartupGraph.Step() {
+                @Override
+                public void run() {
+                    S3AccessTool s3AccessTool = prepareS3AccessTool(configuration);
+                    context.setAttribute(S3AccessTool.class.getName(), s3AccessTool);
                 }
-            } else {
-                logger.error("Monitoring Service is null");
-            }
-
-            //Initialize Sdr Service
-            try {
-                sdrService(xml, loader);
-            } catch (Exception e) {
-                logger.error("Exception during Sdr Service initialization: " + e.getStackTrace());
-            }
-
-            CloseableHttpClient buildDefaultClient = CustomHttpClientBuilder.buildDefaultClient(RestcommConfiguration.getInstance().getMain());
-            context.setAttribute(CustomHttpClientBuilder.class.getName(), buildDefaultClient);
+            });
+            startup.add("storage", new StartupGraph.Step() {
+                @Override
+                public void run() {
+                    // Create the storage system.
+                    DaoManager storage = null;
+                    try {
+                        storage = storage(configuration, daoManagerConfiguration, loader);
+                    } catch (final ObjectInstantiationException exception) {
+                        logger.error("ObjectInstantiationException during initialization: ", exception);
+                    }
+                    context.setAttribute(DaoManager.class.getName(), storage);
+                    //ShiroResources.getInstance().set(DaoManager.class, storage);
+                    ShiroResources.getInstance().set(Configuration.class, configuration.subset("runtime-settings"));
+                }
+            });
+            startup.add("identity-context", new StartupGraph.Step() {
+                @Override
+                public void run() {
+                    // Initialize identityContext
+                    IdentityContext identityContext = new IdentityContext(configuration);
+                    context.setAttribute(IdentityContext.class.getName(), identityContext);
+                }
+            });
+            startup.add("core-services", new StartupGraph.Step() {
+                @Override
+                public void run() {
+                    // Initialize CoreServices
+                    RestcommConnectServiceProvider.getInstance().startServices(context);
+                }
+            }, "s3-access-tool", "storage");
+            startup.add("monitoring-service", new StartupGraph.Step() {
+                @Override
+                public void run() {
+                    //Initialize Monitoring Service
+                    ActorRef monitoring = monitoringService(configuration, storage(context), loader);
+                    if (monitoring != null) {
+                        context.setAttribute(MonitoringService.class.getName(), monitoring);
+                        if (logger.isInfoEnabled()) {
+                            logger.info("Monitoring Service created and stored in the context");
+                        }
+                    } else {
+                        logger.error("Monitoring Service is null");
+                    }
+                    callSetupTracer(configuration);
+                    conferenceOccupancy(configuration);
+                }
+            }, "storage");
+            startup.add("sdr-service", new StartupGraph.Step() {
+                @Override
+                public void run() throws Exception {
+                    //Initialize Sdr Service
+                    sdrService(configuration, loader);
+                }
+            });
+            startup.add("http-client", new StartupGraph.Step() {
+                @Override
+                public void run() {
+                    CloseableHttpClient buildDefaultClient = CustomHttpClientBuilder.buildDefaultClient(RestcommConfiguration.getInstance().getMain());
+                    context.setAttribute(CustomHttpClientBuilder.class.getName(), buildDefaultClient);
+                }
+            });
+            startup.add("extensions", new StartupGraph.Step() {
+                @Override
+                public void run() throws Exception {
+                    //Initialize Extensions
+                    Configuration extensionConfiguration = null;
+                    try {
+                        extensionConfiguration = new XMLConfiguration(extensionConfigurationPath);
+                    } catch (final ConfigurationException exception) {
+//                        logger.error(exception);
+                    }
 
-            //Initialize Extensions
-            Configuration extensionConfiguration = null;
-            try {
-                extensionConfiguration = new XMLConfiguration(extensionConfigurationPath);
-            } catch (final ConfigurationException exception) {
-//                logger.error(exception);
-            }
+                    ExtensionBootstrapper extensionBootstrapper = new ExtensionBootstrapper(context, extensionConfiguration);
+                    extensionBootstrapper.start();
+                }
+                // extensions may look up anything the node shares in the servlet context when they initialize
+            }, "core-services", "monitoring-service", "http-client");
+            startup.add("default-profile", new StartupGraph.Step() {
+                @Override
+                public void run() throws Exception {
+                    generateDefaultProfile(storage(context), context.getRealPath("WEB-INF/conf/defaultPlan.json"));
+                }
+            }, "storage");
+            startup.add("media-server-controller", new StartupGraph.Step() {
+                @Override
+                public void run() throws Exception {
+                    // Create the media server controller factory
+                    MediaServerControllerFactory mscontrollerFactory = mediaServerControllerFactory(configuration, loader,
+                            storage(context), (ActorRef) context.getAttribute(MonitoringService.class.getName()));
+                    context.setAttribute(MediaServerControllerFactory.class.getName(), mscontrollerFactory);
+                }
+            }, "monitoring-service");
+            startup.add("instance-id", new StartupGraph.Step() {
+                @Override
+                public void run() throws Exception {
+                    GenerateInstanceId generateInstanceId = null;
+                    InstanceId instanceId = null;
+                    SipURI sipURI = outboundInterface(context, "udp");
+                    if (sipURI != null) {
+                        generateInstanceId = new GenerateInstanceId(context, sipURI);
+                    } else {
+                        if (logger.isInfoEnabled()) {
+                            logger.info("SipURI is NULL!!! Cannot proceed to generate InstanceId");
+                        }
+                    }
+                    instanceId = generateInstanceId.instanceId();
 
-            ExtensionBootstrapper extensionBootstrapper = new ExtensionBootstrapper(context, extensionConfiguration);
-            try {
-                extensionBootstrapper.start();
-            } catch (IllegalAccessException | InstantiationException | ClassNotFoundException e) {
-                logger.error("Exception during extension scanner start: " + e.getStackTrace());
-            }
+                    context.setAttribute(InstanceId.class.getName(), instanceId);
+                    ((ActorRef) context.getAttribute(MonitoringService.class.getName())).tell(instanceId, null);
+                    RestcommConfiguration.getInstance().getMain().setInstanceId(instanceId.getId().toString());
 
-            try {
-                generateDefaultProfile(storage, context.getRealPath("WEB-INF/conf/defaultPlan.json"));
-            } catch (SQLException | IOException e1) {
-                logger.error("Exception during generateDefaultProfile: ", e1);
-            }
+                    if (!generateDefaultDomainName(configuration.subset("http-client"), storage(context), sipURI)) {
+                        logger.error("Unable to generate DefaultDomainName, Restcomm Akka system will exit now...");
+                        system.shutdown();
+                        system.awaitTermination();
+                    }
 
-            // Create the media server controller factory
-            MediaServerControllerFactory mscontrollerFactory = null;
-            try {
-                mscontrollerFactory = mediaServerControllerFactory(xml, loader, storage, monitoring);
-            } catch (ServletException exception) {
-                logger.error("ServletException during initialization: ", exception);
-            }
-            context.setAttribute(MediaServerControllerFactory.class.getName(), mscontrollerFactory);
+                    // https://github.com/RestComm/Restcomm-Connect/issues/1285 Pass InstanceId to the Load Balancer for LCM stickiness
+                    SipConnector[] connectors = (SipConnector[]) context.getAttribute("org.mobicents.servlet.sip.SIP_CONNECTORS");
+                    Properties loadBalancerCustomInfo = new Properties();
+                    loadBalancerCustomInfo.setProperty("Restcomm-Instance-Id", instanceId.getId().toString());
+                    for (SipConnector sipConnector : connectors) {
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("Passing InstanceId " + instanceId.getId().toString() + " to connector " + sipConnector);
+                        }
+                        sipConnector.setLoadBalancerCustomInformation(loadBalancerCustomInfo);
+                    }
+                }
+            }, "storage", "monitoring-service");
 
             Boolean rvdMigrationEnabled = new Boolean(xml.subset("runtime-settings").getString("rvd-workspace-migration-enabled", "false"));
             if (rvdMigrationEnabled) {
-                //Replicate RVD Projects as database entities
-                try {
-                    RvdProjectsMigrator rvdProjectMigrator = new RvdProjectsMigrator(context, xml);
-                    rvdProjectMigrator.executeMigration();
-                } catch (Exception exception) {
-                    logger.error("RVD Porjects migration failed during initialization: ", exception);
-                }
-            }
-
-            //Last, print Version and send PING if needed
-            Version.printVersion();
-            GenerateInstanceId generateInstanceId = null;
-            InstanceId instanceId = null;
-            SipURI sipURI = null;
-            try {
-                sipURI = outboundInterface(context, "udp");
-                if (sipURI != null) {
-                    generateInstanceId = new GenerateInstanceId(context, sipURI);
-                } else {
-                    if (logger.isInfoEnabled()) {
-                        logger.info("SipURI is NULL!!! Cannot proceed to generate InstanceId");
+                final StartupGraph.Step rvdMigration = new StartupGraph.Step() {
+                    @Override
+                    public void run() throws Exception {
+                        //Replicate RVD Projects as database entities
+                        RvdProjectsMigrator rvdProjectMigrator = new RvdProjectsMigrator(context, configuration);
+                        rvdProjectMigrator.executeMigration();
                     }
+                };
+                if (xml.subset("runtime-settings").getBoolean("rvd-workspace-migration-background", true)) {
+                    // The migration only creates applications for the RVD projects, it doesn't hold traffic back
+                    startup.addBackground("rvd-migration", rvdMigration);
+                } else {
+                    startup.add("rvd-migration", rvdMigration, "storage", "core-services");
                 }
-                instanceId = generateInstanceId.instanceId();
-            } catch (UnknownHostException e) {
-                logger.error("UnknownHostException during the generation of InstanceId: " + e);
             }
 
-            context.setAttribute(InstanceId.class.getName(), instanceId);
-            monitoring.tell(instanceId, null);
-            RestcommConfiguration.getInstance().getMain().setInstanceId(instanceId.getId().toString());
-
-            if (!generateDefaultDomainName(xml.subset("http-client"), storage, sipURI)) {
-                logger.error("Unable to generate DefaultDomainName, Restcomm Akka system will exit now...");
-                system.shutdown();
-                system.awaitTermination();
+            try {
+                startup.run();
+            } catch (InterruptedException exception) {
+                logger.error("Interrupted while waiting for the startup steps to complete");
+                Thread.currentThread().interrupt();
             }
 
-            // https://github.com/RestComm/Restcomm-Connect/issues/1285 Pass InstanceId to the Load Balancer for LCM stickiness
-            SipConnector[] connectors = (SipConnector[]) context.getAttribute("org.mobicents.servlet.sip.SIP_CONNECTORS");
-            Properties loadBalancerCustomInfo = new Properties();
-            loadBalancerCustomInfo.setProperty("Restcomm-Instance-Id", instanceId.getId().toString());
-            for (SipConnector sipConnector : connectors) {
-                if (logger.isDebugEnabled()) {
-                    logger.debug("Passing InstanceId " + instanceId.getId().toString() + " to connector " + sipConnector);
-                }
-                sipConnector.setLoadBalancerCustomInformation(loadBalancerCustomInfo);
-            }
+            //Last, print Version and send PING if needed
+            Version.printVersion();
             //Depreciated
 //            Ping ping = new Ping(xml, context);
 //            ping.sendPing();
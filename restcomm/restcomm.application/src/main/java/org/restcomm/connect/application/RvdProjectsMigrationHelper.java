@@ -63,8 +63,14 @@ import java.net.URLDecoder;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.restcomm.connect.dao.entities.IncomingPhoneNumberFilter;
@@ -85,21 +91,24 @@ public class RvdProjectsMigrationHelper {
     private static final Pattern RVD_PROJECT_URL = Pattern.compile("^\\/visual-designer.*\\/(.*)\\/controller$");
     private static final String ACCOUNT_NOTIFICATIONS_SID = "ACae6e420f425248d6a26948c17a9e2acf";
     private static final String EMBEDDED_DIRECTORY_NAME = "workspace-migration";
+    private static final String CHECKPOINT_FILE_NAME = ".migration-checkpoint";
 
     private boolean embeddedMigration = false; // If visual-designer context is not found, search for internal structure
 
     private Configuration configuration;
     private String workspacePath;
     private String workspaceBackupPath;
-    private StateHeader currentStateHeader;
-    private Application currentApplication;
     private final ApplicationsDao applicationDao;
     private final AccountsDao accountsDao;
     private final IncomingPhoneNumbersDao didsDao;
     private final ClientsDao clientsDao;
     private final NotificationsDao notificationsDao;
-    private List<IncomingPhoneNumber> dids;
-    private List<Client> clients;
+    // Current version of the DIDs and Clients referencing an RVD project by URL, indexed by project name
+    private final Map<Sid, IncomingPhoneNumber> dids;
+    private final Map<String, List<Sid>> smsDids;
+    private final Map<String, List<Sid>> ussdDids;
+    private final Map<String, List<Sid>> voiceDids;
+    private final Map<String, List<Client>> voiceClients;
     private ActorRef emailService;
     private ActorSystem system;
 
@@ -113,6 +122,11 @@ public class RvdProjectsMigrationHelper {
         this.clientsDao = storage.getClientsDao();
         this.notificationsDao = storage.getNotificationsDao();
         system = (ActorSystem) servletContext.getAttribute(ActorSystem.class.getName());
+        this.dids = new HashMap<Sid, IncomingPhoneNumber>();
+        this.smsDids = new HashMap<String, List<Sid>>();
+        this.ussdDids = new HashMap<String, List<Sid>>();
+        this.voiceDids = new HashMap<String, List<Sid>>();
+        this.voiceClients = new HashMap<String, List<Client>>();
     }
 
     private void defineWorkspacePath(ServletContext servletContext) throws Exception {
@@ -208,21 +222,14 @@ public class RvdProjectsMigrationHelper {
         return items;
     }
 
-    public String searchApplicationSid(String projectName) throws RvdProjectsMigrationException {
+    public Application searchApplication(String projectName) throws RvdProjectsMigrationException {
         try {
-            currentApplication = null;
-            String applicationSid = null;
-            currentApplication = applicationDao.getApplication(projectName);
-            if (currentApplication != null) {
-                applicationSid = currentApplication.getSid().toString();
-            } else if (Sid.pattern.matcher(projectName).matches()) {
+            Application application = applicationDao.getApplication(projectName);
+            if (application == null && Sid.pattern.matcher(projectName).matches()) {
                 Sid sid = new Sid(projectName);
-                currentApplication = applicationDao.getApplication(sid);
-                if (currentApplication != null) {
-                    applicationSid = currentApplication.getSid().toString();
-                }
+                application = applicationDao.getApplication(sid);
             }
-            return applicationSid;
+            return application;
         } catch ( TooManyResultsException e) {
             /* This happens when a non-upgraded project whose friendly-name exists in several applications is upgraded.
                The old bahaviour was a broken upgrade attempt for the whole workspace.
@@ -247,7 +254,7 @@ public class RvdProjectsMigrationHelper {
         FileUtils.moveDirectory(sourceDir, destDir);
     }
 
-    public void loadProjectState(String projectName) throws RvdProjectsMigrationException {
+    public StateHeader loadProjectState(String projectName) throws RvdProjectsMigrationException {
         try {
             String pathName = workspacePath + File.separator + projectName + File.separator + "state";
             File file = new File(pathName);
@@ -261,7 +268,7 @@ public class RvdProjectsMigrationHelper {
                 throw new RvdProjectsMigrationException();
             }
             Gson gson = new Gson();
-            currentStateHeader = gson.fromJson(headerElement, StateHeader.class);
+            return gson.fromJson(headerElement, StateHeader.class);
         } catch (IOException e) {
             throw new RvdProjectsMigrationException("[ERROR-CODE:6] Error loading state file from project '" + projectName
                     + "' " + e.getMessage(), 6);
@@ -272,18 +279,18 @@ public class RvdProjectsMigrationHelper {
         return Sid.pattern.matcher(projectName).matches();
     }
 
-    public String createOrUpdateApplicationEntity(String applicationSid, String projectName)
+    public Application createOrUpdateApplicationEntity(Application application, StateHeader stateHeader, String projectName)
             throws RvdProjectsMigrationException {
         try {
-            if(applicationSid != null) {
+            if(application != null) {
                 // Update application
-                currentApplication = currentApplication.setRcmlUrl(URI.create("/visual-designer/services/apps/" + applicationSid
+                application = application.setRcmlUrl(URI.create("/visual-designer/services/apps/" + application.getSid()
                         + "/controller"));
-                applicationDao.updateApplication(currentApplication);
-                return applicationSid;
+                applicationDao.updateApplication(application);
+                return application;
             } else {
                 // Create new application
-                Account account = accountsDao.getAccount(currentStateHeader.getOwner());
+                Account account = accountsDao.getAccount(stateHeader.getOwner());
                 if (account == null) {
                     throw new RvdProjectsMigrationException("Error locating the owner account for project \"" + projectName
                             + "\"");
@@ -302,40 +309,79 @@ public class RvdProjectsMigrationHelper {
                 .append("/Accounts/").append(account.getSid().toString()).append("/Applications/").append(sid.toString());
                 builder.setUri(URI.create(buffer.toString()));
                 builder.setRcmlUrl(URI.create("/visual-designer/services/apps/" + sid.toString() + "/controller"));
-                builder.setKind(Application.Kind.getValueOf(currentStateHeader.getProjectKind()));
-                currentApplication = builder.build();
-                applicationDao.addApplication(currentApplication);
-                return sid.toString();
+                builder.setKind(Application.Kind.getValueOf(stateHeader.getProjectKind()));
+                application = builder.build();
+                applicationDao.addApplication(application);
+                return application;
             }
         } catch (RvdProjectsMigrationException e) {
-            String suffix = currentApplication != null ? "with the application '" + currentApplication.getSid().toString()
+            String suffix = application != null ? "with the application '" + application.getSid().toString()
                     + "' " : "";
             throw new RvdProjectsMigrationException("[ERROR-CODE:7] Error while synchronizing the project '" + projectName
                     + "' " + suffix + e.getMessage(), 7);
         }
     }
 
-    public int updateIncomingPhoneNumbers(String applicationSid, String projectName) throws RvdProjectsMigrationException {
+    /**
+     * Loads the DIDs and Clients once and indexes those whose URLs point to an RVD project by the project name, so
+     * each project only looks at what references it.
+     */
+    public void loadReferences() throws RvdProjectsMigrationException {
         try {
-
-            if (dids == null) {
-                IncomingPhoneNumberFilter.Builder filterBuilder = IncomingPhoneNumberFilter.Builder.builder();
-                dids = didsDao.getIncomingPhoneNumbersByFilter(filterBuilder.build());
+            IncomingPhoneNumberFilter.Builder filterBuilder = IncomingPhoneNumberFilter.Builder.builder();
+            for (IncomingPhoneNumber did : didsDao.getIncomingPhoneNumbersByFilter(filterBuilder.build())) {
+                boolean referenced = index(smsDids, projectReference(did.getSmsUrl()), did.getSid());
+                referenced |= index(ussdDids, projectReference(did.getUssdUrl()), did.getSid());
+                referenced |= index(voiceDids, projectReference(did.getVoiceUrl()), did.getSid());
+                if (referenced) {
+                    dids.put(did.getSid(), did);
+                }
+            }
+        } catch (Exception e) {
+            throw new RvdProjectsMigrationException(
+                    "[ERROR-CODE:8] Error while loading IncomingPhoneNumbers list for updates " + e.getMessage(), 8);
+        }
+        try {
+            for (Client client : clientsDao.getAllClients()) {
+                index(voiceClients, projectReference(client.getVoiceUrl()), client);
             }
         } catch (Exception e) {
             throw new RvdProjectsMigrationException(
-                    "[ERROR-CODE:8] Error while loading IncomingPhoneNumbers list for updates with project '" + applicationSid
-                            + "' " + e.getMessage(), 8);
+                    "[ERROR-CODE:10] Error while loading the Clients list for updates. " + e.getMessage(), 10);
+        }
+    }
+
+    private static <T> boolean index(Map<String, List<T>> index, String projectName, T value) {
+        if (projectName == null) {
+            return false;
         }
-        Application.Kind kind = Application.Kind.getValueOf(currentStateHeader.getProjectKind());
+        List<T> values = index.get(projectName);
+        if (values == null) {
+            values = new ArrayList<T>(1);
+            index.put(projectName, values);
+        }
+        values.add(value);
+        return true;
+    }
+
+    private static <T> List<T> take(Map<String, List<T>> index, String projectName) {
+        synchronized (index) {
+            List<T> values = index.remove(projectName);
+            return values == null ? Collections.<T>emptyList() : values;
+        }
+    }
+
+    public int updateIncomingPhoneNumbers(String applicationSid, Application application, StateHeader stateHeader) throws RvdProjectsMigrationException {
+        Application.Kind kind = Application.Kind.getValueOf(stateHeader.getProjectKind());
         IncomingPhoneNumber did = null;
         int amountUpdated = 0;
         try {
             switch (kind) {
                 case SMS:
-                    for (int i = 0; i < dids.size(); i++) {
-                        did = dids.get(i);
-                        if (hasUrlReference(did.getSmsUrl(), currentApplication.getFriendlyName())) {
+                    for (Sid didSid : take(smsDids, application.getFriendlyName())) {
+                        // A DID can reference different projects for each kind, updates start from its latest version
+                        synchronized (dids) {
+                            did = dids.get(didSid);
                             Sid smsApplicationSid = new Sid(applicationSid);
                             IncomingPhoneNumber updateSmsDid = new IncomingPhoneNumber(did.getSid(), did.getDateCreated(),
                                     did.getDateUpdated(), did.getFriendlyName(), did.getAccountSid(), did.getPhoneNumber(),
@@ -349,15 +395,15 @@ public class RvdProjectsMigrationHelper {
                                     did.isVoiceCapable(),
                                     did.isSmsCapable(), did.isMmsCapable(), did.isFaxCapable(), did.isPureSip(), did.getOrganizationSid());
                             didsDao.updateIncomingPhoneNumber(updateSmsDid);
-                            dids.set(i, updateSmsDid);
-                            amountUpdated++;
+                            dids.put(didSid, updateSmsDid);
                         }
+                        amountUpdated++;
                     }
                     break;
                 case USSD:
-                    for (int i = 0; i < dids.size(); i++) {
-                        did = dids.get(i);
-                        if (hasUrlReference(did.getUssdUrl(), currentApplication.getFriendlyName())) {
+                    for (Sid didSid : take(ussdDids, application.getFriendlyName())) {
+                        synchronized (dids) {
+                            did = dids.get(didSid);
                             Sid ussdApplicationSid = new Sid(applicationSid);
                             IncomingPhoneNumber updateUssdDid = new IncomingPhoneNumber(did.getSid(), did.getDateCreated(),
                                     did.getDateUpdated(), did.getFriendlyName(), did.getAccountSid(), did.getPhoneNumber(),
@@ -371,15 +417,15 @@ public class RvdProjectsMigrationHelper {
                                     did.isVoiceCapable(), did.isSmsCapable(), did.isMmsCapable(), did.isFaxCapable(),
                                     did.isPureSip(), did.getOrganizationSid());
                             didsDao.updateIncomingPhoneNumber(updateUssdDid);
-                            dids.set(i, updateUssdDid);
-                            amountUpdated++;
+                            dids.put(didSid, updateUssdDid);
                         }
+                        amountUpdated++;
                     }
                     break;
                 case VOICE:
-                    for (int i = 0; i < dids.size(); i++) {
-                        did = dids.get(i);
-                        if (hasUrlReference(did.getVoiceUrl(), currentApplication.getFriendlyName())) {
+                    for (Sid didSid : take(voiceDids, application.getFriendlyName())) {
+                        synchronized (dids) {
+                            did = dids.get(didSid);
                             Sid voiceApplicationSid = new Sid(applicationSid);
                             IncomingPhoneNumber updateVoiceDid = new IncomingPhoneNumber(did.getSid(), did.getDateCreated(),
                                     did.getDateUpdated(), did.getFriendlyName(), did.getAccountSid(), did.getPhoneNumber(),
@@ -393,60 +439,49 @@ public class RvdProjectsMigrationHelper {
                                     did.isVoiceCapable(), did.isSmsCapable(), did.isMmsCapable(), did.isFaxCapable(),
                                     did.isPureSip(), did.getOrganizationSid());
                             didsDao.updateIncomingPhoneNumber(updateVoiceDid);
-                            dids.set(i, updateVoiceDid);
-                            amountUpdated++;
+                            dids.put(didSid, updateVoiceDid);
                         }
+                        amountUpdated++;
                     }
                     break;
                 default:
                     break;
             }
-        } catch (UnsupportedEncodingException e) {
+        } catch (RuntimeException e) {
             throw new RvdProjectsMigrationException("[ERROR-CODE:9] Error while updating IncomingPhoneNumber '"
-                    + did.getSid().toString() + "' with the Application '" + applicationSid + "' "
+                    + (did == null ? null : did.getSid()) + "' with the Application '" + applicationSid + "' "
                     + e.getMessage(), 9);
         }
         return amountUpdated;
     }
 
-    private boolean hasUrlReference(URI url, String projectName) throws UnsupportedEncodingException {
+    /**
+     * @return the decoded name of the RVD project the URL points to, null if it doesn't point to a project.
+     */
+    private String projectReference(URI url) throws UnsupportedEncodingException {
         if (url != null && !url.toString().isEmpty()) {
             Matcher m = RVD_PROJECT_URL.matcher(url.toString());
             if (m.find()) {
                 String result = m.group(1);
-                result = URLDecoder.decode(result, "UTF-8");
-                return projectName.equals(result);
+                return URLDecoder.decode(result, "UTF-8");
             }
         }
-        return false;
+        return null;
     }
 
-    public int updateClients(String applicationSid, String projectName) throws RvdProjectsMigrationException {
-        try {
-            if (clients == null) {
-                clients = clientsDao.getAllClients();
-            }
-
-        } catch (Exception e) {
-            throw new RvdProjectsMigrationException(
-                    "[ERROR-CODE:10] Error while loading the Clients list for updates with project '" + applicationSid + "'. "
-                            + e.getMessage(), 10);
-        }
-        Application.Kind kind = Application.Kind.getValueOf(currentStateHeader.getProjectKind());
+    public int updateClients(String applicationSid, Application application, StateHeader stateHeader) throws RvdProjectsMigrationException {
+        Application.Kind kind = Application.Kind.getValueOf(stateHeader.getProjectKind());
         Client client = null;
         int amountUpdated = 0;
         try {
             if (kind == Application.Kind.VOICE) {
-                for (int i = 0; i < clients.size(); i++) {
-                    client = clients.get(i);
-                    if (hasUrlReference(client.getVoiceUrl(), currentApplication.getFriendlyName())) {
-                        Sid voiceApplicationSid = new Sid(applicationSid);
-                        client = client.setVoiceApplicationSid(voiceApplicationSid);
-                        client = client.setVoiceUrl(null);
-                        clientsDao.updateClient(client);
-                        clients.set(i, client);
-                        amountUpdated++;
-                    }
+                for (Client referencing : take(voiceClients, application.getFriendlyName())) {
+                    client = referencing;
+                    Sid voiceApplicationSid = new Sid(applicationSid);
+                    client = client.setVoiceApplicationSid(voiceApplicationSid);
+                    client = client.setVoiceUrl(null);
+                    clientsDao.updateClient(client);
+                    amountUpdated++;
                 }
             }
         } catch (Exception e) {
@@ -457,6 +492,41 @@ public class RvdProjectsMigrationHelper {
         return amountUpdated;
     }
 
+    /**
+     * @return the projects completed by a previous run that was interrupted, empty if there was none.
+     */
+    public Set<String> loadCheckpoint() throws RvdProjectsMigrationException {
+        File file = new File(workspacePath + File.separator + CHECKPOINT_FILE_NAME);
+        Set<String> projects = new HashSet<String>();
+        if (file.exists()) {
+            try {
+                for (String line : FileUtils.readLines(file, "UTF-8")) {
+                    if (!line.isEmpty()) {
+                        projects.add(line);
+                    }
+                }
+            } catch (IOException e) {
+                throw new RvdProjectsMigrationException("[ERROR-CODE:15] Error reading the migration checkpoint " + file
+                        + e.getMessage(), 15);
+            }
+        }
+        return projects;
+    }
+
+    public void storeCheckpoint(Collection<String> projects) throws RvdProjectsMigrationException {
+        File file = new File(workspacePath + File.separator + CHECKPOINT_FILE_NAME);
+        try {
+            FileUtils.writeLines(file, "UTF-8", projects, true);
+        } catch (IOException e) {
+            throw new RvdProjectsMigrationException("[ERROR-CODE:15] Error writing the migration checkpoint " + file
+                    + e.getMessage(), 15);
+        }
+    }
+
+    public void clearCheckpoint() {
+        FileUtils.deleteQuietly(new File(workspacePath + File.separator + CHECKPOINT_FILE_NAME));
+    }
+
     public void storeWorkspaceStatus(boolean migrationSucceeded) throws RvdProjectsMigrationException {
         String pathName = workspacePath + File.separator + ".version";
         File file = new File(pathName);
@@ -529,6 +599,14 @@ public class RvdProjectsMigrationHelper {
         return value;
     }
 
+    public int getMigrationThreads() {
+        return configuration.subset("runtime-settings").getInt("rvd-workspace-migration-threads", 4);
+    }
+
+    public int getMigrationBatchSize() {
+        return configuration.subset("runtime-settings").getInt("rvd-workspace-migration-batch-size", 100);
+    }
+
     public void sendEmailNotification(String message, boolean migrationSucceeded) throws RvdProjectsMigrationException {
         String host = configuration.subset("smtp-notify").getString("host");
         String username = configuration.subset("smtp-notify").getString("user");
@@ -627,7 +705,7 @@ public class RvdProjectsMigrationHelper {
         }
     }
 
-    private class StateHeader {
+    static class StateHeader {
         // application logging settings for this project. If not null logging is enabled.
         // We are using an object instead of a boolean to easily add properties in the future
         public class Logging {
@@ -26,17 +26,31 @@ import org.apache.log4j.Logger;
 import org.joda.time.DateTimeZone;
 import org.joda.time.LocalDateTime;
 
+import org.restcomm.connect.application.RvdProjectsMigrationHelper.StateHeader;
+import org.restcomm.connect.dao.entities.Application;
+
 import javax.servlet.ServletContext;
 import java.io.File;
 import java.io.FileWriter;
 import java.net.URISyntaxException;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The goal of this class is to generate an Application entity inside the database for each RVD project located inside its
  * workspace. Also, apply the new naming convention on project directories inside the workspace, based on a new
  * {@link Sid.Type.PROJECT} generated to each entry.
+ * <p>
+ * Projects are migrated in batches by a bounded pool of threads. Each completed batch is recorded in a checkpoint inside
+ * the workspace, so a migration interrupted by a restart resumes with the projects that were not migrated yet.
  *
  * @author guilherme.jansen@telestax.com
  */
@@ -53,19 +67,26 @@ public class RvdProjectsMigrator {
     private int projectsProcessed;
     private int projectsSuccess;
     private int projectsError;
-    private int updatedDids;
-    private int updatedClients;
+    private int projectsSkipped;
+    private final AtomicInteger updatedDids;
+    private final AtomicInteger updatedClients;
 
     public RvdProjectsMigrator(ServletContext servletContext, Configuration configuration) throws Exception {
-        this.migrationHelper = new RvdProjectsMigrationHelper(servletContext, configuration);
+        this(new RvdProjectsMigrationHelper(servletContext, configuration),
+                servletContext.getRealPath("/") + "../../../"); // Equivalent to RESTCOMM_HOME
+    }
+
+    RvdProjectsMigrator(RvdProjectsMigrationHelper migrationHelper, String logPath) {
+        this.migrationHelper = migrationHelper;
         this.migrationSucceeded = true;
-        this.logPath = servletContext.getRealPath("/") + "../../../"; // Equivalent to RESTCOMM_HOME
+        this.logPath = logPath;
         this.errorCode = 0;
         this.projectsProcessed = 0;
         this.projectsSuccess = 0;
         this.projectsError = 0;
-        this.updatedDids = 0;
-        this.updatedClients = 0;
+        this.projectsSkipped = 0;
+        this.updatedDids = new AtomicInteger();
+        this.updatedClients = new AtomicInteger();
     }
 
     public void executeMigration() throws Exception {
@@ -78,11 +99,15 @@ public class RvdProjectsMigrator {
         }
         storeNewMessage("Starting workspace migration at " + beginning, true, true, true, false);
         storeNewMessage(separator, false, true, false, false);
+        Set<String> migrated;
         try {
-            if (!migrationHelper.isEmbeddedMigration()) {
+            migrated = migrationHelper.loadCheckpoint();
+            // The backup of an interrupted migration already holds the original workspace
+            if (!migrationHelper.isEmbeddedMigration() && migrated.isEmpty()) {
                 backupWorkspace();
             }
             loadProjectsList();
+            migrationHelper.loadReferences();
         } catch (RvdProjectsMigrationException e) {
             migrationSucceeded = false;
             errorCode = e.getErrorCode();
@@ -94,66 +119,113 @@ public class RvdProjectsMigrator {
             }
             throw e;
         }
+        List<String> pending = new ArrayList<String>(projectNames.size());
         for (String projectName : projectNames) {
-            try {
-                // Load Project State Header
-                migrationHelper.loadProjectState(projectName);
-
-                // Check if this project is already synchronized with a application
-                String applicationSid = searchApplicationSid(projectName);
-
-                // Synchronize with application entity if needed
-                applicationSid = synchronizeApplicationEntity(applicationSid, projectName);
-
-                // Rename Project
-                migrateNamingConvention(projectName, applicationSid);
-
-                // Update IncomingPhoneNumbers
-                updateIncomingPhoneNumbers(applicationSid, projectName);
-
-                // Update Clients
-                updateClients(applicationSid, projectName);
+            if (!migrated.contains(projectName)) {
+                pending.add(projectName);
+            }
+        }
+        projectsSkipped = projectNames.size() - pending.size();
+        if (projectsSkipped > 0) {
+            storeNewMessage("Resuming workspace migration, " + projectsSkipped + " Projects already migrated. Skipped", true,
+                    true, false, false);
+            storeNewMessage(separator, false, true, false, false);
+        }
+        int batchSize = Math.max(1, migrationHelper.getMigrationBatchSize());
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, migrationHelper.getMigrationThreads()));
+        try {
+            for (int from = 0; from < pending.size(); from += batchSize) {
+                migrateBatch(executor, pending.subList(from, Math.min(from + batchSize, pending.size())));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        try {
+            storeMigrationStatus();
+        } catch (Exception e) {
+            storeNewMessage("[ERROR-CODE:2] Error while storing workspace status " + e, true, true, false, true);
+            throw e;
+        }
+    }
 
+    private void migrateBatch(ExecutorService executor, List<String> batch) throws Exception {
+        List<Future<String>> results = new ArrayList<Future<String>>(batch.size());
+        for (final String projectName : batch) {
+            results.add(executor.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    return migrateProject(projectName);
+                }
+            }));
+        }
+        List<String> checkpoint = new ArrayList<String>();
+        for (int i = 0; i < batch.size(); i++) {
+            String projectName = batch.get(i);
+            try {
+                String migratedName = results.get(i).get();
+                // The project is listed under its new name by the next run
+                checkpoint.add(projectName);
+                if (!projectName.equals(migratedName)) {
+                    checkpoint.add(migratedName);
+                }
                 projectsSuccess++;
-            } catch (RvdProjectsMigrationException e) {
+            } catch (ExecutionException e) {
+                if (!(e.getCause() instanceof RvdProjectsMigrationException)) {
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
                 migrationSucceeded = false;
                 if (errorCode == 0) { // Keep the first error only
-                    errorCode = e.getErrorCode();
+                    errorCode = ((RvdProjectsMigrationException) e.getCause()).getErrorCode();
                 }
                 projectsError++;
-                storeNewMessage("Error while migrating project '" + projectName + "' " + e.getMessage(), false, true, false,
-                        true);
+                storeNewMessage("Error while migrating project '" + projectName + "' " + e.getCause().getMessage(), false,
+                        true, false, true);
             }
             projectsProcessed++;
             storeNewMessage(separator, false, true, false, false);
         }
-        try {
-            storeMigrationStatus();
-        } catch (Exception e) {
-            storeNewMessage("[ERROR-CODE:2] Error while storing workspace status " + e, true, true, false, true);
-            throw e;
-        }
+        // Failed projects are left out so that they are retried
+        migrationHelper.storeCheckpoint(checkpoint);
     }
 
-    private void loadProjectsList() throws Exception {
-        this.projectNames = migrationHelper.listProjects();
+    private String migrateProject(String projectName) throws RvdProjectsMigrationException, URISyntaxException {
+        // Load Project State Header
+        StateHeader stateHeader = migrationHelper.loadProjectState(projectName);
+
+        // Check if this project is already synchronized with a application
+        Application application = migrationHelper.searchApplication(projectName);
+
+        // Synchronize with application entity if needed
+        application = synchronizeApplicationEntity(application, stateHeader, projectName);
+        String applicationSid = application.getSid().toString();
+
+        // Rename Project
+        migrateNamingConvention(projectName, applicationSid);
+
+        // Update IncomingPhoneNumbers
+        updateIncomingPhoneNumbers(applicationSid, application, stateHeader);
+
+        // Update Clients
+        updateClients(applicationSid, application, stateHeader);
+
+        return applicationSid;
     }
 
-    private String searchApplicationSid(String projectName) throws RvdProjectsMigrationException {
-        return migrationHelper.searchApplicationSid(projectName);
+    private void loadProjectsList() throws Exception {
+        this.projectNames = migrationHelper.listProjects();
     }
 
-    private String synchronizeApplicationEntity(String applicationSid, String projectName)
+    private Application synchronizeApplicationEntity(Application application, StateHeader stateHeader, String projectName)
             throws RvdProjectsMigrationException, URISyntaxException {
-        if (!projectName.equals(applicationSid)) {
-            applicationSid = migrationHelper.createOrUpdateApplicationEntity(applicationSid, projectName);
-            storeNewMessage("Project '" + projectName + "' synchronized with Application '" + applicationSid + "'", false,
-                    true, false, false);
+        if (application == null || !projectName.equals(application.getSid().toString())) {
+            application = migrationHelper.createOrUpdateApplicationEntity(application, stateHeader, projectName);
+            storeNewMessage("Project '" + projectName + "' synchronized with Application '" + application.getSid() + "'",
+                    false, true, false, false);
         } else {
-            storeNewMessage("Project '" + projectName + "' previously synchronized with Application '" + applicationSid
+            storeNewMessage("Project '" + projectName + "' previously synchronized with Application '" + application.getSid()
                     + "'. Skipped", false, true, false, false);
         }
-        return applicationSid;
+        return application;
     }
 
     private void migrateNamingConvention(String projectName, String applicationSid) throws RvdProjectsMigrationException,
@@ -168,25 +240,26 @@ public class RvdProjectsMigrator {
     }
 
 
-    private void updateIncomingPhoneNumbers(String applicationSid, String projectName) throws RvdProjectsMigrationException,
-            URISyntaxException {
-        int amountUpdated = migrationHelper.updateIncomingPhoneNumbers(applicationSid, projectName);
+    private void updateIncomingPhoneNumbers(String applicationSid, Application application, StateHeader stateHeader)
+            throws RvdProjectsMigrationException, URISyntaxException {
+        int amountUpdated = migrationHelper.updateIncomingPhoneNumbers(applicationSid, application, stateHeader);
         if (amountUpdated > 0) {
             storeNewMessage("Updated " + amountUpdated + " IncomingPhoneNumbers with Application '" + applicationSid + "'",
                     false, true, false, false);
-            updatedDids += amountUpdated;
+            updatedDids.addAndGet(amountUpdated);
         } else {
             storeNewMessage("No IncomingPhoneNumbers found to update with Application '" + applicationSid + "'. Skipped",
                     false, true, false, false);
         }
     }
 
-    private void updateClients(String applicationSid, String projectName) throws RvdProjectsMigrationException, URISyntaxException {
-        int amountUpdated = migrationHelper.updateClients(applicationSid, projectName);
+    private void updateClients(String applicationSid, Application application, StateHeader stateHeader)
+            throws RvdProjectsMigrationException, URISyntaxException {
+        int amountUpdated = migrationHelper.updateClients(applicationSid, application, stateHeader);
         if (amountUpdated > 0) {
             storeNewMessage("Updated " + amountUpdated + " Clients with Application '" + applicationSid + "'", false, true,
                     false, false);
-            updatedClients += amountUpdated;
+            updatedClients.addAndGet(amountUpdated);
         } else {
             storeNewMessage("No Clients found to update with Application '" + applicationSid + "'. Skipped", false, true,
                     false, false);
@@ -195,11 +268,13 @@ public class RvdProjectsMigrator {
 
     private void storeMigrationStatus() throws RvdProjectsMigrationException, URISyntaxException {
         migrationHelper.storeWorkspaceStatus(migrationSucceeded);
+        migrationHelper.clearCheckpoint();
         String end = getTimeStamp();
         if (!migrationSucceeded) {
             String message = "Workspace migration finished with errors at " + end;
             message += ". Status: " + projectsProcessed + " Projects processed (";
-            message += projectsSuccess + " with success and " + projectsError + " with error), ";
+            message += projectsSuccess + " with success, " + projectsError + " with error and " + projectsSkipped
+                    + " skipped from a previous run), ";
             message += updatedDids + " IncomingPhoneNumbers and " + updatedClients + " Clients updated";
             storeNewMessage(message, true, true, true, true);
             storeNewMessage(separator, false, true, false, false);
@@ -207,7 +282,8 @@ public class RvdProjectsMigrator {
         } else {
             String message = "Workspace migration finished with success at " + end;
             message += ". Status: " + projectsProcessed + " Projects processed (";
-            message += projectsSuccess + " with success and " + projectsError + " with error), ";
+            message += projectsSuccess + " with success, " + projectsError + " with error and " + projectsSkipped
+                    + " skipped from a previous run), ";
             message += updatedDids + " IncomingPhoneNumbers and " + updatedClients + " Clients updated";
             storeNewMessage(message, true, true, true, false);
             storeNewMessage(separator, false, true, false, false);
@@ -215,7 +291,7 @@ public class RvdProjectsMigrator {
         }
     }
 
-    private void storeNewMessage(String message, boolean asServerLog, boolean asMigrationLog, boolean asNotification,
+    private synchronized void storeNewMessage(String message, boolean asServerLog, boolean asMigrationLog, boolean asNotification,
             boolean error) throws RvdProjectsMigrationException, URISyntaxException {
         // Write to server log
         if (asServerLog) {
@@ -0,0 +1,172 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.application;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Runs the startup steps of the node as a dependency graph. A step is submitted as soon as every step it depends on
+ * has completed, so independent steps run concurrently, and {@link #run()} returns once all of them are done.
+ * Background steps are only started after that, while the node already takes traffic.
+ * <p>
+ * A failing step is logged and counts as completed, the steps depending on it still run as they did when startup
+ * was sequential.
+ */
+final class StartupGraph {
+    private static final Logger logger = Logger.getLogger(StartupGraph.class);
+
+    interface Step {
+        void run() throws Exception;
+    }
+
+    private static final class Node {
+        private final String name;
+        private final Step step;
+        private final List<Node> dependents;
+        private final AtomicInteger pending;
+
+        private Node(final String name, final Step step, final int dependencies) {
+            this.name = name;
+            this.step = step;
+            this.dependents = new ArrayList<Node>();
+            this.pending = new AtomicInteger(dependencies);
+        }
+    }
+
+    private final Map<String, Node> nodes;
+    private final Map<String, Step> background;
+    private final ExecutorService executor;
+    private CountDownLatch remaining;
+
+    StartupGraph(final int threads) {
+        super();
+        this.nodes = new LinkedHashMap<String, Node>();
+        this.background = new LinkedHashMap<String, Step>();
+        final AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "restcomm-startup-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * @param dependencies steps that must complete first, they have to be added before this one so the graph can't
+     *        hold a cycle.
+     */
+    void add(final String name, final Step step, final String... dependencies) {
+        if (nodes.containsKey(name)) {
+            throw new IllegalArgumentException("Startup step " + name + " is already defined");
+        }
+        final Node node = new Node(name, step, dependencies.length);
+        for (final String dependency : dependencies) {
+            final Node required = nodes.get(dependency);
+            if (required == null) {
+                throw new IllegalArgumentException("Startup step " + name + " depends on unknown step " + dependency);
+            }
+            required.dependents.add(node);
+        }
+        nodes.put(name, node);
+    }
+
+    /**
+     * Adds a step started once every other step completed, without {@link #run()} waiting for it.
+     */
+    void addBackground(final String name, final Step step) {
+        background.put(name, step);
+    }
+
+    void run() throws InterruptedException {
+        final long started = System.currentTimeMillis();
+        remaining = new CountDownLatch(nodes.size());
+        for (final Node node : nodes.values()) {
+            if (node.pending.get() == 0) {
+                submit(node);
+            }
+        }
+        remaining.await();
+        if (logger.isInfoEnabled()) {
+            logger.info("Startup completed in " + (System.currentTimeMillis() - started) + "ms, " + background.size()
+                    + " steps left running in the background");
+        }
+        for (final Map.Entry<String, Step> entry : background.entrySet()) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    execute(entry.getKey(), entry.getValue());
+                }
+            });
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Interrupts the background steps still running, on undeploy.
+     */
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void submit(final Node node) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    execute(node.name, node.step);
+                } finally {
+                    for (final Node dependent : node.dependents) {
+                        if (dependent.pending.decrementAndGet() == 0) {
+                            submit(dependent);
+                        }
+                    }
+                    remaining.countDown();
+                }
+            }
+        });
+    }
+
+    private static void execute(final String name, final Step step) {
+        final long started = System.currentTimeMillis();
+        try {
+            step.run();
+        } catch (final Exception exception) {
+            logger.error("Startup step " + name + " failed", exception);
+        } catch (final Error error) {
+            logger.error("Startup step " + name + " failed", error);
+            throw error;
+        }
+        if (logger.isInfoEnabled()) {
+            logger.info("Startup step " + name + " took " + (System.currentTimeMillis() - started) + "ms");
+        }
+    }
+}
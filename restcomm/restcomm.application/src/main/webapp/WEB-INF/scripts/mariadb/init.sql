@@ -419,6 +419,32 @@ date_created DATETIME NOT NULL,
 date_updated DATETIME NOT NULL
 );
 
+CREATE TABLE restcomm_dao_cache_versions (
+region VARCHAR(64) NOT NULL PRIMARY KEY,
+version BIGINT NOT NULL
+);
+
+CREATE TABLE restcomm_usage_rollups (
+account_sid VARCHAR(34) NOT NULL,
+source VARCHAR(16) NOT NULL,
+usage_day DATE NOT NULL,
+api_version VARCHAR(10) NOT NULL,
+record_count BIGINT NOT NULL,
+usage_total BIGINT,
+price_total DOUBLE,
+PRIMARY KEY (account_sid, source, usage_day, api_version)
+);
+
+CREATE TABLE restcomm_usage_rollup_watermarks (
+source VARCHAR(16) NOT NULL PRIMARY KEY,
+rolled_up_until DATE NOT NULL
+);
+
+CREATE TABLE restcomm_call_detail_records_archive LIKE restcomm_call_detail_records;
+CREATE TABLE restcomm_sms_messages_archive LIKE restcomm_sms_messages;
+CREATE TABLE restcomm_notifications_archive LIKE restcomm_notifications;
+CREATE TABLE restcomm_recordings_archive LIKE restcomm_recordings;
+
 INSERT INTO restcomm_organizations VALUES(
 "ORafbe225ad37541eba518a74248f0ac4c",
 "default.restcomm.com",
@@ -0,0 +1,6 @@
+-- Adds the retention archive tables to a database created before they were part of init.sql.
+-- Safe to run more than once.
+CREATE TABLE IF NOT EXISTS restcomm_call_detail_records_archive LIKE restcomm_call_detail_records;
+CREATE TABLE IF NOT EXISTS restcomm_sms_messages_archive LIKE restcomm_sms_messages;
+CREATE TABLE IF NOT EXISTS restcomm_notifications_archive LIKE restcomm_notifications;
+CREATE TABLE IF NOT EXISTS restcomm_recordings_archive LIKE restcomm_recordings;
@@ -0,0 +1,6 @@
+-- Adds the DAO cache version table to a database created before it was part of init.sql.
+-- Safe to run more than once.
+CREATE TABLE IF NOT EXISTS restcomm_dao_cache_versions (
+region VARCHAR(64) NOT NULL PRIMARY KEY,
+version BIGINT NOT NULL
+);
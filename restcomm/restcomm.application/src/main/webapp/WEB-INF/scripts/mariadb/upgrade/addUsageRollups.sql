@@ -0,0 +1,17 @@
+-- Adds the daily usage rollup tables to a database created before they were part of init.sql.
+-- Safe to run more than once.
+CREATE TABLE IF NOT EXISTS restcomm_usage_rollups (
+account_sid VARCHAR(34) NOT NULL,
+source VARCHAR(16) NOT NULL,
+usage_day DATE NOT NULL,
+api_version VARCHAR(10) NOT NULL,
+record_count BIGINT NOT NULL,
+usage_total BIGINT,
+price_total DOUBLE,
+PRIMARY KEY (account_sid, source, usage_day, api_version)
+);
+
+CREATE TABLE IF NOT EXISTS restcomm_usage_rollup_watermarks (
+source VARCHAR(16) NOT NULL PRIMARY KEY,
+rolled_up_until DATE NOT NULL
+);
@@ -0,0 +1,200 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.application;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.servlet.ServletContext;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.restcomm.connect.application.RvdProjectsMigrationHelper.StateHeader;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.dao.DaoManager;
+import org.restcomm.connect.dao.entities.Application;
+
+/**
+ * Runs the migrator over an embedded workspace of four projects migrated two by two. Only the checkpoint and status
+ * files are real, the DB side of every project is stubbed.
+ */
+public class RvdProjectsMigratorTest {
+    private static final List<String> PROJECTS = Arrays.asList("project0", "project1", "project2", "project3");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File root;
+    private File workspace;
+
+    @Before
+    public void before() throws Exception {
+        root = folder.newFolder("restcomm.war");
+        workspace = new File(root, "workspace-migration" + File.separator + "workspace");
+        final long now = System.currentTimeMillis();
+        for (int i = 0; i < PROJECTS.size(); i++) {
+            final File project = new File(workspace, PROJECTS.get(i));
+            assertTrue(project.mkdirs());
+            // The workspace is listed most recently modified first
+            assertTrue(project.setLastModified(now - i * 60000L));
+        }
+    }
+
+    private RvdProjectsMigrationHelper helper(final Set<String> crashing, final Set<String> refused) throws Exception {
+        final ServletContext context = mock(ServletContext.class);
+        when(context.getRealPath("/")).thenReturn(root.getAbsolutePath() + File.separator);
+        when(context.getAttribute(DaoManager.class.getName())).thenReturn(mock(DaoManager.class));
+        final BaseConfiguration configuration = new BaseConfiguration();
+        configuration.setProperty("runtime-settings.rvd-workspace-migration-threads", 2);
+        configuration.setProperty("runtime-settings.rvd-workspace-migration-batch-size", 2);
+
+        final RvdProjectsMigrationHelper helper = spy(new RvdProjectsMigrationHelper(context, configuration));
+        doNothing().when(helper).loadReferences();
+        doReturn(new StateHeader("voice", "start", "1.5")).when(helper).loadProjectState(anyString());
+        doReturn(null).when(helper).searchApplication(anyString());
+        doAnswer(new Answer<Application>() {
+            @Override
+            public Application answer(InvocationOnMock invocation) throws Throwable {
+                final String projectName = invocation.getArgument(2);
+                if (crashing.contains(projectName)) {
+                    throw new IllegalStateException("storage went away");
+                }
+                if (refused.contains(projectName)) {
+                    throw new RvdProjectsMigrationException("project " + projectName + " refused", 6);
+                }
+                final Application.Builder builder = Application.builder();
+                builder.setSid(Sid.generate(Sid.Type.APPLICATION));
+                builder.setFriendlyName(projectName);
+                return builder.build();
+            }
+        }).when(helper).createOrUpdateApplicationEntity((Application) any(), (StateHeader) any(), anyString());
+        doNothing().when(helper).renameProjectUsingNewConvention(anyString(), anyString());
+        doReturn(0).when(helper).updateIncomingPhoneNumbers(anyString(), (Application) any(), (StateHeader) any());
+        doReturn(0).when(helper).updateClients(anyString(), (Application) any(), (StateHeader) any());
+        doNothing().when(helper).addNotification(anyString(), anyBoolean(), (Integer) any());
+        return helper;
+    }
+
+    private RvdProjectsMigrator migrator(final RvdProjectsMigrationHelper helper) {
+        return new RvdProjectsMigrator(helper, root.getAbsolutePath() + File.separator);
+    }
+
+    private File checkpoint() {
+        return new File(workspace, ".migration-checkpoint");
+    }
+
+    private File status() {
+        return new File(workspace, ".version");
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Collection<String>> checkpoints(final RvdProjectsMigrationHelper helper, final int batches) throws Exception {
+        final ArgumentCaptor<Collection> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(helper, times(batches)).storeCheckpoint(captor.capture());
+        return (List<Collection<String>>) (List<?>) captor.getAllValues();
+    }
+
+    @Test
+    public void everyBatchIsCheckpointed() throws Exception {
+        final RvdProjectsMigrationHelper helper = helper(Collections.<String>emptySet(), Collections.<String>emptySet());
+
+        migrator(helper).executeMigration();
+
+        final List<Collection<String>> batches = checkpoints(helper, 2);
+        assertTrue(batches.get(0).containsAll(PROJECTS.subList(0, 2)));
+        assertTrue(batches.get(1).containsAll(PROJECTS.subList(2, 4)));
+        // Projects are checkpointed under their old and new names
+        assertEquals(4, batches.get(0).size());
+        assertFalse(checkpoint().exists());
+        assertTrue(status().exists());
+    }
+
+    @Test
+    public void interruptedMigrationResumesAfterLastBatch() throws Exception {
+        final RvdProjectsMigrationHelper interrupted = helper(new HashSet<String>(Arrays.asList("project2")),
+                Collections.<String>emptySet());
+        try {
+            migrator(interrupted).executeMigration();
+            fail("The migration should have stopped on the second batch");
+        } catch (IllegalStateException expected) {
+        }
+        final List<String> completed = FileUtils.readLines(checkpoint(), "UTF-8");
+        assertTrue(completed.containsAll(PROJECTS.subList(0, 2)));
+        assertFalse(completed.contains("project2"));
+        assertFalse(completed.contains("project3"));
+        assertFalse(status().exists());
+
+        final RvdProjectsMigrationHelper resumed = helper(Collections.<String>emptySet(), Collections.<String>emptySet());
+        migrator(resumed).executeMigration();
+
+        verify(resumed, never()).createOrUpdateApplicationEntity((Application) any(), (StateHeader) any(), eq("project0"));
+        verify(resumed, never()).createOrUpdateApplicationEntity((Application) any(), (StateHeader) any(), eq("project1"));
+        verify(resumed).createOrUpdateApplicationEntity((Application) any(), (StateHeader) any(), eq("project2"));
+        verify(resumed).createOrUpdateApplicationEntity((Application) any(), (StateHeader) any(), eq("project3"));
+        assertTrue(checkpoints(resumed, 1).get(0).containsAll(PROJECTS.subList(2, 4)));
+        assertFalse(checkpoint().exists());
+        assertTrue(status().exists());
+    }
+
+    @Test
+    public void failedProjectIsLeftOutOfTheCheckpoint() throws Exception {
+        final RvdProjectsMigrationHelper helper = helper(Collections.<String>emptySet(),
+                new HashSet<String>(Arrays.asList("project1")));
+
+        migrator(helper).executeMigration();
+
+        final List<Collection<String>> batches = checkpoints(helper, 2);
+        assertTrue(batches.get(0).contains("project0"));
+        assertFalse(batches.get(0).contains("project1"));
+        assertTrue(batches.get(1).containsAll(PROJECTS.subList(2, 4)));
+        verify(helper).addNotification(anyString(), eq(false), eq(6));
+        assertTrue(FileUtils.readFileToString(status(), "UTF-8").contains("\"status\":false"));
+    }
+}
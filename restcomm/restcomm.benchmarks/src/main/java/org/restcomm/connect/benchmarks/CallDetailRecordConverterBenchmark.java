@@ -0,0 +1,172 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.benchmarks;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.dao.entities.CallDetailRecord;
+import org.restcomm.connect.dao.entities.CallDetailRecordList;
+import org.restcomm.connect.dao.entities.RestCommResponse;
+import org.restcomm.connect.http.converter.CallDetailRecordConverter;
+import org.restcomm.connect.http.converter.CallDetailRecordListConverter;
+import org.restcomm.connect.http.converter.PagingContext;
+import org.restcomm.connect.http.converter.RestCommResponseConverter;
+import org.restcomm.connect.http.converter.StreamingListWriter;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.thoughtworks.xstream.XStream;
+
+/**
+ * Measures the JSON and XML rendering of a Calls list resource, wired the same way as the CallsEndpoint, both into
+ * an in memory String and streamed through a {@link StreamingListWriter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CallDetailRecordConverterBenchmark {
+    private static final String API_VERSION = "2012-04-24";
+
+    @Param({"50", "1000", "10000"})
+    private int size;
+
+    private Gson gson;
+    private XStream xstream;
+    private CallDetailRecordList list;
+    private StreamingListWriter listWriter;
+    private PagingContext paging;
+
+    @Setup
+    public void setup() {
+        final Configuration configuration = new BaseConfiguration();
+        configuration.setProperty("api-version", API_VERSION);
+        final CallDetailRecordConverter converter = new CallDetailRecordConverter(configuration);
+        final CallDetailRecordListConverter listConverter = new CallDetailRecordListConverter(configuration);
+        final GsonBuilder builder = new GsonBuilder();
+        builder.registerTypeAdapter(CallDetailRecord.class, converter);
+        builder.registerTypeAdapter(CallDetailRecordList.class, listConverter);
+        builder.setPrettyPrinting();
+        gson = builder.create();
+        xstream = new XStream();
+        xstream.alias("RestcommResponse", RestCommResponse.class);
+        xstream.registerConverter(converter);
+        xstream.registerConverter(new RestCommResponseConverter(configuration));
+        xstream.registerConverter(listConverter);
+
+        final Sid account = Sid.generate(Sid.Type.ACCOUNT);
+        final DateTime now = DateTime.now();
+        final List<CallDetailRecord> cdrs = new ArrayList<CallDetailRecord>(size);
+        for (int i = 0; i < size; i++) {
+            final Sid sid = Sid.generate(Sid.Type.CALL);
+            final CallDetailRecord.Builder cdr = CallDetailRecord.builder();
+            cdr.setSid(sid);
+            cdr.setInstanceId(Sid.generate(Sid.Type.INSTANCE).toString());
+            cdr.setDateCreated(now.minusMinutes(i));
+            cdr.setAccountSid(account);
+            cdr.setTo("+1305587" + String.format("%04d", i % 10000));
+            cdr.setFrom("+15126002188");
+            cdr.setPhoneNumberSid(Sid.generate(Sid.Type.PHONE_NUMBER));
+            cdr.setStatus("completed");
+            cdr.setStartTime(now.minusMinutes(i));
+            cdr.setEndTime(now.minusMinutes(i).plusSeconds(95));
+            cdr.setDuration(95);
+            cdr.setPrice(new BigDecimal("0.0150"));
+            cdr.setPriceUnit(Currency.getInstance("USD"));
+            cdr.setDirection("inbound");
+            cdr.setAnsweredBy("human");
+            cdr.setApiVersion(API_VERSION);
+            cdr.setCallerName("alice");
+            cdr.setUri(URI.create("/" + API_VERSION + "/Accounts/" + account + "/Calls/" + sid));
+            cdr.setCallPath("/user/VoiceInterpreter-" + i);
+            cdr.setMuted(false);
+            cdr.setStartConferenceOnEnter(false);
+            cdr.setEndConferenceOnExit(false);
+            cdr.setOnHold(false);
+            cdrs.add(cdr.build());
+        }
+        list = new CallDetailRecordList(cdrs);
+        listWriter = new StreamingListWriter(gson, xstream);
+        paging = new PagingContext(0, size, size, "/" + API_VERSION + "/Accounts/" + account + "/Calls", size,
+                cdrs.get(size - 1).getSid());
+    }
+
+    @Benchmark
+    public String json() {
+        return gson.toJson(list);
+    }
+
+    @Benchmark
+    public String xml() {
+        return xstream.toXML(new RestCommResponse(list));
+    }
+
+    @Benchmark
+    public long streamingJson() throws IOException {
+        final CountingOutputStream out = new CountingOutputStream();
+        listWriter.json("calls", CallDetailRecord.class, list.getCallDetailRecords(), paging).write(out);
+        return out.count;
+    }
+
+    @Benchmark
+    public long streamingXml() throws IOException {
+        final CountingOutputStream out = new CountingOutputStream();
+        listWriter.xml(new RestCommResponse(list), paging).write(out);
+        return out.count;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(final int b) {
+            count++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            count += len;
+        }
+    }
+}
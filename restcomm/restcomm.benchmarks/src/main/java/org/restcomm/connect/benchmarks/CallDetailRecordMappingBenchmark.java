@@ -0,0 +1,206 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.dao.DaoUtils;
+import org.restcomm.connect.dao.entities.CallDetailRecord;
+import org.restcomm.connect.dao.mybatis.MybatisCallDetailRecordsDao;
+
+/**
+ * Rows per second read back through the call detail records DAO with its typed constructor result map, against
+ * the hash map rows converted by hand that the DAO used before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CallDetailRecordMappingBenchmark {
+    private static final int ROWS = 2000;
+    private static final String TABLE = "CREATE MEMORY TABLE \"restcomm_call_detail_records\"(\"sid\" VARCHAR(1000) NOT NULL PRIMARY KEY,"
+            + "\"parent_call_sid\" VARCHAR(1000),\"date_created\" DATETIME NOT NULL,\"date_updated\" DATETIME NOT NULL,"
+            + "\"account_sid\" VARCHAR(34) NOT NULL,\"sender\" VARCHAR(255) NOT NULL,\"recipient\" VARCHAR(64) NOT NULL,"
+            + "\"phone_number_sid\" VARCHAR(34),\"status\" VARCHAR(20) NOT NULL,\"start_time\" DATETIME,\"end_time\" DATETIME,"
+            + "\"duration\" INTEGER,\"price\" VARCHAR(8),\"direction\" VARCHAR(20) NOT NULL,\"answered_by\" VARCHAR(64),"
+            + "\"api_version\" VARCHAR(10) NOT NULL,\"forwarded_from\" VARCHAR(30),\"caller_name\" VARCHAR(50),"
+            + "\"uri\" LONGVARCHAR NOT NULL,\"call_path\" VARCHAR(255),\"ring_duration\" INTEGER,\"instanceid\" VARCHAR(255) NOT NULL,"
+            + "\"conference_sid\" VARCHAR(34),\"muted\" BOOLEAN,\"start_conference_on_enter\" BOOLEAN,"
+            + "\"end_conference_on_exit\" BOOLEAN,\"on_hold\" BOOLEAN,\"ms_id\" VARCHAR(34))";
+
+    private SqlSessionFactory sessions;
+    private MybatisCallDetailRecordsDao dao;
+    private Sid account;
+
+    @Setup
+    public void setup() throws IOException, SQLException {
+        final InputStream config = getClass().getResourceAsStream("/mybatis.xml");
+        try {
+            sessions = new SqlSessionFactoryBuilder().build(config);
+        } finally {
+            config.close();
+        }
+        final SqlSession session = sessions.openSession();
+        try {
+            final Statement statement = session.getConnection().createStatement();
+            try {
+                statement.execute("DROP TABLE \"restcomm_call_detail_records\" IF EXISTS");
+                statement.execute(TABLE);
+            } finally {
+                statement.close();
+            }
+            session.commit();
+        } finally {
+            session.close();
+        }
+        dao = new MybatisCallDetailRecordsDao(sessions);
+        account = Sid.generate(Sid.Type.ACCOUNT);
+        final DateTime now = DateTime.now();
+        for (int i = 0; i < ROWS; i++) {
+            final Sid sid = Sid.generate(Sid.Type.CALL);
+            final CallDetailRecord.Builder cdr = CallDetailRecord.builder();
+            cdr.setSid(sid);
+            cdr.setInstanceId(Sid.generate(Sid.Type.INSTANCE).toString());
+            cdr.setDateCreated(now.minusMinutes(i));
+            cdr.setAccountSid(account);
+            cdr.setTo("+1305587" + String.format("%04d", i % 10000));
+            cdr.setFrom("+15126002188");
+            cdr.setPhoneNumberSid(Sid.generate(Sid.Type.PHONE_NUMBER));
+            cdr.setStatus("completed");
+            cdr.setStartTime(now.minusMinutes(i));
+            cdr.setEndTime(now.minusMinutes(i).plusSeconds(95));
+            cdr.setDuration(95);
+            cdr.setPrice(new BigDecimal("0.0150"));
+            cdr.setDirection("inbound");
+            cdr.setApiVersion("2012-04-24");
+            cdr.setCallerName("alice");
+            cdr.setUri(URI.create("/2012-04-24/Accounts/" + account + "/Calls/" + sid));
+            cdr.setCallPath("/user/VoiceInterpreter-" + i);
+            cdr.setMuted(false);
+            cdr.setStartConferenceOnEnter(false);
+            cdr.setEndConferenceOnExit(false);
+            cdr.setOnHold(false);
+            dao.addCallDetailRecord(cdr.build());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        final SqlSession session = sessions.openSession();
+        try {
+            final Statement statement = session.getConnection().createStatement();
+            try {
+                statement.execute("SHUTDOWN");
+            } finally {
+                statement.close();
+            }
+        } finally {
+            session.close();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<CallDetailRecord> typed() {
+        return dao.getCallDetailRecordsByAccountSid(account);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<CallDetailRecord> hashMap() {
+        final SqlSession session = sessions.openSession();
+        try {
+            final List<Map<String, Object>> results = session.selectList(
+                    "org.restcomm.connect.benchmarks.HashMapCallDetailRecords.getCallDetailRecords", account.toString());
+            final List<CallDetailRecord> cdrs = new ArrayList<CallDetailRecord>();
+            for (final Map<String, Object> result : results) {
+                cdrs.add(toCallDetailRecord(result));
+            }
+            return cdrs;
+        } finally {
+            session.close();
+        }
+    }
+
+    private static CallDetailRecord toCallDetailRecord(final Map<String, Object> map) {
+        final String msId = DaoUtils.readString(map.get("ms_id"));
+        final Sid sid = DaoUtils.readSid(map.get("sid"));
+        final String instanceId = DaoUtils.readString(map.get("instanceid"));
+        final Sid parentCallSid = DaoUtils.readSid(map.get("parent_call_sid"));
+        final Sid conferenceSid = DaoUtils.readSid(map.get("conference_sid"));
+        final DateTime dateCreated = DaoUtils.readDateTime(map.get("date_created"));
+        final DateTime dateUpdated = DaoUtils.readDateTime(map.get("date_updated"));
+        final Sid accountSid = DaoUtils.readSid(map.get("account_sid"));
+        final String to = DaoUtils.readString(map.get("recipient"));
+        final String from = DaoUtils.readString(map.get("sender"));
+        final Sid phoneNumberSid = DaoUtils.readSid(map.get("phone_number_sid"));
+        final String status = DaoUtils.readString(map.get("status"));
+        final DateTime startTime = DaoUtils.readDateTime(map.get("start_time"));
+        final DateTime endTime = DaoUtils.readDateTime(map.get("end_time"));
+        final Integer duration = DaoUtils.readInteger(map.get("duration"));
+        final Integer ringDuration = DaoUtils.readInteger(map.get("ring_duration"));
+        final BigDecimal price = DaoUtils.readBigDecimal(map.get("price"));
+        final Currency priceUnit = DaoUtils.readCurrency(map.get("price_unit"));
+        final String direction = DaoUtils.readString(map.get("direction"));
+        final String answeredBy = DaoUtils.readString(map.get("answered_by"));
+        final String apiVersion = DaoUtils.readString(map.get("api_version"));
+        final String forwardedFrom = DaoUtils.readString(map.get("forwarded_from"));
+        final String callerName = DaoUtils.readString(map.get("caller_name"));
+        final URI uri = DaoUtils.readUri(map.get("uri"));
+        final String callPath = DaoUtils.readString(map.get("call_path"));
+        final Boolean muted = DaoUtils.readBoolean(map.get("muted"));
+        final Boolean startConferenceOnEnter = DaoUtils.readBoolean(map.get("start_conference_on_enter"));
+        final Boolean endConferenceOnExit = DaoUtils.readBoolean(map.get("end_conference_on_exit"));
+        final Boolean onHold = DaoUtils.readBoolean(map.get("on_hold"));
+        return new CallDetailRecord(sid, instanceId, parentCallSid, conferenceSid, dateCreated, dateUpdated, accountSid, to,
+                from, phoneNumberSid, status, startTime, endTime, duration, price, priceUnit, direction, answeredBy,
+                apiVersion, forwardedFrom, callerName, uri, callPath, ringDuration, muted, startConferenceOnEnter,
+                endConferenceOnExit, onHold, msId);
+    }
+}
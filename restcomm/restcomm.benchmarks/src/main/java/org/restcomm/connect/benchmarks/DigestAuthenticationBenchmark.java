@@ -0,0 +1,90 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.restcomm.connect.commons.util.DigestAuthentication;
+
+/**
+ * Measures the digest computation performed for every authenticated REGISTER and INVITE, both for clients
+ * stored with clear text passwords and for clients stored with a pre computed HA1.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DigestAuthenticationBenchmark {
+    private static final String USER = "alice";
+    private static final String REALM = "cloud.restcomm.com";
+    private static final String PASSWORD = "1234";
+    private static final String NONCE = "3e6b4f9ee9c0f4a6a5f5b3c2d1e0f9a8";
+    private static final String CNONCE = "0a4f113b";
+    private static final String NC = "00000001";
+    private static final String METHOD = "INVITE";
+    private static final String URI = "sip:+13055872294@cloud.restcomm.com";
+
+    @Param({"MD5", "SHA-256"})
+    private String algorithm;
+
+    @Param({"auth", "none"})
+    private String qop;
+
+    private String ha1;
+
+    @Setup
+    public void setup() {
+        ha1 = DigestAuthentication.HA1(USER, REALM, PASSWORD, algorithm);
+    }
+
+    private String qop() {
+        return "none".equals(qop) ? null : qop;
+    }
+
+    @Benchmark
+    public String clearTextPassword() {
+        return DigestAuthentication.response(algorithm, USER, REALM, PASSWORD, "cleartext", NONCE, NC, CNONCE, METHOD, URI,
+                null, qop());
+    }
+
+    @Benchmark
+    public String hashedPassword() {
+        return DigestAuthentication.response(algorithm, USER, REALM, ha1, algorithm, NONCE, NC, CNONCE, METHOD, URI, null,
+                qop());
+    }
+
+    @Benchmark
+    public String ha1() {
+        return DigestAuthentication.HA1(USER, REALM, PASSWORD, algorithm);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.benchmarks;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.restcomm.connect.commons.fsm.Action;
+import org.restcomm.connect.commons.fsm.FiniteStateMachine;
+import org.restcomm.connect.commons.fsm.Guard;
+import org.restcomm.connect.commons.fsm.Transition;
+
+/**
+ * Measures {@link FiniteStateMachine#transition(Object, org.restcomm.connect.commons.fsm.State)} over a call like
+ * life cycle, with enter and exit actions on every state and a guard on the answer transition.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FiniteStateMachineBenchmark {
+    private static final Object EVENT = new Object();
+
+    private org.restcomm.connect.commons.fsm.State[] cycle;
+    private FiniteStateMachine fsm;
+    private int position;
+    private int actions;
+
+    @Setup
+    public void setup() {
+        final Action action = new Action() {
+            @Override
+            public void execute(final Object message) throws Exception {
+                actions++;
+            }
+        };
+        final Guard guard = new Guard() {
+            @Override
+            public boolean accept(final Object message, final Transition transition) throws Exception {
+                return message != null;
+            }
+        };
+        final org.restcomm.connect.commons.fsm.State queued = new org.restcomm.connect.commons.fsm.State("queued", action,
+                action);
+        final org.restcomm.connect.commons.fsm.State ringing = new org.restcomm.connect.commons.fsm.State("ringing", action,
+                action);
+        final org.restcomm.connect.commons.fsm.State inProgress = new org.restcomm.connect.commons.fsm.State("in-progress",
+                action, action);
+        final org.restcomm.connect.commons.fsm.State completed = new org.restcomm.connect.commons.fsm.State("completed",
+                action, action);
+        final org.restcomm.connect.commons.fsm.State failed = new org.restcomm.connect.commons.fsm.State("failed", action,
+                action);
+        final Set<Transition> transitions = new HashSet<Transition>();
+        transitions.add(new Transition(queued, ringing));
+        transitions.add(new Transition(queued, failed));
+        transitions.add(new Transition(ringing, inProgress, guard));
+        transitions.add(new Transition(ringing, failed));
+        transitions.add(new Transition(inProgress, completed));
+        transitions.add(new Transition(inProgress, failed));
+        transitions.add(new Transition(completed, queued));
+        transitions.add(new Transition(failed, queued));
+        cycle = new org.restcomm.connect.commons.fsm.State[] { ringing, inProgress, completed, queued };
+        fsm = new FiniteStateMachine(queued, transitions);
+        position = 0;
+    }
+
+    @Benchmark
+    public void transition(final Blackhole blackhole) throws Exception {
+        fsm.transition(EVENT, cycle[position]);
+        position = (position + 1) % cycle.length;
+        blackhole.consume(actions);
+    }
+}
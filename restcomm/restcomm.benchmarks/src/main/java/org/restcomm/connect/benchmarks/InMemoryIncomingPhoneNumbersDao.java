@@ -0,0 +1,141 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.dao.IncomingPhoneNumbersDao;
+import org.restcomm.connect.dao.entities.IncomingPhoneNumber;
+import org.restcomm.connect.dao.entities.IncomingPhoneNumberFilter;
+
+/**
+ * Heap backed {@link IncomingPhoneNumbersDao} that applies the same filter rules as the MyBatis
+ * mapper, so number selection can be measured without a database round trip. A Mockito mock is
+ * not used on purpose: it records every invocation and would skew long running benchmarks.
+ */
+@ThreadSafe
+final class InMemoryIncomingPhoneNumbersDao implements IncomingPhoneNumbersDao {
+    private static final Pattern REGEX_CHARACTERS = Pattern.compile(".*[*#^|.$\\\\\\[\\]].*");
+
+    private final Map<Sid, IncomingPhoneNumber> numbers;
+
+    InMemoryIncomingPhoneNumbersDao() {
+        super();
+        this.numbers = new ConcurrentHashMap<Sid, IncomingPhoneNumber>();
+    }
+
+    @Override
+    public void addIncomingPhoneNumber(final IncomingPhoneNumber incomingPhoneNumber) {
+        numbers.put(incomingPhoneNumber.getSid(), incomingPhoneNumber);
+    }
+
+    @Override
+    public IncomingPhoneNumber getIncomingPhoneNumber(final Sid sid) {
+        return numbers.get(sid);
+    }
+
+    @Override
+    public List<IncomingPhoneNumber> getIncomingPhoneNumbers(final Sid accountSid) {
+        final List<IncomingPhoneNumber> result = new ArrayList<IncomingPhoneNumber>();
+        for (final IncomingPhoneNumber number : numbers.values()) {
+            if (accountSid.equals(number.getAccountSid())) {
+                result.add(number);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<IncomingPhoneNumber> getIncomingPhoneNumbersByFilter(final IncomingPhoneNumberFilter filter) {
+        final List<IncomingPhoneNumber> result = new ArrayList<IncomingPhoneNumber>();
+        for (final IncomingPhoneNumber number : numbers.values()) {
+            if (matches(number, filter)) {
+                result.add(number);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void removeIncomingPhoneNumber(final Sid sid) {
+        numbers.remove(sid);
+    }
+
+    @Override
+    public void removeIncomingPhoneNumbers(final Sid accountSid) {
+        for (final IncomingPhoneNumber number : getIncomingPhoneNumbers(accountSid)) {
+            numbers.remove(number.getSid());
+        }
+    }
+
+    @Override
+    public void updateIncomingPhoneNumber(final IncomingPhoneNumber incomingPhoneNumber) {
+        numbers.put(incomingPhoneNumber.getSid(), incomingPhoneNumber);
+    }
+
+    @Override
+    public List<IncomingPhoneNumber> getIncomingPhoneNumbersRegex(final IncomingPhoneNumberFilter filter) {
+        final List<IncomingPhoneNumber> result = new ArrayList<IncomingPhoneNumber>();
+        for (final IncomingPhoneNumber number : numbers.values()) {
+            if (REGEX_CHARACTERS.matcher(number.getPhoneNumber()).matches() && matches(number, filter)) {
+                result.add(number);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Integer getTotalIncomingPhoneNumbers(final IncomingPhoneNumberFilter filter) {
+        int total = 0;
+        for (final IncomingPhoneNumber number : numbers.values()) {
+            if (matches(number, filter)) {
+                total++;
+            }
+        }
+        return total;
+    }
+
+    private boolean matches(final IncomingPhoneNumber number, final IncomingPhoneNumberFilter filter) {
+        if (filter.getPhoneNumber() != null && !filter.getPhoneNumber().equals(number.getPhoneNumber())) {
+            return false;
+        }
+        if (filter.getFriendlyName() != null && !filter.getFriendlyName().equals(number.getFriendlyName())) {
+            return false;
+        }
+        if (filter.getAccountSid() != null && (number.getAccountSid() == null
+                || !filter.getAccountSid().equals(number.getAccountSid().toString()))) {
+            return false;
+        }
+        if (filter.getOrgSid() != null && (number.getOrganizationSid() == null
+                || !filter.getOrgSid().equals(number.getOrganizationSid().toString()))) {
+            return false;
+        }
+        if (filter.getPureSIP() != null && !filter.getPureSIP().equals(number.isPureSip())) {
+            return false;
+        }
+        return true;
+    }
+}
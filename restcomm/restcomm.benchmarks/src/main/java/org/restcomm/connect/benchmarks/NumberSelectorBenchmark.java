@@ -0,0 +1,119 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.core.service.number.NumberSelectorServiceImpl;
+import org.restcomm.connect.core.service.number.api.NumberSelectionResult;
+import org.restcomm.connect.dao.cache.IncomingPhoneNumberIndex;
+import org.restcomm.connect.dao.entities.IncomingPhoneNumber;
+import org.restcomm.connect.dao.entities.IncomingPhoneNumberFilter;
+
+/**
+ * Measures {@link NumberSelectorServiceImpl#searchNumberWithResult(String, Sid, Sid)} against an in memory
+ * number inventory for the lookups the call and SMS paths perform on every inbound request, either through the DAO
+ * queries or through the {@link IncomingPhoneNumberIndex}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NumberSelectorBenchmark {
+    @Param({"100", "10000", "1000000"})
+    private int inventory;
+
+    @Param({"false", "true"})
+    private boolean indexed;
+
+    private Sid organization;
+    private Sid foreignOrganization;
+    private NumberSelectorServiceImpl service;
+
+    @Setup
+    public void setup() {
+        final InMemoryIncomingPhoneNumbersDao dao = new InMemoryIncomingPhoneNumbersDao();
+        organization = Sid.generate(Sid.Type.ORGANIZATION);
+        foreignOrganization = Sid.generate(Sid.Type.ORGANIZATION);
+        final Sid account = Sid.generate(Sid.Type.ACCOUNT);
+        for (int i = 0; i < inventory; i++) {
+            dao.addIncomingPhoneNumber(number(account, String.format("+1512%07d", i), false));
+        }
+        dao.addIncomingPhoneNumber(number(account, "1305.*", true));
+        dao.addIncomingPhoneNumber(number(account, "1786*", true));
+        dao.addIncomingPhoneNumber(number(account, "*", true));
+        IncomingPhoneNumberIndex index = null;
+        if (indexed) {
+            index = new IncomingPhoneNumberIndex();
+            index.load(dao.getIncomingPhoneNumbersByFilter(IncomingPhoneNumberFilter.Builder.builder().build()));
+        }
+        service = new NumberSelectorServiceImpl(dao, index);
+    }
+
+    private IncomingPhoneNumber number(final Sid account, final String phoneNumber, final boolean pureSip) {
+        final IncomingPhoneNumber.Builder builder = IncomingPhoneNumber.builder();
+        builder.setSid(Sid.generate(Sid.Type.PHONE_NUMBER));
+        builder.setAccountSid(account);
+        builder.setFriendlyName(phoneNumber);
+        builder.setPhoneNumber(phoneNumber);
+        builder.setPureSip(pureSip);
+        builder.setOrganizationSid(organization);
+        return builder.build();
+    }
+
+    @Benchmark
+    public NumberSelectionResult perfectMatch() {
+        return service.searchNumberWithResult("+15120000042", organization, organization);
+    }
+
+    @Benchmark
+    public NumberSelectionResult nationalFormat() {
+        return service.searchNumberWithResult("5120000042", organization, organization);
+    }
+
+    @Benchmark
+    public NumberSelectionResult regexMatch() {
+        return service.searchNumberWithResult("13055872294", organization, organization);
+    }
+
+    @Benchmark
+    public NumberSelectionResult starMatch() {
+        return service.searchNumberWithResult("4420079460000", organization, organization);
+    }
+
+    @Benchmark
+    public NumberSelectionResult organizationFiltered() {
+        return service.searchNumberWithResult("+15120000042", foreignOrganization, organization);
+    }
+}
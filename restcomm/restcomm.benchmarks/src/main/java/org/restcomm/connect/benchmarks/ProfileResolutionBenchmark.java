@@ -0,0 +1,159 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.core.service.profile.ProfileServiceImpl;
+import org.restcomm.connect.dao.entities.Account;
+import org.restcomm.connect.dao.entities.Profile;
+import org.restcomm.connect.dao.entities.ProfileAssociation;
+import org.restcomm.connect.dao.mybatis.MybatisDaoManager;
+
+/**
+ * Effective profile resolution for the leaf of a five level account hierarchy, walking the tree through the MyBatis
+ * DAOs on every call against the memoized resolver. The profile sits on the leaf itself, on the organization after
+ * five accounts without one, or nowhere so the default profile is used.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProfileResolutionBenchmark {
+    private static final int DEPTH = 5;
+    private static final String[] TABLES = {
+        "CREATE MEMORY TABLE \"restcomm_accounts\"(\"sid\" VARCHAR(34) NOT NULL PRIMARY KEY,\"date_created\" TIMESTAMP NOT NULL,"
+            + "\"date_updated\" TIMESTAMP NOT NULL,\"email_address\" LONGVARCHAR NOT NULL,\"friendly_name\" VARCHAR(64) NOT NULL,"
+            + "\"parent_sid\" VARCHAR(34),\"type\" VARCHAR(8) NOT NULL,\"status\" VARCHAR(16) NOT NULL,\"auth_token\" VARCHAR(32) NOT NULL,"
+            + "\"role\" VARCHAR(64) NOT NULL,\"uri\" LONGVARCHAR NOT NULL,\"organization_sid\" VARCHAR(34))",
+        "CREATE MEMORY TABLE \"restcomm_profile_associations\"(\"target_sid\" VARCHAR(34) NOT NULL PRIMARY KEY,"
+            + "\"profile_sid\" VARCHAR(34) NOT NULL,\"date_created\" DATETIME NOT NULL,\"date_updated\" DATETIME NOT NULL)",
+        "CREATE MEMORY TABLE \"restcomm_profiles\"(\"sid\" VARCHAR(34) NOT NULL PRIMARY KEY,\"document\" LONGVARCHAR NOT NULL,"
+            + "\"date_created\" DATETIME NOT NULL,\"date_updated\" DATETIME NOT NULL)"
+    };
+
+    @Param({"leaf", "organization", "default"})
+    private String associatedTo;
+
+    private SqlSessionFactory sessions;
+    private ProfileServiceImpl uncached;
+    private ProfileServiceImpl memoized;
+    private Sid leaf;
+
+    @Setup
+    public void setup() throws IOException, SQLException {
+        final InputStream config = getClass().getResourceAsStream("/mybatis.xml");
+        try {
+            sessions = new SqlSessionFactoryBuilder().build(config);
+        } finally {
+            config.close();
+        }
+        final SqlSession session = sessions.openSession();
+        try {
+            final Statement statement = session.getConnection().createStatement();
+            try {
+                statement.execute("DROP TABLE \"restcomm_accounts\" IF EXISTS");
+                statement.execute("DROP TABLE \"restcomm_profile_associations\" IF EXISTS");
+                statement.execute("DROP TABLE \"restcomm_profiles\" IF EXISTS");
+                for (final String table : TABLES) {
+                    statement.execute(table);
+                }
+            } finally {
+                statement.close();
+            }
+            session.commit();
+        } finally {
+            session.close();
+        }
+        final MybatisDaoManager storage = new MybatisDaoManager();
+        storage.start(sessions);
+        final Sid organization = Sid.generate(Sid.Type.ORGANIZATION);
+        Sid parent = null;
+        for (int level = 0; level < DEPTH; level++) {
+            final Sid sid = Sid.generate(Sid.Type.ACCOUNT);
+            storage.getAccountsDao().addAccount(new Account(sid, DateTime.now(), DateTime.now(), "level" + level + "@company.com",
+                    "Level " + level, parent, Account.Type.FULL, Account.Status.ACTIVE, "77f8c12cc7b8f8423e5c38b035249166",
+                    "Developer", URI.create("/2012-04-24/Accounts/" + sid), organization));
+            parent = sid;
+        }
+        leaf = parent;
+        storage.getProfilesDao().addProfile(new Profile(Profile.DEFAULT_PROFILE_SID, "{}", new Date(), new Date()));
+        final Sid profile = Sid.generate(Sid.Type.PROFILE);
+        storage.getProfilesDao().addProfile(new Profile(profile.toString(), "{}", new Date(), new Date()));
+        if ("leaf".equals(associatedTo)) {
+            storage.getProfileAssociationsDao().addProfileAssociation(new ProfileAssociation(profile, leaf, new Date(), new Date()));
+        } else if ("organization".equals(associatedTo)) {
+            storage.getProfileAssociationsDao().addProfileAssociation(new ProfileAssociation(profile, organization, new Date(),
+                    new Date()));
+        }
+        uncached = new ProfileServiceImpl(storage, 0, 0);
+        memoized = new ProfileServiceImpl(storage);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        final SqlSession session = sessions.openSession();
+        try {
+            final Statement statement = session.getConnection().createStatement();
+            try {
+                statement.execute("SHUTDOWN");
+            } finally {
+                statement.close();
+            }
+        } finally {
+            session.close();
+        }
+    }
+
+    @Benchmark
+    public Profile uncached() {
+        return uncached.retrieveEffectiveProfileByAccountSid(leaf);
+    }
+
+    @Benchmark
+    public Profile memoized() {
+        return memoized.retrieveEffectiveProfileByAccountSid(leaf);
+    }
+}
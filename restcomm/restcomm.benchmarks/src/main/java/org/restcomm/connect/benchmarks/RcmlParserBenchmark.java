@@ -0,0 +1,120 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.restcomm.connect.commons.faulttolerance.RestcommUntypedActor;
+import org.restcomm.connect.interpreter.rcml.End;
+import org.restcomm.connect.interpreter.rcml.GetNextVerb;
+import org.restcomm.connect.interpreter.rcml.Parser;
+import org.restcomm.connect.interpreter.rcml.ParserFailed;
+import org.restcomm.connect.interpreter.rcml.Tag;
+
+import akka.actor.Actor;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.actor.UntypedActorFactory;
+import akka.testkit.TestActorRef;
+
+/**
+ * Measures the RCML {@link Parser} the way the interpreters drive it: the document is parsed when the actor
+ * is created and every verb is then pulled with {@link GetNextVerb} until {@link End}. The actors run on the
+ * calling thread dispatcher so the measurement does not include mailbox scheduling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RcmlParserBenchmark {
+    private static final GetNextVerb NEXT = new GetNextVerb();
+
+    private ActorSystem system;
+    private TestActorRef<VerbCollector> collector;
+    private String rcml;
+    private long parsers;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        rcml = new String(Resources.read("rcml.xml"), "UTF-8");
+        system = ActorSystem.create("RcmlParserBenchmark");
+        collector = TestActorRef.create(system, new Props(VerbCollector.class), "collector");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        system.shutdown();
+        system.awaitTermination();
+    }
+
+    @Benchmark
+    public int parse() {
+        final VerbCollector verbs = collector.underlyingActor();
+        verbs.reset();
+        final TestActorRef<Parser> parser = TestActorRef.create(system, new Props(new UntypedActorFactory() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public Actor create() throws Exception {
+                return new Parser(rcml, collector);
+            }
+        }), "parser-" + parsers++);
+        while (!verbs.done) {
+            parser.tell(NEXT, collector);
+        }
+        system.stop(parser);
+        return verbs.count;
+    }
+
+    public static final class VerbCollector extends RestcommUntypedActor {
+        private int count;
+        private boolean done;
+
+        void reset() {
+            count = 0;
+            done = false;
+        }
+
+        @Override
+        public void onReceive(final Object message) throws Exception {
+            if (message instanceof Tag) {
+                count++;
+            } else if (message instanceof End || message instanceof ParserFailed) {
+                done = true;
+            } else {
+                unhandled(message);
+            }
+        }
+    }
+}
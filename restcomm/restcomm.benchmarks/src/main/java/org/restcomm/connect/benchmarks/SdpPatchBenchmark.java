@@ -0,0 +1,111 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.restcomm.connect.commons.util.DNSUtils;
+import org.restcomm.connect.commons.util.ParsedSdp;
+import org.restcomm.connect.commons.util.SdpUtils;
+
+/**
+ * Measures the {@link SdpUtils} helpers that run on every INVITE and 200 OK crossing the NAT boundary, and the
+ * per INVITE cost of asking all of the Call questions through {@link SdpUtils} versus a single {@link ParsedSdp}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SdpPatchBenchmark {
+    private static final String CONTENT_TYPE = "application/sdp";
+    private static final String MULTIPART_CONTENT_TYPE = "multipart/mixed;boundary=unique-boundary-1";
+    private static final String EXTERNAL_IP = "203.0.113.25";
+
+    private byte[] sdp;
+    private byte[] multipart;
+
+    @Setup
+    public void setup() throws Exception {
+        DNSUtils.initializeDnsUtilImplClassName(new BaseConfiguration());
+        sdp = Resources.read("offer.sdp");
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append("--unique-boundary-1\r\n");
+        buffer.append("Content-Type: application/sdp\r\n\r\n");
+        buffer.append(new String(sdp, "US-ASCII"));
+        buffer.append("--unique-boundary-1\r\n");
+        buffer.append("Content-Type: application/isup; version=itu-t92+\r\n\r\n");
+        buffer.append("0123456789\r\n");
+        buffer.append("--unique-boundary-1--\r\n");
+        multipart = buffer.toString().getBytes("US-ASCII");
+    }
+
+    @Benchmark
+    public String patch() throws Exception {
+        return SdpUtils.patch(CONTENT_TYPE, sdp, EXTERNAL_IP);
+    }
+
+    @Benchmark
+    public String patchMultipart() throws Exception {
+        return SdpUtils.patch(MULTIPART_CONTENT_TYPE, multipart, EXTERNAL_IP);
+    }
+
+    @Benchmark
+    public String getSdp() throws Exception {
+        return SdpUtils.getSdp(CONTENT_TYPE, sdp);
+    }
+
+    @Benchmark
+    public boolean isWebRTCSDP() throws Exception {
+        return SdpUtils.isWebRTCSDP(CONTENT_TYPE, sdp);
+    }
+
+    @Benchmark
+    public void inviteWithSdpUtils(final Blackhole blackhole) throws Exception {
+        blackhole.consume(SdpUtils.isWebRTCSDP(CONTENT_TYPE, sdp));
+        blackhole.consume(SdpUtils.getSdp(CONTENT_TYPE, sdp));
+        blackhole.consume(SdpUtils.patch(CONTENT_TYPE, sdp, EXTERNAL_IP));
+        blackhole.consume(SdpUtils.isAudioSDP(CONTENT_TYPE, sdp));
+        blackhole.consume(SdpUtils.isVideoSDP(CONTENT_TYPE, sdp));
+    }
+
+    @Benchmark
+    public void inviteWithParsedSdp(final Blackhole blackhole) throws Exception {
+        final ParsedSdp parsed = ParsedSdp.parse(CONTENT_TYPE, sdp);
+        blackhole.consume(parsed.isWebRTC());
+        blackhole.consume(parsed.getSdp());
+        blackhole.consume(parsed.patch(EXTERNAL_IP));
+        blackhole.consume(parsed.isAudio());
+        blackhole.consume(parsed.isVideo());
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.benchmarks;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.restcomm.connect.commons.dao.Sid;
+
+/**
+ * Measures {@link Sid} construction, as done for every DAO row and REST path parameter, and {@link Sid#generate}
+ * under 16 threads. The legacy methods reproduce the regex validation and UUID.randomUUID() generation for
+ * comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+public class SidBenchmark {
+    private static final String SID = "SM6dcfdfd531e44ae4ac30e8f97e071ab2";
+    private static final String CALL_SID = "ID6dcfdfd531e44ae4ac30e8f97e071122-CA6dcfdfd531e44ae4ac30e8f97e071ab2";
+
+    @Benchmark
+    public Sid construct() {
+        return new Sid(SID);
+    }
+
+    @Benchmark
+    public Sid constructCallSid() {
+        return new Sid(CALL_SID);
+    }
+
+    @Benchmark
+    public boolean legacyValidation() {
+        return Sid.callSidPattern.matcher(SID).matches() || Sid.pattern.matcher(SID).matches();
+    }
+
+    @Benchmark
+    public Sid generate() {
+        return Sid.generate(Sid.Type.SMS_MESSAGE);
+    }
+
+    @Benchmark
+    public Sid legacyGeneration() {
+        return new Sid("SM" + UUID.randomUUID().toString().replace("-", ""));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.restcomm.connect.sms.smpp.SmppReassemblyBuffer;
+import org.restcomm.connect.sms.smpp.SmppSegmenter;
+
+import com.cloudhopper.commons.charset.Charset;
+import com.cloudhopper.commons.charset.CharsetUtil;
+import com.cloudhopper.smpp.pdu.SubmitSm;
+import com.cloudhopper.smpp.type.Address;
+import com.cloudhopper.smpp.type.SmppInvalidArgumentException;
+
+/**
+ * Measures the throughput of a bulk of long messages, three segments each, through the {@link SmppSegmenter}: the
+ * outbound split alone, and the split followed by the parsing and the {@link SmppReassemblyBuffer} an SMSC or the
+ * inbound side runs on every segment. Scores are messages, not segments, per millisecond.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SmppSegmenterBenchmark {
+    private static final int MESSAGES = 500;
+
+    @Param({"GSM", "UCS-2"})
+    private String charsetName;
+
+    @Param({"UDH", "SAR"})
+    private String mode;
+
+    private Charset charset;
+    private byte[] text;
+    private SmppSegmenter segmenter;
+    private SmppReassemblyBuffer reassembly;
+
+    @Setup
+    public void setup() {
+        charset = "GSM".equals(charsetName) ? CharsetUtil.CHARSET_GSM : CharsetUtil.CHARSET_UCS_2;
+        // 3 segments in both charsets, 153 septets or 67 UCS-2 characters per segment
+        final int length = CharsetUtil.CHARSET_GSM == charset ? 400 : 180;
+        final StringBuilder buffer = new StringBuilder();
+        while (buffer.length() < length) {
+            buffer.append("Long message split in three segments. ");
+        }
+        text = CharsetUtil.encode(buffer.substring(0, length), charset);
+        segmenter = new SmppSegmenter(SmppSegmenter.Mode.valueOf(mode));
+        reassembly = new SmppReassemblyBuffer(MESSAGES, 60, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public int segment() throws SmppInvalidArgumentException {
+        int segments = 0;
+        for (int i = 0; i < MESSAGES; i++) {
+            segments += segmenter.segment(template(i), text, charset, false).size();
+        }
+        return segments;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public int segmentAndReassemble() throws SmppInvalidArgumentException {
+        int reassembled = 0;
+        for (int i = 0; i < MESSAGES; i++) {
+            final List<SubmitSm> segments = segmenter.segment(template(i), text, charset, false);
+            for (SubmitSm segment : segments) {
+                final SmppSegmenter.Segment parsed = SmppSegmenter.parse(segment, segment.getShortMessage());
+                if (reassembly.offer(segment.getSourceAddress().getAddress() + "/" + parsed.getReference(), parsed) != null) {
+                    reassembled++;
+                }
+            }
+        }
+        return reassembled;
+    }
+
+    private static SubmitSm template(final int index) {
+        final SubmitSm submit = new SubmitSm();
+        submit.setSourceAddress(new Address((byte) 1, (byte) 1, String.valueOf(index)));
+        submit.setDestAddress(new Address((byte) 1, (byte) 1, "5678"));
+        submit.setRegisteredDelivery((byte) 1);
+        return submit;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.commons.bulk;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.joda.time.DateTime;
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.commons.dao.Sid;
+
+/**
+ * The bulk jobs of this instance, from their creation until they are finished for longer than the retention.
+ */
+@ThreadSafe
+public class BulkJobs<T extends BulkJob> {
+    private final Map<Sid, T> jobs;
+
+    public BulkJobs() {
+        super();
+        this.jobs = new ConcurrentHashMap<Sid, T>();
+    }
+
+    public void add(final T job) {
+        jobs.put(job.getSid(), job);
+    }
+
+    public T get(final Sid sid) {
+        return sid == null ? null : jobs.get(sid);
+    }
+
+    public List<T> getByAccountSid(final Sid accountSid) {
+        final List<T> result = new ArrayList<T>();
+        for (final T job : jobs.values()) {
+            if (job.getAccountSid().equals(accountSid)) {
+                result.add(job);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drops the jobs finished before the given date.
+     */
+    public void purge(final DateTime finishedBefore) {
+        for (final T job : jobs.values()) {
+            if (job.isFinished() && job.getDateUpdated().isBefore(finishedBefore)) {
+                jobs.remove(job.getSid());
+            }
+        }
+    }
+
+    public int size() {
+        return jobs.size();
+    }
+}
@@ -18,7 +18,8 @@
  */
 package org.restcomm.connect.commons.dao;
 
-import java.util.UUID;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.util.regex.Pattern;
 
 import org.apache.shiro.crypto.hash.Md5Hash;
@@ -33,10 +34,31 @@ import org.restcomm.connect.commons.configuration.RestcommConfiguration;
 public final class Sid {
     public static final Pattern pattern = Pattern.compile("[a-zA-Z0-9]{34}");
     public static final Pattern callSidPattern = Pattern.compile("ID[a-zA-Z0-9]{32}-CA[a-zA-Z0-9]{32}");
+    private static final int LENGTH = 34;
+    private static final int CALL_SID_LENGTH = 2 * LENGTH + 1;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    // Seeds the per thread generators. nextBytes never blocks, unlike generateSeed on hosts short of entropy.
+    private static final SecureRandom seeds = new SecureRandom();
+    // Every thread draws from its own generator so call bursts don't serialize on the shared
+    // SecureRandom behind UUID.randomUUID().
+    private static final ThreadLocal<SecureRandom> generators = new ThreadLocal<SecureRandom>() {
+        @Override
+        protected SecureRandom initialValue() {
+            try {
+                final SecureRandom generator = SecureRandom.getInstance("SHA1PRNG");
+                final byte[] seed = new byte[20];
+                seeds.nextBytes(seed);
+                generator.setSeed(seed);
+                return generator;
+            } catch (final NoSuchAlgorithmException exception) {
+                return new SecureRandom();
+            }
+        }
+    };
     private final String id;
 
     public enum Type {
-        ACCOUNT, APPLICATION, ANNOUNCEMENT, CALL, CLIENT, CONFERENCE, GATEWAY, INVALID, NOTIFICATION, PHONE_NUMBER, RECORDING, REGISTRATION, SHORT_CODE, SMS_MESSAGE, TRANSCRIPTION, INSTANCE, EXTENSION_CONFIGURATION, GEOLOCATION, ORGANIZATION, PROFILE
+        ACCOUNT, APPLICATION, ANNOUNCEMENT, CALL, CLIENT, CONFERENCE, GATEWAY, INVALID, NOTIFICATION, PHONE_NUMBER, RECORDING, REGISTRATION, SHORT_CODE, SMS_MESSAGE, TRANSCRIPTION, INSTANCE, EXTENSION_CONFIGURATION, GEOLOCATION, ORGANIZATION, PROFILE, BULK_CALL, BULK_SMS
     };
 
     private static final Sid INVALID_SID = new Sid("IN00000000000000000000000000000000");
@@ -44,13 +66,68 @@ public final class Sid {
     public Sid(final String id) throws IllegalArgumentException {
         super();
         //https://github.com/RestComm/Restcomm-Connect/issues/1907
-        if (callSidPattern.matcher(id).matches() || pattern.matcher(id).matches()) {
+        if (isValid(id)) {
             this.id = id;
         } else {
             throw new IllegalArgumentException(id + " is an INVALID_SID sid value.");
         }
     }
 
+    // Used for ids we generate ourselves, they are valid by construction.
+    private Sid(final char[] id) {
+        super();
+        this.id = new String(id);
+    }
+
+    /**
+     * Same rules as {@link #pattern} or {@link #callSidPattern} without going through the regex engine.
+     *
+     * @param id the candidate sid.
+     * @return true if the id is a valid sid.
+     */
+    public static boolean isValid(final String id) {
+        if (id == null) {
+            return false;
+        }
+        final int length = id.length();
+        if (length == LENGTH) {
+            return isAlphanumeric(id, 0, LENGTH);
+        } else if (length == CALL_SID_LENGTH) {
+            return id.startsWith("ID") && isAlphanumeric(id, 2, LENGTH) && id.startsWith("-CA", LENGTH)
+                    && isAlphanumeric(id, LENGTH + 3, CALL_SID_LENGTH);
+        }
+        return false;
+    }
+
+    private static boolean isAlphanumeric(final String id, final int from, final int to) {
+        for (int index = from; index < to; index++) {
+            final char c = id.charAt(index);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Builds prefix followed by a random (version 4) UUID in 32 lower case hexadecimal digits, the same
+     * form as UUID.randomUUID() without the dashes.
+     */
+    private static Sid random(final String prefix) {
+        final byte[] bytes = new byte[16];
+        generators.get().nextBytes(bytes);
+        bytes[6] = (byte) ((bytes[6] & 0x0f) | 0x40);
+        bytes[8] = (byte) ((bytes[8] & 0x3f) | 0x80);
+        final int offset = prefix.length();
+        final char[] characters = new char[offset + 32];
+        prefix.getChars(0, offset, characters, 0);
+        for (int index = 0; index < bytes.length; index++) {
+            characters[offset + 2 * index] = HEX[(bytes[index] >> 4) & 0x0f];
+            characters[offset + 2 * index + 1] = HEX[bytes[index] & 0x0f];
+        }
+        return new Sid(characters);
+    }
+
     @Override
     public boolean equals(Object object) {
         if (this == object) {
@@ -83,68 +160,74 @@ public final class Sid {
     }
 
     public static Sid generate(final Type type) {
-        final String uuid = UUID.randomUUID().toString().replace("-", "");
         switch (type) {
             case ACCOUNT: {
-                return new Sid("AC" + uuid);
+                return random("AC");
             }
             case APPLICATION: {
-                return new Sid("AP" + uuid);
+                return random("AP");
             }
             case ANNOUNCEMENT: {
-                return new Sid("AN" + uuid);
+                return random("AN");
             }
             case CALL: {
                 //https://github.com/RestComm/Restcomm-Connect/issues/1907
-                return new Sid(RestcommConfiguration.getInstance().getMain().getInstanceId() + "-CA" + uuid);
+                // the instance id comes from the configuration so the result is still validated
+                return new Sid(random(RestcommConfiguration.getInstance().getMain().getInstanceId() + "-CA").id);
             }
             case CLIENT: {
-                return new Sid("CL" + uuid);
+                return random("CL");
             }
             case CONFERENCE: {
-                return new Sid("CF" + uuid);
+                return random("CF");
             }
             case GATEWAY: {
-                return new Sid("GW" + uuid);
+                return random("GW");
             }
             case INVALID: {
                 return INVALID_SID;
             }
             case NOTIFICATION: {
-                return new Sid("NO" + uuid);
+                return random("NO");
             }
             case PHONE_NUMBER: {
-                return new Sid("PN" + uuid);
+                return random("PN");
             }
             case RECORDING: {
-                return new Sid("RE" + uuid);
+                return random("RE");
             }
             case REGISTRATION: {
-                return new Sid("RG" + uuid);
+                return random("RG");
             }
             case SHORT_CODE: {
-                return new Sid("SC" + uuid);
+                return random("SC");
             }
             case SMS_MESSAGE: {
-                return new Sid("SM" + uuid);
+                return random("SM");
             }
             case TRANSCRIPTION: {
-                return new Sid("TR" + uuid);
+                return random("TR");
             }
             case INSTANCE: {
-                return new Sid("ID" + uuid);
+                return random("ID");
             }
             case EXTENSION_CONFIGURATION: {
-                return new Sid("EX" + uuid);
+                return random("EX");
             }
             case GEOLOCATION: {
-                return new Sid("GL" + uuid);
+                return random("GL");
             }
             case ORGANIZATION: {
-                return new Sid("OR" + uuid);
+                return random("OR");
             }
             case PROFILE: {
-                return new Sid("PR" + uuid);
+                return random("PR");
+            }
+            case BULK_CALL: {
+                return random("BC");
+            }
+            case BULK_SMS: {
+                return random("BS");
             }
             default: {
                 return null;
@@ -0,0 +1,64 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.commons.metrics;
+
+import java.util.Map;
+
+import org.restcomm.connect.commons.annotations.concurrency.Immutable;
+
+/**
+ * Per phase timings of a single slow call setup, in microseconds.
+ */
+@Immutable
+public final class CallSetupBreakdown {
+    private final String callSid;
+    private final long dateStarted;
+    private final long total;
+    private final Map<String, Long> phases;
+
+    public CallSetupBreakdown(final String callSid, final long dateStarted, final long total, final Map<String, Long> phases) {
+        super();
+        this.callSid = callSid;
+        this.dateStarted = dateStarted;
+        this.total = total;
+        this.phases = phases;
+    }
+
+    public String getCallSid() {
+        return callSid;
+    }
+
+    public long getDateStarted() {
+        return dateStarted;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public Map<String, Long> getPhases() {
+        return phases;
+    }
+
+    @Override
+    public String toString() {
+        return callSid + " total=" + total + " " + phases;
+    }
+}
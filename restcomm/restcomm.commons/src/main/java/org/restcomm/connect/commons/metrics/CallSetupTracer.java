@@ -0,0 +1,262 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.commons.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+
+/**
+ * Times the phases an inbound call goes through between the initial INVITE and the first RCML verb. Every phase
+ * feeds a "CallSetup.&lt;Phase&gt;" histogram of the {@link MetricsRegistry} in microseconds, and calls whose total
+ * setup time reaches the slow threshold keep their per phase breakdown so they can be inspected on demand.
+ * <p>
+ * A trace starts keyed by the SIP Call-ID, since that is all the call manager knows, and is re-keyed to the call sid
+ * with {@link #link(String, String)} once the call actor is created. Traces that never finish are dropped after a
+ * few minutes by a background purge, see {@link #startPurging()}.
+ */
+@ThreadSafe
+public final class CallSetupTracer implements CallSetupTracerMXBean {
+    public static final String PREFIX = "CallSetup";
+
+    public enum Phase {
+        LOOKUP("Lookup"), NUMBER_SELECTION("NumberSelection"), PRE_INBOUND_EXTENSIONS("PreInboundExtensions"),
+        MEDIA_GATEWAY("MediaGateway"), CREATE_CONNECTION("CreateConnection"), RCML_DOWNLOAD("RcmlDownload"),
+        RCML_PARSE("RcmlParse"), TOTAL("Total");
+
+        private final String text;
+
+        private Phase(final String text) {
+            this.text = text;
+        }
+
+        public String metric() {
+            return PREFIX + "." + text;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    private static final CallSetupTracer instance = new CallSetupTracer();
+    private static final int MAX_SLOW_CALLS = 100;
+    private static final long STALE_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private static final long PURGE_INTERVAL_SECONDS = 60;
+
+    private final ConcurrentMap<String, Trace> traces;
+    private final LinkedList<CallSetupBreakdown> slowCalls;
+    private volatile long slowThreshold;
+    private ScheduledExecutorService purger;
+
+    private CallSetupTracer() {
+        super();
+        traces = new ConcurrentHashMap<String, Trace>();
+        slowCalls = new LinkedList<CallSetupBreakdown>();
+        slowThreshold = 2000;
+    }
+
+    public static CallSetupTracer getInstance() {
+        return instance;
+    }
+
+    public void start(final String key) {
+        if (key == null) {
+            return;
+        }
+        traces.put(key, new Trace(System.nanoTime(), System.currentTimeMillis()));
+    }
+
+    public void link(final String key, final String callSid) {
+        if (key == null || callSid == null) {
+            return;
+        }
+        final Trace trace = traces.remove(key);
+        if (trace != null) {
+            traces.put(callSid, trace);
+        }
+    }
+
+    /**
+     * Records a phase that started at the given {@link System#nanoTime()} reading. The phase histogram is updated
+     * even if no trace is open under the key, e.g. for media setup of outbound calls.
+     */
+    public void record(final String key, final Phase phase, final long startNanos) {
+        final long elapsed = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        MetricsRegistry.getInstance().histogram(phase.metric()).record(elapsed);
+        if (key != null) {
+            final Trace trace = traces.get(key);
+            if (trace != null) {
+                trace.add(phase, elapsed);
+            }
+        }
+    }
+
+    public void finish(final String key) {
+        if (key == null) {
+            return;
+        }
+        final Trace trace = traces.remove(key);
+        if (trace == null) {
+            return;
+        }
+        final long total = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - trace.started);
+        MetricsRegistry.getInstance().histogram(Phase.TOTAL.metric()).record(total);
+        if (total >= TimeUnit.MILLISECONDS.toMicros(slowThreshold)) {
+            final CallSetupBreakdown breakdown = new CallSetupBreakdown(key, trace.dateStarted, total, trace.phases());
+            synchronized (slowCalls) {
+                slowCalls.addFirst(breakdown);
+                if (slowCalls.size() > MAX_SLOW_CALLS) {
+                    slowCalls.removeLast();
+                }
+            }
+        }
+    }
+
+    public void abandon(final String key) {
+        if (key != null) {
+            traces.remove(key);
+        }
+    }
+
+    /**
+     * @return the most recent slow call setups, newest first.
+     */
+    public List<CallSetupBreakdown> getSlowCallBreakdowns() {
+        synchronized (slowCalls) {
+            return new ArrayList<CallSetupBreakdown>(slowCalls);
+        }
+    }
+
+    @Override
+    public List<String> getSlowCalls() {
+        final List<String> calls = new ArrayList<String>();
+        for (final CallSetupBreakdown breakdown : getSlowCallBreakdowns()) {
+            calls.add(breakdown.toString());
+        }
+        return calls;
+    }
+
+    @Override
+    public Map<String, Double> getPhases() {
+        final Map<String, Double> phases = new LinkedHashMap<String, Double>();
+        for (final HistogramSnapshot snapshot : MetricsRegistry.getInstance().histograms(PREFIX + ".").values()) {
+            phases.putAll(snapshot.summary());
+        }
+        return phases;
+    }
+
+    @Override
+    public long getSlowThreshold() {
+        return slowThreshold;
+    }
+
+    @Override
+    public void setSlowThreshold(final long millis) {
+        this.slowThreshold = millis;
+    }
+
+    @Override
+    public int getActiveTraces() {
+        return traces.size();
+    }
+
+    @Override
+    public void reset() {
+        for (final Phase phase : Phase.values()) {
+            MetricsRegistry.getInstance().histogram(phase.metric()).reset();
+        }
+        synchronized (slowCalls) {
+            slowCalls.clear();
+        }
+    }
+
+    /**
+     * Drops the stale traces every minute on a daemon thread, so the call setup path never scans them.
+     */
+    public synchronized void startPurging() {
+        stopPurging();
+        purger = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "restcomm-call-setup-purge");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        purger.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                purge(System.nanoTime());
+            }
+        }, PURGE_INTERVAL_SECONDS, PURGE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stopPurging() {
+        if (purger != null) {
+            purger.shutdownNow();
+            purger = null;
+        }
+    }
+
+    void purge(final long now) {
+        final Iterator<Trace> iterator = traces.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().started > STALE_NANOS) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static final class Trace {
+        private final long started;
+        private final long dateStarted;
+        private final Map<String, Long> phases;
+
+        private Trace(final long started, final long dateStarted) {
+            super();
+            this.started = started;
+            this.dateStarted = dateStarted;
+            this.phases = new LinkedHashMap<String, Long>();
+        }
+
+        private synchronized void add(final Phase phase, final long elapsed) {
+            final Long current = phases.get(phase.toString());
+            phases.put(phase.toString(), current == null ? elapsed : current + elapsed);
+        }
+
+        private synchronized Map<String, Long> phases() {
+            return Collections.unmodifiableMap(new LinkedHashMap<String, Long>(phases));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.commons.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JMX view of the {@link CallSetupTracer}, registered as "org.restcomm.connect:type=CallSetup".
+ */
+public interface CallSetupTracerMXBean {
+    String OBJECT_NAME = "org.restcomm.connect:type=CallSetup";
+
+    Map<String, Double> getPhases();
+
+    List<String> getSlowCalls();
+
+    long getSlowThreshold();
+
+    void setSlowThreshold(long millis);
+
+    int getActiveTraces();
+
+    void reset();
+}
@@ -0,0 +1,113 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.commons.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.restcomm.connect.commons.annotations.concurrency.Immutable;
+
+/**
+ * Point in time copy of a {@link Histogram}.
+ */
+@Immutable
+public final class HistogramSnapshot {
+    private final String name;
+    private final long[] buckets;
+    private final long count;
+    private final long sum;
+    private final long min;
+    private final long max;
+
+    HistogramSnapshot(final String name, final long[] buckets, final long count, final long sum, final long min,
+            final long max) {
+        super();
+        this.name = name;
+        this.buckets = buckets;
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMin() {
+        return min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the highest value equivalent to the given percentile, capped at the recorded maximum.
+     */
+    public long getValueAtPercentile(final double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * count);
+        if (target < 1) {
+            target = 1;
+        }
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= target) {
+                return Math.max(min, Math.min(Histogram.highestEquivalentValue(i), max));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Flat summary suitable for the Supervisor metrics, keys are suffixed to the histogram name.
+     */
+    public Map<String, Double> summary() {
+        final Map<String, Double> summary = new LinkedHashMap<String, Double>();
+        summary.put(name + ".Count", (double) count);
+        summary.put(name + ".Min", (double) min);
+        summary.put(name + ".Mean", getMean());
+        summary.put(name + ".P50", (double) getValueAtPercentile(50));
+        summary.put(name + ".P90", (double) getValueAtPercentile(90));
+        summary.put(name + ".P99", (double) getValueAtPercentile(99));
+        summary.put(name + ".P999", (double) getValueAtPercentile(99.9));
+        summary.put(name + ".Max", (double) max);
+        return summary;
+    }
+
+    @Override
+    public String toString() {
+        return "HistogramSnapshot [name=" + name + ", count=" + count + ", min=" + min + ", mean=" + getMean()
+                + ", p50=" + getValueAtPercentile(50) + ", p99=" + getValueAtPercentile(99) + ", max=" + max + "]";
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.commons.metrics;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+
+/**
+ * Process wide registry of histograms and gauges. Components register their metrics by name, the monitoring
+ * service reads them back by name prefix when building the Supervisor metrics.
+ */
+@ThreadSafe
+public final class MetricsRegistry {
+    private static final MetricsRegistry instance = new MetricsRegistry();
+
+    private final ConcurrentMap<String, Histogram> histograms;
+    private final ConcurrentMap<String, Gauge> gauges;
+
+    private MetricsRegistry() {
+        super();
+        histograms = new ConcurrentHashMap<String, Histogram>();
+        gauges = new ConcurrentHashMap<String, Gauge>();
+    }
+
+    public static MetricsRegistry getInstance() {
+        return instance;
+    }
+
+    public Histogram histogram(final String name) {
+        Histogram histogram = histograms.get(name);
+        if (histogram == null) {
+            final Histogram created = new Histogram(name);
+            histogram = histograms.putIfAbsent(name, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+
+    public void register(final String name, final Gauge gauge) {
+        gauges.put(name, gauge);
+    }
+
+    public void unregister(final String name) {
+        gauges.remove(name);
+        histograms.remove(name);
+    }
+
+    public SortedMap<String, HistogramSnapshot> histograms(final String prefix) {
+        final SortedMap<String, HistogramSnapshot> snapshots = new TreeMap<String, HistogramSnapshot>();
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            if (prefix == null || entry.getKey().startsWith(prefix)) {
+                snapshots.put(entry.getKey(), entry.getValue().snapshot());
+            }
+        }
+        return snapshots;
+    }
+
+    public SortedMap<String, Long> gauges(final String prefix) {
+        final SortedMap<String, Long> values = new TreeMap<String, Long>();
+        for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+            if (prefix == null || entry.getKey().startsWith(prefix)) {
+                values.put(entry.getKey(), entry.getValue().value());
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.commons.util;
+
+import java.net.UnknownHostException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Vector;
+import java.util.regex.Pattern;
+
+import javax.sdp.Connection;
+import javax.sdp.Media;
+import javax.sdp.MediaDescription;
+import javax.sdp.Origin;
+import javax.sdp.SdpException;
+import javax.sdp.SdpFactory;
+import javax.sdp.SdpParseException;
+import javax.sdp.SessionDescription;
+
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+
+/**
+ * An SDP offer or answer parsed once from a SIP message body. It carries the media types, the WebRTC flag and
+ * the NAT patched form so the call controllers don't have to re-parse the body for every question they ask.
+ */
+@ThreadSafe
+public final class ParsedSdp {
+    private static final Pattern IPV4_LITERAL = Pattern.compile("\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}");
+
+    private final String text;
+    private final String sdp;
+    private final boolean audio;
+    private final boolean video;
+    private final boolean webrtc;
+
+    // The parsed description is patched in place the first time, later patches for another
+    // external address start over from the original text.
+    private SessionDescription description;
+    private String patchedFor;
+    private String patched;
+
+    private ParsedSdp(final String text, final SessionDescription description) throws SdpParseException {
+        super();
+        this.text = text;
+        this.description = description;
+        this.sdp = description.toString();
+        boolean audio = false;
+        boolean video = false;
+        boolean webrtc = false;
+        final Vector<?> descriptions;
+        try {
+            descriptions = description.getMediaDescriptions(false);
+        } catch (final SdpParseException exception) {
+            throw exception;
+        } catch (final SdpException exception) {
+            // Never thrown when the media descriptions are not being created
+            throw new SdpParseException(0, 0, exception.getMessage(), exception);
+        }
+        if (descriptions != null) {
+            for (final Object object : descriptions) {
+                final Media media = ((MediaDescription) object).getMedia();
+                final String type = media.getMediaType();
+                final String protocol = media.getProtocol();
+                audio |= "audio".equalsIgnoreCase(type);
+                video |= "video".equalsIgnoreCase(type);
+                webrtc |= protocol != null && protocol.toUpperCase().contains("RTP/SAVP");
+            }
+        }
+        this.audio = audio;
+        this.video = video;
+        this.webrtc = webrtc;
+    }
+
+    /**
+     * @param contentType the content type of the message, either application/sdp or a multipart type.
+     * @param data the raw message body.
+     * @return the parsed SDP.
+     * @throws SdpParseException if the body does not carry a valid SDP.
+     */
+    public static ParsedSdp parse(final String contentType, final byte[] data) throws SdpParseException {
+        final String text = extract(contentType, new String(data));
+        return new ParsedSdp(text, SdpFactory.getInstance().createSessionDescription(text));
+    }
+
+    private static String extract(final String contentType, final String text) {
+        if (contentType.equalsIgnoreCase("application/sdp")) {
+            return text;
+        }
+        final String boundary = contentType.split(";")[1].split("=")[1];
+        String sdpText = null;
+        for (final String part : text.split(boundary)) {
+            if (part.contains("application/sdp")) {
+                sdpText = part.replaceAll("Content.*", "").replaceAll("--", "").trim();
+            }
+        }
+        return sdpText;
+    }
+
+    public String getSdp() {
+        return sdp;
+    }
+
+    public boolean isAudio() {
+        return audio;
+    }
+
+    public boolean isVideo() {
+        return video;
+    }
+
+    public boolean isWebRTC() {
+        return webrtc;
+    }
+
+    /**
+     * Replaces every non routable IPv4 address in the origin and connection lines with the external address.
+     * The result is cached so asking again for the same external address is free.
+     *
+     * @param externalIp the public address of the far end.
+     * @return the patched SDP.
+     */
+    public synchronized String patch(final String externalIp) throws UnknownHostException, SdpException {
+        if (patched != null && externalIp.equals(patchedFor)) {
+            return patched;
+        }
+        if (patchedFor != null) {
+            description = SdpFactory.getInstance().createSessionDescription(text);
+        }
+        final Map<String, Boolean> routable = new HashMap<String, Boolean>();
+        // Handle the connection at the session level.
+        fix(description.getConnection(), externalIp, routable);
+        // https://github.com/Mobicents/RestComm/issues/149
+        fix(description.getOrigin(), externalIp, routable);
+        // Handle the connections at the media description level.
+        final Vector<?> descriptions = description.getMediaDescriptions(false);
+        if (descriptions != null) {
+            for (final Object object : descriptions) {
+                fix(((MediaDescription) object).getConnection(), externalIp, routable);
+            }
+        }
+        patchedFor = externalIp;
+        patched = description.toString();
+        return patched;
+    }
+
+    private static void fix(final Origin origin, final String externalIp, final Map<String, Boolean> routable)
+            throws SdpException {
+        if (origin != null) {
+            if (Connection.IN.equals(origin.getNetworkType())) {
+                if (Connection.IP4.equals(origin.getAddressType())) {
+                    try {
+                        if (!isRoutable(origin.getAddress(), routable)) {
+                            origin.setAddress(externalIp);
+                        }
+                    } catch (UnknownHostException e) {
+                        // TODO do nothing cause domain name is unknown
+                    }
+                }
+            }
+        }
+    }
+
+    private static void fix(final Connection connection, final String externalIp, final Map<String, Boolean> routable)
+            throws UnknownHostException, SdpException {
+        if (connection != null) {
+            if (Connection.IN.equals(connection.getNetworkType())) {
+                if (Connection.IP4.equals(connection.getAddressType())) {
+                    if (!isRoutable(connection.getAddress(), routable)) {
+                        connection.setAddress(externalIp);
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isRoutable(final String address, final Map<String, Boolean> routable)
+            throws UnknownHostException {
+        Boolean result = routable.get(address);
+        if (result == null) {
+            // Literal addresses don't need a trip through the resolver.
+            final String ip = IPV4_LITERAL.matcher(address).matches() ? address : DNSUtils.getByName(address)
+                    .getHostAddress();
+            result = IPUtils.isRoutableAddress(ip);
+            routable.put(address, result);
+        }
+        return result;
+    }
+}
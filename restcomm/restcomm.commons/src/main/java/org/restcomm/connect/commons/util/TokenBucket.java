@@ -0,0 +1,64 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.commons.util;
+
+import org.restcomm.connect.commons.annotations.concurrency.NotThreadSafe;
+
+/**
+ * A bucket of permits refilled continuously at a rate given per second and capped to one second of permits, so an idle
+ * bucket does not burst. A new bucket holds one permit.
+ * <p>
+ * The rate is given on every refill so it can change while the bucket is in use.
+ */
+@NotThreadSafe
+public final class TokenBucket {
+    private double permits;
+    private long refilled;
+
+    public TokenBucket(final long now) {
+        super();
+        this.permits = 1;
+        this.refilled = now;
+    }
+
+    /**
+     * @param now the current time in milliseconds
+     * @param perSecond the permits added every second, the bucket holds at least one permit at this rate
+     */
+    public void refill(final long now, final int perSecond) {
+        permits = Math.min(Math.max(perSecond, 1), permits + (now - refilled) * perSecond / 1000.0);
+        refilled = now;
+    }
+
+    /**
+     * @return whether a permit was available, it is spent if so
+     */
+    public boolean take() {
+        if (permits < 1) {
+            return false;
+        }
+        permits--;
+        return true;
+    }
+
+    public boolean available() {
+        return permits >= 1;
+    }
+}
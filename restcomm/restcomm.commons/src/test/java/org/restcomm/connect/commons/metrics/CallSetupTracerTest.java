@@ -0,0 +1,89 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.commons.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CallSetupTracerTest {
+    private CallSetupTracer tracer;
+
+    @Before
+    public void before() {
+        tracer = CallSetupTracer.getInstance();
+        tracer.reset();
+    }
+
+    @After
+    public void after() {
+        tracer.setSlowThreshold(2000);
+        tracer.reset();
+    }
+
+    @Test
+    public void testSlowCallKeepsBreakdownUnderCallSid() {
+        tracer.setSlowThreshold(0);
+        tracer.start("call-id@127.0.0.1");
+        tracer.record("call-id@127.0.0.1", CallSetupTracer.Phase.LOOKUP, System.nanoTime());
+        tracer.link("call-id@127.0.0.1", "CA00000000000000000000000000000001");
+        tracer.record("CA00000000000000000000000000000001", CallSetupTracer.Phase.MEDIA_GATEWAY, System.nanoTime());
+        tracer.record("CA00000000000000000000000000000001", CallSetupTracer.Phase.MEDIA_GATEWAY, System.nanoTime());
+        tracer.finish("CA00000000000000000000000000000001");
+
+        final List<CallSetupBreakdown> slowCalls = tracer.getSlowCallBreakdowns();
+        assertEquals(1, slowCalls.size());
+        assertEquals("CA00000000000000000000000000000001", slowCalls.get(0).getCallSid());
+        assertEquals(2, slowCalls.get(0).getPhases().size());
+        assertTrue(slowCalls.get(0).getPhases().containsKey("Lookup"));
+        assertEquals(0, tracer.getActiveTraces());
+
+        final MetricsRegistry registry = MetricsRegistry.getInstance();
+        assertEquals(2, registry.histogram(CallSetupTracer.Phase.MEDIA_GATEWAY.metric()).snapshot().getCount());
+        assertEquals(1, registry.histogram(CallSetupTracer.Phase.TOTAL.metric()).snapshot().getCount());
+    }
+
+    @Test
+    public void testFastAndAbandonedCallsAreNotKept() {
+        tracer.start("fast");
+        tracer.finish("fast");
+        tracer.setSlowThreshold(0);
+        tracer.start("abandoned");
+        tracer.abandon("abandoned");
+        tracer.finish("abandoned");
+        assertTrue(tracer.getSlowCallBreakdowns().isEmpty());
+        assertEquals(1, MetricsRegistry.getInstance().histogram(CallSetupTracer.Phase.TOTAL.metric()).snapshot().getCount());
+    }
+
+    @Test
+    public void testPurgeOnlyDropsStaleTraces() {
+        tracer.start("stale");
+        tracer.purge(System.nanoTime());
+        assertEquals(1, tracer.getActiveTraces());
+        tracer.purge(System.nanoTime() + TimeUnit.MINUTES.toNanos(6));
+        assertEquals(0, tracer.getActiveTraces());
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.commons.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HistogramTest {
+
+    @Test
+    public void testBucketsCoverValuesWithBoundedError() {
+        long previous = -1;
+        for (long value = 0; value < 10000000L; value = value < 100 ? value + 1 : value + value / 7) {
+            final int index = Histogram.index(value);
+            final long highest = Histogram.highestEquivalentValue(index);
+            assertTrue(value + " above its bucket " + highest, value <= highest);
+            assertTrue(value + " too far from " + highest, highest - value <= Math.max(1, value / 30));
+            assertTrue(index >= previous);
+            previous = index;
+        }
+        assertTrue(Histogram.index(Long.MAX_VALUE) >= 0);
+    }
+
+    @Test
+    public void testPercentiles() {
+        final Histogram histogram = new Histogram("test");
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        final HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(1, snapshot.getMin());
+        assertEquals(1000, snapshot.getMax());
+        assertEquals(500.5, snapshot.getMean(), 0.001);
+        assertEquals(500, snapshot.getValueAtPercentile(50), 16);
+        assertEquals(990, snapshot.getValueAtPercentile(99), 32);
+        assertEquals(1000, snapshot.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testEmptySnapshot() {
+        final HistogramSnapshot snapshot = new Histogram("empty").snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getMin());
+        assertEquals(0, snapshot.getValueAtPercentile(99));
+    }
+}
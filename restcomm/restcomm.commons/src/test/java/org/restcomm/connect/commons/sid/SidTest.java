@@ -2,6 +2,9 @@ package org.restcomm.connect.commons.sid;
 
 import static org.junit.Assert.*;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import org.junit.Test;
 import org.restcomm.connect.commons.dao.Sid;
 
@@ -51,4 +54,67 @@ public class SidTest {
 		}
 	}
 
+	/**
+	 * testValidation: the hand written validator follows the sid patterns
+	 */
+	@Test
+	public void testValidation() {
+		String[] candidates = {
+				"AC6dcfdfd531e44ae4ac30e8f97e071ab2",
+				"ACZZZZZZZZZZZZZZZZZZZZZZZZZZZZZZZZ",
+				"ID6dcfdfd531e44ae4ac30e8f97e071122-CA6dcfdfd531e44ae4ac30e8f97e071ab2",
+				"AC6dcfdfd531e44ae4ac30e8f97e071ab",
+				"AC6dcfdfd531e44ae4ac30e8f97e071ab22",
+				"AC6dcfdfd531e44ae4ac30e8f97e071a-2",
+				"AC6dcfdfd531e44ae4ac30e8f97e071a\u00e92",
+				"IX6dcfdfd531e44ae4ac30e8f97e071122-CA6dcfdfd531e44ae4ac30e8f97e071ab2",
+				"ID6dcfdfd531e44ae4ac30e8f97e071122_CA6dcfdfd531e44ae4ac30e8f97e071ab2",
+				"ID6dcfdfd531e44ae4ac30e8f97e071122-CX6dcfdfd531e44ae4ac30e8f97e071ab2",
+				"ID6dcfdfd531e44ae4ac30e8f97e071122-CA6dcfdfd531e44ae4ac30e8f97e071a.2",
+				"" };
+		for (String candidate : candidates) {
+			boolean expected = Sid.callSidPattern.matcher(candidate).matches() || Sid.pattern.matcher(candidate).matches();
+			assertEquals(candidate, expected, Sid.isValid(candidate));
+		}
+		assertFalse(Sid.isValid(null));
+		try {
+			new Sid("AC6dcfdfd531e44ae4ac30e8f97e071a-2");
+			fail("invalid sid accepted");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	/**
+	 * testGeneration: generated sids keep the UUID format and don't repeat across threads
+	 */
+	@Test
+	public void testGeneration() throws Exception {
+		final Set<Sid> sids = new HashSet<Sid>();
+		Thread[] threads = new Thread[8];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					Set<Sid> local = new HashSet<Sid>();
+					for (int j = 0; j < 10000; j++) {
+						local.add(Sid.generate(Sid.Type.ACCOUNT));
+					}
+					synchronized (sids) {
+						sids.addAll(local);
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(8 * 10000, sids.size());
+		for (Sid sid : sids) {
+			String id = sid.toString();
+			assertTrue(id, id.matches("AC[0-9a-f]{12}4[0-9a-f]{3}[89ab][0-9a-f]{15}"));
+		}
+		assertEquals("IN00000000000000000000000000000000", Sid.generate(Sid.Type.INVALID).toString());
+	}
+
 }
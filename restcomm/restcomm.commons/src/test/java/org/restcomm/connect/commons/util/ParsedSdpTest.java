@@ -0,0 +1,114 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.commons.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ParsedSdpTest {
+    private static final String AUDIO_VIDEO = "v=0\r\n"
+            + "o=- 1351084592 1351084592 IN IP4 192.168.1.10\r\n"
+            + "s=Restcomm\r\n"
+            + "c=IN IP4 192.168.1.10\r\n"
+            + "t=0 0\r\n"
+            + "m=audio 64534 RTP/AVP 8 0 101\r\n"
+            + "c=IN IP4 10.0.0.5\r\n"
+            + "a=rtpmap:8 PCMA/8000\r\n"
+            + "a=sendrecv\r\n"
+            + "m=video 64536 RTP/AVP 97\r\n"
+            + "c=IN IP4 8.8.4.4\r\n"
+            + "a=rtpmap:97 H264/90000\r\n";
+
+    private static final String WEBRTC = "v=0\r\n"
+            + "o=- 4611731400430051336 2 IN IP4 127.0.0.1\r\n"
+            + "s=-\r\n"
+            + "t=0 0\r\n"
+            + "m=audio 9 UDP/TLS/RTP/SAVPF 111\r\n"
+            + "c=IN IP4 0.0.0.0\r\n"
+            + "a=rtpmap:111 opus/48000/2\r\n";
+
+    @BeforeClass
+    public static void beforeClass() {
+        DNSUtils.initializeDnsUtilImplClassName(new BaseConfiguration());
+    }
+
+    @Test
+    public void testMediaTypes() throws Exception {
+        final ParsedSdp sdp = ParsedSdp.parse("application/sdp", AUDIO_VIDEO.getBytes());
+        assertTrue(sdp.isAudio());
+        assertTrue(sdp.isVideo());
+        assertFalse(sdp.isWebRTC());
+        assertTrue(sdp.getSdp().contains("c=IN IP4 192.168.1.10"));
+
+        final ParsedSdp webrtc = ParsedSdp.parse("application/sdp", WEBRTC.getBytes());
+        assertTrue(webrtc.isAudio());
+        assertFalse(webrtc.isVideo());
+        assertTrue(webrtc.isWebRTC());
+    }
+
+    @Test
+    public void testPatchOnlyReplacesNonRoutableAddresses() throws Exception {
+        final ParsedSdp sdp = ParsedSdp.parse("application/sdp", AUDIO_VIDEO.getBytes());
+        final String patched = sdp.patch("203.0.113.25");
+        assertFalse(patched.contains("192.168.1.10"));
+        assertFalse(patched.contains("10.0.0.5"));
+        assertTrue(patched.contains("o=- 1351084592 1351084592 IN IP4 203.0.113.25"));
+        assertTrue(patched.contains("c=IN IP4 8.8.4.4"));
+        assertSame(patched, sdp.patch("203.0.113.25"));
+        // the unpatched form is not affected by patching
+        assertTrue(sdp.getSdp().contains("c=IN IP4 192.168.1.10"));
+
+        final String other = sdp.patch("198.51.100.7");
+        assertFalse(other.contains("203.0.113.25"));
+        assertTrue(other.contains("c=IN IP4 198.51.100.7"));
+        assertTrue(other.contains("c=IN IP4 8.8.4.4"));
+    }
+
+    @Test
+    public void testMultipartBody() throws Exception {
+        final String body = "--unique-boundary-1\r\n"
+                + "Content-Type: application/sdp\r\n\r\n"
+                + AUDIO_VIDEO
+                + "--unique-boundary-1\r\n"
+                + "Content-Type: application/isup; version=itu-t92+\r\n\r\n"
+                + "0123456789\r\n"
+                + "--unique-boundary-1--\r\n";
+        final ParsedSdp sdp = ParsedSdp.parse("multipart/mixed;boundary=unique-boundary-1", body.getBytes());
+        assertTrue(sdp.isAudio());
+        assertTrue(sdp.isVideo());
+        assertEquals(ParsedSdp.parse("application/sdp", AUDIO_VIDEO.getBytes()).getSdp(), sdp.getSdp());
+        assertTrue(sdp.patch("203.0.113.25").contains("c=IN IP4 203.0.113.25"));
+    }
+
+    @Test
+    public void testSdpUtilsDelegates() throws Exception {
+        assertTrue(SdpUtils.isWebRTCSDP("application/sdp", WEBRTC.getBytes()));
+        assertFalse(SdpUtils.isWebRTCSDP("application/sdp", AUDIO_VIDEO.getBytes()));
+        assertTrue(SdpUtils.isVideoSDP("application/sdp", AUDIO_VIDEO.getBytes()));
+        assertEquals(ParsedSdp.parse("application/sdp", AUDIO_VIDEO.getBytes()).patch("203.0.113.25"),
+                SdpUtils.patch("application/sdp", AUDIO_VIDEO.getBytes(), "203.0.113.25"));
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.commons.util;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TokenBucketTest {
+    @Test
+    public void newBucketHoldsOnePermit() {
+        final TokenBucket bucket = new TokenBucket(0);
+        assertTrue(bucket.take());
+        assertFalse(bucket.available());
+        assertFalse(bucket.take());
+    }
+
+    @Test
+    public void permitsAreAddedAtTheGivenRate() {
+        final TokenBucket bucket = new TokenBucket(0);
+        assertTrue(bucket.take());
+        bucket.refill(100, 10);
+        assertTrue(bucket.take());
+        bucket.refill(150, 10);
+        assertFalse(bucket.available());
+        bucket.refill(200, 10);
+        assertTrue(bucket.take());
+    }
+
+    @Test
+    public void idleBucketIsCappedToOneSecond() {
+        final TokenBucket bucket = new TokenBucket(0);
+        bucket.refill(60000, 5);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bucket.take());
+        }
+        assertFalse(bucket.take());
+    }
+
+    @Test
+    public void zeroRateAddsNoPermit() {
+        final TokenBucket bucket = new TokenBucket(0);
+        assertTrue(bucket.take());
+        bucket.refill(60000, 0);
+        assertFalse(bucket.available());
+    }
+}
@@ -24,13 +24,17 @@ import org.restcomm.connect.commons.amazonS3.S3AccessTool;
 import org.restcomm.connect.core.service.api.ClientPasswordHashingService;
 import org.restcomm.connect.core.service.api.NumberSelectorService;
 import org.restcomm.connect.core.service.api.ProfileService;
+import org.restcomm.connect.core.service.api.RateLimiterService;
 import org.restcomm.connect.core.service.api.RecordingService;
 import org.restcomm.connect.core.service.client.ClientPasswordHashingServiceImpl;
 import org.restcomm.connect.core.service.number.NumberSelectorServiceImpl;
 import org.restcomm.connect.core.service.profile.ProfileServiceImpl;
+import org.restcomm.connect.core.service.ratelimit.RateLimiterServiceImpl;
 import org.restcomm.connect.core.service.recording.RecordingsServiceImpl;
 import org.restcomm.connect.core.service.util.UriUtils;
 import org.restcomm.connect.dao.DaoManager;
+import org.restcomm.connect.dao.cache.CachingDaoManager;
+import org.restcomm.connect.dao.cache.IncomingPhoneNumberIndex;
 import scala.concurrent.ExecutionContext;
 
 /**
@@ -45,6 +49,7 @@ public class RestcommConnectServiceProvider {
     private ProfileService profileService;
     private ClientPasswordHashingService clientPasswordHashingService;
     private RecordingService recordingService;
+    private RateLimiterService rateLimiterService;
     private UriUtils uriUtils;
 
     public static RestcommConnectServiceProvider getInstance() {
@@ -60,12 +65,18 @@ public class RestcommConnectServiceProvider {
     public void startServices(ServletContext ctx) {
         DaoManager daoManager = (DaoManager) ctx.getAttribute(DaoManager.class.getName());
         // core services initialization
-        this.numberSelector = new NumberSelectorServiceImpl(daoManager.getIncomingPhoneNumbersDao());
+        IncomingPhoneNumberIndex numberIndex = null;
+        if (daoManager instanceof CachingDaoManager) {
+            numberIndex = ((CachingDaoManager) daoManager).getIncomingPhoneNumberIndex();
+        }
+        this.numberSelector = new NumberSelectorServiceImpl(daoManager.getIncomingPhoneNumbersDao(), numberIndex);
         ctx.setAttribute(NumberSelectorService.class.getName(), numberSelector);
         this.profileService = new ProfileServiceImpl(daoManager);
         ctx.setAttribute(ProfileService.class.getName(), profileService);
         this.clientPasswordHashingService = new ClientPasswordHashingServiceImpl(daoManager);
         ctx.setAttribute(ClientPasswordHashingService.class.getName(), clientPasswordHashingService);
+        this.rateLimiterService = new RateLimiterServiceImpl(daoManager, profileService);
+        ctx.setAttribute(RateLimiterService.class.getName(), rateLimiterService);
 
         S3AccessTool s3AccessTool = (S3AccessTool) ctx.getAttribute(S3AccessTool.class.getName());
         ExecutionContext ec = (ExecutionContext) ctx.getAttribute(ExecutionContext.class.getName());
@@ -101,6 +112,11 @@ public class RestcommConnectServiceProvider {
      */
     public RecordingService recordingService() { return recordingService; }
 
+    /**
+     * @return the in-memory rate limiter for outbound calls and messages, null until {@link #startServices} ran
+     */
+    public RateLimiterService rateLimiterService() { return rateLimiterService; }
+
     /**
      *
      * @return
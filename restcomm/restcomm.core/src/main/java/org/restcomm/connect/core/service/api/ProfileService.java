@@ -42,4 +42,19 @@ public interface ProfileService {
      *         organization) will return null if no profile is explicitly assigned to the target resource.
      */
     Profile retrieveExplicitlyAssociatedProfile(Sid targetSid);
+
+    /**
+     * Forgets effective profiles that resolved to this profile. Call after the profile is updated or deleted.
+     *
+     * @param profileSid
+     */
+    void invalidateProfile(String profileSid);
+
+    /**
+     * Forgets effective profiles whose resolution went through this account or organization. Call after its
+     * profile association, parent account or organization changes, or after it is removed.
+     *
+     * @param targetSid
+     */
+    void invalidateTarget(Sid targetSid);
 }
@@ -0,0 +1,77 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.core.service.api;
+
+import org.restcomm.connect.commons.dao.Sid;
+
+/**
+ * In memory rate limits on outbound traffic. Limits are read from the "sessionThrottling" section of the effective
+ * profiles, e.g. "PSTNCallsPerTime" limits the calls of an account and "PSTNCallsPerTimePerOrganization", read from
+ * the organization profile, the calls of all accounts of an organization together.
+ */
+public interface RateLimiterService {
+    enum Event {
+        OUTBOUND_CALL("PSTNCallsPerTime"), OUTBOUND_SMS("SMSPerTime"), OUTBOUND_SMS_SEGMENT("SMSSegmentsPerTime");
+
+        private final String rule;
+
+        private Event(final String rule) {
+            this.rule = rule;
+        }
+
+        public String rule() {
+            return rule;
+        }
+    }
+
+    enum Scope {
+        ACCOUNT(""), CLIENT("PerClient"), NUMBER("PerNumber"), ORGANIZATION("PerOrganization");
+
+        private final String suffix;
+
+        private Scope(final String suffix) {
+            this.suffix = suffix;
+        }
+
+        public String suffix() {
+            return suffix;
+        }
+    }
+
+    /**
+     * Counts an event against the limits of the account, of the client or number it originates from and of the
+     * account organization.
+     *
+     * @param event
+     * @param accountSid
+     * @param client the client the event originates from, may be null
+     * @param number the number the event originates from, may be null
+     * @return false, and the event is not counted, if one of the limits has been reached
+     */
+    boolean tryAcquire(Event event, Sid accountSid, String client, String number);
+
+    /**
+     * @param event
+     * @param scope
+     * @param key the account or organization sid, the number, or "&lt;account sid&gt;:&lt;login&gt;" for a client
+     * @return the events counted over the current sliding window, 0 if there is no limit for this key
+     */
+    long count(Event event, Scope scope, String key);
+}
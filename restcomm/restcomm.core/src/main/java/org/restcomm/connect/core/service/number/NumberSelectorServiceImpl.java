@@ -37,6 +37,7 @@ import org.restcomm.connect.core.service.number.api.NumberSelectionResult;
 import org.restcomm.connect.core.service.number.api.ResultType;
 import org.restcomm.connect.core.service.number.api.SearchModifier;
 import org.restcomm.connect.dao.IncomingPhoneNumbersDao;
+import org.restcomm.connect.dao.cache.IncomingPhoneNumberIndex;
 import org.restcomm.connect.dao.entities.IncomingPhoneNumber;
 import org.restcomm.connect.dao.entities.IncomingPhoneNumberFilter;
 
@@ -55,6 +56,9 @@ import com.google.i18n.phonenumbers.PhoneNumberUtil;
  * details for source and destination. If protocol doesnt support Organizations
  * yet, then null values are allowed, but Regexes will not be evaluated in these
  * cases.
+ *
+ * When an IncomingPhoneNumberIndex is given, the same rules are evaluated
+ * against the in memory index and the DAO is not queried at all.
  */
 public class NumberSelectorServiceImpl implements NumberSelectorService {
 
@@ -62,8 +66,15 @@ public class NumberSelectorServiceImpl implements NumberSelectorService {
 
     private IncomingPhoneNumbersDao numbersDao;
 
+    private IncomingPhoneNumberIndex index;
+
     public NumberSelectorServiceImpl(IncomingPhoneNumbersDao numbersDao) {
+        this(numbersDao, null);
+    }
+
+    public NumberSelectorServiceImpl(IncomingPhoneNumbersDao numbersDao, IncomingPhoneNumberIndex index) {
         this.numbersDao = numbersDao;
+        this.index = index;
     }
 
     /**
@@ -129,6 +140,9 @@ public class NumberSelectorServiceImpl implements NumberSelectorService {
      */
     private NumberSelectionResult findSingleNumber(String number,
             Sid sourceOrganizationSid, Sid destinationOrganizationSid, Set<SearchModifier> modifiers) {
+        if (index != null) {
+            return findSingleIndexedNumber(number, sourceOrganizationSid, destinationOrganizationSid, modifiers);
+        }
         NumberSelectionResult matchedNumber = new NumberSelectionResult(null, false, null);
         IncomingPhoneNumberFilter.Builder filterBuilder = IncomingPhoneNumberFilter.Builder.builder();
         filterBuilder.byPhoneNumber(number);
@@ -173,6 +187,41 @@ public class NumberSelectorServiceImpl implements NumberSelectorService {
         return matchedNumber;
     }
 
+    /**
+     * Same rules as findSingleNumber, evaluated against the index.
+     *
+     * @param number the number to match against the index
+     * @param sourceOrganizationSid
+     * @param destinationOrganizationSid
+     * @return the matched number, null if not matched.
+     */
+    private NumberSelectionResult findSingleIndexedNumber(String number,
+            Sid sourceOrganizationSid, Sid destinationOrganizationSid, Set<SearchModifier> modifiers) {
+        NumberSelectionResult matchedNumber = new NumberSelectionResult(null, false, null);
+        List<IncomingPhoneNumber> candidates = index.getNumbers(number);
+        if (!candidates.isEmpty()) {
+            boolean pureSIPAllowed = true;
+            if (destinationOrganizationSid == null && (modifiers != null) && (modifiers.contains(SearchModifier.ORG_COMPLIANT))) {
+                pureSIPAllowed = false;
+            }
+            if (sourceOrganizationSid != null
+                    && !sourceOrganizationSid.equals(destinationOrganizationSid)) {
+                pureSIPAllowed = false;
+            }
+            for (IncomingPhoneNumber candidate : candidates) {
+                if ((destinationOrganizationSid == null || destinationOrganizationSid.equals(candidate.getOrganizationSid()))
+                        && (pureSIPAllowed || Boolean.FALSE.equals(candidate.isPureSip()))) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Matched indexed number:" + candidate.toString());
+                    }
+                    return new NumberSelectionResult(candidate, Boolean.FALSE, ResultType.REGULAR);
+                }
+            }
+            matchedNumber.setOrganizationFiltered(Boolean.TRUE);
+        }
+        return matchedNumber;
+    }
+
     /**
      * Iterates over the list of given numbers, and returns the first matching.
      *
@@ -360,6 +409,9 @@ public class NumberSelectorServiceImpl implements NumberSelectorService {
      */
     private NumberSelectionResult findByRegex(List<String> numberQueries,
             Sid sourceOrganizationSid, Sid destOrg) {
+        if (index != null) {
+            return findByIndexedRegex(numberQueries, destOrg);
+        }
         NumberSelectionResult numberFound = new NumberSelectionResult(null, false, null);
         IncomingPhoneNumberFilter.Builder filterBuilder = IncomingPhoneNumberFilter.Builder.builder();
         filterBuilder.byOrgSid(destOrg.toString());
@@ -382,6 +434,27 @@ public class NumberSelectorServiceImpl implements NumberSelectorService {
         return numberFound;
     }
 
+    /**
+     * Evaluates the precompiled regexes of the organization, already ordered
+     * longest first by the index.
+     *
+     * @param numberQueries
+     * @param destOrg
+     * @return the longest regex matching any number in the list, null if no
+     * match
+     */
+    private NumberSelectionResult findByIndexedRegex(List<String> numberQueries, Sid destOrg) {
+        for (IncomingPhoneNumberIndex.Regex regex : index.getRegexes(destOrg)) {
+            for (String numberQuery : numberQueries) {
+                if (regex.getPattern().matcher(numberQuery).find()) {
+                    return new NumberSelectionResult(regex.getNumber(), false, ResultType.REGEX);
+                }
+            }
+        }
+        logger.info("No matching phone number found, make sure your Restcomm Regex phone number is correctly defined");
+        return new NumberSelectionResult(null, false, null);
+    }
+
     /**
      *
      * @param numberQueries the list of numbers to be matched
@@ -395,18 +468,9 @@ public class NumberSelectorServiceImpl implements NumberSelectorService {
             Iterator<IncomingPhoneNumber> iterator = regexSet.iterator();
             while (matchedRegex.getNumber() == null && iterator.hasNext()) {
                 IncomingPhoneNumber currentRegex = iterator.next();
-                String phoneRegexPattern = null;
-                //here we perform string replacement to allow proper regex compilation
-                if (currentRegex.getPhoneNumber().startsWith("+")) {
-                    //ensures leading + sign is interpreted as expected char
-                    phoneRegexPattern = currentRegex.getPhoneNumber().replace("+", "/+");
-                } else if (currentRegex.getPhoneNumber().startsWith("*")) {
-                    //ensures leading * sign is interpreted as expected char
-                    phoneRegexPattern = currentRegex.getPhoneNumber().replace("*", "/*");
-                } else {
-                    phoneRegexPattern = currentRegex.getPhoneNumber();
-                }
-                Pattern p = Pattern.compile(phoneRegexPattern);
+                //leading + and * signs are escaped to be interpreted as expected chars
+                Pattern p = IncomingPhoneNumberIndex.compile(currentRegex.getPhoneNumber());
+                String phoneRegexPattern = p.pattern();
                 int i = 0;
                 //we evalute the current regex to the list of incoming numbers
                 //we stop as soon as a match is found
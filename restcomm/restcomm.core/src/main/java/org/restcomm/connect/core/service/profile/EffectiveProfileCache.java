@@ -0,0 +1,140 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.core.service.profile;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.dao.entities.Profile;
+
+/**
+ * Effective profiles resolved for accounts and organizations. Each entry remembers every sid the resolution read,
+ * the accounts walked up the tree, the organization and the profile it ended at, so changing any of them drops
+ * exactly the entries that depended on it.
+ */
+@ThreadSafe
+final class EffectiveProfileCache {
+    private final long ttl;
+    private final int maxEntries;
+    private final Map<Sid, Entry> entries;
+    // Guarded by dependents.
+    private final Map<String, Set<Sid>> dependents;
+    // Bumped on every invalidation so a resolution that started before it doesn't put back a stale profile.
+    private final AtomicLong generation;
+
+    EffectiveProfileCache(final long ttl, final int maxEntries) {
+        super();
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.entries = new ConcurrentHashMap<Sid, Entry>();
+        this.dependents = new HashMap<String, Set<Sid>>();
+        this.generation = new AtomicLong();
+    }
+
+    Profile get(final Sid target) {
+        final Entry entry = entries.get(target);
+        if (entry == null || entry.expires < System.currentTimeMillis()) {
+            return null;
+        }
+        return entry.profile;
+    }
+
+    long generation() {
+        return generation.get();
+    }
+
+    void put(final Sid target, final Profile profile, final Collection<String> dependencies, final long generation) {
+        synchronized (dependents) {
+            if (generation != this.generation.get()) {
+                return;
+            }
+            remove(target);
+            if (entries.size() >= maxEntries) {
+                entries.clear();
+                dependents.clear();
+            }
+            final Entry entry = new Entry(profile, new HashSet<String>(dependencies), System.currentTimeMillis() + ttl);
+            for (final String dependency : entry.dependencies) {
+                Set<Sid> targets = dependents.get(dependency);
+                if (targets == null) {
+                    targets = new HashSet<Sid>();
+                    dependents.put(dependency, targets);
+                }
+                targets.add(target);
+            }
+            entries.put(target, entry);
+        }
+    }
+
+    /**
+     * Drops every entry whose resolution read the given account, organization or profile sid.
+     */
+    void invalidate(final String dependency) {
+        synchronized (dependents) {
+            generation.incrementAndGet();
+            final Set<Sid> targets = dependents.remove(dependency);
+            if (targets != null) {
+                for (final Sid target : targets) {
+                    remove(target);
+                }
+            }
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    // Must hold the dependents lock.
+    private void remove(final Sid target) {
+        final Entry entry = entries.remove(target);
+        if (entry != null) {
+            for (final String dependency : entry.dependencies) {
+                final Set<Sid> targets = dependents.get(dependency);
+                if (targets != null) {
+                    targets.remove(target);
+                    if (targets.isEmpty()) {
+                        dependents.remove(dependency);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final Profile profile;
+        private final Set<String> dependencies;
+        private final long expires;
+
+        private Entry(final Profile profile, final Set<String> dependencies, final long expires) {
+            super();
+            this.profile = profile;
+            this.dependencies = dependencies;
+            this.expires = expires;
+        }
+    }
+}
@@ -20,6 +20,8 @@
 package org.restcomm.connect.core.service.profile;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.log4j.Logger;
 import org.restcomm.connect.commons.dao.Sid;
@@ -34,11 +36,24 @@ public class ProfileServiceImpl implements ProfileService {
 
     private static String DEFAULT_PROFILE_SID = Profile.DEFAULT_PROFILE_SID;
 
+    // Bounds how long a change made on another node stays invisible here.
+    private static final long DEFAULT_CACHE_TTL = 60000;
+    private static final int DEFAULT_CACHE_MAX_ENTRIES = 10000;
+
     private final DaoManager daoManager;
+    private final EffectiveProfileCache cache;
 
     public ProfileServiceImpl(DaoManager daoManager) {
+        this(daoManager, DEFAULT_CACHE_TTL, DEFAULT_CACHE_MAX_ENTRIES);
+    }
+
+    /**
+     * @param cacheTtl milliseconds an effective profile is remembered, 0 disables memoization
+     */
+    public ProfileServiceImpl(DaoManager daoManager, long cacheTtl, int cacheMaxEntries) {
         super();
         this.daoManager = daoManager;
+        this.cache = cacheTtl > 0 ? new EffectiveProfileCache(cacheTtl, cacheMaxEntries) : null;
     }
 
     /**
@@ -47,17 +62,27 @@ public class ProfileServiceImpl implements ProfileService {
      */
     @Override
     public Profile retrieveEffectiveProfileByAccountSid(Sid accountSid) {
-        Profile profile = null;
+        Profile profile = cache == null ? null : cache.get(accountSid);
+        if (profile != null) {
+            return profile;
+        }
+        final long generation = cache == null ? 0 : cache.generation();
+        final List<String> dependencies = new ArrayList<String>();
         Sid orginalRequestedAccount = accountSid;
         Sid currentAccount = accountSid;
         Account lastAccount = null;
+        Account requestedAccount = null;
 
         // try to find profile in account hierarchy
         do {
+            dependencies.add(currentAccount.toString());
             profile = retrieveExplicitlyAssociatedProfile(currentAccount);
             if (profile == null) {
                 lastAccount = daoManager.getAccountsDao().getAccount(currentAccount);
                 if (lastAccount != null) {
+                    if (requestedAccount == null) {
+                        requestedAccount = lastAccount;
+                    }
                     currentAccount = lastAccount.getParentSid();
                 } else {
                     throw new RuntimeException("account not found!!!");
@@ -67,7 +92,8 @@ public class ProfileServiceImpl implements ProfileService {
 
         // if profile is not found in account hierarchy,try org
         if (profile == null) {
-            Sid organizationSid = daoManager.getAccountsDao().getAccount(orginalRequestedAccount).getOrganizationSid();
+            Sid organizationSid = requestedAccount.getOrganizationSid();
+            dependencies.add(organizationSid.toString());
             profile = retrieveExplicitlyAssociatedProfile(organizationSid);
         }
 
@@ -83,7 +109,7 @@ public class ProfileServiceImpl implements ProfileService {
         if (logger.isDebugEnabled()) {
             logger.debug("Returning profile:" + profile);
         }
-
+        remember(orginalRequestedAccount, profile, dependencies, generation);
         return profile;
     }
 
@@ -92,7 +118,13 @@ public class ProfileServiceImpl implements ProfileService {
      * @return will return associated profile of provided organization sid
      */
     public Profile retrieveEffectiveProfileByOrganizationSid(Sid organizationSid) {
-        Profile profile = null;
+        Profile profile = cache == null ? null : cache.get(organizationSid);
+        if (profile != null) {
+            return profile;
+        }
+        final long generation = cache == null ? 0 : cache.generation();
+        final List<String> dependencies = new ArrayList<String>();
+        dependencies.add(organizationSid.toString());
         profile = retrieveExplicitlyAssociatedProfile(organizationSid);
 
         // finally try with default profile
@@ -106,9 +138,31 @@ public class ProfileServiceImpl implements ProfileService {
         if (logger.isDebugEnabled()) {
             logger.debug("Returning profile:" + profile);
         }
+        remember(organizationSid, profile, dependencies, generation);
         return profile;
     }
 
+    private void remember(Sid target, Profile profile, List<String> dependencies, long generation) {
+        if (cache != null && profile != null) {
+            dependencies.add(profile.getSid());
+            cache.put(target, profile, dependencies, generation);
+        }
+    }
+
+    @Override
+    public void invalidateProfile(String profileSid) {
+        if (cache != null) {
+            cache.invalidate(profileSid);
+        }
+    }
+
+    @Override
+    public void invalidateTarget(Sid targetSid) {
+        if (cache != null) {
+            cache.invalidate(targetSid.toString());
+        }
+    }
+
     /**
      * @param targetSid
      * @return will return associated profile of provided target (account or
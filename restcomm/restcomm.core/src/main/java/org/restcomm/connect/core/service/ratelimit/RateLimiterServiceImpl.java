@@ -0,0 +1,257 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.core.service.ratelimit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.core.service.api.ProfileService;
+import org.restcomm.connect.core.service.api.RateLimiterService;
+import org.restcomm.connect.dao.DaoManager;
+import org.restcomm.connect.dao.entities.Account;
+import org.restcomm.connect.dao.entities.Profile;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Sliding window rate limiter over {@link SlidingWindowCounter}s. Limits are parsed once per profile version and
+ * the checks never go to the DB once the account organization and effective profiles are known.
+ * <p>
+ * Checking the limits and counting the event are not atomic, concurrent requests for the same key may exceed a limit
+ * by a few events.
+ */
+@ThreadSafe
+public class RateLimiterServiceImpl implements RateLimiterService {
+    private static final Logger logger = Logger.getLogger(RateLimiterServiceImpl.class);
+    private static final String SESSION_THROTTLING = "sessionThrottling";
+    private static final int PURGE_INTERVAL = 4096;
+
+    private final DaoManager daoManager;
+    private final ProfileService profileService;
+    private final ConcurrentMap<String, SlidingWindowCounter> counters;
+    private final ConcurrentMap<String, Limits> limits;
+    private final ConcurrentMap<Sid, Sid> organizations;
+    private final AtomicLong acquisitions;
+
+    public RateLimiterServiceImpl(final DaoManager daoManager, final ProfileService profileService) {
+        super();
+        this.daoManager = daoManager;
+        this.profileService = profileService;
+        this.counters = new ConcurrentHashMap<String, SlidingWindowCounter>();
+        this.limits = new ConcurrentHashMap<String, Limits>();
+        this.organizations = new ConcurrentHashMap<Sid, Sid>();
+        this.acquisitions = new AtomicLong();
+    }
+
+    @Override
+    public boolean tryAcquire(final Event event, final Sid accountSid, final String client, final String number) {
+        if (accountSid == null) {
+            return true;
+        }
+        final long now = System.currentTimeMillis();
+        final Limits accountLimits = limits(profileService.retrieveEffectiveProfileByAccountSid(accountSid));
+        final Sid organizationSid = organization(accountSid);
+        final Limits organizationLimits = organizationSid == null ? Limits.NONE
+                : limits(profileService.retrieveEffectiveProfileByOrganizationSid(organizationSid));
+
+        final List<SlidingWindowCounter> acquired = new ArrayList<SlidingWindowCounter>(4);
+        if (!check(acquired, event, Scope.ACCOUNT, accountSid.toString(), accountLimits, now)
+                || (client != null && !check(acquired, event, Scope.CLIENT, accountSid + ":" + client, accountLimits, now))
+                || (number != null && !check(acquired, event, Scope.NUMBER, number, accountLimits, now))
+                || (organizationSid != null
+                        && !check(acquired, event, Scope.ORGANIZATION, organizationSid.toString(), organizationLimits, now))) {
+            return false;
+        }
+        for (final SlidingWindowCounter counter : acquired) {
+            counter.increment(now);
+        }
+        if (acquisitions.incrementAndGet() % PURGE_INTERVAL == 0) {
+            purge(now);
+        }
+        return true;
+    }
+
+    @Override
+    public long count(final Event event, final Scope scope, final String key) {
+        final SlidingWindowCounter counter = counters.get(key(event, scope, key));
+        return counter == null ? 0 : counter.count(System.currentTimeMillis());
+    }
+
+    private boolean check(final List<SlidingWindowCounter> acquired, final Event event, final Scope scope, final String key,
+            final Limits limits, final long now) {
+        final Limit limit = limits.get(event.rule() + scope.suffix());
+        if (limit == null) {
+            return true;
+        }
+        final SlidingWindowCounter counter = counter(key(event, scope, key), limit.window, now);
+        if (counter.count(now) >= limit.events) {
+            if (logger.isDebugEnabled()) {
+                logger.debug(event.rule() + scope.suffix() + " limit of " + limit.events + " reached for " + key);
+            }
+            return false;
+        }
+        acquired.add(counter);
+        return true;
+    }
+
+    private SlidingWindowCounter counter(final String key, final long window, final long now) {
+        SlidingWindowCounter counter = counters.get(key);
+        while (counter == null || counter.getWindow() != window) {
+            // first event for this key or the limit window changed, retry if another thread or a purge got there first
+            final SlidingWindowCounter created = new SlidingWindowCounter(window, now);
+            if (counter == null ? counters.putIfAbsent(key, created) == null : counters.replace(key, counter, created)) {
+                return created;
+            }
+            counter = counters.get(key);
+        }
+        return counter;
+    }
+
+    private Sid organization(final Sid accountSid) {
+        Sid organizationSid = organizations.get(accountSid);
+        if (organizationSid == null) {
+            final Account account = daoManager.getAccountsDao().getAccount(accountSid);
+            if (account != null && account.getOrganizationSid() != null) {
+                organizationSid = account.getOrganizationSid();
+                organizations.put(accountSid, organizationSid);
+            }
+        }
+        return organizationSid;
+    }
+
+    private Limits limits(final Profile profile) {
+        if (profile == null) {
+            return Limits.NONE;
+        }
+        Limits parsed = limits.get(profile.getSid());
+        if (parsed == null || !parsed.isVersionOf(profile)) {
+            parsed = Limits.parse(profile);
+            limits.put(profile.getSid(), parsed);
+        }
+        return parsed;
+    }
+
+    private void purge(final long now) {
+        final Iterator<SlidingWindowCounter> iterator = counters.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isIdle(now)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static String key(final Event event, final Scope scope, final String key) {
+        return event.rule() + scope.suffix() + "|" + key;
+    }
+
+    private static final class Limit {
+        private final long events;
+        private final long window;
+
+        private Limit(final long events, final long window) {
+            this.events = events;
+            this.window = window;
+        }
+    }
+
+    private static final class Limits {
+        private static final Limits NONE = new Limits(null, Collections.<String, Limit>emptyMap());
+
+        private final Date dateUpdated;
+        private final Map<String, Limit> rules;
+
+        private Limits(final Date dateUpdated, final Map<String, Limit> rules) {
+            this.dateUpdated = dateUpdated;
+            this.rules = rules;
+        }
+
+        private Limit get(final String rule) {
+            return rules.get(rule);
+        }
+
+        private boolean isVersionOf(final Profile profile) {
+            return dateUpdated == null ? profile.getDateUpdated() == null : dateUpdated.equals(profile.getDateUpdated());
+        }
+
+        private static Limits parse(final Profile profile) {
+            final Map<String, Limit> rules = new HashMap<String, Limit>();
+            try {
+                final JsonElement document = new JsonParser().parse(profile.getProfileDocument());
+                if (document != null && document.isJsonObject() && document.getAsJsonObject().has(SESSION_THROTTLING)) {
+                    final JsonObject throttling = document.getAsJsonObject().getAsJsonObject(SESSION_THROTTLING);
+                    for (final Map.Entry<String, JsonElement> entry : throttling.entrySet()) {
+                        final JsonObject rule = entry.getValue().getAsJsonObject();
+                        if (rule.has("events") && rule.has("time") && rule.has("timeUnit")) {
+                            final long window = window(rule.get("time").getAsLong(), rule.get("timeUnit").getAsString());
+                            if (window > 0) {
+                                rules.put(entry.getKey(), new Limit(rule.get("events").getAsLong(), window));
+                            }
+                        }
+                    }
+                }
+            } catch (Exception exception) {
+                logger.warn("Could not read the session throttling rules of profile " + profile.getSid() + ": " + exception);
+            }
+            return new Limits(profile.getDateUpdated(), rules);
+        }
+
+        /**
+         * @return the window in milliseconds, months count 30 days and years 365.
+         */
+        private static long window(final long time, final String unit) {
+            switch (unit) {
+                case "nanoseconds":
+                    return TimeUnit.NANOSECONDS.toMillis(time);
+                case "milliseconds":
+                    return time;
+                case "seconds":
+                    return TimeUnit.SECONDS.toMillis(time);
+                case "minutes":
+                    return TimeUnit.MINUTES.toMillis(time);
+                case "hours":
+                    return TimeUnit.HOURS.toMillis(time);
+                case "days":
+                    return TimeUnit.DAYS.toMillis(time);
+                case "weeks":
+                    return TimeUnit.DAYS.toMillis(time * 7);
+                case "months":
+                    return TimeUnit.DAYS.toMillis(time * 30);
+                case "years":
+                    return TimeUnit.DAYS.toMillis(time * 365);
+                default:
+                    return 0;
+            }
+        }
+    }
+}
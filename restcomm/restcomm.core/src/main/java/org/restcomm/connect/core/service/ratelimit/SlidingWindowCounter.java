@@ -0,0 +1,109 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.core.service.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+
+/**
+ * Lock free sliding window event counter. Events of the current fixed window are spread over striped cells, one cache
+ * line apart, so that threads counting the same key rarely touch the same memory. The count over the sliding window
+ * is the current window plus the previous one weighted by how much of it still overlaps the sliding window.
+ * <p>
+ * Events counted by a thread that races with a window roll over may land in either window, the count is an
+ * approximation meant for rate limiting.
+ */
+@ThreadSafe
+public final class SlidingWindowCounter {
+    private static final int STRIPES = stripes();
+    private static final int PADDING = 8;
+
+    private final long window;
+    private final AtomicLongArray cells;
+    private final AtomicLong windowStart;
+    private volatile long previous;
+
+    public SlidingWindowCounter(final long window, final long now) {
+        super();
+        if (window <= 0) {
+            throw new IllegalArgumentException("window must be positive");
+        }
+        this.window = window;
+        this.cells = new AtomicLongArray(STRIPES * PADDING);
+        this.windowStart = new AtomicLong(now);
+    }
+
+    public long getWindow() {
+        return window;
+    }
+
+    public void increment(final long now) {
+        roll(now);
+        cells.incrementAndGet(cell());
+    }
+
+    public long count(final long now) {
+        roll(now);
+        long current = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            current += cells.get(i * PADDING);
+        }
+        final long elapsed = Math.min(Math.max(now - windowStart.get(), 0), window);
+        return current + (previous * (window - elapsed)) / window;
+    }
+
+    /**
+     * @return true if nothing was counted during the last two windows, the counter can then be dropped.
+     */
+    public boolean isIdle(final long now) {
+        return now - windowStart.get() >= 2 * window;
+    }
+
+    private void roll(final long now) {
+        final long start = windowStart.get();
+        final long elapsed = now - start;
+        if (elapsed < window) {
+            return;
+        }
+        if (windowStart.compareAndSet(start, now - elapsed % window)) {
+            long current = 0;
+            for (int i = 0; i < STRIPES; i++) {
+                current += cells.getAndSet(i * PADDING, 0);
+            }
+            previous = elapsed < 2 * window ? current : 0;
+        }
+    }
+
+    private static int cell() {
+        final long id = Thread.currentThread().getId();
+        final int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return ((hash >>> 16) & (STRIPES - 1)) * PADDING;
+    }
+
+    private static int stripes() {
+        int stripes = 1;
+        while (stripes < Runtime.getRuntime().availableProcessors() * 2 && stripes < 64) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+}
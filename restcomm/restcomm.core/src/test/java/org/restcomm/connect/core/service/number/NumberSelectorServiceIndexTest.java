@@ -0,0 +1,386 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.core.service.number;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.core.service.number.api.NumberSelectionResult;
+import org.restcomm.connect.dao.CacheVersionsDao;
+import org.restcomm.connect.dao.DaoManager;
+import org.restcomm.connect.dao.IncomingPhoneNumbersDao;
+import org.restcomm.connect.dao.cache.CachingDaoManager;
+import org.restcomm.connect.dao.entities.IncomingPhoneNumber;
+import org.restcomm.connect.dao.entities.IncomingPhoneNumberFilter;
+
+/**
+ * Same scenarios as {@link NumberSelectorServiceTest} with the incoming phone number index enabled, the DAO is
+ * only used to load the index and must never be queried by the selection itself.
+ */
+public class NumberSelectorServiceIndexTest {
+
+    private List<IncomingPhoneNumber> rows;
+    private IncomingPhoneNumbersDao numDao;
+    private CachingDaoManager daoManager;
+
+    @Before
+    public void before() {
+        rows = Collections.synchronizedList(new ArrayList<IncomingPhoneNumber>());
+        numDao = Mockito.mock(IncomingPhoneNumbersDao.class);
+        when(numDao.getIncomingPhoneNumbersByFilter((IncomingPhoneNumberFilter) any())).thenAnswer(new Answer<List<IncomingPhoneNumber>>() {
+            @Override
+            public List<IncomingPhoneNumber> answer(InvocationOnMock invocation) {
+                IncomingPhoneNumberFilter filter = invocation.getArgument(0);
+                List<IncomingPhoneNumber> matched = new ArrayList<IncomingPhoneNumber>();
+                synchronized (rows) {
+                    for (IncomingPhoneNumber row : rows) {
+                        if (filter.getPhoneNumber() == null || filter.getPhoneNumber().equals(row.getPhoneNumber())) {
+                            matched.add(row);
+                        }
+                    }
+                }
+                return matched;
+            }
+        });
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                rows.add((IncomingPhoneNumber) invocation.getArgument(0));
+                return null;
+            }
+        }).when(numDao).addIncomingPhoneNumber((IncomingPhoneNumber) any());
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                IncomingPhoneNumber number = invocation.getArgument(0);
+                remove(number.getSid());
+                rows.add(number);
+                return null;
+            }
+        }).when(numDao).updateIncomingPhoneNumber((IncomingPhoneNumber) any());
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                remove((Sid) invocation.getArgument(0));
+                return null;
+            }
+        }).when(numDao).removeIncomingPhoneNumber((Sid) any());
+    }
+
+    @After
+    public void after() {
+        if (daoManager != null) {
+            daoManager.shutdown();
+        }
+    }
+
+    private void remove(Sid sid) {
+        synchronized (rows) {
+            for (int i = 0; i < rows.size(); i++) {
+                if (rows.get(i).getSid().equals(sid)) {
+                    rows.remove(i);
+                    return;
+                }
+            }
+        }
+    }
+
+    private IncomingPhoneNumber number(String phoneNumber, Sid organizationSid, Boolean pureSip) {
+        return number(Sid.generate(Sid.Type.PHONE_NUMBER), phoneNumber, organizationSid, pureSip);
+    }
+
+    // Every call builds a new instance, as reading the row back from the DB would.
+    private IncomingPhoneNumber number(Sid sid, String phoneNumber, Sid organizationSid, Boolean pureSip) {
+        final IncomingPhoneNumber.Builder builder = IncomingPhoneNumber.builder();
+        builder.setSid(sid);
+        builder.setPhoneNumber(phoneNumber);
+        builder.setOrganizationSid(organizationSid);
+        builder.setPureSip(pureSip);
+        return builder.build();
+    }
+
+    // Starts the index over the rows added so far.
+    private NumberSelectorServiceImpl service() {
+        DaoManager delegate = Mockito.mock(DaoManager.class);
+        when(delegate.getIncomingPhoneNumbersDao()).thenReturn(numDao);
+        when(delegate.getCacheVersionsDao()).thenReturn(Mockito.mock(CacheVersionsDao.class));
+        BaseConfiguration configuration = new BaseConfiguration();
+        configuration.setProperty("version-poll-interval", 0);
+        daoManager = new CachingDaoManager(delegate);
+        daoManager.start(configuration);
+        Assert.assertNotNull(daoManager.getIncomingPhoneNumberIndex());
+        return new NumberSelectorServiceImpl(daoManager.getIncomingPhoneNumbersDao(), daoManager.getIncomingPhoneNumberIndex());
+    }
+
+    private void verifyIndexOnly() {
+        verify(numDao, never()).getTotalIncomingPhoneNumbers((IncomingPhoneNumberFilter) any());
+        verify(numDao, never()).getIncomingPhoneNumbersRegex((IncomingPhoneNumberFilter) any());
+    }
+
+    @Test
+    public void testNoMatch() {
+        Sid srcSid = Sid.generate(Sid.Type.ORGANIZATION);
+        NumberSelectorServiceImpl service = service();
+
+        IncomingPhoneNumber found = service.searchNumber("1234", srcSid, srcSid);
+
+        Assert.assertNull(found);
+        verifyIndexOnly();
+    }
+
+    @Test
+    public void testPerfectMatch() {
+        Sid srcSid = Sid.generate(Sid.Type.ORGANIZATION);
+        Sid destSid = Sid.generate(Sid.Type.ORGANIZATION);
+        rows.add(number("1234", destSid, false));
+        NumberSelectorServiceImpl service = service();
+
+        IncomingPhoneNumber found = service.searchNumber("1234", srcSid, destSid);
+
+        Assert.assertNotNull(found);
+        Assert.assertEquals("1234", found.getPhoneNumber());
+        verifyIndexOnly();
+    }
+
+    @Test
+    public void testPureSipFilteredAcrossOrgs() {
+        Sid srcSid = Sid.generate(Sid.Type.ORGANIZATION);
+        Sid destSid = Sid.generate(Sid.Type.ORGANIZATION);
+        rows.add(number("1234", destSid, true));
+        NumberSelectorServiceImpl service = service();
+
+        NumberSelectionResult result = service.searchNumberWithResult("1234", srcSid, destSid);
+
+        Assert.assertNull(result.getNumber());
+        Assert.assertTrue(result.getOrganizationFiltered());
+        Assert.assertTrue(service.isFailedCall(result, srcSid, destSid));
+        verifyIndexOnly();
+    }
+
+    @Test
+    public void testUSMatch() {
+        Sid srcSid = Sid.generate(Sid.Type.ORGANIZATION);
+        Sid destSid = Sid.generate(Sid.Type.ORGANIZATION);
+        rows.add(number("+1234", destSid, false));
+        NumberSelectorServiceImpl service = service();
+
+        IncomingPhoneNumber found = service.searchNumber("1234", srcSid, destSid);
+
+        Assert.assertNotNull(found);
+        Assert.assertEquals("+1234", found.getPhoneNumber());
+        verifyIndexOnly();
+    }
+
+    @Test
+    public void testNoPlusMatch() {
+        Sid srcSid = Sid.generate(Sid.Type.ORGANIZATION);
+        Sid destSid = Sid.generate(Sid.Type.ORGANIZATION);
+        rows.add(number("1234", destSid, false));
+        NumberSelectorServiceImpl service = service();
+
+        IncomingPhoneNumber found = service.searchNumber("+1234", srcSid, destSid);
+
+        Assert.assertNotNull(found);
+        Assert.assertEquals("1234", found.getPhoneNumber());
+        verifyIndexOnly();
+    }
+
+    @Test
+    public void testPerfectMatchNoOrg() {
+        rows.add(number("1234", null, false));
+        NumberSelectorServiceImpl service = service();
+
+        IncomingPhoneNumber found = service.searchNumber("1234", null, null);
+
+        Assert.assertNotNull(found);
+        Assert.assertEquals("1234", found.getPhoneNumber());
+        verifyIndexOnly();
+    }
+
+    @Test
+    public void testStarMatch() {
+        Sid srcSid = Sid.generate(Sid.Type.ORGANIZATION);
+        rows.add(number("*", srcSid, true));
+        NumberSelectorServiceImpl service = service();
+
+        IncomingPhoneNumber found = service.searchNumber("1234", srcSid, srcSid);
+
+        Assert.assertNotNull(found);
+        Assert.assertEquals("*", found.getPhoneNumber());
+        verifyIndexOnly();
+    }
+
+    @Test
+    public void testRegexNoOrg() {
+        rows.add(number("12.*", null, true));
+        NumberSelectorServiceImpl service = service();
+
+        IncomingPhoneNumber found = service.searchNumber("1234", null, null);
+
+        Assert.assertNull(found);
+        verifyIndexOnly();
+    }
+
+    @Test
+    public void testRegexMatch() {
+        Sid srcSid = Sid.generate(Sid.Type.ORGANIZATION);
+        rows.add(number("12.*", srcSid, true));
+        rows.add(number("123.*", srcSid, true));
+        NumberSelectorServiceImpl service = service();
+
+        IncomingPhoneNumber found = service.searchNumber("1234", srcSid, srcSid);
+
+        Assert.assertNotNull(found);
+        Assert.assertEquals("123.*", found.getPhoneNumber());
+        verifyIndexOnly();
+    }
+
+    @Test
+    public void testRegexMatch2() {
+        Sid srcSid = Sid.generate(Sid.Type.ORGANIZATION);
+        for (String regex : new String[] {"123456*", "554433*", "778899*", "987456*", "987456789*", "12*", "*"}) {
+            rows.add(number(regex, srcSid, true));
+        }
+        NumberSelectorServiceImpl service = service();
+
+        IncomingPhoneNumber found = service.searchNumber("987456", srcSid, srcSid);
+
+        Assert.assertNotNull(found);
+        Assert.assertEquals("987456*", found.getPhoneNumber());
+        verifyIndexOnly();
+    }
+
+    @Test
+    public void testRegexMatchFromNullSrcOrg() {
+        Sid destSid = Sid.generate(Sid.Type.ORGANIZATION);
+        rows.add(number("12.*", destSid, true));
+        rows.add(number("123.*", destSid, true));
+        NumberSelectorServiceImpl service = service();
+
+        IncomingPhoneNumber found = service.searchNumber("1234", null, destSid);
+
+        Assert.assertNotNull(found);
+        Assert.assertEquals("123.*", found.getPhoneNumber());
+        verifyIndexOnly();
+    }
+
+    @Test
+    public void testRegexFailToMatchBecauseOfPhone() {
+        Sid destSid = Sid.generate(Sid.Type.ORGANIZATION);
+        rows.add(number("12.*", destSid, true));
+        rows.add(number("123.*", destSid, true));
+        NumberSelectorServiceImpl service = service();
+
+        IncomingPhoneNumber found = service.searchNumber("7788", null, destSid);
+
+        Assert.assertNull(found);
+        verifyIndexOnly();
+    }
+
+    @Test
+    public void testRegexFailToMatchBecauseDestOrgNull() {
+        Sid srcSid = Sid.generate(Sid.Type.ORGANIZATION);
+        rows.add(number("12.*", srcSid, true));
+        rows.add(number("123.*", srcSid, true));
+        NumberSelectorServiceImpl service = service();
+
+        IncomingPhoneNumber found = service.searchNumber("1234", srcSid, null);
+
+        Assert.assertNull(found);
+        verifyIndexOnly();
+    }
+
+    @Test
+    public void testRegexOfAnotherOrgIsIgnored() {
+        Sid srcSid = Sid.generate(Sid.Type.ORGANIZATION);
+        Sid otherSid = Sid.generate(Sid.Type.ORGANIZATION);
+        rows.add(number("12.*", otherSid, true));
+        NumberSelectorServiceImpl service = service();
+
+        Assert.assertNull(service.searchNumber("1234", srcSid, srcSid));
+        Assert.assertEquals("12.*", service.searchNumber("1234", otherSid, otherSid).getPhoneNumber());
+        verifyIndexOnly();
+    }
+
+    @Test
+    public void testSamePhoneDiffOrg() {
+        Sid srcSid = Sid.generate(Sid.Type.ORGANIZATION);
+        Sid srcSid2 = Sid.generate(Sid.Type.ORGANIZATION);
+        IncomingPhoneNumber first = number("1234", srcSid, true);
+        IncomingPhoneNumber second = number("1234", srcSid2, true);
+        rows.add(first);
+        rows.add(second);
+        NumberSelectorServiceImpl service = service();
+
+        Assert.assertEquals(first.getSid(), service.searchNumber("1234", srcSid, srcSid).getSid());
+        Assert.assertEquals(second.getSid(), service.searchNumber("1234", srcSid2, srcSid2).getSid());
+        verifyIndexOnly();
+    }
+
+    @Test
+    public void testIndexFollowsAddUpdateRemove() {
+        Sid srcSid = Sid.generate(Sid.Type.ORGANIZATION);
+        NumberSelectorServiceImpl service = service();
+        IncomingPhoneNumbersDao dao = daoManager.getIncomingPhoneNumbersDao();
+
+        IncomingPhoneNumber number = number("1234", srcSid, true);
+        dao.addIncomingPhoneNumber(number);
+        Assert.assertEquals(number.getSid(), service.searchNumber("1234", srcSid, srcSid).getSid());
+
+        dao.updateIncomingPhoneNumber(number(number.getSid(), "5678", srcSid, true));
+        Assert.assertNull(service.searchNumber("1234", srcSid, srcSid));
+        Assert.assertEquals(number.getSid(), service.searchNumber("5678", srcSid, srcSid).getSid());
+
+        dao.removeIncomingPhoneNumber(number.getSid());
+        Assert.assertNull(service.searchNumber("5678", srcSid, srcSid));
+        verifyIndexOnly();
+    }
+
+    @Test
+    public void testIndexFollowsRegexAddAndRemove() {
+        Sid srcSid = Sid.generate(Sid.Type.ORGANIZATION);
+        NumberSelectorServiceImpl service = service();
+        IncomingPhoneNumbersDao dao = daoManager.getIncomingPhoneNumbersDao();
+
+        IncomingPhoneNumber regex = number("12.*", srcSid, true);
+        dao.addIncomingPhoneNumber(regex);
+        Assert.assertEquals(regex.getSid(), service.searchNumber("1234", srcSid, srcSid).getSid());
+
+        dao.removeIncomingPhoneNumber(regex.getSid());
+        Assert.assertNull(service.searchNumber("1234", srcSid, srcSid));
+        verifyIndexOnly();
+    }
+}
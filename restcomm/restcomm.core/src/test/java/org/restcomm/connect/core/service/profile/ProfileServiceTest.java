@@ -2,6 +2,8 @@ package org.restcomm.connect.core.service.profile;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.sql.SQLException;
@@ -223,6 +225,59 @@ public class ProfileServiceTest {
         assertEquals(expectedChildOrganizationProfile.getSid(), resultantProfile.getSid());
 	}
 
+    /**
+     * case 7: given: a profile associated to the grand parent of an account
+     * resolving the same account twice only walks the hierarchy once
+     * @throws SQLException
+     */
+    @Test
+    public void retrieveEffectiveProfileByAccountSidIsMemoized() throws SQLException {
+        MockingService mocks = new MockingService();
+        Profile expectedProfile = returnProfile(mocks);
+        Account account = returnValidAccountWithOnlyGrandParentAssignedProfile(new Sid(expectedProfile.getSid()), mocks);
+        mocks.profileService.retrieveEffectiveProfileByAccountSid(account.getSid());
+        Profile resultantProfile = mocks.profileService.retrieveEffectiveProfileByAccountSid(account.getSid());
+        assertEquals(expectedProfile.getSid(), resultantProfile.getSid());
+        verify(mocks.mockedAccountsDao, times(1)).getAccount(account.getSid());
+        verify(mocks.mockedProfilesDao, times(1)).getProfile(expectedProfile.getSid());
+    }
+
+    /**
+     * case 8: given: an account resolved to its organization profile
+     * linking a profile to its parent drops the memoized profile of the account
+     * @throws SQLException
+     */
+    @Test
+    public void retrieveEffectiveProfileByAccountSidAfterParentAssociationChanged() throws SQLException {
+        MockingService mocks = new MockingService();
+        Profile organizationProfile = returnProfile(mocks);
+        Profile parentProfile = returnProfile(mocks);
+        Account account = returnValidAccountWitOrganizationAssignedProfile(new Sid(organizationProfile.getSid()), mocks);
+        assertEquals(organizationProfile.getSid(), mocks.profileService.retrieveEffectiveProfileByAccountSid(account.getSid()).getSid());
+        returnProfileAssociation(new Sid(parentProfile.getSid()), account.getParentSid(), mocks);
+        mocks.profileService.invalidateTarget(account.getParentSid());
+        assertEquals(parentProfile.getSid(), mocks.profileService.retrieveEffectiveProfileByAccountSid(account.getSid()).getSid());
+    }
+
+    /**
+     * case 9: given: an account resolved to the DEFAULT profile
+     * changes to an unrelated profile keep the memoized profile, changes to the DEFAULT profile drop it
+     * @throws SQLException
+     */
+    @Test
+    public void retrieveEffectiveProfileByAccountSidAfterProfileChanged() throws SQLException {
+        MockingService mocks = new MockingService();
+        Account account = returnValidAccount(mocks);
+        returnDefaultProfile(mocks);
+        mocks.profileService.retrieveEffectiveProfileByAccountSid(account.getSid());
+        mocks.profileService.invalidateProfile(Sid.generate(Sid.Type.PROFILE).toString());
+        mocks.profileService.retrieveEffectiveProfileByAccountSid(account.getSid());
+        verify(mocks.mockedProfilesDao, times(1)).getProfile(Profile.DEFAULT_PROFILE_SID);
+        mocks.profileService.invalidateProfile(Profile.DEFAULT_PROFILE_SID);
+        mocks.profileService.retrieveEffectiveProfileByAccountSid(account.getSid());
+        verify(mocks.mockedProfilesDao, times(2)).getProfile(Profile.DEFAULT_PROFILE_SID);
+    }
+
     private Account returnValidAccount(MockingService mocks ) {
     	Sid organizationSid = Sid.generate(Sid.Type.ORGANIZATION);
     	
@@ -0,0 +1,118 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.core.service.ratelimit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.core.service.api.ProfileService;
+import org.restcomm.connect.core.service.api.RateLimiterService;
+import org.restcomm.connect.dao.AccountsDao;
+import org.restcomm.connect.dao.DaoManager;
+import org.restcomm.connect.dao.entities.Account;
+import org.restcomm.connect.dao.entities.Profile;
+
+public class RateLimiterServiceTest {
+    private static final Sid ACCOUNT_SID = new Sid("ACae6e420f425248d6a26948c17a9e2acf");
+    private static final Sid ORGANIZATION_SID = new Sid("ORafbe225ad37541eba518a74248f0ac4c");
+
+    private final DaoManager daoManager = mock(DaoManager.class);
+    private final AccountsDao accountsDao = mock(AccountsDao.class);
+    private final Account account = mock(Account.class);
+    private final ProfileService profileService = mock(ProfileService.class);
+    private RateLimiterServiceImpl rateLimiter;
+
+    @Before
+    public void before() {
+        when(daoManager.getAccountsDao()).thenReturn(accountsDao);
+        when(accountsDao.getAccount(ACCOUNT_SID)).thenReturn(account);
+        when(account.getOrganizationSid()).thenReturn(ORGANIZATION_SID);
+        rateLimiter = new RateLimiterServiceImpl(daoManager, profileService);
+    }
+
+    @Test
+    public void slidingWindowWeightsPreviousWindow() {
+        final SlidingWindowCounter counter = new SlidingWindowCounter(1000, 0);
+        for (int i = 0; i < 10; i++) {
+            counter.increment(100);
+        }
+        assertEquals(10, counter.count(999));
+        // half of the previous window still overlaps the sliding window
+        assertEquals(5, counter.count(1500));
+        counter.increment(1500);
+        assertEquals(6, counter.count(1500));
+        assertEquals(1, counter.count(2000));
+        assertEquals(0, counter.count(3000));
+        assertTrue(counter.isIdle(4000));
+    }
+
+    @Test
+    public void accountLimitIsEnforced() {
+        when(profileService.retrieveEffectiveProfileByAccountSid(ACCOUNT_SID))
+                .thenReturn(profile("{\"sessionThrottling\":{\"SMSPerTime\":{\"events\":2,\"time\":1,\"timeUnit\":\"minutes\"}}}"));
+
+        assertTrue(rateLimiter.tryAcquire(RateLimiterService.Event.OUTBOUND_SMS, ACCOUNT_SID, null, "+1234"));
+        assertTrue(rateLimiter.tryAcquire(RateLimiterService.Event.OUTBOUND_SMS, ACCOUNT_SID, null, "+1234"));
+        assertFalse(rateLimiter.tryAcquire(RateLimiterService.Event.OUTBOUND_SMS, ACCOUNT_SID, null, "+1234"));
+        assertEquals(2, rateLimiter.count(RateLimiterService.Event.OUTBOUND_SMS, RateLimiterService.Scope.ACCOUNT, ACCOUNT_SID.toString()));
+        // calls are not limited by the SMS rule
+        assertTrue(rateLimiter.tryAcquire(RateLimiterService.Event.OUTBOUND_CALL, ACCOUNT_SID, null, "+1234"));
+    }
+
+    @Test
+    public void deniedEventIsNotCountedInOtherScopes() {
+        when(profileService.retrieveEffectiveProfileByAccountSid(ACCOUNT_SID))
+                .thenReturn(profile("{\"sessionThrottling\":{\"PSTNCallsPerTimePerClient\":{\"events\":1,\"time\":1,\"timeUnit\":\"hours\"},"
+                        + "\"PSTNCallsPerTime\":{\"events\":10,\"time\":1,\"timeUnit\":\"hours\"}}}"));
+
+        assertTrue(rateLimiter.tryAcquire(RateLimiterService.Event.OUTBOUND_CALL, ACCOUNT_SID, "alice", null));
+        assertFalse(rateLimiter.tryAcquire(RateLimiterService.Event.OUTBOUND_CALL, ACCOUNT_SID, "alice", null));
+        assertTrue(rateLimiter.tryAcquire(RateLimiterService.Event.OUTBOUND_CALL, ACCOUNT_SID, "bob", null));
+        assertEquals(2, rateLimiter.count(RateLimiterService.Event.OUTBOUND_CALL, RateLimiterService.Scope.ACCOUNT, ACCOUNT_SID.toString()));
+    }
+
+    @Test
+    public void organizationLimitIsEnforced() {
+        when(profileService.retrieveEffectiveProfileByOrganizationSid(ORGANIZATION_SID))
+                .thenReturn(profile("{\"sessionThrottling\":{\"PSTNCallsPerTimePerOrganization\":{\"events\":1,\"time\":1,\"timeUnit\":\"days\"}}}"));
+
+        assertTrue(rateLimiter.tryAcquire(RateLimiterService.Event.OUTBOUND_CALL, ACCOUNT_SID, null, "+1234"));
+        assertFalse(rateLimiter.tryAcquire(RateLimiterService.Event.OUTBOUND_CALL, ACCOUNT_SID, null, "+5678"));
+    }
+
+    @Test
+    public void noProfileMeansNoLimit() {
+        for (int i = 0; i < 100; i++) {
+            assertTrue(rateLimiter.tryAcquire(RateLimiterService.Event.OUTBOUND_SMS_SEGMENT, ACCOUNT_SID, null, "+1234"));
+        }
+    }
+
+    private Profile profile(final String document) {
+        return new Profile("PRae6e420f425248d6a26948c17a9e2acf", document, new Date(0), new Date(0));
+    }
+}
@@ -78,4 +78,6 @@ public interface DaoManager extends Configurable, LifeCycle {
 
     ProfilesDao getProfilesDao();
 
+    CacheVersionsDao getCacheVersionsDao();
+
 }
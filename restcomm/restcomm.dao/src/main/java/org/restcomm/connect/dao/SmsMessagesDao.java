@@ -32,6 +32,11 @@ import java.util.List;
 public interface SmsMessagesDao {
     void addSmsMessage(SmsMessage smsMessage);
 
+    /**
+     * Inserts the messages through JDBC batches in a single transaction.
+     */
+    void addSmsMessages(List<SmsMessage> smsMessages);
+
     SmsMessage getSmsMessage(Sid sid);
 
     /**
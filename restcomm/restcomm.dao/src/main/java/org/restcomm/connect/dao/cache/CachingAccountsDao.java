@@ -0,0 +1,122 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.dao.cache;
+
+import java.util.List;
+
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.dao.AccountsDao;
+import org.restcomm.connect.dao.entities.Account;
+import org.restcomm.connect.dao.exceptions.AccountHierarchyDepthCrossed;
+
+@ThreadSafe
+final class CachingAccountsDao implements AccountsDao {
+    private final AccountsDao delegate;
+    private final DaoCache cache;
+
+    CachingAccountsDao(final AccountsDao delegate, final DaoCache cache) {
+        super();
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public void addAccount(final Account account) {
+        try {
+            delegate.addAccount(account);
+        } finally {
+            cache.invalidate();
+        }
+    }
+
+    @Override
+    public Account getAccount(final Sid sid) {
+        return cache.get("sid:" + sid, new DaoCache.Loader<Account, RuntimeException>() {
+            @Override
+            public Account load() {
+                return delegate.getAccount(sid);
+            }
+        });
+    }
+
+    @Override
+    public Account getAccount(final String name) {
+        return cache.get("name:" + name, new DaoCache.Loader<Account, RuntimeException>() {
+            @Override
+            public Account load() {
+                return delegate.getAccount(name);
+            }
+        });
+    }
+
+    @Override
+    public Account getAccountToAuthenticate(final String name) {
+        return cache.get("auth:" + name, new DaoCache.Loader<Account, RuntimeException>() {
+            @Override
+            public Account load() {
+                return delegate.getAccountToAuthenticate(name);
+            }
+        });
+    }
+
+    @Override
+    public List<Account> getChildAccounts(final Sid parentSid) {
+        return delegate.getChildAccounts(parentSid);
+    }
+
+    @Override
+    public void removeAccount(final Sid sid) {
+        try {
+            delegate.removeAccount(sid);
+        } finally {
+            cache.invalidate();
+        }
+    }
+
+    @Override
+    public void updateAccount(final Account account) {
+        try {
+            delegate.updateAccount(account);
+        } finally {
+            cache.invalidate();
+        }
+    }
+
+    @Override
+    public List<String> getSubAccountSidsRecursive(final Sid parentAccountSid) {
+        return delegate.getSubAccountSidsRecursive(parentAccountSid);
+    }
+
+    @Override
+    public List<String> getAccountLineage(final Sid accountSid) throws AccountHierarchyDepthCrossed {
+        return delegate.getAccountLineage(accountSid);
+    }
+
+    @Override
+    public List<String> getAccountLineage(final Account account) throws AccountHierarchyDepthCrossed {
+        return delegate.getAccountLineage(account);
+    }
+
+    @Override
+    public List<Account> getAccountsByOrganization(final Sid organizationSid) {
+        return delegate.getAccountsByOrganization(organizationSid);
+    }
+}
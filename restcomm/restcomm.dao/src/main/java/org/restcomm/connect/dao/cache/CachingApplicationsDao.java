@@ -0,0 +1,105 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.dao.cache;
+
+import java.util.List;
+
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.dao.ApplicationsDao;
+import org.restcomm.connect.dao.entities.Application;
+
+@ThreadSafe
+final class CachingApplicationsDao implements ApplicationsDao {
+    private final ApplicationsDao delegate;
+    private final DaoCache cache;
+
+    CachingApplicationsDao(final ApplicationsDao delegate, final DaoCache cache) {
+        super();
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public void addApplication(final Application application) {
+        try {
+            delegate.addApplication(application);
+        } finally {
+            cache.invalidate();
+        }
+    }
+
+    @Override
+    public Application getApplication(final Sid sid) {
+        return cache.get("sid:" + sid, new DaoCache.Loader<Application, RuntimeException>() {
+            @Override
+            public Application load() {
+                return delegate.getApplication(sid);
+            }
+        });
+    }
+
+    @Override
+    public Application getApplication(final String friendlyName) {
+        return cache.get("name:" + friendlyName, new DaoCache.Loader<Application, RuntimeException>() {
+            @Override
+            public Application load() {
+                return delegate.getApplication(friendlyName);
+            }
+        });
+    }
+
+    @Override
+    public List<Application> getApplications(final Sid accountSid) {
+        return delegate.getApplications(accountSid);
+    }
+
+    @Override
+    public List<Application> getApplicationsWithNumbers(final Sid accountSid) {
+        return delegate.getApplicationsWithNumbers(accountSid);
+    }
+
+    @Override
+    public void removeApplication(final Sid sid) {
+        try {
+            delegate.removeApplication(sid);
+        } finally {
+            cache.invalidate();
+        }
+    }
+
+    @Override
+    public void removeApplications(final Sid accountSid) {
+        try {
+            delegate.removeApplications(accountSid);
+        } finally {
+            cache.invalidate();
+        }
+    }
+
+    @Override
+    public void updateApplication(final Application application) {
+        try {
+            delegate.updateApplication(application);
+        } finally {
+            cache.invalidate();
+        }
+    }
+}
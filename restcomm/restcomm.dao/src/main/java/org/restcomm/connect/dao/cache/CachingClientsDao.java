@@ -0,0 +1,110 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.dao.cache;
+
+import java.util.List;
+
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.dao.ClientsDao;
+import org.restcomm.connect.dao.entities.Client;
+
+@ThreadSafe
+final class CachingClientsDao implements ClientsDao {
+    private final ClientsDao delegate;
+    private final DaoCache cache;
+
+    CachingClientsDao(final ClientsDao delegate, final DaoCache cache) {
+        super();
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public void addClient(final Client client) {
+        try {
+            delegate.addClient(client);
+        } finally {
+            cache.invalidate();
+        }
+    }
+
+    @Override
+    public Client getClient(final Sid sid) {
+        return cache.get("sid:" + sid, new DaoCache.Loader<Client, RuntimeException>() {
+            @Override
+            public Client load() {
+                return delegate.getClient(sid);
+            }
+        });
+    }
+
+    @Override
+    public Client getClient(final String user, final Sid organizationSid) {
+        return cache.get("user:" + organizationSid + ":" + user, new DaoCache.Loader<Client, RuntimeException>() {
+            @Override
+            public Client load() {
+                return delegate.getClient(user, organizationSid);
+            }
+        });
+    }
+
+    @Override
+    public List<Client> getClients(final Sid accountSid) {
+        return delegate.getClients(accountSid);
+    }
+
+    @Override
+    public List<Client> getAllClients() {
+        return delegate.getAllClients();
+    }
+
+    @Override
+    public List<Client> getClientsByOrg(final Sid organizationSid) {
+        return delegate.getClientsByOrg(organizationSid);
+    }
+
+    @Override
+    public void removeClient(final Sid sid) {
+        try {
+            delegate.removeClient(sid);
+        } finally {
+            cache.invalidate();
+        }
+    }
+
+    @Override
+    public void removeClients(final Sid accountSid) {
+        try {
+            delegate.removeClients(accountSid);
+        } finally {
+            cache.invalidate();
+        }
+    }
+
+    @Override
+    public void updateClient(final Client client) {
+        try {
+            delegate.updateClient(client);
+        } finally {
+            cache.invalidate();
+        }
+    }
+}
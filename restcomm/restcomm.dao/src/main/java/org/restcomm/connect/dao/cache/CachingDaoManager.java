@@ -0,0 +1,431 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.dao.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.log4j.Logger;
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.commons.metrics.Gauge;
+import org.restcomm.connect.commons.metrics.MetricsRegistry;
+import org.restcomm.connect.dao.AccountsDao;
+import org.restcomm.connect.dao.AnnouncementsDao;
+import org.restcomm.connect.dao.ApplicationsDao;
+import org.restcomm.connect.dao.AvailablePhoneNumbersDao;
+import org.restcomm.connect.dao.CacheVersionsDao;
+import org.restcomm.connect.dao.CallDetailRecordsDao;
+import org.restcomm.connect.dao.ClientsDao;
+import org.restcomm.connect.dao.ConferenceDetailRecordsDao;
+import org.restcomm.connect.dao.DaoManager;
+import org.restcomm.connect.dao.ExtensionsConfigurationDao;
+import org.restcomm.connect.dao.GatewaysDao;
+import org.restcomm.connect.dao.GeolocationDao;
+import org.restcomm.connect.dao.HttpCookiesDao;
+import org.restcomm.connect.dao.IncomingPhoneNumbersDao;
+import org.restcomm.connect.dao.InstanceIdDao;
+import org.restcomm.connect.dao.MediaResourceBrokerDao;
+import org.restcomm.connect.dao.MediaServersDao;
+import org.restcomm.connect.dao.NotificationsDao;
+import org.restcomm.connect.dao.OrganizationsDao;
+import org.restcomm.connect.dao.OutgoingCallerIdsDao;
+import org.restcomm.connect.dao.ProfileAssociationsDao;
+import org.restcomm.connect.dao.ProfilesDao;
+import org.restcomm.connect.dao.RecordingsDao;
+import org.restcomm.connect.dao.RegistrationsDao;
+import org.restcomm.connect.dao.ShortCodesDao;
+import org.restcomm.connect.dao.SmsMessagesDao;
+import org.restcomm.connect.dao.TranscriptionsDao;
+import org.restcomm.connect.dao.UsageDao;
+
+import com.google.common.cache.CacheStats;
+
+/**
+ * Puts read through caches in front of the DAOs that are looked up on every call or message (accounts, clients,
+ * applications, organizations, profiles, gateways and extension configurations) and passes everything else straight
+ * to the wrapped manager. Incoming phone numbers are indexed in memory for number selection, see
+ * {@link IncomingPhoneNumberIndex}.
+ * <p>
+ * A write drops the region locally and bumps its row in the cache versions table. Every node polls that table and
+ * drops any region whose version moved, so a cluster sharing one database converges within one poll interval.
+ */
+@ThreadSafe
+public final class CachingDaoManager implements DaoManager {
+    public static final String METRICS_PREFIX = "DaoCache";
+
+    private static final Logger logger = Logger.getLogger(CachingDaoManager.class);
+    private static final long DEFAULT_TTL = 60;
+    private static final long DEFAULT_MAX_ENTRIES = 10000;
+    private static final long DEFAULT_VERSION_POLL_INTERVAL = 5;
+
+    private final DaoManager delegate;
+    private final List<DaoCache> caches;
+    private final List<String> metrics;
+    private final Map<String, Long> versions;
+    private Configuration cacheConfiguration;
+    private ScheduledExecutorService poller;
+    private boolean pollFailing;
+
+    private volatile AccountsDao accountsDao;
+    private volatile ApplicationsDao applicationsDao;
+    private volatile ClientsDao clientsDao;
+    private volatile ExtensionsConfigurationDao extensionsConfigurationDao;
+    private volatile GatewaysDao gatewaysDao;
+    private volatile OrganizationsDao organizationsDao;
+    private volatile ProfilesDao profilesDao;
+    private volatile IndexingIncomingPhoneNumbersDao incomingPhoneNumbersDao;
+    private volatile IncomingPhoneNumberIndex incomingPhoneNumberIndex;
+
+    public CachingDaoManager(final DaoManager delegate) {
+        super();
+        this.delegate = delegate;
+        this.caches = new ArrayList<DaoCache>();
+        this.metrics = new ArrayList<String>();
+        this.versions = new HashMap<String, Long>();
+    }
+
+    @Override
+    public void configure(final Configuration configuration, final Configuration daoManagerConfiguration) {
+        delegate.configure(configuration, daoManagerConfiguration);
+        this.cacheConfiguration = daoManagerConfiguration.subset("dao-manager.cache");
+    }
+
+    @Override
+    public void start() throws RuntimeException {
+        delegate.start();
+        start(cacheConfiguration);
+    }
+
+    /**
+     * Builds the caches around an already started delegate.
+     */
+    public synchronized void start(final Configuration cacheConfiguration) {
+        final CacheVersionsDao versionsDao = delegate.getCacheVersionsDao();
+        accountsDao = new CachingAccountsDao(delegate.getAccountsDao(),
+                region("Accounts", cacheConfiguration.subset("accounts"), versionsDao));
+        applicationsDao = new CachingApplicationsDao(delegate.getApplicationsDao(),
+                region("Applications", cacheConfiguration.subset("applications"), versionsDao));
+        clientsDao = new CachingClientsDao(delegate.getClientsDao(),
+                region("Clients", cacheConfiguration.subset("clients"), versionsDao));
+        extensionsConfigurationDao = new CachingExtensionsConfigurationDao(delegate.getExtensionsConfigurationDao(),
+                region("ExtensionsConfiguration", cacheConfiguration.subset("extensions-configuration"), versionsDao));
+        gatewaysDao = new CachingGatewaysDao(delegate.getGatewaysDao(),
+                region("Gateways", cacheConfiguration.subset("gateways"), versionsDao));
+        organizationsDao = new CachingOrganizationsDao(delegate.getOrganizationsDao(),
+                region("Organizations", cacheConfiguration.subset("organizations"), versionsDao));
+        profilesDao = new CachingProfilesDao(delegate.getProfilesDao(),
+                region("Profiles", cacheConfiguration.subset("profiles"), versionsDao));
+        if (cacheConfiguration.getBoolean("incoming-phone-numbers[@index]", true)) {
+            index(versionsDao);
+        }
+        try {
+            versions.putAll(versionsDao.getCacheVersions());
+        } catch (final RuntimeException exception) {
+            logger.warn("Could not read the cache versions, remote changes will only show up once entries expire",
+                    exception);
+        }
+        final long interval = cacheConfiguration.getLong("version-poll-interval", DEFAULT_VERSION_POLL_INTERVAL);
+        if (interval > 0) {
+            poller = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "dao-cache-version-poller");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            poller.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    pollVersions();
+                }
+            }, interval, interval, TimeUnit.SECONDS);
+        }
+        if (logger.isInfoEnabled()) {
+            logger.info("DAO caches started, version poll interval " + interval + "s");
+        }
+    }
+
+    private void index(final CacheVersionsDao versionsDao) {
+        final IncomingPhoneNumberIndex index = new IncomingPhoneNumberIndex();
+        final IndexingIncomingPhoneNumbersDao dao = new IndexingIncomingPhoneNumbersDao(
+                delegate.getIncomingPhoneNumbersDao(), index, versionsDao);
+        dao.reload();
+        register(METRICS_PREFIX + "." + IndexingIncomingPhoneNumbersDao.REGION + ".Size", new Gauge() {
+            @Override
+            public long value() {
+                return index.size();
+            }
+        });
+        incomingPhoneNumbersDao = dao;
+        incomingPhoneNumberIndex = index;
+    }
+
+    private DaoCache region(final String name, final Configuration configuration, final CacheVersionsDao versionsDao) {
+        final long ttl = configuration.getLong("ttl", DEFAULT_TTL);
+        final long maxEntries = configuration.getLong("max-entries", DEFAULT_MAX_ENTRIES);
+        final DaoCache cache = new DaoCache(name, ttl, TimeUnit.SECONDS, maxEntries, versionsDao);
+        caches.add(cache);
+        final String prefix = METRICS_PREFIX + "." + name + ".";
+        register(prefix + "Hits", new Gauge() {
+            @Override
+            public long value() {
+                return cache.stats().hitCount();
+            }
+        });
+        register(prefix + "Misses", new Gauge() {
+            @Override
+            public long value() {
+                return cache.stats().missCount();
+            }
+        });
+        register(prefix + "HitRatio", new Gauge() {
+            @Override
+            public long value() {
+                final CacheStats stats = cache.stats();
+                return stats.requestCount() == 0 ? 0 : Math.round(stats.hitRate() * 100);
+            }
+        });
+        register(prefix + "Size", new Gauge() {
+            @Override
+            public long value() {
+                return cache.size();
+            }
+        });
+        register(prefix + "Evictions", new Gauge() {
+            @Override
+            public long value() {
+                return cache.stats().evictionCount();
+            }
+        });
+        return cache;
+    }
+
+    private void register(final String name, final Gauge gauge) {
+        MetricsRegistry.getInstance().register(name, gauge);
+        metrics.add(name);
+    }
+
+    /**
+     * Drops the local copy of every region another node has written to since the last poll.
+     */
+    synchronized void pollVersions() {
+        final Map<String, Long> current;
+        try {
+            current = delegate.getCacheVersionsDao().getCacheVersions();
+        } catch (final RuntimeException exception) {
+            if (!pollFailing) {
+                logger.warn("Could not poll the cache versions", exception);
+                pollFailing = true;
+            } else if (logger.isDebugEnabled()) {
+                logger.debug("Could not poll the cache versions", exception);
+            }
+            return;
+        }
+        pollFailing = false;
+        for (final DaoCache cache : caches) {
+            final Long version = current.get(cache.getRegion());
+            if (version != null && !version.equals(versions.get(cache.getRegion()))) {
+                cache.invalidateLocally();
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Cache region " + cache.getRegion() + " moved to version " + version);
+                }
+            }
+        }
+        if (incomingPhoneNumbersDao != null) {
+            final Long version = current.get(IndexingIncomingPhoneNumbersDao.REGION);
+            final Long previous = versions.get(IndexingIncomingPhoneNumbersDao.REGION);
+            final long local = incomingPhoneNumbersDao.drainLocalVersions();
+            // only reload when some other node wrote numbers since the last poll
+            if (version != null && version - (previous == null ? 0 : previous) > local) {
+                try {
+                    incomingPhoneNumbersDao.reload();
+                } catch (final RuntimeException exception) {
+                    logger.warn("Could not reload the incoming phone number index", exception);
+                }
+            }
+        }
+        versions.clear();
+        versions.putAll(current);
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        if (poller != null) {
+            poller.shutdownNow();
+            poller = null;
+        }
+        for (final String name : metrics) {
+            MetricsRegistry.getInstance().unregister(name);
+        }
+        metrics.clear();
+        caches.clear();
+        delegate.shutdown();
+    }
+
+    @Override
+    public AccountsDao getAccountsDao() {
+        return accountsDao;
+    }
+
+    @Override
+    public ApplicationsDao getApplicationsDao() {
+        return applicationsDao;
+    }
+
+    @Override
+    public AnnouncementsDao getAnnouncementsDao() {
+        return delegate.getAnnouncementsDao();
+    }
+
+    @Override
+    public AvailablePhoneNumbersDao getAvailablePhoneNumbersDao() {
+        return delegate.getAvailablePhoneNumbersDao();
+    }
+
+    @Override
+    public CallDetailRecordsDao getCallDetailRecordsDao() {
+        return delegate.getCallDetailRecordsDao();
+    }
+
+    @Override
+    public ConferenceDetailRecordsDao getConferenceDetailRecordsDao() {
+        return delegate.getConferenceDetailRecordsDao();
+    }
+
+    @Override
+    public ClientsDao getClientsDao() {
+        return clientsDao;
+    }
+
+    @Override
+    public HttpCookiesDao getHttpCookiesDao() {
+        return delegate.getHttpCookiesDao();
+    }
+
+    @Override
+    public IncomingPhoneNumbersDao getIncomingPhoneNumbersDao() {
+        return incomingPhoneNumbersDao == null ? delegate.getIncomingPhoneNumbersDao() : incomingPhoneNumbersDao;
+    }
+
+    /**
+     * @return the in memory routing index of the incoming phone numbers, null if it is disabled.
+     */
+    public IncomingPhoneNumberIndex getIncomingPhoneNumberIndex() {
+        return incomingPhoneNumberIndex;
+    }
+
+    @Override
+    public NotificationsDao getNotificationsDao() {
+        return delegate.getNotificationsDao();
+    }
+
+    @Override
+    public OutgoingCallerIdsDao getOutgoingCallerIdsDao() {
+        return delegate.getOutgoingCallerIdsDao();
+    }
+
+    @Override
+    public RegistrationsDao getRegistrationsDao() {
+        return delegate.getRegistrationsDao();
+    }
+
+    @Override
+    public RecordingsDao getRecordingsDao() {
+        return delegate.getRecordingsDao();
+    }
+
+    @Override
+    public ShortCodesDao getShortCodesDao() {
+        return delegate.getShortCodesDao();
+    }
+
+    @Override
+    public SmsMessagesDao getSmsMessagesDao() {
+        return delegate.getSmsMessagesDao();
+    }
+
+    @Override
+    public UsageDao getUsageDao() {
+        return delegate.getUsageDao();
+    }
+
+    @Override
+    public TranscriptionsDao getTranscriptionsDao() {
+        return delegate.getTranscriptionsDao();
+    }
+
+    @Override
+    public GatewaysDao getGatewaysDao() {
+        return gatewaysDao;
+    }
+
+    @Override
+    public InstanceIdDao getInstanceIdDao() {
+        return delegate.getInstanceIdDao();
+    }
+
+    @Override
+    public MediaServersDao getMediaServersDao() {
+        return delegate.getMediaServersDao();
+    }
+
+    @Override
+    public MediaResourceBrokerDao getMediaResourceBrokerDao() {
+        return delegate.getMediaResourceBrokerDao();
+    }
+
+    @Override
+    public ExtensionsConfigurationDao getExtensionsConfigurationDao() {
+        return extensionsConfigurationDao;
+    }
+
+    @Override
+    public GeolocationDao getGeolocationDao() {
+        return delegate.getGeolocationDao();
+    }
+
+    @Override
+    public ProfileAssociationsDao getProfileAssociationsDao() {
+        return delegate.getProfileAssociationsDao();
+    }
+
+    @Override
+    public OrganizationsDao getOrganizationsDao() {
+        return organizationsDao;
+    }
+
+    @Override
+    public ProfilesDao getProfilesDao() {
+        return profilesDao;
+    }
+
+    @Override
+    public CacheVersionsDao getCacheVersionsDao() {
+        return delegate.getCacheVersionsDao();
+    }
+}
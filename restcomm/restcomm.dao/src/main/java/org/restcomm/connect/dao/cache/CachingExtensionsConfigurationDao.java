@@ -0,0 +1,167 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.dao.cache;
+
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.dao.ExtensionsConfigurationDao;
+import org.restcomm.connect.extension.api.ConfigurationException;
+import org.restcomm.connect.extension.api.ExtensionConfiguration;
+
+@ThreadSafe
+final class CachingExtensionsConfigurationDao implements ExtensionsConfigurationDao {
+    private final ExtensionsConfigurationDao delegate;
+    private final DaoCache cache;
+
+    CachingExtensionsConfigurationDao(final ExtensionsConfigurationDao delegate, final DaoCache cache) {
+        super();
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    // ExtensionConfiguration can be modified in place so every caller gets its own copy.
+    private static ExtensionConfiguration copy(final ExtensionConfiguration configuration) {
+        if (configuration == null) {
+            return null;
+        }
+        return new ExtensionConfiguration(configuration.getSid(), configuration.getExtensionName(),
+                configuration.isEnabled(), configuration.getConfigurationData(), configuration.getConfigurationType(),
+                configuration.getDateCreated(), configuration.getDateUpdated());
+    }
+
+    @Override
+    public void addConfiguration(final ExtensionConfiguration extensionConfiguration) throws ConfigurationException {
+        try {
+            delegate.addConfiguration(extensionConfiguration);
+        } finally {
+            cache.invalidate();
+        }
+    }
+
+    @Override
+    public void updateConfiguration(final ExtensionConfiguration extensionConfiguration) throws ConfigurationException {
+        try {
+            delegate.updateConfiguration(extensionConfiguration);
+        } finally {
+            cache.invalidate();
+        }
+    }
+
+    @Override
+    public ExtensionConfiguration getConfigurationByName(final String extensionName) {
+        return copy(cache.get("name:" + extensionName, new DaoCache.Loader<ExtensionConfiguration, RuntimeException>() {
+            @Override
+            public ExtensionConfiguration load() {
+                return delegate.getConfigurationByName(extensionName);
+            }
+        }));
+    }
+
+    @Override
+    public ExtensionConfiguration getConfigurationBySid(final Sid extensionSid) {
+        return copy(cache.get("sid:" + extensionSid, new DaoCache.Loader<ExtensionConfiguration, RuntimeException>() {
+            @Override
+            public ExtensionConfiguration load() {
+                return delegate.getConfigurationBySid(extensionSid);
+            }
+        }));
+    }
+
+    @Override
+    public List<ExtensionConfiguration> getAllConfiguration() {
+        return delegate.getAllConfiguration();
+    }
+
+    @Override
+    public void deleteConfigurationByName(final String extensionName) {
+        try {
+            delegate.deleteConfigurationByName(extensionName);
+        } finally {
+            cache.invalidate();
+        }
+    }
+
+    @Override
+    public void deleteConfigurationBySid(final Sid extensionSid) {
+        try {
+            delegate.deleteConfigurationBySid(extensionSid);
+        } finally {
+            cache.invalidate();
+        }
+    }
+
+    @Override
+    public boolean isLatestVersionByName(final String extensionName, final DateTime dateTime) {
+        return delegate.isLatestVersionByName(extensionName, dateTime);
+    }
+
+    @Override
+    public boolean isLatestVersionBySid(final Sid extensionSid, final DateTime dateTime) {
+        return delegate.isLatestVersionBySid(extensionSid, dateTime);
+    }
+
+    @Override
+    public boolean validate(final ExtensionConfiguration extensionConfiguration) {
+        return delegate.validate(extensionConfiguration);
+    }
+
+    @Override
+    public ExtensionConfiguration getAccountExtensionConfiguration(final String accountSid, final String extensionSid) {
+        return copy(cache.get("account:" + accountSid + ":" + extensionSid,
+                new DaoCache.Loader<ExtensionConfiguration, RuntimeException>() {
+                    @Override
+                    public ExtensionConfiguration load() {
+                        return delegate.getAccountExtensionConfiguration(accountSid, extensionSid);
+                    }
+                }));
+    }
+
+    @Override
+    public void addAccountExtensionConfiguration(final ExtensionConfiguration extensionConfiguration, final Sid accountSid)
+            throws ConfigurationException {
+        try {
+            delegate.addAccountExtensionConfiguration(extensionConfiguration, accountSid);
+        } finally {
+            cache.invalidate();
+        }
+    }
+
+    @Override
+    public void updateAccountExtensionConfiguration(final ExtensionConfiguration extensionConfiguration,
+            final Sid accountSid) throws ConfigurationException {
+        try {
+            delegate.updateAccountExtensionConfiguration(extensionConfiguration, accountSid);
+        } finally {
+            cache.invalidate();
+        }
+    }
+
+    @Override
+    public void deleteAccountExtensionConfiguration(final String accountSid, final String extensionSid) {
+        try {
+            delegate.deleteAccountExtensionConfiguration(accountSid, extensionSid);
+        } finally {
+            cache.invalidate();
+        }
+    }
+}
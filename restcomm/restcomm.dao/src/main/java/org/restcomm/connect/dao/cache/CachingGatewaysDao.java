@@ -0,0 +1,89 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.dao.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.dao.GatewaysDao;
+import org.restcomm.connect.dao.entities.Gateway;
+
+@ThreadSafe
+final class CachingGatewaysDao implements GatewaysDao {
+    private final GatewaysDao delegate;
+    private final DaoCache cache;
+
+    CachingGatewaysDao(final GatewaysDao delegate, final DaoCache cache) {
+        super();
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public void addGateway(final Gateway gateway) {
+        try {
+            delegate.addGateway(gateway);
+        } finally {
+            cache.invalidate();
+        }
+    }
+
+    @Override
+    public Gateway getGateway(final Sid sid) {
+        return cache.get("sid:" + sid, new DaoCache.Loader<Gateway, RuntimeException>() {
+            @Override
+            public Gateway load() {
+                return delegate.getGateway(sid);
+            }
+        });
+    }
+
+    @Override
+    public List<Gateway> getGateways() {
+        final List<Gateway> gateways = cache.get("all", new DaoCache.Loader<List<Gateway>, RuntimeException>() {
+            @Override
+            public List<Gateway> load() {
+                return delegate.getGateways();
+            }
+        });
+        // Callers are free to modify the list they get back.
+        return new ArrayList<Gateway>(gateways);
+    }
+
+    @Override
+    public void removeGateway(final Sid sid) {
+        try {
+            delegate.removeGateway(sid);
+        } finally {
+            cache.invalidate();
+        }
+    }
+
+    @Override
+    public void updateGateway(final Gateway gateway) {
+        try {
+            delegate.updateGateway(gateway);
+        } finally {
+            cache.invalidate();
+        }
+    }
+}
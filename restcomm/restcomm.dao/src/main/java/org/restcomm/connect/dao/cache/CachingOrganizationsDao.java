@@ -0,0 +1,87 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.dao.cache;
+
+import java.util.List;
+
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.dao.OrganizationsDao;
+import org.restcomm.connect.dao.entities.Organization;
+
+@ThreadSafe
+final class CachingOrganizationsDao implements OrganizationsDao {
+    private final OrganizationsDao delegate;
+    private final DaoCache cache;
+
+    CachingOrganizationsDao(final OrganizationsDao delegate, final DaoCache cache) {
+        super();
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public void addOrganization(final Organization organization) {
+        try {
+            delegate.addOrganization(organization);
+        } finally {
+            cache.invalidate();
+        }
+    }
+
+    @Override
+    public Organization getOrganization(final Sid sid) {
+        return cache.get("sid:" + sid, new DaoCache.Loader<Organization, RuntimeException>() {
+            @Override
+            public Organization load() {
+                return delegate.getOrganization(sid);
+            }
+        });
+    }
+
+    @Override
+    public Organization getOrganizationByDomainName(final String domainName) {
+        return cache.get("domain:" + domainName, new DaoCache.Loader<Organization, RuntimeException>() {
+            @Override
+            public Organization load() {
+                return delegate.getOrganizationByDomainName(domainName);
+            }
+        });
+    }
+
+    @Override
+    public List<Organization> getOrganizationsByStatus(final Organization.Status status) {
+        return delegate.getOrganizationsByStatus(status);
+    }
+
+    @Override
+    public List<Organization> getAllOrganizations() {
+        return delegate.getAllOrganizations();
+    }
+
+    @Override
+    public void updateOrganization(final Organization organization) {
+        try {
+            delegate.updateOrganization(organization);
+        } finally {
+            cache.invalidate();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.dao.cache;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.dao.ProfilesDao;
+import org.restcomm.connect.dao.entities.Profile;
+
+@ThreadSafe
+final class CachingProfilesDao implements ProfilesDao {
+    private final ProfilesDao delegate;
+    private final DaoCache cache;
+
+    CachingProfilesDao(final ProfilesDao delegate, final DaoCache cache) {
+        super();
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public Profile getProfile(final String sid) throws SQLException {
+        return cache.get("sid:" + sid, new DaoCache.Loader<Profile, SQLException>() {
+            @Override
+            public Profile load() throws SQLException {
+                return delegate.getProfile(sid);
+            }
+        });
+    }
+
+    @Override
+    public List<Profile> getAllProfiles() throws SQLException {
+        return delegate.getAllProfiles();
+    }
+
+    @Override
+    public int addProfile(final Profile profile) {
+        try {
+            return delegate.addProfile(profile);
+        } finally {
+            cache.invalidate();
+        }
+    }
+
+    @Override
+    public void updateProfile(final Profile profile) {
+        try {
+            delegate.updateProfile(profile);
+        } finally {
+            cache.invalidate();
+        }
+    }
+
+    @Override
+    public void deleteProfile(final String sid) {
+        try {
+            delegate.deleteProfile(sid);
+        } finally {
+            cache.invalidate();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.dao.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.dao.CacheVersionsDao;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * A bounded, expiring region of read through entries for one DAO. Lookups that found nothing are cached as well so
+ * unknown clients or domains don't hit the database on every request. Any write to the region drops all of its
+ * entries, since the same row is usually reachable through more than one key (sid, name, domain...).
+ */
+@ThreadSafe
+public final class DaoCache {
+    private static final Logger logger = Logger.getLogger(DaoCache.class);
+
+    /**
+     * Reads the value from the underlying DAO on a cache miss.
+     */
+    public interface Loader<T, E extends Exception> {
+        T load() throws E;
+    }
+
+    private final String region;
+    private final Cache<String, Optional<Object>> entries;
+    private final CacheVersionsDao versions;
+    // Bumped on every invalidation so a load that started before it doesn't put back a stale value.
+    private final AtomicLong generation;
+    private final Object lock;
+
+    public DaoCache(final String region, final long ttl, final TimeUnit unit, final long maxEntries,
+            final CacheVersionsDao versions) {
+        super();
+        this.region = region;
+        this.entries = CacheBuilder.newBuilder().expireAfterWrite(ttl, unit).maximumSize(maxEntries).recordStats()
+                .build();
+        this.versions = versions;
+        this.generation = new AtomicLong();
+        this.lock = new Object();
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T, E extends Exception> T get(final String key, final Loader<T, E> loader) throws E {
+        final Optional<Object> cached = entries.getIfPresent(key);
+        if (cached != null) {
+            return (T) cached.orNull();
+        }
+        final long started = generation.get();
+        final T value = loader.load();
+        synchronized (lock) {
+            if (started == generation.get()) {
+                entries.put(key, Optional.<Object>fromNullable(value));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Drops the region on this node and bumps its version so the other nodes drop it on their next poll.
+     */
+    public void invalidate() {
+        invalidateLocally();
+        try {
+            versions.incrementCacheVersion(region);
+        } catch (final RuntimeException exception) {
+            logger.warn("Could not bump the cache version of " + region + ", other nodes will serve it until it expires",
+                    exception);
+        }
+    }
+
+    public void invalidateLocally() {
+        synchronized (lock) {
+            generation.incrementAndGet();
+            entries.invalidateAll();
+        }
+    }
+
+    public long size() {
+        return entries.size();
+    }
+
+    public CacheStats stats() {
+        return entries.stats();
+    }
+}
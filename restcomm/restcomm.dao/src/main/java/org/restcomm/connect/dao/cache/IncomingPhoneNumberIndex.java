@@ -0,0 +1,347 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.dao.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.apache.log4j.Logger;
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.dao.entities.IncomingPhoneNumber;
+
+/**
+ * In memory routing index of the incoming phone numbers. Numbers are kept in a radix trie keyed by the phone number
+ * so an exact lookup costs one walk over the digits whatever the inventory size, and the regex numbers of each
+ * organization are kept precompiled, longest first, in the order number selection evaluates them.
+ * <p>
+ * Lookups share a read lock, updates from number CRUD take the write lock for the time of one trie insert or removal.
+ */
+@ThreadSafe
+public final class IncomingPhoneNumberIndex {
+    private static final Logger logger = Logger.getLogger(IncomingPhoneNumberIndex.class);
+    // Same characters the getIncomingPhoneNumbersRegex query looks for.
+    private static final String REGEX_CHARACTERS = "*#^|.$\\[]";
+
+    /**
+     * A pure SIP regex number along with its compiled pattern.
+     */
+    public static final class Regex {
+        private final IncomingPhoneNumber number;
+        private final Pattern pattern;
+
+        private Regex(final IncomingPhoneNumber number, final Pattern pattern) {
+            this.number = number;
+            this.pattern = pattern;
+        }
+
+        public IncomingPhoneNumber getNumber() {
+            return number;
+        }
+
+        public Pattern getPattern() {
+            return pattern;
+        }
+    }
+
+    private static final Comparator<Regex> LONGEST_FIRST = new Comparator<Regex>() {
+        @Override
+        public int compare(final Regex o1, final Regex o2) {
+            return Integer.compare(o2.number.getPhoneNumber().length(), o1.number.getPhoneNumber().length());
+        }
+    };
+
+    private final ReadWriteLock lock;
+    private Node root;
+    private Map<Sid, IncomingPhoneNumber> numbers;
+    private Map<Sid, List<Regex>> regexes;
+
+    public IncomingPhoneNumberIndex() {
+        super();
+        this.lock = new ReentrantReadWriteLock();
+        this.root = new Node("");
+        this.numbers = new HashMap<Sid, IncomingPhoneNumber>();
+        this.regexes = new HashMap<Sid, List<Regex>>();
+    }
+
+    /**
+     * Replaces the whole content of the index. The new trie is built before the write lock is taken so lookups
+     * keep being served from the previous content meanwhile.
+     */
+    public void load(final Collection<IncomingPhoneNumber> inventory) {
+        final Node loadedRoot = new Node("");
+        final Map<Sid, IncomingPhoneNumber> loadedNumbers = new HashMap<Sid, IncomingPhoneNumber>(inventory.size() * 2);
+        final Map<Sid, List<Regex>> loadedRegexes = new HashMap<Sid, List<Regex>>();
+        for (final IncomingPhoneNumber number : inventory) {
+            if (number.getPhoneNumber() != null) {
+                loadedNumbers.put(number.getSid(), number);
+                put(loadedRoot, number);
+                addRegex(loadedRegexes, number);
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            root = loadedRoot;
+            numbers = loadedNumbers;
+            regexes = loadedRegexes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the number or replaces the previous version of it, whether its phone number changed or not.
+     */
+    public void put(final IncomingPhoneNumber number) {
+        if (number.getPhoneNumber() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(number.getSid());
+            numbers.put(number.getSid(), number);
+            put(root, number);
+            addRegex(regexes, number);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(final Sid sid) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(sid);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the numbers matching the phone number exactly, in every organization.
+     */
+    public List<IncomingPhoneNumber> getNumbers(final String phoneNumber) {
+        lock.readLock().lock();
+        try {
+            final Node node = find(root, phoneNumber);
+            if (node == null || node.numbers == null) {
+                return Collections.emptyList();
+            }
+            return new ArrayList<IncomingPhoneNumber>(node.numbers);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the pure SIP regex numbers of the organization, longest first.
+     */
+    public List<Regex> getRegexes(final Sid organizationSid) {
+        lock.readLock().lock();
+        try {
+            final List<Regex> organizationRegexes = regexes.get(organizationSid);
+            return organizationRegexes == null ? Collections.<Regex>emptyList() : organizationRegexes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return numbers.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return true if the phone number holds any of the characters that make number selection treat it as a regex.
+     */
+    public static boolean isRegex(final String phoneNumber) {
+        for (int i = 0; i < phoneNumber.length(); i++) {
+            if (REGEX_CHARACTERS.indexOf(phoneNumber.charAt(i)) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compiles a regex phone number the way number selection always did, a leading + or * is escaped so it is
+     * matched literally.
+     */
+    public static Pattern compile(final String phoneNumber) {
+        if (phoneNumber.startsWith("+")) {
+            return Pattern.compile(phoneNumber.replace("+", "/+"));
+        } else if (phoneNumber.startsWith("*")) {
+            return Pattern.compile(phoneNumber.replace("*", "/*"));
+        } else {
+            return Pattern.compile(phoneNumber);
+        }
+    }
+
+    private void removeLocked(final Sid sid) {
+        final IncomingPhoneNumber previous = numbers.remove(sid);
+        if (previous == null) {
+            return;
+        }
+        final Node node = find(root, previous.getPhoneNumber());
+        if (node != null && node.numbers != null) {
+            for (int i = 0; i < node.numbers.size(); i++) {
+                if (node.numbers.get(i).getSid().equals(sid)) {
+                    node.numbers.remove(i);
+                    break;
+                }
+            }
+            if (node.numbers.isEmpty()) {
+                node.numbers = null;
+            }
+        }
+        final List<Regex> organizationRegexes = regexes.get(previous.getOrganizationSid());
+        if (organizationRegexes != null) {
+            final List<Regex> updated = new ArrayList<Regex>(organizationRegexes.size());
+            for (final Regex regex : organizationRegexes) {
+                if (!regex.number.getSid().equals(sid)) {
+                    updated.add(regex);
+                }
+            }
+            regexes.put(previous.getOrganizationSid(), updated);
+        }
+    }
+
+    // The regex lists are copied on write so a list handed out to a lookup never changes under it.
+    private static void addRegex(final Map<Sid, List<Regex>> regexes, final IncomingPhoneNumber number) {
+        if (!Boolean.TRUE.equals(number.isPureSip()) || number.getOrganizationSid() == null
+                || !isRegex(number.getPhoneNumber())) {
+            return;
+        }
+        final Pattern pattern;
+        try {
+            pattern = compile(number.getPhoneNumber());
+        } catch (final PatternSyntaxException exception) {
+            logger.warn("Regex phone number " + number.getPhoneNumber() + " of " + number.getSid()
+                    + " does not compile and will never be matched: " + exception.getDescription());
+            return;
+        }
+        final List<Regex> previous = regexes.get(number.getOrganizationSid());
+        final List<Regex> updated = previous == null ? new ArrayList<Regex>(1) : new ArrayList<Regex>(previous);
+        updated.add(new Regex(number, pattern));
+        Collections.sort(updated, LONGEST_FIRST);
+        regexes.put(number.getOrganizationSid(), updated);
+    }
+
+    private static void put(final Node root, final IncomingPhoneNumber number) {
+        final String key = number.getPhoneNumber();
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            final int index = node.indexOf(key.charAt(i));
+            if (index < 0) {
+                final Node leaf = new Node(key.substring(i));
+                node.add(leaf);
+                node = leaf;
+                break;
+            }
+            final Node child = node.children[index];
+            final int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                // split the edge where the new key leaves it
+                final Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.add(child);
+                node.children[index] = middle;
+                node = middle;
+            } else {
+                node = child;
+            }
+            i += common;
+        }
+        if (node.numbers == null) {
+            node.numbers = new ArrayList<IncomingPhoneNumber>(1);
+        }
+        node.numbers.add(number);
+    }
+
+    private static Node find(final Node root, final String key) {
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            final int index = node.indexOf(key.charAt(i));
+            if (index < 0) {
+                return null;
+            }
+            final Node child = node.children[index];
+            if (!key.startsWith(child.label, i)) {
+                return null;
+            }
+            i += child.label.length();
+            node = child;
+        }
+        return node;
+    }
+
+    private static int commonPrefix(final String label, final String key, final int offset) {
+        final int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static final class Node {
+        private static final Node[] LEAF = new Node[0];
+
+        private String label;
+        private Node[] children;
+        private List<IncomingPhoneNumber> numbers;
+
+        private Node(final String label) {
+            this.label = label;
+            this.children = LEAF;
+        }
+
+        // Phone numbers branch on a dozen characters at most, a linear scan beats any map here.
+        private int indexOf(final char c) {
+            for (int i = 0; i < children.length; i++) {
+                if (children[i].label.charAt(0) == c) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void add(final Node child) {
+            final Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, children.length);
+            grown[children.length] = child;
+            children = grown;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.dao.cache;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.dao.CacheVersionsDao;
+import org.restcomm.connect.dao.IncomingPhoneNumbersDao;
+import org.restcomm.connect.dao.entities.IncomingPhoneNumber;
+import org.restcomm.connect.dao.entities.IncomingPhoneNumberFilter;
+
+/**
+ * Keeps the {@link IncomingPhoneNumberIndex} in line with the writes going through this node and bumps the
+ * version of the region so the other nodes reload their index.
+ */
+@ThreadSafe
+final class IndexingIncomingPhoneNumbersDao implements IncomingPhoneNumbersDao {
+    static final String REGION = "IncomingPhoneNumbers";
+
+    private static final Logger logger = Logger.getLogger(IndexingIncomingPhoneNumbersDao.class);
+
+    private final IncomingPhoneNumbersDao delegate;
+    private final IncomingPhoneNumberIndex index;
+    private final CacheVersionsDao versions;
+    // Version bumps made by this node since the last poll, they don't require a reload.
+    private final AtomicLong localVersions;
+
+    IndexingIncomingPhoneNumbersDao(final IncomingPhoneNumbersDao delegate, final IncomingPhoneNumberIndex index,
+            final CacheVersionsDao versions) {
+        super();
+        this.delegate = delegate;
+        this.index = index;
+        this.versions = versions;
+        this.localVersions = new AtomicLong();
+    }
+
+    /**
+     * Reads the whole inventory into the index.
+     */
+    void reload() {
+        final long started = System.currentTimeMillis();
+        index.load(delegate.getIncomingPhoneNumbersByFilter(IncomingPhoneNumberFilter.Builder.builder().build()));
+        if (logger.isInfoEnabled()) {
+            logger.info("Indexed " + index.size() + " incoming phone numbers in "
+                    + (System.currentTimeMillis() - started) + "ms");
+        }
+    }
+
+    long drainLocalVersions() {
+        return localVersions.getAndSet(0);
+    }
+
+    @Override
+    public void addIncomingPhoneNumber(final IncomingPhoneNumber incomingPhoneNumber) {
+        delegate.addIncomingPhoneNumber(incomingPhoneNumber);
+        reindex(incomingPhoneNumber.getPhoneNumber());
+    }
+
+    @Override
+    public IncomingPhoneNumber getIncomingPhoneNumber(final Sid sid) {
+        return delegate.getIncomingPhoneNumber(sid);
+    }
+
+    @Override
+    public List<IncomingPhoneNumber> getIncomingPhoneNumbers(final Sid accountSid) {
+        return delegate.getIncomingPhoneNumbers(accountSid);
+    }
+
+    @Override
+    public List<IncomingPhoneNumber> getIncomingPhoneNumbersByFilter(final IncomingPhoneNumberFilter incomingPhoneNumberFilter) {
+        return delegate.getIncomingPhoneNumbersByFilter(incomingPhoneNumberFilter);
+    }
+
+    @Override
+    public void removeIncomingPhoneNumber(final Sid sid) {
+        try {
+            delegate.removeIncomingPhoneNumber(sid);
+        } finally {
+            index.remove(sid);
+            bump();
+        }
+    }
+
+    @Override
+    public void removeIncomingPhoneNumbers(final Sid accountSid) {
+        final List<IncomingPhoneNumber> removed = delegate.getIncomingPhoneNumbers(accountSid);
+        try {
+            delegate.removeIncomingPhoneNumbers(accountSid);
+        } finally {
+            for (final IncomingPhoneNumber number : removed) {
+                index.remove(number.getSid());
+            }
+            bump();
+        }
+    }
+
+    @Override
+    public void updateIncomingPhoneNumber(final IncomingPhoneNumber incomingPhoneNumber) {
+        delegate.updateIncomingPhoneNumber(incomingPhoneNumber);
+        reindex(incomingPhoneNumber.getPhoneNumber());
+    }
+
+    @Override
+    public List<IncomingPhoneNumber> getIncomingPhoneNumbersRegex(final IncomingPhoneNumberFilter incomingPhoneNumberFilter) {
+        return delegate.getIncomingPhoneNumbersRegex(incomingPhoneNumberFilter);
+    }
+
+    @Override
+    public Integer getTotalIncomingPhoneNumbers(final IncomingPhoneNumberFilter filter) {
+        return delegate.getTotalIncomingPhoneNumbers(filter);
+    }
+
+    // Reads the rows back, with the application names the filter query joins, rather than trusting the caller copy.
+    private void reindex(final String phoneNumber) {
+        try {
+            final IncomingPhoneNumberFilter filter = IncomingPhoneNumberFilter.Builder.builder().byPhoneNumber(phoneNumber)
+                    .build();
+            for (final IncomingPhoneNumber number : delegate.getIncomingPhoneNumbersByFilter(filter)) {
+                index.put(number);
+            }
+        } finally {
+            bump();
+        }
+    }
+
+    private void bump() {
+        try {
+            versions.incrementCacheVersion(REGION);
+            localVersions.incrementAndGet();
+        } catch (final RuntimeException exception) {
+            logger.warn("Could not bump the cache version of " + REGION + ", other nodes will route on a stale index",
+                    exception);
+        }
+    }
+}
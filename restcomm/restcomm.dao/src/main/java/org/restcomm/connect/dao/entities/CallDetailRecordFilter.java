@@ -52,6 +52,7 @@ public class CallDetailRecordFilter {
     private final Sorting.Direction sortByStatus;
     private final Sorting.Direction sortByDuration;
     private final Sorting.Direction sortByPrice;
+    private final boolean archived; // query the archive table instead of the live one
 
     public CallDetailRecordFilter(String accountSid, List<String> accountSidSet, String recipient, String sender, String status, String startTime, String endTime,
                                   String parentCallSid, String conferenceSid, Integer limit, Integer offset) throws ParseException {
@@ -63,6 +64,14 @@ public class CallDetailRecordFilter {
                                   String parentCallSid, String conferenceSid, Integer limit, Integer offset, String instanceId, Sorting.Direction sortByDate,
                                   Sorting.Direction sortByFrom, Sorting.Direction sortByTo, Sorting.Direction sortByDirection, Sorting.Direction sortByStatus, Sorting.Direction sortByDuration,
                                   Sorting.Direction sortByPrice) throws ParseException {
+        this(accountSid, accountSidSet, recipient, sender, status, startTime, endTime, parentCallSid, conferenceSid, limit, offset, instanceId,
+                sortByDate, sortByFrom, sortByTo, sortByDirection, sortByStatus, sortByDuration, sortByPrice, false);
+    }
+
+    public CallDetailRecordFilter(String accountSid, List<String> accountSidSet, String recipient, String sender, String status, String startTime, String endTime,
+                                  String parentCallSid, String conferenceSid, Integer limit, Integer offset, String instanceId, Sorting.Direction sortByDate,
+                                  Sorting.Direction sortByFrom, Sorting.Direction sortByTo, Sorting.Direction sortByDirection, Sorting.Direction sortByStatus, Sorting.Direction sortByDuration,
+                                  Sorting.Direction sortByPrice, boolean archived) throws ParseException {
         this.accountSid = accountSid;
         this.accountSidSet = accountSidSet;
 
@@ -107,6 +116,7 @@ public class CallDetailRecordFilter {
         this.sortByStatus = sortByStatus;
         this.sortByDuration = sortByDuration;
         this.sortByPrice = sortByPrice;
+        this.archived = archived;
     }
 
     public String getSid() {
@@ -163,6 +173,8 @@ public class CallDetailRecordFilter {
     public Sorting.Direction getSortByDuration() { return sortByDuration; }
     public Sorting.Direction getSortByPrice() { return sortByPrice; }
 
+    public boolean isArchived() { return archived; }
+
 
     public static final class Builder {
         private String accountSid = null;
@@ -182,6 +194,7 @@ public class CallDetailRecordFilter {
         private Sorting.Direction sortByStatus = null;
         private Sorting.Direction sortByDuration = null;
         private Sorting.Direction sortByPrice = null;
+        private boolean archived = false;
 
         private Integer limit = null;
         private Integer offset = null;
@@ -210,7 +223,8 @@ public class CallDetailRecordFilter {
                     sortByDirection,
                     sortByStatus,
                     sortByDuration,
-                    sortByPrice);
+                    sortByPrice,
+                    archived);
         }
 
         // Filters
@@ -286,6 +300,12 @@ public class CallDetailRecordFilter {
         }
 
 
+        // Source
+        public Builder archived(boolean archived) {
+            this.archived = archived;
+            return this;
+        }
+
         // Paging
         public Builder limited(Integer limit, Integer offset) {
             this.limit = limit;
@@ -52,6 +52,7 @@ public class SmsMessageFilter {
     private final Sorting.Direction sortByStatus;
     private final Sorting.Direction sortByBody;
     private final Sorting.Direction sortByPrice;
+    private final boolean archived; // query the archive table instead of the live one
 
 
     public SmsMessageFilter(String accountSid, List<String> accountSidSet, String recipient, String sender, String status, String startTime, String endTime,
@@ -64,6 +65,14 @@ public class SmsMessageFilter {
                             String body, Integer limit, Integer offset, String instanceId, Sorting.Direction sortByDate,
                             Sorting.Direction sortByFrom, Sorting.Direction sortByTo, Sorting.Direction sortByDirection, Sorting.Direction sortByStatus, Sorting.Direction sortByBody,
                             Sorting.Direction sortByPrice) throws ParseException {
+        this(accountSid, accountSidSet, recipient, sender, status, startTime, endTime, body, limit, offset, instanceId,
+                sortByDate, sortByFrom, sortByTo, sortByDirection, sortByStatus, sortByBody, sortByPrice, false);
+    }
+
+    public SmsMessageFilter(String accountSid, List<String> accountSidSet, String recipient, String sender, String status, String startTime, String endTime,
+                            String body, Integer limit, Integer offset, String instanceId, Sorting.Direction sortByDate,
+                            Sorting.Direction sortByFrom, Sorting.Direction sortByTo, Sorting.Direction sortByDirection, Sorting.Direction sortByStatus, Sorting.Direction sortByBody,
+                            Sorting.Direction sortByPrice, boolean archived) throws ParseException {
         this.accountSid = accountSid;
         this.accountSidSet = accountSidSet;
 
@@ -107,6 +116,7 @@ public class SmsMessageFilter {
         this.sortByStatus = sortByStatus;
         this.sortByBody = sortByBody;
         this.sortByPrice = sortByPrice;
+        this.archived = archived;
     }
 
     public String getSid() {
@@ -159,6 +169,8 @@ public class SmsMessageFilter {
     public Sorting.Direction getSortByBody() { return sortByBody; }
     public Sorting.Direction getSortByPrice() { return sortByPrice; }
 
+    public boolean isArchived() { return archived; }
+
     public static final class Builder {
         private String accountSid = null;
         private List<String> accountSidSet = null;
@@ -176,6 +188,7 @@ public class SmsMessageFilter {
         private Sorting.Direction sortByStatus = null;
         private Sorting.Direction sortByBody = null;
         private Sorting.Direction sortByPrice = null;
+        private boolean archived = false;
         private Integer limit = null;
         private Integer offset = null;
 
@@ -201,7 +214,8 @@ public class SmsMessageFilter {
                     sortByDirection,
                     sortByStatus,
                     sortByBody,
-                    sortByPrice);
+                    sortByPrice,
+                    archived);
         }
 
         // Filters
@@ -273,6 +287,12 @@ public class SmsMessageFilter {
         }
 
 
+        // Source
+        public Builder archived(boolean archived) {
+            this.archived = archived;
+            return this;
+        }
+
         // Paging
         public Builder limited(Integer limit, Integer offset) {
             this.limit = limit;
@@ -0,0 +1,264 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.dao.mybatis;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.log4j.Logger;
+import org.joda.time.DateTime;
+import org.restcomm.connect.commons.annotations.concurrency.NotThreadSafe;
+
+/**
+ * Moves call detail records, SMS messages, notifications and recordings older than their configured number of days
+ * out of the live tables, either into the matching "_archive" tables or into gzipped CSV files in the export
+ * directory.
+ * <p>
+ * Rows are moved in batches of batch-size, each in its own transaction, with batch-pause milliseconds between batches
+ * and only while the local time is inside the [window-start, window-end) hours so live traffic is not competing with
+ * it. Recording files are left where they are, only their rows move. Usage of the moved records is only kept when
+ * usage rollups are enabled and had rolled up those days before.
+ */
+@NotThreadSafe
+final class DataRetention implements Runnable {
+    private static final Logger logger = Logger.getLogger(DataRetention.class);
+    private static final String namespace = "org.restcomm.connect.dao.mybatis.DataRetention.";
+
+    private final SqlSessionFactory sessions;
+    private final boolean archive;
+    private final File exportDirectory;
+    private final int batchSize;
+    private final long batchPause;
+    private final int windowStart;
+    private final int windowEnd;
+    // Days to keep per table, 0 keeps everything.
+    private final Map<String, Integer> days;
+
+    DataRetention(final SqlSessionFactory sessions, final Configuration configuration) {
+        super();
+        this.sessions = sessions;
+        final String mode = configuration.getString("mode", "archive");
+        if ("archive".equals(mode)) {
+            archive = true;
+            exportDirectory = null;
+        } else if ("export".equals(mode)) {
+            archive = false;
+            final String directory = configuration.getString("export-directory");
+            if (directory == null || directory.isEmpty()) {
+                throw new IllegalArgumentException("The retention export mode requires an export-directory");
+            }
+            exportDirectory = new File(directory);
+        } else {
+            throw new IllegalArgumentException("Unknown retention mode " + mode);
+        }
+        this.batchSize = configuration.getInt("batch-size", 1000);
+        this.batchPause = configuration.getLong("batch-pause", 500);
+        this.windowStart = configuration.getInt("window-start", 1);
+        this.windowEnd = configuration.getInt("window-end", 5);
+        this.days = new LinkedHashMap<String, Integer>();
+        days.put("restcomm_call_detail_records", configuration.getInt("call-detail-records.days", 0));
+        days.put("restcomm_sms_messages", configuration.getInt("sms-messages.days", 0));
+        days.put("restcomm_notifications", configuration.getInt("notifications.days", 0));
+        days.put("restcomm_recordings", configuration.getInt("recordings.days", 0));
+    }
+
+    boolean inWindow(final DateTime time) {
+        final int hour = time.getHourOfDay();
+        if (windowStart == windowEnd) {
+            return true;
+        } else if (windowStart < windowEnd) {
+            return hour >= windowStart && hour < windowEnd;
+        } else {
+            // The window goes past midnight.
+            return hour >= windowStart || hour < windowEnd;
+        }
+    }
+
+    @Override
+    public void run() {
+        final DateTime now = DateTime.now();
+        if (!inWindow(now)) {
+            return;
+        }
+        for (final Map.Entry<String, Integer> entry : days.entrySet()) {
+            if (entry.getValue() <= 0) {
+                continue;
+            }
+            final String table = entry.getKey();
+            try {
+                final int moved = expire(table, now.minusDays(entry.getValue()));
+                if (moved > 0) {
+                    logger.info("Moved " + moved + " rows older than " + entry.getValue() + " days out of " + table);
+                }
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (final IOException exception) {
+                logger.warn("Could not export the expired rows of " + table + ", will retry on the next run", exception);
+            } catch (final RuntimeException exception) {
+                logger.warn("Could not move the expired rows of " + table + ", will retry on the next run", exception);
+            }
+        }
+    }
+
+    /**
+     * @return the number of rows created before the given time that were moved out of the table
+     */
+    int expire(final String table, final DateTime before) throws IOException, InterruptedException {
+        int total = 0;
+        CsvExport export = null;
+        try {
+            while (inWindow(DateTime.now())) {
+                final Map<String, Object> params = new HashMap<String, Object>();
+                params.put("table", table);
+                params.put("before", new Date(before.getMillis()));
+                params.put("limit", batchSize);
+                final int batch;
+                final SqlSession session = sessions.openSession();
+                try {
+                    final List<String> sids = session.selectList(namespace + "getExpiredSids", params);
+                    batch = sids.size();
+                    if (batch > 0) {
+                        params.put("sids", sids);
+                        if (archive) {
+                            session.insert(namespace + "archiveRecords", params);
+                        } else {
+                            if (export == null) {
+                                export = new CsvExport(new File(exportDirectory, table + "-"
+                                        + DateTime.now().toString("yyyyMMdd'T'HHmmss") + ".csv.gz"), columns(session, table));
+                            }
+                            // Written out before the rows are removed so a failure never loses them.
+                            export.write(session.<Map<String, Object>>selectList(namespace + "getRecords", params));
+                        }
+                        session.delete(namespace + "removeRecords", params);
+                        session.commit();
+                    }
+                } finally {
+                    session.close();
+                }
+                total += batch;
+                if (batch < batchSize) {
+                    break;
+                }
+                Thread.sleep(batchPause);
+            }
+        } finally {
+            if (export != null) {
+                export.close();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return the columns of the table in their declared order, taken from the database because the rows leave their
+     * null columns out
+     */
+    private static List<String> columns(final SqlSession session, final String table) throws IOException {
+        final List<String> columns = new ArrayList<String>();
+        try {
+            final DatabaseMetaData metadata = session.getConnection().getMetaData();
+            final String escape = metadata.getSearchStringEscape();
+            // The underscores in the table name would otherwise match any character.
+            final String pattern = escape == null || escape.isEmpty() ? table : table.replace("_", escape + "_");
+            final ResultSet result = metadata.getColumns(null, null, pattern, null);
+            try {
+                while (result.next()) {
+                    columns.add(result.getString("COLUMN_NAME"));
+                }
+            } finally {
+                result.close();
+            }
+        } catch (final SQLException exception) {
+            throw new IOException("Could not read the columns of " + table, exception);
+        }
+        if (columns.isEmpty()) {
+            throw new IOException("Could not find the columns of " + table);
+        }
+        return columns;
+    }
+
+    private static final class CsvExport {
+        private final Writer writer;
+        private final List<String> columns;
+
+        CsvExport(final File file, final List<String> columns) throws IOException {
+            super();
+            this.writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(file), true),
+                    "UTF-8"));
+            this.columns = columns;
+            line(columns);
+        }
+
+        void write(final List<Map<String, Object>> rows) throws IOException {
+            final List<Object> values = new ArrayList<Object>(columns.size());
+            for (final Map<String, Object> row : rows) {
+                values.clear();
+                for (final String column : columns) {
+                    values.add(row.get(column));
+                }
+                line(values);
+            }
+            writer.flush();
+        }
+
+        private void line(final Iterable<?> values) throws IOException {
+            boolean first = true;
+            for (final Object value : values) {
+                if (!first) {
+                    writer.write(',');
+                }
+                first = false;
+                if (value != null) {
+                    final String text = value.toString();
+                    if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                        writer.write('"');
+                        writer.write(text.replace("\"", "\"\""));
+                        writer.write('"');
+                    } else {
+                        writer.write(text);
+                    }
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        void close() throws IOException {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.dao.mybatis;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.dao.CacheVersionsDao;
+import org.restcomm.connect.dao.DaoUtils;
+
+/**
+ * Keeps the cache region versions in the restcomm_dao_cache_versions table so every node sharing the database sees
+ * the same counters.
+ */
+@ThreadSafe
+public final class MybatisCacheVersionsDao implements CacheVersionsDao {
+    private static final String namespace = "org.restcomm.connect.dao.CacheVersionsDao.";
+    private final SqlSessionFactory sessions;
+
+    public MybatisCacheVersionsDao(final SqlSessionFactory sessions) {
+        super();
+        this.sessions = sessions;
+    }
+
+    @Override
+    public Map<String, Long> getCacheVersions() {
+        final SqlSession session = sessions.openSession();
+        try {
+            final List<Map<String, Object>> results = session.selectList(namespace + "getCacheVersions");
+            final Map<String, Long> versions = new HashMap<String, Long>();
+            for (final Map<String, Object> result : results) {
+                versions.put(DaoUtils.readString(result.get("region")), ((Number) result.get("version")).longValue());
+            }
+            return versions;
+        } finally {
+            session.close();
+        }
+    }
+
+    @Override
+    public void incrementCacheVersion(final String region) {
+        final SqlSession session = sessions.openSession();
+        try {
+            if (session.update(namespace + "incrementCacheVersion", region) == 0) {
+                try {
+                    session.insert(namespace + "addCacheVersion", region);
+                } catch (final PersistenceException exception) {
+                    // Another node created the row in the meantime.
+                    session.rollback();
+                    session.update(namespace + "incrementCacheVersion", region);
+                }
+            }
+            session.commit();
+        } finally {
+            session.close();
+        }
+    }
+}
@@ -19,13 +19,9 @@
  */
 package org.restcomm.connect.dao.mybatis;
 
-import java.math.BigDecimal;
-import java.net.URI;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Currency;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -50,10 +46,16 @@ import org.restcomm.connect.dao.entities.CallDetailRecordFilter;
 public final class MybatisCallDetailRecordsDao implements CallDetailRecordsDao {
     private static final String namespace = "org.mobicents.servlet.sip.restcomm.dao.CallDetailRecordsDao.";
     private final SqlSessionFactory sessions;
+    private final UsageRollups rollups;
 
     public MybatisCallDetailRecordsDao(final SqlSessionFactory sessions) {
+        this(sessions, null);
+    }
+
+    MybatisCallDetailRecordsDao(final SqlSessionFactory sessions, final UsageRollups rollups) {
         super();
         this.sessions = sessions;
+        this.rollups = rollups;
     }
 
     @Override
@@ -61,6 +63,9 @@ public final class MybatisCallDetailRecordsDao implements CallDetailRecordsDao {
         final SqlSession session = sessions.openSession();
         try {
             session.insert(namespace + "addCallDetailRecord", toMap(cdr));
+            if (rollups != null) {
+                rollups.recordChanged(session, UsageRollups.CALLS, cdr.getAccountSid(), cdr.getDateCreated());
+            }
             session.commit();
         } finally {
             session.close();
@@ -71,12 +76,7 @@ public final class MybatisCallDetailRecordsDao implements CallDetailRecordsDao {
     public CallDetailRecord getCallDetailRecord(final Sid sid) {
         final SqlSession session = sessions.openSession();
         try {
-            final Map<String, Object> result = session.selectOne(namespace + "getCallDetailRecord", sid.toString());
-            if (result != null) {
-                return toCallDetailRecord(result);
-            } else {
-                return null;
-            }
+            return session.selectOne(namespace + "getCallDetailRecord", sid.toString());
         } finally {
             session.close();
         }
@@ -137,16 +137,7 @@ public final class MybatisCallDetailRecordsDao implements CallDetailRecordsDao {
         final SqlSession session = sessions.openSession();
 
         try {
-            final List<Map<String, Object>> results = session.selectList(namespace + "getCallDetailRecordByUsingFilters",
-                    filter);
-            final List<CallDetailRecord> cdrs = new ArrayList<CallDetailRecord>();
-
-            if (results != null && !results.isEmpty()) {
-                for (final Map<String, Object> result : results) {
-                    cdrs.add(toCallDetailRecord(result));
-                }
-            }
-            return cdrs;
+            return session.selectList(namespace + "getCallDetailRecordByUsingFilters", filter);
         } finally {
             session.close();
         }
@@ -260,14 +251,7 @@ public final class MybatisCallDetailRecordsDao implements CallDetailRecordsDao {
     private List<CallDetailRecord> getCallDetailRecords(final String selector, Object input) {
         final SqlSession session = sessions.openSession();
         try {
-            final List<Map<String, Object>> results = session.selectList(selector, input);
-            final List<CallDetailRecord> cdrs = new ArrayList<CallDetailRecord>();
-            if (results != null && !results.isEmpty()) {
-                for (final Map<String, Object> result : results) {
-                    cdrs.add(toCallDetailRecord(result));
-                }
-            }
-            return cdrs;
+            return session.selectList(selector, input);
         } finally {
             session.close();
         }
@@ -275,18 +259,27 @@ public final class MybatisCallDetailRecordsDao implements CallDetailRecordsDao {
 
     @Override
     public void removeCallDetailRecord(final Sid sid) {
-        removeCallDetailRecords(namespace + "removeCallDetailRecord", sid);
+        final SqlSession session = sessions.openSession();
+        try {
+            final CallDetailRecord cdr = rollups == null ? null : session.<CallDetailRecord>selectOne(namespace + "getCallDetailRecord", sid.toString());
+            session.delete(namespace + "removeCallDetailRecord", sid.toString());
+            if (cdr != null) {
+                rollups.recordChanged(session, UsageRollups.CALLS, cdr.getAccountSid(), cdr.getDateCreated());
+            }
+            session.commit();
+        } finally {
+            session.close();
+        }
     }
 
     @Override
     public void removeCallDetailRecords(final Sid accountSid) {
-        removeCallDetailRecords(namespace + "removeCallDetailRecords", accountSid);
-    }
-
-    private void removeCallDetailRecords(final String selector, final Sid sid) {
         final SqlSession session = sessions.openSession();
         try {
-            session.delete(selector, sid.toString());
+            session.delete(namespace + "removeCallDetailRecords", accountSid.toString());
+            if (rollups != null) {
+                rollups.accountRemoved(session, UsageRollups.CALLS, accountSid);
+            }
             session.commit();
         } finally {
             session.close();
@@ -298,6 +291,9 @@ public final class MybatisCallDetailRecordsDao implements CallDetailRecordsDao {
         final SqlSession session = sessions.openSession();
         try {
             session.update(namespace + "updateCallDetailRecord", toMap(cdr));
+            if (rollups != null) {
+                rollups.recordChanged(session, UsageRollups.CALLS, cdr.getAccountSid(), cdr.getDateCreated());
+            }
             session.commit();
         } finally {
             session.close();
@@ -315,41 +311,6 @@ public final class MybatisCallDetailRecordsDao implements CallDetailRecordsDao {
         }
     }
 
-    private CallDetailRecord toCallDetailRecord(final Map<String, Object> map) {
-        final String msId = DaoUtils.readString(map.get("ms_id"));
-        final Sid sid = DaoUtils.readSid(map.get("sid"));
-        final String instanceId = DaoUtils.readString(map.get("instanceid"));
-        final Sid parentCallSid = DaoUtils.readSid(map.get("parent_call_sid"));
-        final Sid conferenceSid = DaoUtils.readSid(map.get("conference_sid"));
-        final DateTime dateCreated = DaoUtils.readDateTime(map.get("date_created"));
-        final DateTime dateUpdated = DaoUtils.readDateTime(map.get("date_updated"));
-        final Sid accountSid = DaoUtils.readSid(map.get("account_sid"));
-        final String to = DaoUtils.readString(map.get("recipient"));
-        final String from = DaoUtils.readString(map.get("sender"));
-        final Sid phoneNumberSid = DaoUtils.readSid(map.get("phone_number_sid"));
-        final String status = DaoUtils.readString(map.get("status"));
-        final DateTime startTime = DaoUtils.readDateTime(map.get("start_time"));
-        final DateTime endTime = DaoUtils.readDateTime(map.get("end_time"));
-        final Integer duration = DaoUtils.readInteger(map.get("duration"));
-        final Integer ringDuration = DaoUtils.readInteger(map.get("ring_duration"));
-        final BigDecimal price = DaoUtils.readBigDecimal(map.get("price"));
-        final Currency priceUnit = DaoUtils.readCurrency(map.get("price_unit"));
-        final String direction = DaoUtils.readString(map.get("direction"));
-        final String answeredBy = DaoUtils.readString(map.get("answered_by"));
-        final String apiVersion = DaoUtils.readString(map.get("api_version"));
-        final String forwardedFrom = DaoUtils.readString(map.get("forwarded_from"));
-        final String callerName = DaoUtils.readString(map.get("caller_name"));
-        final URI uri = DaoUtils.readUri(map.get("uri"));
-        final String callPath = DaoUtils.readString(map.get("call_path"));
-        final Boolean muted = DaoUtils.readBoolean(map.get("muted"));
-        final Boolean startConferenceOnEnter = DaoUtils.readBoolean(map.get("start_conference_on_enter"));
-        final Boolean endConferenceOnExit = DaoUtils.readBoolean(map.get("end_conference_on_exit"));
-        final Boolean onHold = DaoUtils.readBoolean(map.get("on_hold"));
-        return new CallDetailRecord(sid, instanceId, parentCallSid, conferenceSid, dateCreated, dateUpdated, accountSid, to, from, phoneNumberSid, status,
-                startTime, endTime, duration, price, priceUnit, direction, answeredBy, apiVersion, forwardedFrom, callerName,
-                uri, callPath, ringDuration, muted, startConferenceOnEnter, endConferenceOnExit, onHold, msId);
-    }
-
     private Map<String, Object> toMap(final CallDetailRecord cdr) {
         final Map<String, Object> map = new HashMap<String, Object>();
         map.put("sid", DaoUtils.writeSid(cdr.getSid()));
@@ -27,6 +27,7 @@ import org.restcomm.connect.dao.AccountsDao;
 import org.restcomm.connect.dao.AnnouncementsDao;
 import org.restcomm.connect.dao.ApplicationsDao;
 import org.restcomm.connect.dao.AvailablePhoneNumbersDao;
+import org.restcomm.connect.dao.CacheVersionsDao;
 import org.restcomm.connect.dao.CallDetailRecordsDao;
 import org.restcomm.connect.dao.ClientsDao;
 import org.restcomm.connect.dao.ConferenceDetailRecordsDao;
@@ -55,6 +56,10 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.Reader;
 import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author quintana.thomas@gmail.com (Thomas Quintana)
@@ -90,6 +95,11 @@ public final class MybatisDaoManager implements DaoManager {
     private ProfileAssociationsDao profileAssociationsDao;
     private OrganizationsDao organizationsDao;
     private ProfilesDao profilesDao;
+    private CacheVersionsDao cacheVersionsDao;
+    private UsageRollups usageRollups;
+    private ScheduledExecutorService usageRollupsScheduler;
+    private DataRetention dataRetention;
+    private ScheduledExecutorService dataRetentionScheduler;
 
 
     public MybatisDaoManager() {
@@ -232,9 +242,21 @@ public final class MybatisDaoManager implements DaoManager {
         return profilesDao;
     }
 
+    @Override
+    public CacheVersionsDao getCacheVersionsDao() {
+        return cacheVersionsDao;
+    }
+
     @Override
     public void shutdown() {
-        // Nothing to do.
+        if (usageRollupsScheduler != null) {
+            usageRollupsScheduler.shutdownNow();
+            usageRollupsScheduler = null;
+        }
+        if (dataRetentionScheduler != null) {
+            dataRetentionScheduler.shutdownNow();
+            dataRetentionScheduler = null;
+        }
     }
 
     @Override
@@ -260,12 +282,28 @@ public final class MybatisDaoManager implements DaoManager {
     }
 
     public void start(final SqlSessionFactory sessions) {
+        if (configuration != null && configuration.getBoolean("usage-rollups[@enabled]", false)) {
+            usageRollups = new UsageRollups(sessions, configuration.getInt("usage-rollups.reconcile-days", 1));
+            final long interval = configuration.getLong("usage-rollups.backfill-interval", 3600);
+            if (interval > 0) {
+                usageRollupsScheduler = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("usage-rollups-backfill"));
+                usageRollupsScheduler.scheduleWithFixedDelay(usageRollups, 0, interval, TimeUnit.SECONDS);
+            }
+        }
+        if (configuration != null && configuration.getBoolean("retention[@enabled]", false)) {
+            dataRetention = new DataRetention(sessions, configuration.subset("retention"));
+            final long interval = configuration.getLong("retention.check-interval", 900);
+            if (interval > 0) {
+                dataRetentionScheduler = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("data-retention"));
+                dataRetentionScheduler.scheduleWithFixedDelay(dataRetention, interval, interval, TimeUnit.SECONDS);
+            }
+        }
         // Instantiate the DAO objects.
         accountsDao = new MybatisAccountsDao(sessions);
         applicationsDao = new MybatisApplicationsDao(sessions);
         announcementsDao = new MybatisAnnouncementsDao(sessions);
         availablePhoneNumbersDao = new MybatisAvailablePhoneNumbersDao(sessions);
-        callDetailRecordsDao = new MybatisCallDetailRecordsDao(sessions);
+        callDetailRecordsDao = new MybatisCallDetailRecordsDao(sessions, usageRollups);
         conferenceDetailRecordsDao = new MybatisConferenceDetailRecordsDao(sessions);
         clientsDao = new MybatisClientsDao(sessions);
         httpCookiesDao = new MybatisHttpCookiesDao(sessions);
@@ -275,8 +313,8 @@ public final class MybatisDaoManager implements DaoManager {
         presenceRecordsDao = new MybatisRegistrationsDao(sessions);
         recordingsDao = new MybatisRecordingsDao(sessions);
         shortCodesDao = new MybatisShortCodesDao(sessions);
-        smsMessagesDao = new MybatisSmsMessagesDao(sessions);
-        usageDao = new MybatisUsageDao(sessions);
+        smsMessagesDao = new MybatisSmsMessagesDao(sessions, usageRollups);
+        usageDao = new MybatisUsageDao(sessions, usageRollups);
         transcriptionsDao = new MybatisTranscriptionsDao(sessions);
         gatewaysDao = new MybatisGatewaysDao(sessions);
         instanceIdDao = new MybatisInstanceIdDao(sessions);
@@ -287,5 +325,25 @@ public final class MybatisDaoManager implements DaoManager {
         profileAssociationsDao = new MybatisProfileAssociationsDao(sessions);
         organizationsDao = new MybatisOrganizationDao(sessions);
         profilesDao = new MybatisProfilesDao(sessions);
+        cacheVersionsDao = new MybatisCacheVersionsDao(sessions);
+    }
+
+    UsageRollups getUsageRollups() {
+        return usageRollups;
+    }
+
+    DataRetention getDataRetention() {
+        return dataRetention;
+    }
+
+    private static ThreadFactory daemonThreadFactory(final String name) {
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
     }
 }
@@ -19,6 +19,7 @@
  */
 package org.restcomm.connect.dao.mybatis;
 
+import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.joda.time.DateTime;
@@ -29,23 +30,14 @@ import org.restcomm.connect.dao.SmsMessagesDao;
 import org.restcomm.connect.dao.entities.SmsMessage;
 import org.restcomm.connect.dao.entities.SmsMessageFilter;
 
-import java.math.BigDecimal;
-import java.net.URI;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Currency;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
-import static org.restcomm.connect.dao.DaoUtils.readBigDecimal;
-import static org.restcomm.connect.dao.DaoUtils.readInteger;
-import static org.restcomm.connect.dao.DaoUtils.readCurrency;
-import static org.restcomm.connect.dao.DaoUtils.readDateTime;
-import static org.restcomm.connect.dao.DaoUtils.readSid;
-import static org.restcomm.connect.dao.DaoUtils.readString;
-import static org.restcomm.connect.dao.DaoUtils.readUri;
 import static org.restcomm.connect.dao.DaoUtils.writeBigDecimal;
 import static org.restcomm.connect.dao.DaoUtils.writeCurrency;
 import static org.restcomm.connect.dao.DaoUtils.writeDateTime;
@@ -60,13 +52,19 @@ import static org.restcomm.connect.dao.DaoUtils.writeUri;
 public final class MybatisSmsMessagesDao implements SmsMessagesDao {
     private static final String namespace = "org.mobicents.servlet.sip.restcomm.dao.SmsMessagesDao.";
     private final SqlSessionFactory sessions;
+    private final UsageRollups rollups;
 
     private static final String STATUS_CALLBACK_COL = "status_callback";
     private static final String STATUS_CALLBACK_METHOD_COL = "status_callback_method";
 
     public MybatisSmsMessagesDao(final SqlSessionFactory sessions) {
+        this(sessions, null);
+    }
+
+    MybatisSmsMessagesDao(final SqlSessionFactory sessions, final UsageRollups rollups) {
         super();
         this.sessions = sessions;
+        this.rollups = rollups;
     }
 
     @Override
@@ -74,6 +72,32 @@ public final class MybatisSmsMessagesDao implements SmsMessagesDao {
         final SqlSession session = sessions.openSession();
         try {
             session.insert(namespace + "addSmsMessage", toMap(smsMessage));
+            if (rollups != null) {
+                rollups.recordChanged(session, UsageRollups.SMS, smsMessage.getAccountSid(), smsMessage.getDateCreated());
+            }
+            session.commit();
+        } finally {
+            session.close();
+        }
+    }
+
+    @Override
+    public void addSmsMessages(final List<SmsMessage> smsMessages) {
+        final SqlSession session = sessions.openSession(ExecutorType.BATCH);
+        try {
+            for (final SmsMessage smsMessage : smsMessages) {
+                session.insert(namespace + "addSmsMessage", toMap(smsMessage));
+            }
+            if (rollups != null) {
+                // A day of an account is rolled up again once, whatever the number of messages it got
+                final Set<String> days = new HashSet<String>();
+                for (final SmsMessage smsMessage : smsMessages) {
+                    final DateTime dateCreated = smsMessage.getDateCreated();
+                    if (dateCreated != null && days.add(smsMessage.getAccountSid() + ":" + dateCreated.toLocalDate())) {
+                        rollups.recordChanged(session, UsageRollups.SMS, smsMessage.getAccountSid(), dateCreated);
+                    }
+                }
+            }
             session.commit();
         } finally {
             session.close();
@@ -84,12 +108,7 @@ public final class MybatisSmsMessagesDao implements SmsMessagesDao {
     public SmsMessage getSmsMessage(final Sid sid) {
         final SqlSession session = sessions.openSession();
         try {
-            final Map<String, Object> result = session.selectOne(namespace + "getSmsMessage", sid.toString());
-            if (result != null) {
-                return toSmsMessage(result);
-            } else {
-                return null;
-            }
+            return session.selectOne(namespace + "getSmsMessage", sid.toString());
         } finally {
             session.close();
         }
@@ -102,12 +121,7 @@ public final class MybatisSmsMessagesDao implements SmsMessagesDao {
     public SmsMessage getSmsMessageBySmppMessageId(final String smppMessageId) {
         final SqlSession session = sessions.openSession();
         try {
-            final Map<String, Object> result = session.selectOne(namespace + "getSmsMessageBySmppMessageId", smppMessageId);
-            if (result != null) {
-                return toSmsMessage(result);
-            } else {
-                return null;
-            }
+            return session.selectOne(namespace + "getSmsMessageBySmppMessageId", smppMessageId);
         } finally {
             session.close();
         }
@@ -117,14 +131,7 @@ public final class MybatisSmsMessagesDao implements SmsMessagesDao {
     public List<SmsMessage> getSmsMessages(final Sid accountSid) {
         final SqlSession session = sessions.openSession();
         try {
-            final List<Map<String, Object>> results = session.selectList(namespace + "getSmsMessages", accountSid.toString());
-            final List<SmsMessage> smsMessages = new ArrayList<SmsMessage>();
-            if (results != null && !results.isEmpty()) {
-                for (final Map<String, Object> result : results) {
-                    smsMessages.add(toSmsMessage(result));
-                }
-            }
-            return smsMessages;
+            return session.selectList(namespace + "getSmsMessages", accountSid.toString());
         } finally {
             session.close();
         }
@@ -136,16 +143,7 @@ public final class MybatisSmsMessagesDao implements SmsMessagesDao {
         final SqlSession session = sessions.openSession();
 
         try {
-            final List<Map<String, Object>> results = session.selectList(namespace + "getSmsMessagesByUsingFilters",
-                    filter);
-            final List<SmsMessage> cdrs = new ArrayList<SmsMessage>();
-
-            if (results != null && !results.isEmpty()) {
-                for (final Map<String, Object> result : results) {
-                    cdrs.add(toSmsMessage(result));
-                }
-            }
-            return cdrs;
+            return session.selectList(namespace + "getSmsMessagesByUsingFilters", filter);
         } finally {
             session.close();
         }
@@ -164,18 +162,27 @@ public final class MybatisSmsMessagesDao implements SmsMessagesDao {
 
     @Override
     public void removeSmsMessage(final Sid sid) {
-        deleteSmsMessage(namespace + "removeSmsMessage", sid);
+        final SqlSession session = sessions.openSession();
+        try {
+            final SmsMessage smsMessage = rollups == null ? null : session.<SmsMessage>selectOne(namespace + "getSmsMessage", sid.toString());
+            session.delete(namespace + "removeSmsMessage", sid.toString());
+            if (smsMessage != null) {
+                rollups.recordChanged(session, UsageRollups.SMS, smsMessage.getAccountSid(), smsMessage.getDateCreated());
+            }
+            session.commit();
+        } finally {
+            session.close();
+        }
     }
 
     @Override
     public void removeSmsMessages(final Sid accountSid) {
-        deleteSmsMessage(namespace + "removeSmsMessages", accountSid);
-    }
-
-    private void deleteSmsMessage(final String selector, final Sid sid) {
         final SqlSession session = sessions.openSession();
         try {
-            session.delete(selector, sid.toString());
+            session.delete(namespace + "removeSmsMessages", accountSid.toString());
+            if (rollups != null) {
+                rollups.accountRemoved(session, UsageRollups.SMS, accountSid);
+            }
             session.commit();
         } finally {
             session.close();
@@ -186,6 +193,9 @@ public final class MybatisSmsMessagesDao implements SmsMessagesDao {
         final SqlSession session = sessions.openSession();
         try {
             session.update(namespace + "updateSmsMessage", toMap(smsMessage));
+            if (rollups != null) {
+                rollups.recordChanged(session, UsageRollups.SMS, smsMessage.getAccountSid(), smsMessage.getDateCreated());
+            }
             session.commit();
         } finally {
             session.close();
@@ -217,13 +227,7 @@ public final class MybatisSmsMessagesDao implements SmsMessagesDao {
         final SqlSession session = this.sessions.openSession();
 
         try {
-            final List<Map<String, Object>> results = session.selectList(namespace + "findBySmppMessageId", parameters);
-            final List<SmsMessage> messages = new ArrayList<>(results.size());
-
-            for (Map<String, Object> result : results) {
-                messages.add(toSmsMessage(result));
-            }
-            return messages;
+            return session.selectList(namespace + "findBySmppMessageId", parameters);
         } finally {
             session.close();
         }
@@ -254,33 +258,4 @@ public final class MybatisSmsMessagesDao implements SmsMessagesDao {
         }
         return map;
     }
-
-    private SmsMessage toSmsMessage(final Map<String, Object> map) {
-        final Sid sid = readSid(map.get("sid"));
-        final DateTime dateCreated = readDateTime(map.get("date_created"));
-        final DateTime dateUpdated = readDateTime(map.get("date_updated"));
-        final DateTime dateSent = readDateTime(map.get("date_sent"));
-        final Sid accountSid = readSid(map.get("account_sid"));
-        final String sender = readString(map.get("sender"));
-        final String recipient = readString(map.get("recipient"));
-        final String body = readString(map.get("body"));
-        final SmsMessage.Status status = SmsMessage.Status.getStatusValue(readString(map.get("status")));
-        final SmsMessage.Direction direction = SmsMessage.Direction.getDirectionValue(readString(map.get("direction")));
-        final BigDecimal price = readBigDecimal(map.get("price"));
-        final Currency priceUnit = readCurrency(map.get("price_unit"));
-        final String apiVersion = readString(map.get("api_version"));
-        final URI uri = readUri(map.get("uri"));
-        final String smppMessageId = readString(map.get("smpp_message_id"));
-        final URI statusCallback = readUri(map.get(STATUS_CALLBACK_COL));
-        final String statusCallbackMethod = readString(map.get(STATUS_CALLBACK_METHOD_COL));
-        final Integer errorCode = readInteger(map.get("error_code"));
-        MessageError error = null;
-        if(errorCode != null) {
-            error = MessageError.getErrorValue(errorCode);
-        }
-        return new SmsMessage(sid, dateCreated, dateUpdated, dateSent, accountSid,
-                sender, recipient, body, status, direction,
-                price, priceUnit, apiVersion, uri, smppMessageId, error,
-                statusCallback, statusCallbackMethod);
-    }
 }
@@ -47,10 +47,16 @@ public final class MybatisUsageDao implements UsageDao {
 
   private static final String namespace = "org.mobicents.servlet.sip.restcomm.dao.UsageDao.";
   private final SqlSessionFactory sessions;
+  private final UsageRollups rollups;
 
   public MybatisUsageDao(final SqlSessionFactory sessions) {
+    this(sessions, null);
+  }
+
+  MybatisUsageDao(final SqlSessionFactory sessions, final UsageRollups rollups) {
     super();
     this.sessions = sessions;
+    this.rollups = rollups;
   }
 
   @Override
@@ -136,6 +142,8 @@ public final class MybatisUsageDao implements UsageDao {
     params.put("uri", uri);
     fillParametersByCategory(category, params);
     try {
+      // Without rollups every day is read from the raw records and the rollup table is never queried.
+      params.put("rolledUpUntil", rollups == null ? null : rollups.rolledUpUntil(session, (String) params.get("rollupSource")));
       final List<Map<String, Object>> results = session.selectList(namespace + queryName, params);
       final List<Usage> usageRecords = new ArrayList<Usage>();
       if (results != null && !results.isEmpty()) {
@@ -184,6 +192,7 @@ public final class MybatisUsageDao implements UsageDao {
       case CALLS_CLIENT:
       case CALLS_SIP:
         params.put("tableName", "restcomm_call_detail_records");
+        params.put("rollupSource", UsageRollups.CALLS);
         //NB: #1690 display duration as minutes rounded up
         params.put("usageExprPre", "COALESCE( CEIL(SUM(");
         params.put("usageExprCol", "duration");
@@ -197,6 +206,7 @@ public final class MybatisUsageDao implements UsageDao {
       case SMS_OUTBOUND_SHORTCODE:
       case SMS_OUTBOUND_LONGCODE:
         params.put("tableName", "restcomm_sms_messages");
+        params.put("rollupSource", UsageRollups.SMS);
         params.put("usageExprPre", "COUNT(");
         params.put("usageExprCol", "sid");
         params.put("usageExprSuf", ")");
@@ -215,6 +225,7 @@ public final class MybatisUsageDao implements UsageDao {
       case TOTALPRICE:
       default:
         params.put("tableName", "restcomm_call_detail_records");
+        params.put("rollupSource", UsageRollups.CALLS);
         //NB: #1690 display duration as minutes rounded up
         params.put("usageExprPre", "COALESCE( CEIL(SUM(");
         params.put("usageExprCol", "duration");
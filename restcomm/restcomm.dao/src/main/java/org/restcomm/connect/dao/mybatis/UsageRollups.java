@@ -0,0 +1,160 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.dao.mybatis;
+
+import java.sql.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.log4j.Logger;
+import org.joda.time.DateTime;
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.commons.dao.Sid;
+
+/**
+ * Maintains "restcomm_usage_rollups", one row per account, source, day and api version holding what the usage
+ * queries would otherwise group from the raw call detail records and SMS messages.
+ * <p>
+ * Every day before a source's rolled up until watermark is served from the rollups, the watermark day and later are
+ * still read raw. The backfill rolls up each finished day and moves the watermark up to today. A record of an already
+ * rolled up day that changes afterwards, typically a call still in progress at midnight reaching its final state,
+ * makes its account's day be rolled up again in the same transaction. The backfill also rolls up again the last
+ * reconcile days before the watermark to repair anything a concurrent update slipped past.
+ */
+@ThreadSafe
+final class UsageRollups implements Runnable {
+    static final String CALLS = "calls";
+    static final String SMS = "sms";
+
+    private static final Logger logger = Logger.getLogger(UsageRollups.class);
+    private static final String namespace = "org.mobicents.servlet.sip.restcomm.dao.UsageDao.";
+    private static final Date NONE = new Date(0);
+
+    private final SqlSessionFactory sessions;
+    private final int reconcileDays;
+    // Last watermark seen per source, so updates of today's records don't cost a query.
+    private final Map<String, Long> watermarks;
+
+    UsageRollups(final SqlSessionFactory sessions, final int reconcileDays) {
+        super();
+        this.sessions = sessions;
+        this.reconcileDays = reconcileDays;
+        this.watermarks = new ConcurrentHashMap<String, Long>();
+    }
+
+    static String tableName(final String source) {
+        return SMS.equals(source) ? "restcomm_sms_messages" : "restcomm_call_detail_records";
+    }
+
+    /**
+     * @return the first day that is not rolled up yet for the source
+     */
+    Date rolledUpUntil(final SqlSession session, final String source) {
+        final java.util.Date until = session.selectOne(namespace + "getRolledUpUntil", source);
+        final Date watermark = until == null ? NONE : new Date(until.getTime());
+        watermarks.put(source, watermark.getTime());
+        return watermark;
+    }
+
+    /**
+     * Rolls up the day of a changed record again if that day is already served from the rollups.
+     */
+    void recordChanged(final SqlSession session, final String source, final Sid accountSid, final DateTime dateCreated) {
+        Long until = watermarks.get(source);
+        if (until == null) {
+            // Another node may have rolled up already, load its watermark once.
+            until = rolledUpUntil(session, source).getTime();
+        }
+        if (accountSid == null || dateCreated == null || dateCreated.getMillis() >= until) {
+            return;
+        }
+        final Map<String, Object> params = params(source, dateCreated);
+        params.put("sid", accountSid.toString());
+        session.delete(namespace + "removeDayRollups", params);
+        session.insert(namespace + "addDayRollups", params);
+    }
+
+    void accountRemoved(final SqlSession session, final String source, final Sid accountSid) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("rollupSource", source);
+        params.put("sid", accountSid.toString());
+        session.delete(namespace + "removeAccountRollups", params);
+    }
+
+    @Override
+    public void run() {
+        for (final String source : new String[] { CALLS, SMS }) {
+            try {
+                backfill(source);
+            } catch (final RuntimeException exception) {
+                logger.warn("Could not roll up the " + source + " usage, will retry on the next run", exception);
+            }
+        }
+    }
+
+    void backfill(final String source) {
+        final DateTime today = DateTime.now().withTimeAtStartOfDay();
+        final SqlSession session = sessions.openSession();
+        try {
+            final java.util.Date until = session.selectOne(namespace + "getRolledUpUntil", source);
+            DateTime day;
+            if (until != null) {
+                day = new DateTime(until.getTime()).minusDays(reconcileDays);
+            } else {
+                final Map<String, Object> params = params(source, today);
+                final java.util.Date oldest = session.selectOne(namespace + "getOldestRecordDate", params);
+                day = oldest == null ? today : new DateTime(oldest.getTime()).withTimeAtStartOfDay();
+                session.insert(namespace + "addRolledUpUntil", params(source, day));
+                session.commit();
+            }
+            long watermark = until == null ? day.getMillis() : until.getTime();
+            int days = 0;
+            for (; day.isBefore(today); day = day.plusDays(1)) {
+                final Map<String, Object> params = params(source, day);
+                session.delete(namespace + "removeDayRollups", params);
+                session.insert(namespace + "addDayRollups", params);
+                final DateTime next = day.plusDays(1);
+                if (next.getMillis() > watermark) {
+                    watermark = next.getMillis();
+                    session.update(namespace + "updateRolledUpUntil", params(source, next));
+                }
+                session.commit();
+                days++;
+            }
+            watermarks.put(source, watermark);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Rolled up " + days + " days of " + source + " usage, rolled up until " + new Date(watermark));
+            }
+        } finally {
+            session.close();
+        }
+    }
+
+    private static Map<String, Object> params(final String source, final DateTime day) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("rollupSource", source);
+        params.put("tableName", tableName(source));
+        params.put("day", new Date(day.withTimeAtStartOfDay().getMillis()));
+        return params;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.dao.mybatis.typehandlers;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+import org.joda.time.DateTime;
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+
+/**
+ * Maps a DATETIME column to a {@link DateTime} in the default time zone, building it from the epoch millis rather
+ * than through the Joda object converters.
+ */
+@ThreadSafe
+public final class DateTimeTypeHandler extends BaseTypeHandler<DateTime> {
+    @Override
+    public void setNonNullParameter(final PreparedStatement statement, final int index, final DateTime dateTime,
+            final JdbcType type) throws SQLException {
+        statement.setTimestamp(index, new Timestamp(dateTime.getMillis()));
+    }
+
+    @Override
+    public DateTime getNullableResult(final ResultSet result, final String column) throws SQLException {
+        return toDateTime(result.getTimestamp(column));
+    }
+
+    @Override
+    public DateTime getNullableResult(final ResultSet result, final int index) throws SQLException {
+        return toDateTime(result.getTimestamp(index));
+    }
+
+    @Override
+    public DateTime getNullableResult(final CallableStatement statement, final int index) throws SQLException {
+        return toDateTime(statement.getTimestamp(index));
+    }
+
+    private static DateTime toDateTime(final Timestamp timestamp) {
+        return timestamp == null ? null : new DateTime(timestamp.getTime());
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.dao.mybatis.typehandlers;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.commons.dao.Sid;
+
+/**
+ * Maps a VARCHAR column straight to a {@link Sid} so result maps don't go through an intermediate hash map row.
+ */
+@ThreadSafe
+public final class SidTypeHandler extends BaseTypeHandler<Sid> {
+    @Override
+    public void setNonNullParameter(final PreparedStatement statement, final int index, final Sid sid, final JdbcType type)
+            throws SQLException {
+        statement.setString(index, sid.toString());
+    }
+
+    @Override
+    public Sid getNullableResult(final ResultSet result, final String column) throws SQLException {
+        return toSid(result.getString(column));
+    }
+
+    @Override
+    public Sid getNullableResult(final ResultSet result, final int index) throws SQLException {
+        return toSid(result.getString(index));
+    }
+
+    @Override
+    public Sid getNullableResult(final CallableStatement statement, final int index) throws SQLException {
+        return toSid(statement.getString(index));
+    }
+
+    private static Sid toSid(final String value) {
+        return value == null ? null : new Sid(value);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.dao.mybatis.typehandlers;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.dao.entities.SmsMessage;
+
+/**
+ * Maps the text form of an SMS message direction to a {@link SmsMessage.Direction}.
+ */
+@ThreadSafe
+public final class SmsMessageDirectionTypeHandler extends BaseTypeHandler<SmsMessage.Direction> {
+    @Override
+    public void setNonNullParameter(final PreparedStatement statement, final int index, final SmsMessage.Direction direction,
+            final JdbcType type) throws SQLException {
+        statement.setString(index, direction.toString());
+    }
+
+    @Override
+    public SmsMessage.Direction getNullableResult(final ResultSet result, final String column) throws SQLException {
+        return toDirection(result.getString(column));
+    }
+
+    @Override
+    public SmsMessage.Direction getNullableResult(final ResultSet result, final int index) throws SQLException {
+        return toDirection(result.getString(index));
+    }
+
+    @Override
+    public SmsMessage.Direction getNullableResult(final CallableStatement statement, final int index) throws SQLException {
+        return toDirection(statement.getString(index));
+    }
+
+    private static SmsMessage.Direction toDirection(final String value) {
+        return value == null ? null : SmsMessage.Direction.getDirectionValue(value);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.dao.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Map;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.commons.metrics.MetricsRegistry;
+import org.restcomm.connect.dao.GatewaysDao;
+import org.restcomm.connect.dao.entities.Gateway;
+import org.restcomm.connect.dao.mybatis.MybatisDaoManager;
+
+public final class CachingDaoManagerTest {
+    private MybatisDaoManager storage;
+    private CachingDaoManager node;
+
+    @Before
+    public void before() {
+        final InputStream data = getClass().getResourceAsStream("/mybatis.xml");
+        final SqlSessionFactory factory = new SqlSessionFactoryBuilder().build(data);
+        storage = new MybatisDaoManager();
+        storage.start(factory);
+        node = node(storage);
+    }
+
+    @After
+    public void after() {
+        node.shutdown();
+    }
+
+    // Polling is left to the tests so they don't depend on timing.
+    private static CachingDaoManager node(final MybatisDaoManager storage) {
+        final BaseConfiguration configuration = new BaseConfiguration();
+        configuration.setProperty("version-poll-interval", 0);
+        final CachingDaoManager manager = new CachingDaoManager(storage);
+        manager.start(configuration);
+        return manager;
+    }
+
+    private static Gateway gateway(final Sid sid, final String friendlyName) {
+        final Gateway.Builder builder = Gateway.builder();
+        builder.setSid(sid);
+        builder.setFriendlyName(friendlyName);
+        builder.setPassword("1234");
+        builder.setProxy("sip:127.0.0.1:5080");
+        builder.setRegister(true);
+        builder.setUserName("alice");
+        builder.setTimeToLive(3600);
+        builder.setUri(URI.create("hello-world.xml"));
+        return builder.build();
+    }
+
+    @Test
+    public void repeatedLookupsAreServedFromTheCache() {
+        final Sid sid = Sid.generate(Sid.Type.GATEWAY);
+        final GatewaysDao gateways = node.getGatewaysDao();
+        gateways.addGateway(gateway(sid, "Service Provider"));
+        try {
+            assertEquals("Service Provider", gateways.getGateway(sid).getFriendlyName());
+            // Changed behind the cache's back, so only a hit can still see the old name.
+            storage.getGatewaysDao().updateGateway(gateway(sid, "Provider Service"));
+            assertEquals("Service Provider", gateways.getGateway(sid).getFriendlyName());
+            final Map<String, Long> gauges = MetricsRegistry.getInstance().gauges(CachingDaoManager.METRICS_PREFIX);
+            assertEquals(Long.valueOf(1), gauges.get("DaoCache.Gateways.Hits"));
+            assertEquals(Long.valueOf(1), gauges.get("DaoCache.Gateways.Misses"));
+            assertEquals(Long.valueOf(50), gauges.get("DaoCache.Gateways.HitRatio"));
+            assertEquals(Long.valueOf(1), gauges.get("DaoCache.Gateways.Size"));
+        } finally {
+            gateways.removeGateway(sid);
+        }
+        assertNull(gateways.getGateway(sid));
+    }
+
+    @Test
+    public void writesOnAnotherNodeInvalidateOnNextPoll() {
+        final Sid sid = Sid.generate(Sid.Type.GATEWAY);
+        final CachingDaoManager other = node(storage);
+        try {
+            node.getGatewaysDao().addGateway(gateway(sid, "Service Provider"));
+            assertEquals("Service Provider", node.getGatewaysDao().getGateway(sid).getFriendlyName());
+            other.getGatewaysDao().updateGateway(gateway(sid, "Provider Service"));
+            // Local write invalidated the writer right away.
+            assertEquals("Provider Service", other.getGatewaysDao().getGateway(sid).getFriendlyName());
+            // The reader keeps its copy until it sees the version change.
+            assertEquals("Service Provider", node.getGatewaysDao().getGateway(sid).getFriendlyName());
+            node.pollVersions();
+            assertEquals("Provider Service", node.getGatewaysDao().getGateway(sid).getFriendlyName());
+        } finally {
+            other.getGatewaysDao().removeGateway(sid);
+        }
+        node.pollVersions();
+        assertNull(node.getGatewaysDao().getGateway(sid));
+    }
+}
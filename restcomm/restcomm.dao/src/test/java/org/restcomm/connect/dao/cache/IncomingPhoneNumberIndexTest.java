@@ -0,0 +1,113 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.dao.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.dao.entities.IncomingPhoneNumber;
+
+public final class IncomingPhoneNumberIndexTest {
+    private static final Sid ORGANIZATION = new Sid("ORafbe225ad37541eba518a74248f0ac4c");
+    private static final Sid OTHER_ORGANIZATION = new Sid("ORafbe225ad37541eba518a74248f0ac4d");
+
+    private static IncomingPhoneNumber number(final String phoneNumber, final Sid organization, final boolean pureSip) {
+        final IncomingPhoneNumber.Builder builder = IncomingPhoneNumber.builder();
+        builder.setSid(Sid.generate(Sid.Type.PHONE_NUMBER));
+        builder.setPhoneNumber(phoneNumber);
+        builder.setOrganizationSid(organization);
+        builder.setPureSip(pureSip);
+        return builder.build();
+    }
+
+    @Test
+    public void exactLookupSplitsSharedPrefixes() {
+        final IncomingPhoneNumberIndex index = new IncomingPhoneNumberIndex();
+        final IncomingPhoneNumber long1 = number("+15126002188", ORGANIZATION, false);
+        final IncomingPhoneNumber long2 = number("+15126002189", ORGANIZATION, false);
+        final IncomingPhoneNumber prefix = number("+1512", ORGANIZATION, false);
+        index.load(Arrays.asList(long1, long2, prefix));
+
+        assertEquals(long1.getSid(), index.getNumbers("+15126002188").get(0).getSid());
+        assertEquals(long2.getSid(), index.getNumbers("+15126002189").get(0).getSid());
+        assertEquals(prefix.getSid(), index.getNumbers("+1512").get(0).getSid());
+        assertTrue(index.getNumbers("+151260021").isEmpty());
+        assertTrue(index.getNumbers("+15126002187").isEmpty());
+        assertTrue(index.getNumbers("15126002188").isEmpty());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void sameNumberInSeveralOrganizations() {
+        final IncomingPhoneNumberIndex index = new IncomingPhoneNumberIndex();
+        final IncomingPhoneNumber first = number("1234", ORGANIZATION, true);
+        final IncomingPhoneNumber second = number("1234", OTHER_ORGANIZATION, true);
+        index.put(first);
+        index.put(second);
+        assertEquals(2, index.getNumbers("1234").size());
+
+        index.remove(first.getSid());
+        final List<IncomingPhoneNumber> remaining = index.getNumbers("1234");
+        assertEquals(1, remaining.size());
+        assertEquals(second.getSid(), remaining.get(0).getSid());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void putReplacesPreviousVersion() {
+        final IncomingPhoneNumberIndex index = new IncomingPhoneNumberIndex();
+        final IncomingPhoneNumber number = number("+15126002188", ORGANIZATION, false);
+        index.put(number);
+        final IncomingPhoneNumber updated = number("+15126002188", ORGANIZATION, false);
+        updated.setSid(number.getSid());
+        updated.setFriendlyName("updated");
+        index.put(updated);
+
+        assertEquals(1, index.getNumbers("+15126002188").size());
+        assertEquals("updated", index.getNumbers("+15126002188").get(0).getFriendlyName());
+    }
+
+    @Test
+    public void regexesArePureSipOfTheOrganizationLongestFirst() {
+        final IncomingPhoneNumberIndex index = new IncomingPhoneNumberIndex();
+        final IncomingPhoneNumber star = number("*", ORGANIZATION, true);
+        final IncomingPhoneNumber shortRegex = number("1305.*", ORGANIZATION, true);
+        final IncomingPhoneNumber longRegex = number("13055.*", ORGANIZATION, true);
+        index.load(Arrays.asList(star, shortRegex, longRegex, number("1786.*", ORGANIZATION, false),
+                number("1999.*", OTHER_ORGANIZATION, true), number("[", ORGANIZATION, true)));
+
+        final List<IncomingPhoneNumberIndex.Regex> regexes = index.getRegexes(ORGANIZATION);
+        assertEquals(3, regexes.size());
+        assertEquals(longRegex.getSid(), regexes.get(0).getNumber().getSid());
+        assertEquals(shortRegex.getSid(), regexes.get(1).getNumber().getSid());
+        assertEquals(star.getSid(), regexes.get(2).getNumber().getSid());
+        assertTrue(regexes.get(0).getPattern().matcher("13055872294").find());
+        // the catch all number is still an exact entry as well
+        assertEquals(star.getSid(), index.getNumbers("*").get(0).getSid());
+
+        index.remove(longRegex.getSid());
+        assertEquals(2, index.getRegexes(ORGANIZATION).size());
+    }
+}
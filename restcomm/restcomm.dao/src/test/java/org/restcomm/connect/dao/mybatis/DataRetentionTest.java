@@ -0,0 +1,220 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.dao.mybatis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.dao.CallDetailRecordsDao;
+import org.restcomm.connect.dao.entities.CallDetailRecord;
+import org.restcomm.connect.dao.entities.CallDetailRecordFilter;
+
+public final class DataRetentionTest {
+    private static final String TABLE = "restcomm_call_detail_records";
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private SqlSessionFactory factory;
+    private MybatisDaoManager manager;
+
+    @Before
+    public void before() {
+        final InputStream data = getClass().getResourceAsStream("/mybatis.xml");
+        final SqlSessionFactoryBuilder builder = new SqlSessionFactoryBuilder();
+        factory = builder.build(data);
+        final BaseConfiguration daoConfiguration = new BaseConfiguration();
+        daoConfiguration.setProperty("dao-manager.retention[@enabled]", true);
+        daoConfiguration.setProperty("dao-manager.retention.check-interval", 0);
+        daoConfiguration.setProperty("dao-manager.retention.window-start", 22);
+        daoConfiguration.setProperty("dao-manager.retention.window-end", 22);
+        daoConfiguration.setProperty("dao-manager.retention.batch-size", 2);
+        daoConfiguration.setProperty("dao-manager.retention.batch-pause", 0);
+        manager = new MybatisDaoManager();
+        manager.configure(new BaseConfiguration(), daoConfiguration);
+        manager.start(factory);
+    }
+
+    @After
+    public void after() {
+        manager.shutdown();
+    }
+
+    @Test
+    public void expiredRecordsAreArchivedInBatches() throws Exception {
+        final Sid account = Sid.generate(Sid.Type.ACCOUNT);
+        final CallDetailRecordsDao cdrs = manager.getCallDetailRecordsDao();
+        final DateTime old = new DateTime(1990, 6, 1, 12, 0);
+        cdrs.addCallDetailRecord(cdr(account, old));
+        cdrs.addCallDetailRecord(cdr(account, old.plusDays(1)));
+        cdrs.addCallDetailRecord(cdr(account, old.plusDays(2)));
+        final CallDetailRecord recent = cdr(account, DateTime.now());
+        cdrs.addCallDetailRecord(recent);
+        assertEquals(4, (int) cdrs.getTotalCallDetailRecords(filter(account, false)));
+
+        assertNotNull(manager.getDataRetention());
+        assertEquals(3, manager.getDataRetention().expire(TABLE, new DateTime(1991, 1, 1, 0, 0)));
+        assertEquals(1, (int) cdrs.getTotalCallDetailRecords(filter(account, false)));
+        assertEquals(recent.getSid(), cdrs.getCallDetailRecords(filter(account, false)).get(0).getSid());
+        assertEquals(3, (int) cdrs.getTotalCallDetailRecords(filter(account, true)));
+        assertEquals(3, cdrs.getCallDetailRecords(filter(account, true)).size());
+        // Nothing left to move.
+        assertEquals(0, manager.getDataRetention().expire(TABLE, new DateTime(1991, 1, 1, 0, 0)));
+        cdrs.removeCallDetailRecords(account);
+    }
+
+    @Test
+    public void exportedRowsKeepTheirNullColumnsInPlace() throws Exception {
+        final Sid account = Sid.generate(Sid.Type.ACCOUNT);
+        final CallDetailRecordsDao cdrs = manager.getCallDetailRecordsDao();
+        final DateTime old = new DateTime(1990, 6, 1, 12, 0);
+        // Only the second record has a caller name and a parent call, the first leaves them null.
+        final CallDetailRecord first = cdr(account, old);
+        final CallDetailRecord.Builder builder = CallDetailRecord.builder();
+        builder.setSid(Sid.generate(Sid.Type.CALL));
+        builder.setInstanceId(first.getInstanceId());
+        builder.setParentCallSid(first.getSid());
+        builder.setDateCreated(old.plusDays(1));
+        builder.setAccountSid(account);
+        builder.setTo("+12223334444");
+        builder.setFrom("+17778889999");
+        builder.setStatus("completed");
+        builder.setDirection("outbound-dial");
+        builder.setCallerName("Alice");
+        builder.setApiVersion("2012-04-24");
+        builder.setUri(first.getUri());
+        final CallDetailRecord second = builder.build();
+        cdrs.addCallDetailRecord(first);
+        cdrs.addCallDetailRecord(second);
+
+        final BaseConfiguration configuration = new BaseConfiguration();
+        configuration.setProperty("mode", "export");
+        configuration.setProperty("export-directory", folder.getRoot().getAbsolutePath());
+        configuration.setProperty("window-start", 0);
+        configuration.setProperty("window-end", 0);
+        configuration.setProperty("batch-pause", 0);
+        final DataRetention retention = new DataRetention(factory, configuration);
+        assertEquals(2, retention.expire(TABLE, new DateTime(1991, 1, 1, 0, 0)));
+        assertEquals(0, (int) cdrs.getTotalCallDetailRecords(filter(account, false)));
+
+        final File[] files = folder.getRoot().listFiles();
+        assertEquals(1, files.length);
+        final List<String[]> lines = new ArrayList<String[]>();
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(
+                new FileInputStream(files[0])), "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line.split(",", -1));
+            }
+        } finally {
+            reader.close();
+        }
+        assertEquals(3, lines.size());
+        final List<String> header = Arrays.asList(lines.get(0));
+        final Map<String, String[]> rows = new HashMap<String, String[]>();
+        for (final String[] row : lines.subList(1, lines.size())) {
+            assertEquals(header.size(), row.length);
+            rows.put(row[header.indexOf("sid")], row);
+        }
+        final String[] exportedFirst = rows.get(first.getSid().toString());
+        assertEquals("", exportedFirst[header.indexOf("parent_call_sid")]);
+        assertEquals("", exportedFirst[header.indexOf("caller_name")]);
+        assertEquals("outbound-api", exportedFirst[header.indexOf("direction")]);
+        assertEquals("30", exportedFirst[header.indexOf("duration")]);
+        final String[] exportedSecond = rows.get(second.getSid().toString());
+        assertEquals(first.getSid().toString(), exportedSecond[header.indexOf("parent_call_sid")]);
+        assertEquals("Alice", exportedSecond[header.indexOf("caller_name")]);
+        assertEquals("outbound-dial", exportedSecond[header.indexOf("direction")]);
+        assertEquals("", exportedSecond[header.indexOf("duration")]);
+        assertEquals(account.toString(), exportedSecond[header.indexOf("account_sid")]);
+    }
+
+    @Test
+    public void windowMayGoPastMidnight() {
+        final BaseConfiguration configuration = new BaseConfiguration();
+        configuration.setProperty("window-start", 22);
+        configuration.setProperty("window-end", 4);
+        final DataRetention retention = new DataRetention(null, configuration);
+        final DateTime midnight = DateTime.now().withTimeAtStartOfDay();
+        assertTrue(retention.inWindow(midnight.plusHours(23)));
+        assertTrue(retention.inWindow(midnight.plusHours(2)));
+        assertFalse(retention.inWindow(midnight.plusHours(4)));
+        assertFalse(retention.inWindow(midnight.plusHours(12)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void exportRequiresDirectory() {
+        final BaseConfiguration configuration = new BaseConfiguration();
+        configuration.setProperty("mode", "export");
+        new DataRetention(null, configuration);
+    }
+
+    private CallDetailRecordFilter filter(final Sid account, final boolean archived) throws ParseException {
+        return CallDetailRecordFilter.Builder.builder().byAccountSid(account.toString()).archived(archived).build();
+    }
+
+    private CallDetailRecord cdr(final Sid account, final DateTime dateCreated) {
+        final CallDetailRecord.Builder builder = CallDetailRecord.builder();
+        builder.setSid(Sid.generate(Sid.Type.CALL));
+        builder.setInstanceId(Sid.generate(Sid.Type.INSTANCE).toString());
+        builder.setDateCreated(dateCreated);
+        builder.setAccountSid(account);
+        builder.setTo("+12223334444");
+        builder.setFrom("+17778889999");
+        builder.setStatus("completed");
+        builder.setStartTime(dateCreated);
+        builder.setEndTime(dateCreated.plusSeconds(30));
+        builder.setDuration(30);
+        builder.setPrice(new BigDecimal("0.10"));
+        builder.setPriceUnit(Currency.getInstance("USD"));
+        builder.setDirection("outbound-api");
+        builder.setApiVersion("2012-04-24");
+        builder.setUri(URI.create("http://127.0.0.1:8080/restcomm/2012-04-24/Accounts/" + account + "/Calls"));
+        return builder.build();
+    }
+}
@@ -196,6 +196,30 @@ public final class SmsMessagesDaoTest {
         messages.removeSmsMessages(account);
     }
 
+    @Test
+    public void testAddSmsMessagesInBatch() {
+        final SmsMessagesDao messages = manager.getSmsMessagesDao();
+        final Sid account = Sid.generate(Sid.Type.ACCOUNT);
+        final DateTime now = DateTime.now();
+        final List<SmsMessage> batch = new ArrayList<SmsMessage>();
+        for (int i = 0; i < 25; i++) {
+            batch.add(createSms(account, SmsMessage.Direction.OUTBOUND_API, i, now));
+        }
+        // Create the messages in the data store in one batch.
+        messages.addSmsMessages(batch);
+        // Validate the results.
+        assertEquals(25, messages.getSmsMessages(account).size());
+        final SmsMessage result = messages.getSmsMessage(batch.get(7).getSid());
+        assertEquals("Hello World - 7", result.getBody());
+        assertEquals(account, result.getAccountSid());
+        // An empty batch is a no-op.
+        messages.addSmsMessages(new ArrayList<SmsMessage>());
+        assertEquals(25, messages.getSmsMessages(account).size());
+        // Delete the messages.
+        messages.removeSmsMessages(account);
+        assertTrue(messages.getSmsMessages(account).isEmpty());
+    }
+
     @Test
     public void testReadDeleteByAccount() {
         final Sid sid = Sid.generate(Sid.Type.SMS_MESSAGE);
@@ -0,0 +1,136 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.dao.mybatis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.util.Currency;
+import java.util.List;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.dao.CallDetailRecordsDao;
+import org.restcomm.connect.dao.UsageDao;
+import org.restcomm.connect.dao.entities.CallDetailRecord;
+import org.restcomm.connect.dao.entities.Usage;
+
+public final class UsageDaoTest {
+    private MybatisDaoManager raw;
+    private MybatisDaoManager rolled;
+
+    @Before
+    public void before() {
+        final InputStream data = getClass().getResourceAsStream("/mybatis.xml");
+        final SqlSessionFactoryBuilder builder = new SqlSessionFactoryBuilder();
+        final SqlSessionFactory factory = builder.build(data);
+        raw = new MybatisDaoManager();
+        raw.start(factory);
+        final BaseConfiguration daoConfiguration = new BaseConfiguration();
+        daoConfiguration.setProperty("dao-manager.usage-rollups[@enabled]", true);
+        daoConfiguration.setProperty("dao-manager.usage-rollups.backfill-interval", 0);
+        rolled = new MybatisDaoManager();
+        rolled.configure(new BaseConfiguration(), daoConfiguration);
+        rolled.start(factory);
+    }
+
+    @After
+    public void after() {
+        rolled.shutdown();
+        raw.shutdown();
+    }
+
+    @Test
+    public void rolledUpUsageMatchesRawUsage() {
+        final Sid account = Sid.generate(Sid.Type.ACCOUNT);
+        final DateTime today = DateTime.now().withTimeAtStartOfDay();
+        final CallDetailRecordsDao cdrs = rolled.getCallDetailRecordsDao();
+        cdrs.addCallDetailRecord(cdr(account, today.minusDays(40).plusHours(3), 61, "0.50"));
+        cdrs.addCallDetailRecord(cdr(account, today.minusDays(40).plusHours(9), 59, "0.25"));
+        final CallDetailRecord late = cdr(account, today.minusDays(10).plusHours(1), 130, "1.00");
+        cdrs.addCallDetailRecord(late);
+        cdrs.addCallDetailRecord(cdr(account, DateTime.now(), 5, "0.10"));
+        assertSameUsage(account);
+        // Roll the past days up, today stays on the raw records.
+        assertNotNull(rolled.getUsageRollups());
+        rolled.getUsageRollups().backfill(UsageRollups.CALLS);
+        assertSameUsage(account);
+        // A change to an already rolled up day must be reflected in the rollups.
+        cdrs.updateCallDetailRecord(late.setDuration(250));
+        assertSameUsage(account);
+        cdrs.removeCallDetailRecords(account);
+        assertSameUsage(account);
+    }
+
+    private void assertSameUsage(final Sid account) {
+        final UsageDao expected = raw.getUsageDao();
+        final UsageDao actual = rolled.getUsageDao();
+        final DateTime start = DateTime.now().minusYears(1);
+        final DateTime end = DateTime.now().plusDays(1);
+        assertSameUsage(expected.getUsageMonthly(account, Usage.Category.CALLS, start, end),
+                actual.getUsageMonthly(account, Usage.Category.CALLS, start, end));
+        assertSameUsage(expected.getUsageYearly(account, Usage.Category.CALLS, start, end),
+                actual.getUsageYearly(account, Usage.Category.CALLS, start, end));
+        assertSameUsage(expected.getUsageAllTime(account, Usage.Category.CALLS, start, end),
+                actual.getUsageAllTime(account, Usage.Category.CALLS, start, end));
+    }
+
+    private void assertSameUsage(final List<Usage> expected, final List<Usage> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            final Usage left = expected.get(i);
+            final Usage right = actual.get(i);
+            assertEquals(left.getStartDate(), right.getStartDate());
+            assertEquals(left.getEndDate(), right.getEndDate());
+            assertEquals(left.getCount(), right.getCount());
+            assertEquals(left.getUsage(), right.getUsage());
+            assertEquals(0, left.getPrice().compareTo(right.getPrice()));
+        }
+    }
+
+    private CallDetailRecord cdr(final Sid account, final DateTime dateCreated, final int duration, final String price) {
+        final CallDetailRecord.Builder builder = CallDetailRecord.builder();
+        builder.setSid(Sid.generate(Sid.Type.CALL));
+        builder.setInstanceId(Sid.generate(Sid.Type.INSTANCE).toString());
+        builder.setDateCreated(dateCreated);
+        builder.setAccountSid(account);
+        builder.setTo("+12223334444");
+        builder.setFrom("+17778889999");
+        builder.setStatus("completed");
+        builder.setStartTime(dateCreated);
+        builder.setEndTime(dateCreated.plusSeconds(duration));
+        builder.setDuration(duration);
+        builder.setPrice(new BigDecimal(price));
+        builder.setPriceUnit(Currency.getInstance("USD"));
+        builder.setDirection("outbound-api");
+        builder.setApiVersion("2012-04-24");
+        builder.setUri(URI.create("http://127.0.0.1:8080/restcomm/2012-04-24/Accounts/" + account + "/Calls"));
+        return builder.build();
+    }
+}
@@ -56,8 +56,8 @@ public class DefaultExtensionConfiguration {
     private static final Logger logger = Logger.getLogger(DefaultExtensionConfiguration.class);
     private boolean workingWithLocalConf;
     private ExtensionsConfigurationDao extensionConfigurationDao;
-    private ExtensionConfiguration extensionConfiguration;
-    private JsonObject configurationJsonObj;
+    private volatile ExtensionConfiguration extensionConfiguration;
+    private volatile JsonObject configurationJsonObj;
     private JsonParser jsonParser;
     private DaoManager daoManager;
     private Gson gson;
@@ -158,6 +158,7 @@ public class DefaultExtensionConfiguration {
                 }
 
             }
+            ExtensionConfigurationRegistry.getInstance().update(extensionConfiguration);
             if (logger.isInfoEnabled()) {
                 logger.info("Finished loading configuration for extension: " + extensionName);
             }
@@ -191,12 +192,16 @@ public class DefaultExtensionConfiguration {
         return jsonObj;
     }
 
+    /**
+     * Picks up the latest configuration held by the {@link ExtensionConfigurationRegistry}, this does not hit the DB.
+     */
     public void reloadConfiguration() {
         if (!workingWithLocalConf) {
-            if (extensionConfigurationDao.isLatestVersionByName(extensionName, extensionConfiguration.getDateUpdated())) {
-                extensionConfiguration = extensionConfigurationDao.getConfigurationByName(extensionName);
-                String updatedConf = (String) extensionConfiguration.getConfigurationData();
+            final ExtensionConfiguration latest = ExtensionConfigurationRegistry.getInstance().get(extensionName);
+            if (latest != null && latest != extensionConfiguration) {
+                String updatedConf = (String) latest.getConfigurationData();
                 configurationJsonObj = (JsonObject) jsonParser.parse(updatedConf);
+                extensionConfiguration = latest;
                 // loadSpecificConfigurationMap(configurationJsonObj);
                 if (logger.isInfoEnabled()) {
                     logger.info(this.extensionName + " extension configuration reloaded");
@@ -0,0 +1,128 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.extension.configuration;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.dao.ExtensionsConfigurationDao;
+import org.restcomm.connect.extension.api.ExtensionConfiguration;
+
+/**
+ * In memory copy of the global extension configurations, by extension name. Extensions read their configuration from
+ * here on the request path. The copy is refreshed when the ExtensionsConfiguration endpoint changes a configuration
+ * and, to catch changes made by other instances or straight in the DB, by a single background poll per interval.
+ */
+@ThreadSafe
+public final class ExtensionConfigurationRegistry {
+    private static final Logger logger = Logger.getLogger(ExtensionConfigurationRegistry.class);
+    private static final ExtensionConfigurationRegistry instance = new ExtensionConfigurationRegistry();
+
+    private final ConcurrentMap<String, ExtensionConfiguration> configurations;
+    private volatile ExtensionsConfigurationDao dao;
+    private ScheduledExecutorService poller;
+
+    private ExtensionConfigurationRegistry() {
+        super();
+        configurations = new ConcurrentHashMap<String, ExtensionConfiguration>();
+    }
+
+    public static ExtensionConfigurationRegistry getInstance() {
+        return instance;
+    }
+
+    /**
+     * Starts polling the DB for newer configurations every interval seconds. An interval of zero only keeps
+     * the changes pushed through {@link #update(ExtensionConfiguration)}.
+     */
+    public synchronized void start(final ExtensionsConfigurationDao dao, final long interval) {
+        stop();
+        this.dao = dao;
+        if (dao != null && interval > 0) {
+            poller = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "restcomm-extension-configuration");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            poller.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    refresh();
+                }
+            }, interval, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    public synchronized void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+            poller = null;
+        }
+    }
+
+    public ExtensionConfiguration get(final String extensionName) {
+        return extensionName == null ? null : configurations.get(extensionName);
+    }
+
+    /**
+     * Publishes a configuration that was just loaded from or written to the DB.
+     */
+    public void update(final ExtensionConfiguration configuration) {
+        if (configuration != null && configuration.getExtensionName() != null) {
+            configurations.put(configuration.getExtensionName(), configuration);
+        }
+    }
+
+    public void remove(final String extensionName) {
+        configurations.remove(extensionName);
+    }
+
+    /**
+     * Reloads the configurations the DB holds a newer version of.
+     */
+    void refresh() {
+        final ExtensionsConfigurationDao dao = this.dao;
+        if (dao == null) {
+            return;
+        }
+        for (final ExtensionConfiguration current : configurations.values()) {
+            final String name = current.getExtensionName();
+            try {
+                if (dao.isLatestVersionByName(name, current.getDateUpdated())) {
+                    final ExtensionConfiguration latest = dao.getConfigurationByName(name);
+                    if (latest != null && configurations.replace(name, current, latest) && logger.isInfoEnabled()) {
+                        logger.info(name + " extension configuration refreshed");
+                    }
+                }
+            } catch (Exception exception) {
+                logger.warn("Exception while refreshing the configuration of extension " + name + ": " + exception);
+            }
+        }
+    }
+}
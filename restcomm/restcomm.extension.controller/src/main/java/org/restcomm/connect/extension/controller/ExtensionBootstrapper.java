@@ -20,7 +20,10 @@
  */
 package org.restcomm.connect.extension.controller;
 
+import org.restcomm.connect.core.service.api.RateLimiterService;
+import org.restcomm.connect.dao.DaoManager;
 import org.restcomm.connect.extension.api.RestcommExtensionGeneric;
+import org.restcomm.connect.extension.configuration.ExtensionConfigurationRegistry;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.HierarchicalConfiguration;
 import org.apache.commons.configuration.XMLConfiguration;
@@ -46,6 +49,13 @@ public class ExtensionBootstrapper {
     }
 
     public void start() throws ClassNotFoundException, IllegalAccessException, InstantiationException {
+        ExtensionController.getInstance().configure(configuration);
+        ExtensionController.getInstance().setRateLimiterService((RateLimiterService) context.getAttribute(RateLimiterService.class.getName()));
+        final DaoManager daoManager = (DaoManager) context.getAttribute(DaoManager.class.getName());
+        if (daoManager != null) {
+            ExtensionConfigurationRegistry.getInstance().start(daoManager.getExtensionsConfigurationDao(),
+                    configuration.getLong("extensions.configuration-refresh-interval", 60));
+        }
 
         List<HierarchicalConfiguration> exts = ((XMLConfiguration)configuration).configurationsAt("extensions.extension");
 
@@ -0,0 +1,79 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.extension.controller;
+
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+
+/**
+ * Stops calling an extension after it failed a number of times in a row. Once the open period has elapsed a single
+ * call is let through, its outcome closes the breaker again or keeps it open for another period.
+ * A failure threshold of zero disables the breaker.
+ */
+@ThreadSafe
+final class ExtensionCircuitBreaker {
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private int failures;
+    private long openedAt;
+    private boolean probing;
+
+    ExtensionCircuitBreaker(final int failureThreshold, final long openMillis) {
+        super();
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    synchronized boolean allowRequest() {
+        if (openedAt == 0) {
+            return true;
+        }
+        if (!probing && System.currentTimeMillis() - openedAt >= openMillis) {
+            probing = true;
+            return true;
+        }
+        return false;
+    }
+
+    synchronized void success() {
+        failures = 0;
+        openedAt = 0;
+        probing = false;
+    }
+
+    synchronized void failure() {
+        failures++;
+        if (probing || (failureThreshold > 0 && failures >= failureThreshold)) {
+            openedAt = System.currentTimeMillis();
+            probing = false;
+        }
+    }
+
+    /**
+     * Gives back the probe of a call that ended without an outcome for the extension, so the next call can probe.
+     */
+    synchronized void release() {
+        probing = false;
+    }
+
+    synchronized boolean isOpen() {
+        return openedAt != 0;
+    }
+}
@@ -1,20 +1,39 @@
 package org.restcomm.connect.extension.controller;
 
+import org.apache.commons.configuration.Configuration;
+import org.restcomm.connect.commons.metrics.Gauge;
+import org.restcomm.connect.commons.metrics.MetricsRegistry;
+import org.restcomm.connect.core.service.api.RateLimiterService;
 import org.restcomm.connect.extension.api.ApiRequest;
 import org.restcomm.connect.extension.api.ExtensionResponse;
 import org.restcomm.connect.extension.api.ExtensionType;
 import org.restcomm.connect.extension.api.IExtensionRequest;
 import org.restcomm.connect.extension.api.RestcommExtension;
 import org.restcomm.connect.extension.api.RestcommExtensionGeneric;
+import org.restcomm.connect.monitoringservice.LiveCallRegistry;
 import org.apache.log4j.Logger;
 
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Created by gvagenas on 21/09/16.
  */
 public class ExtensionController {
+    public static final String METRICS_PREFIX = "Extensions";
     private static Logger logger = Logger.getLogger(ExtensionController.class);
 
     private static ExtensionController instance;
@@ -24,6 +43,16 @@ public class ExtensionController {
     private List restApiExtensions;
     private List featureAccessControlExtensions;
 
+    // Chain execution, see configure()
+    private volatile ThreadPoolExecutor executor;
+    private volatile long deadline = 1000;
+    private volatile boolean failClosed = false;
+    private volatile int breakerFailures = 5;
+    private volatile long breakerOpenMillis = 30000;
+    private final ConcurrentMap<String, ExtensionCircuitBreaker> breakers = new ConcurrentHashMap<String, ExtensionCircuitBreaker>();
+    private final ConcurrentMap<String, AtomicLong> outcomes = new ConcurrentHashMap<String, AtomicLong>();
+    private volatile RateLimiterService rateLimiterService;
+
     private ExtensionController(){
         this.callManagerExtensions = new CopyOnWriteArrayList();
         this.smsSessionExtensions = new CopyOnWriteArrayList();
@@ -44,9 +73,77 @@ public class ExtensionController {
      * TODO should we reset the singleton if app is shutdown...?
      */
     public void reset() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
         instance = null;
     }
 
+    /**
+     * Reads the "extensions.execution" settings. In "async" mode every extension runs on a bounded pool and is
+     * abandoned once its deadline expires, in the default "sync" mode extensions run on the caller's thread. In both
+     * modes extensions that keep failing are skipped for a while and failures, timeouts included, either let the
+     * chain go on (fail-open) or deny the request (fail-closed).
+     */
+    public void configure(final Configuration configuration) {
+        if (configuration == null) {
+            return;
+        }
+        final Configuration execution = configuration.subset("extensions.execution");
+        deadline = execution.getLong("deadline", 1000);
+        failClosed = "fail-closed".equalsIgnoreCase(execution.getString("failure-policy", "fail-open"));
+        breakerFailures = execution.getInt("breaker.failure-threshold", 5);
+        breakerOpenMillis = TimeUnit.SECONDS.toMillis(execution.getLong("breaker.open-duration", 30));
+        breakers.clear();
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        if ("async".equalsIgnoreCase(execution.getString("[@mode]", "sync"))) {
+            final int threads = execution.getInt("threads", 8);
+            final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<Runnable>(execution.getInt("queue-size", 100)), new ThreadFactory() {
+                        private final AtomicInteger count = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(final Runnable runnable) {
+                            final Thread thread = new Thread(runnable, "restcomm-extensions-" + count.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        }
+        if (logger.isInfoEnabled()) {
+            logger.info("Extensions will run " + (executor == null ? "synchronously" : "asynchronously with a deadline of " + deadline + "ms")
+                    + ", failure policy " + (failClosed ? "fail-closed" : "fail-open"));
+        }
+    }
+
+    /**
+     * Lets extensions check and count events against the in-memory limits instead of counting rows in the DB.
+     *
+     * @return the node rate limiter, null until the core services are started
+     */
+    public RateLimiterService getRateLimiterService() {
+        return rateLimiterService;
+    }
+
+    public void setRateLimiterService(final RateLimiterService rateLimiterService) {
+        this.rateLimiterService = rateLimiterService;
+    }
+
+    /**
+     * Lets extensions read the in-progress calls of an account or a client on this instance instead of counting call
+     * detail records in the DB.
+     *
+     * @return the registry of the live calls of this instance
+     */
+    public LiveCallRegistry getLiveCallRegistry() {
+        return LiveCallRegistry.getInstance();
+    }
+
     public List<RestcommExtensionGeneric> getExtensions(final ExtensionType type) {
         //Check the sender's class and return the extensions that are supported for this class
         if (type.equals(ExtensionType.CallManager) && (callManagerExtensions != null && callManagerExtensions.size() > 0)) {
@@ -103,30 +200,76 @@ public class ExtensionController {
     }
 
     public ExtensionResponse executePreOutboundAction(final IExtensionRequest ier, List<RestcommExtensionGeneric> extensions) {
+        return execute(extensions, new Invocation("preOutboundAction") {
+            @Override
+            ExtensionResponse invoke(final RestcommExtensionGeneric extension) {
+                return extension.preOutboundAction(ier);
+            }
+        });
+    }
+
+    public ExtensionResponse executePostOutboundAction(final IExtensionRequest er, List<RestcommExtensionGeneric> extensions) {
+        return execute(extensions, new Invocation("postOutboundAction") {
+            @Override
+            ExtensionResponse invoke(final RestcommExtensionGeneric extension) {
+                return extension.postOutboundAction(er);
+            }
+        });
+    }
+
+    public ExtensionResponse executePreInboundAction(final IExtensionRequest er, List<RestcommExtensionGeneric> extensions) {
+        return execute(extensions, new Invocation("preInboundAction") {
+            @Override
+            ExtensionResponse invoke(final RestcommExtensionGeneric extension) {
+                return extension.preInboundAction(er);
+            }
+        });
+    }
+
+    public ExtensionResponse executePostInboundAction(final IExtensionRequest er,  List<RestcommExtensionGeneric> extensions) {
+        return execute(extensions, new Invocation("postInboundAction") {
+            @Override
+            ExtensionResponse invoke(final RestcommExtensionGeneric extension) {
+                return extension.postInboundAction(er);
+            }
+        });
+    }
+
+    public ExtensionResponse executePreApiAction(final ApiRequest apiRequest, List<RestcommExtensionGeneric> extensions) {
+        return execute(extensions, new Invocation("preApiAction") {
+            @Override
+            ExtensionResponse invoke(final RestcommExtensionGeneric extension) {
+                return extension.preApiAction(apiRequest);
+            }
+        });
+    }
+
+    public ExtensionResponse executePostApiAction(final ApiRequest apiRequest, List<RestcommExtensionGeneric> extensions) {
+        return execute(extensions, new Invocation("postApiAction") {
+            @Override
+            ExtensionResponse invoke(final RestcommExtensionGeneric extension) {
+                return extension.postApiAction(apiRequest);
+            }
+        });
+    }
+
+    private ExtensionResponse execute(final List<RestcommExtensionGeneric> extensions, final Invocation invocation) {
         //FIXME: if we have more than one extension in chain
         // and all of them are successful, we only receive the last
         // extensionResponse
         ExtensionResponse response = new ExtensionResponse();
         if (extensions != null && extensions.size() > 0) {
-
             for (RestcommExtensionGeneric extension : extensions) {
                 if(logger.isInfoEnabled()) {
                     logger.info( extension.getName()+" is enabled="+extension.isEnabled());
                 }
                 if (extension.isEnabled()) {
-                    try {
-                        ExtensionResponse tempResponse = extension.preOutboundAction(ier);
-                        if (tempResponse != null) {
-                            response = tempResponse;
-                            //fail fast
-                            if (!tempResponse.isAllowed()) {
-                                break;
-                            }
-                        }
-                    } catch (Throwable t) {
-                        if (logger.isDebugEnabled()) {
-                            String msg = String.format("There was an exception while executing preInboundAction from extension %s", extension.getName());
-                            logger.debug(msg, t);
+                    ExtensionResponse tempResponse = execute(extension, invocation);
+                    if (tempResponse != null) {
+                        response = tempResponse;
+                        //fail fast
+                        if (!tempResponse.isAllowed()) {
+                            break;
                         }
                     }
                 }
@@ -135,151 +278,116 @@ public class ExtensionController {
         return response;
     }
 
-    public ExtensionResponse executePostOutboundAction(final IExtensionRequest er, List<RestcommExtensionGeneric> extensions) {
-        ExtensionResponse response = new ExtensionResponse();
-        if (extensions != null && extensions.size() > 0) {
-
-            for (RestcommExtensionGeneric extension : extensions) {
-                if(logger.isInfoEnabled()) {
-                    logger.info( extension.getName()+" is enabled="+extension.isEnabled());
-                }
-                if (extension.isEnabled()) {
-                    try {
-                        ExtensionResponse tempResponse = extension.postOutboundAction(er);
-                        if (tempResponse != null) {
-                            response = tempResponse;
-                            //fail fast
-                            if (!tempResponse.isAllowed()) {
-                                break;
-                            }
-                        }
-                    } catch (Throwable t) {
-                        if (logger.isDebugEnabled()) {
-                            String msg = String.format("There was an exception while executing preInboundAction from extension %s", extension.getName());
-                            logger.debug(msg, t);
-                        }
+    private ExtensionResponse execute(final RestcommExtensionGeneric extension, final Invocation invocation) {
+        final String name = extension.getName() != null ? extension.getName() : extension.getClass().getSimpleName();
+        final ExtensionCircuitBreaker breaker = breaker(name);
+        if (!breaker.allowRequest()) {
+            return failed(name, invocation, "Rejected", "circuit breaker is open", null);
+        }
+        final ThreadPoolExecutor pool = executor;
+        final long started = System.nanoTime();
+        Future<ExtensionResponse> future = null;
+        try {
+            final ExtensionResponse response;
+            if (pool == null) {
+                response = invocation.invoke(extension);
+            } else {
+                future = pool.submit(new Callable<ExtensionResponse>() {
+                    @Override
+                    public ExtensionResponse call() throws Exception {
+                        return invocation.invoke(extension);
                     }
-                }
+                });
+                response = future.get(deadline, TimeUnit.MILLISECONDS);
+            }
+            breaker.success();
+            outcome(name, response == null || response.isAllowed() ? "Allowed" : "Denied");
+            return response;
+        } catch (TimeoutException exception) {
+            future.cancel(true);
+            breaker.failure();
+            return failed(name, invocation, "Timeout", "deadline of " + deadline + "ms expired", null);
+        } catch (RejectedExecutionException exception) {
+            breaker.failure();
+            return failed(name, invocation, "Rejected", "executor is saturated", null);
+        } catch (InterruptedException exception) {
+            // The caller was interrupted, not the extension, so only the half open probe is given back.
+            if (future != null) {
+                future.cancel(true);
             }
+            breaker.release();
+            Thread.currentThread().interrupt();
+            return failed(name, invocation, "Failed", "interrupted", exception);
+        } catch (ExecutionException exception) {
+            breaker.failure();
+            return failed(name, invocation, "Failed", "exception", exception.getCause());
+        } catch (Throwable t) {
+            breaker.failure();
+            return failed(name, invocation, "Failed", "exception", t);
+        } finally {
+            MetricsRegistry.getInstance().histogram(METRICS_PREFIX + "." + name + ".Latency").recordSince(started);
         }
-        return response;
     }
 
-    public ExtensionResponse executePreInboundAction(final IExtensionRequest er, List<RestcommExtensionGeneric> extensions) {
-        ExtensionResponse response = new ExtensionResponse();
-        if (extensions != null && extensions.size() > 0) {
-            for (RestcommExtensionGeneric extension : extensions) {
-                if(logger.isInfoEnabled()) {
-                    logger.info( extension.getName()+" is enabled="+extension.isEnabled());
-                }
-                if (extension.isEnabled()) {
-                    try {
-                        ExtensionResponse tempResponse = extension.preInboundAction(er);
-                        if (tempResponse != null) {
-                            response = tempResponse;
-                            //fail fast
-                            if (!tempResponse.isAllowed()) {
-                                break;
-                            }
-                        }
-                    } catch (Throwable t) {
-                        if (logger.isDebugEnabled()) {
-                            String msg = String.format("There was an exception while executing preInboundAction from extension %s", extension.getName());
-                            logger.debug(msg, t);
-                        }
-                    }
-                }
-            }
+    private ExtensionResponse failed(final String name, final Invocation invocation, final String outcome, final String reason,
+            final Throwable cause) {
+        outcome(name, outcome);
+        if (logger.isDebugEnabled()) {
+            String msg = String.format("There was an error (%s) while executing %s from extension %s", reason, invocation.action, name);
+            logger.debug(msg, cause);
         }
-        return response;
+        if (failClosed) {
+            final ExtensionResponse response = new ExtensionResponse();
+            response.setAllowed(false);
+            return response;
+        }
+        return null;
     }
 
-    public ExtensionResponse executePostInboundAction(final IExtensionRequest er,  List<RestcommExtensionGeneric> extensions) {
-        ExtensionResponse response = new ExtensionResponse();
-        if (extensions != null && extensions.size() > 0) {
-            for (RestcommExtensionGeneric extension : extensions) {
-                if(logger.isInfoEnabled()) {
-                    logger.info( extension.getName()+" is enabled="+extension.isEnabled());
-                }
-                if (extension.isEnabled()) {
-                    try {
-                        ExtensionResponse tempResponse = extension.postInboundAction(er);
-                        if (tempResponse != null) {
-                            response = tempResponse;
-                            //fail fast
-                            if (!tempResponse.isAllowed()) {
-                                break;
-                            }
-                        }
-                    } catch (Throwable t) {
-                        if (logger.isDebugEnabled()) {
-                            String msg = String.format("There was an exception while executing preInboundAction from extension %s", extension.getName());
-                            logger.debug(msg, t);
-                        }
+    private ExtensionCircuitBreaker breaker(final String name) {
+        ExtensionCircuitBreaker breaker = breakers.get(name);
+        if (breaker == null) {
+            final ExtensionCircuitBreaker created = new ExtensionCircuitBreaker(breakerFailures, breakerOpenMillis);
+            breaker = breakers.putIfAbsent(name, created);
+            if (breaker == null) {
+                breaker = created;
+                MetricsRegistry.getInstance().register(METRICS_PREFIX + "." + name + ".BreakerOpen", new Gauge() {
+                    @Override
+                    public long value() {
+                        return created.isOpen() ? 1 : 0;
                     }
-                }
+                });
             }
         }
-        return response;
+        return breaker;
     }
 
-    public ExtensionResponse executePreApiAction(final ApiRequest apiRequest, List<RestcommExtensionGeneric> extensions) {
-        ExtensionResponse response = new ExtensionResponse();
-
-        if (extensions != null && extensions.size() > 0) {
-            for (RestcommExtensionGeneric extension : extensions) {
-                if(logger.isInfoEnabled()) {
-                    logger.info( extension.getName()+" is enabled="+extension.isEnabled());
-                }
-                if (extension.isEnabled()) {
-                    try {
-                        ExtensionResponse tempResponse = extension.preApiAction(apiRequest);
-                        if (tempResponse != null) {
-                            response = tempResponse;
-                            //fail fast
-                            if (!tempResponse.isAllowed()) {
-                                break;
-                            }
-                        }
-                    } catch (Throwable t) {
-                        if (logger.isDebugEnabled()) {
-                            String msg = String.format("There was an exception while executing preInboundAction from extension %s", extension.getName());
-                            logger.debug(msg, t);
-                        }
+    private void outcome(final String name, final String outcome) {
+        final String metric = METRICS_PREFIX + "." + name + "." + outcome;
+        AtomicLong counter = outcomes.get(metric);
+        if (counter == null) {
+            final AtomicLong created = new AtomicLong();
+            counter = outcomes.putIfAbsent(metric, created);
+            if (counter == null) {
+                counter = created;
+                MetricsRegistry.getInstance().register(metric, new Gauge() {
+                    @Override
+                    public long value() {
+                        return created.get();
                     }
-                }
+                });
             }
         }
-        return response;
+        counter.incrementAndGet();
     }
 
-    public ExtensionResponse executePostApiAction(final ApiRequest apiRequest, List<RestcommExtensionGeneric> extensions) {
-        ExtensionResponse response = new ExtensionResponse();
+    private abstract static class Invocation {
+        private final String action;
 
-        if (extensions != null && extensions.size() > 0) {
-            for (RestcommExtensionGeneric extension : extensions) {
-                if(logger.isInfoEnabled()) {
-                    logger.info( extension.getName()+" is enabled="+extension.isEnabled());
-                }
-                if (extension.isEnabled()) {
-                    try {
-                        ExtensionResponse tempResponse = extension.postApiAction(apiRequest);
-                        if (tempResponse != null) {
-                            response = tempResponse;
-                            //fail fast
-                            if (!tempResponse.isAllowed()) {
-                                break;
-                            }
-                        }
-                    } catch (Throwable t) {
-                        if (logger.isDebugEnabled()) {
-                            String msg = String.format("There was an exception while executing preInboundAction from extension %s", extension.getName());
-                            logger.debug(msg, t);
-                        }
-                    }
-                }
-            }
+        Invocation(final String action) {
+            this.action = action;
         }
-        return response;
+
+        abstract ExtensionResponse invoke(RestcommExtensionGeneric extension);
     }
 }
@@ -19,10 +19,15 @@
 
 package org.restcomm.connect.extension.controller;
 
+import java.io.StringReader;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.servlet.ServletContext;
 
+import org.apache.commons.configuration.ConfigurationException;
+import org.apache.commons.configuration.XMLConfiguration;
 import org.apache.log4j.Logger;
 import org.junit.After;
 import org.junit.Assert;
@@ -154,6 +159,93 @@ public class ExtensionsControllerTest {
         Assert.assertTrue(er.isAllowed());
     }
 
+    @Test
+    public void asyncDeadlineFailOpen() throws ConfigurationException {
+        ExtensionController extensionController = ExtensionController.getInstance();
+        extensionController.configure(execution("<execution mode=\"async\"><deadline>50</deadline></execution>"));
+
+        ExtensionResponse er = extensionController.executePreInboundAction(new ExtensionRequest(), Arrays.<RestcommExtensionGeneric>asList(new SlowExtension()));
+        Assert.assertNotNull(er);
+        Assert.assertTrue(er.isAllowed());
+    }
+
+    @Test
+    public void asyncDeadlineFailClosed() throws ConfigurationException {
+        ExtensionController extensionController = ExtensionController.getInstance();
+        extensionController.configure(execution("<execution mode=\"async\"><deadline>50</deadline><failure-policy>fail-closed</failure-policy></execution>"));
+
+        ExtensionResponse er = extensionController.executePreInboundAction(new ExtensionRequest(), Arrays.<RestcommExtensionGeneric>asList(new SlowExtension()));
+        Assert.assertNotNull(er);
+        Assert.assertFalse(er.isAllowed());
+    }
+
+    @Test
+    public void breakerSkipsFailingExtension() throws ConfigurationException {
+        ExtensionController extensionController = ExtensionController.getInstance();
+        extensionController.configure(execution("<execution><breaker><failure-threshold>2</failure-threshold></breaker></execution>"));
+        FailingExtension failing = new FailingExtension();
+        List<RestcommExtensionGeneric> extensions = Arrays.<RestcommExtensionGeneric>asList(failing);
+
+        for (int i = 0; i < 4; i++) {
+            ExtensionResponse er = extensionController.executePreOutboundAction(new ExtensionRequest(), extensions);
+            Assert.assertTrue(er.isAllowed());
+        }
+        Assert.assertEquals(2, failing.calls.get());
+    }
+
+    @Test
+    public void breakerProbeIsGivenBackWithoutOutcome() {
+        ExtensionCircuitBreaker breaker = new ExtensionCircuitBreaker(1, 0);
+        breaker.failure();
+        Assert.assertTrue(breaker.isOpen());
+
+        Assert.assertTrue(breaker.allowRequest());
+        Assert.assertFalse(breaker.allowRequest());
+        breaker.release();
+        Assert.assertTrue(breaker.isOpen());
+        Assert.assertTrue(breaker.allowRequest());
+    }
+
+    private XMLConfiguration execution(final String execution) throws ConfigurationException {
+        XMLConfiguration configuration = new XMLConfiguration();
+        configuration.load(new StringReader("<restcomm><extensions>" + execution + "</extensions></restcomm>"));
+        return configuration;
+    }
+
+    @RestcommExtension(author = "TestExtension", version = "1.0.0.Alpha", type = {ExtensionType.CallManager})
+    private class SlowExtension extends TestExtension {
+        @Override
+        public ExtensionResponse preInboundAction (IExtensionRequest extensionRequest) {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }
+
+        @Override
+        public String getName () {
+            return "SlowExtension";
+        }
+    }
+
+    @RestcommExtension(author = "TestExtension", version = "1.0.0.Alpha", type = {ExtensionType.CallManager})
+    private class FailingExtension extends TestExtension {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public ExtensionResponse preOutboundAction (IExtensionRequest extensionRequest) {
+            calls.incrementAndGet();
+            throw new IllegalStateException("billing backend unavailable");
+        }
+
+        @Override
+        public String getName () {
+            return "FailingExtension";
+        }
+    }
+
     @RestcommExtension(author = "TestExtension", version = "1.0.0.Alpha", type = {ExtensionType.CallManager, ExtensionType.SmsService, ExtensionType.UssdCallManager, ExtensionType.FeatureAccessControl, ExtensionType.RestApi})
     private class TestExtension implements RestcommExtensionGeneric {
 
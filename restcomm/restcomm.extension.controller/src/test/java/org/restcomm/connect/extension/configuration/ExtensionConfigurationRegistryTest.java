@@ -0,0 +1,95 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.extension.configuration;
+
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.restcomm.connect.extension.api.ExtensionConfiguration.configurationType.JSON;
+
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.dao.DaoManager;
+import org.restcomm.connect.dao.ExtensionsConfigurationDao;
+import org.restcomm.connect.extension.api.ExtensionConfiguration;
+
+public class ExtensionConfigurationRegistryTest {
+    private static final String CONF = "{\"extension_name\": \"simple_db\", \"version\": \"1.0.0\"}";
+
+    private final DaoManager daoManager = Mockito.mock(DaoManager.class);
+    private final ExtensionsConfigurationDao dao = Mockito.mock(ExtensionsConfigurationDao.class);
+    private final ExtensionConfigurationRegistry registry = ExtensionConfigurationRegistry.getInstance();
+
+    @After
+    public void after() {
+        registry.stop();
+        registry.remove("simple_db");
+    }
+
+    @Test
+    public void testNoDbReadsPerCallOnceLoaded() {
+        final Sid sid = Sid.generate(Sid.Type.EXTENSION_CONFIGURATION);
+        final DateTime created = DateTime.now().minusDays(1);
+        when(daoManager.getExtensionsConfigurationDao()).thenReturn(dao);
+        when(dao.getConfigurationByName("simple_db")).thenReturn(new ExtensionConfiguration(sid, "simple_db", true, CONF, JSON, created, created));
+        registry.start(dao, 0);
+
+        final DefaultExtensionConfiguration configuration = new DefaultExtensionConfiguration(daoManager, "simple_db",
+                "/simple_db_default_configuration.json");
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertTrue(configuration.isEnabled());
+            Assert.assertEquals("1.0.0", configuration.getVersion());
+        }
+        verify(dao, times(1)).getConfigurationByName("simple_db");
+        verify(dao, never()).isLatestVersionByName(anyString(), any(DateTime.class));
+
+        // A change pushed by the endpoint is seen without going to the DB
+        registry.update(new ExtensionConfiguration(sid, "simple_db", false, CONF, JSON, created, DateTime.now()));
+        Assert.assertFalse(configuration.isEnabled());
+        verify(dao, times(1)).getConfigurationByName("simple_db");
+        verify(dao, never()).isLatestVersionByName(anyString(), any(DateTime.class));
+    }
+
+    @Test
+    public void testPollReloadsNewerConfiguration() {
+        final Sid sid = Sid.generate(Sid.Type.EXTENSION_CONFIGURATION);
+        final DateTime created = DateTime.now().minusDays(1);
+        final ExtensionConfiguration current = new ExtensionConfiguration(sid, "simple_db", true, CONF, JSON, created, created);
+        final ExtensionConfiguration newer = new ExtensionConfiguration(sid, "simple_db", false, CONF, JSON, created, DateTime.now());
+        when(dao.isLatestVersionByName("simple_db", created)).thenReturn(true);
+        when(dao.getConfigurationByName("simple_db")).thenReturn(newer);
+        registry.start(dao, 0);
+        registry.update(current);
+
+        registry.refresh();
+        Assert.assertSame(newer, registry.get("simple_db"));
+
+        // Nothing newer in the DB, nothing reloaded
+        registry.refresh();
+        verify(dao, times(1)).getConfigurationByName("simple_db");
+    }
+}
@@ -324,6 +324,7 @@ public class AccountsEndpoint extends AbstractEndpoint {
         removeIncomingPhoneNumbers(sid,daoManager.getIncomingPhoneNumbersDao());
         daoManager.getClientsDao().removeClients(sid);
         profileAssociationsDao.deleteProfileAssociationByTargetSid(sid.toString());
+        profileService.invalidateTarget(sid);
     }
 
     /**
@@ -721,6 +722,7 @@ public class AccountsEndpoint extends AbstractEndpoint {
         //Update Account for the new Organization
         Account modifiedAccount = operatingAccount.setOrganizationSid(organization.getSid());
         accountsDao.updateAccount(modifiedAccount);
+        profileService.invalidateTarget(modifiedAccount.getSid());
 
         if (logger.isDebugEnabled()) {
             String msg = String.format("Parent Account %s migrated to Organization %s", modifiedAccount.getSid(), organization.getSid());
@@ -733,6 +735,7 @@ public class AccountsEndpoint extends AbstractEndpoint {
             if (!child.getOrganizationSid().equals(organization.getSid())) {
                 Account modifiedChildAccount = child.setOrganizationSid(organization.getSid());
                 accountsDao.updateAccount(modifiedChildAccount);
+                profileService.invalidateTarget(modifiedChildAccount.getSid());
                 if (logger.isDebugEnabled()) {
                     String msg = String.format("Child Account %s from Parent Account %s, migrated to Organization %s", modifiedChildAccount.getSid(), modifiedAccount.getSid(), organization.getSid());
                     logger.debug(msg);
@@ -0,0 +1,361 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.http;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON_TYPE;
+import static javax.ws.rs.core.MediaType.APPLICATION_XML;
+import static javax.ws.rs.core.MediaType.APPLICATION_XML_TYPE;
+import static javax.ws.rs.core.Response.ok;
+import static javax.ws.rs.core.Response.status;
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static javax.ws.rs.core.Response.Status.NOT_FOUND;
+import static javax.ws.rs.core.Response.Status.SERVICE_UNAVAILABLE;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.ServletContext;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
+
+import org.apache.commons.configuration.Configuration;
+import org.joda.time.DateTime;
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.commons.telephony.CreateCallType;
+import org.restcomm.connect.dao.DaoManager;
+import org.restcomm.connect.dao.entities.Account;
+import org.restcomm.connect.dao.entities.RestCommResponse;
+import org.restcomm.connect.http.converter.BulkCallConverter;
+import org.restcomm.connect.http.converter.BulkCallList;
+import org.restcomm.connect.http.converter.BulkCallListConverter;
+import org.restcomm.connect.http.converter.RestCommResponseConverter;
+import org.restcomm.connect.http.security.ContextUtil;
+import org.restcomm.connect.http.security.PermissionEvaluator.SecuredType;
+import org.restcomm.connect.identity.UserIdentityContext;
+import org.restcomm.connect.telephony.api.BulkCall;
+import org.restcomm.connect.telephony.api.BulkCalls;
+import org.restcomm.connect.telephony.api.CreateBulkCall;
+import org.restcomm.connect.telephony.api.CreateCall;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.i18n.phonenumbers.NumberParseException;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberFormat;
+import com.sun.jersey.spi.resource.Singleton;
+import com.thoughtworks.xstream.XStream;
+
+import akka.actor.ActorRef;
+
+/**
+ * Creates calls to many destinations at once. The request returns as soon as the bulk call is queued, the calls are
+ * then dialed at the requested pace by the BulkCallDialer and the progress is read from the bulk call resource.
+ */
+@Path("/Accounts/{accountSid}/BulkCalls")
+@ThreadSafe
+@Singleton
+public class BulkCallsEndpoint extends AbstractEndpoint {
+    @Context
+    private ServletContext context;
+    private Configuration configuration;
+    private DaoManager daos;
+    private ActorRef dialer;
+    private BulkCalls bulkCalls;
+    private Gson gson;
+    private XStream xstream;
+    private boolean normalizePhoneNumbers;
+    private int maxCallsPerSecond;
+    private int maxConcurrentCalls;
+    private int maxDestinations;
+    private int retention;
+
+    public BulkCallsEndpoint() {
+        super();
+    }
+
+    @PostConstruct
+    public void init() {
+        configuration = (Configuration) context.getAttribute(Configuration.class.getName());
+        configuration = configuration.subset("runtime-settings");
+        daos = (DaoManager) context.getAttribute(DaoManager.class.getName());
+        dialer = (ActorRef) context.getAttribute("org.restcomm.connect.telephony.BulkCallDialer");
+        bulkCalls = (BulkCalls) context.getAttribute(BulkCalls.class.getName());
+        super.init(configuration);
+        final BulkCallConverter converter = new BulkCallConverter(configuration);
+        final GsonBuilder builder = new GsonBuilder();
+        builder.registerTypeAdapter(BulkCall.class, converter);
+        builder.setPrettyPrinting();
+        gson = builder.create();
+        xstream = new XStream();
+        xstream.alias("RestcommResponse", RestCommResponse.class);
+        xstream.registerConverter(converter);
+        xstream.registerConverter(new BulkCallListConverter(configuration));
+        xstream.registerConverter(new RestCommResponseConverter(configuration));
+
+        normalizePhoneNumbers = configuration.getBoolean("normalize-numbers-for-outbound-calls");
+        maxCallsPerSecond = configuration.getInt("bulk-calls.max-calls-per-second", 10);
+        maxConcurrentCalls = configuration.getInt("bulk-calls.max-concurrent-calls", 100);
+        maxDestinations = configuration.getInt("bulk-calls.max-destinations", 1000);
+        retention = configuration.getInt("bulk-calls.retention", 3600);
+    }
+
+    protected Response getBulkCall(final String accountSid, final String sid, final MediaType responseType,
+            final UserIdentityContext userIdentityContext) {
+        final Account account = daos.getAccountsDao().getAccount(accountSid);
+        permissionEvaluator.secure(account, "RestComm:Read:Calls", userIdentityContext);
+        final BulkCall bulkCall = getBulkCall(sid);
+        if (bulkCall == null) {
+            return status(NOT_FOUND).build();
+        }
+        permissionEvaluator.secure(account, bulkCall.getAccountSid(), SecuredType.SECURED_STANDARD, userIdentityContext);
+        return toResponse(bulkCall, responseType);
+    }
+
+    protected Response getBulkCalls(final String accountSid, final MediaType responseType,
+            final UserIdentityContext userIdentityContext) {
+        final Account account = daos.getAccountsDao().getAccount(accountSid);
+        permissionEvaluator.secure(account, "RestComm:Read:Calls", userIdentityContext);
+        bulkCalls.purge(DateTime.now().minusSeconds(retention));
+        final List<BulkCall> list = bulkCalls.getByAccountSid(account.getSid());
+        if (APPLICATION_XML_TYPE.equals(responseType)) {
+            final RestCommResponse response = new RestCommResponse(new BulkCallList(list));
+            return ok(xstream.toXML(response), APPLICATION_XML).build();
+        } else if (APPLICATION_JSON_TYPE.equals(responseType)) {
+            return ok(gson.toJson(list), APPLICATION_JSON).build();
+        } else {
+            return null;
+        }
+    }
+
+    protected Response putBulkCall(final String accountSid, final MultivaluedMap<String, String> data,
+            final MediaType responseType, final UserIdentityContext userIdentityContext) {
+        final Account account = daos.getAccountsDao().getAccount(accountSid);
+        permissionEvaluator.secure(account, "RestComm:Create:Calls", userIdentityContext);
+        try {
+            validate(data);
+        } catch (final RuntimeException exception) {
+            return status(BAD_REQUEST).entity(exception.getMessage()).build();
+        }
+        if (dialer == null) {
+            return status(SERVICE_UNAVAILABLE).build();
+        }
+
+        final Sid accountId = account.getSid();
+        final String apiVersion = getApiVersion(data);
+        final String username = data.getFirst("Username");
+        final String password = data.getFirst("Password");
+        final Integer timeout = getInteger("Timeout", data);
+        final int callTimeout = timeout != null ? timeout : 60;
+        final URI url = getUrl("Url", data);
+        final String method = getMethod("Method", data);
+        final URI fallbackUrl = getUrl("FallbackUrl", data);
+        final String fallbackMethod = getMethod("FallbackMethod", data);
+        final Integer callsPerSecond = getInteger("CallsPerSecond", data);
+        final Integer concurrentCalls = getInteger("MaxConcurrentCalls", data);
+
+        URI statusCallback = null;
+        String statusCallbackMethod = "POST";
+        final List<String> statusCallbackEvent = new LinkedList<String>();
+        statusCallbackEvent.add("initiated");
+        statusCallbackEvent.add("ringing");
+        statusCallbackEvent.add("answered");
+        statusCallbackEvent.add("completed");
+        if (data.containsKey("StatusCallback")) {
+            statusCallback = URI.create(data.getFirst("StatusCallback").trim());
+            if (data.containsKey("StatusCallbackMethod")) {
+                statusCallbackMethod = data.getFirst("StatusCallbackMethod").trim();
+            }
+            if (data.containsKey("StatusCallbackEvent")) {
+                statusCallbackEvent.addAll(Arrays.asList(data.getFirst("StatusCallbackEvent").trim().split(",")));
+            }
+        }
+
+        final List<CreateCall> calls = new ArrayList<CreateCall>();
+        try {
+            final String from = normalize(data.getFirst("From").trim(), true);
+            for (final String destination : data.get("To")) {
+                String to = destination.trim();
+                String customHeaders = null;
+                if (to.contains("?")) {
+                    customHeaders = to.substring(to.indexOf("?") + 1);
+                    to = to.substring(0, to.indexOf("?"));
+                }
+                to = normalize(to, false);
+                final CreateCallType type;
+                if (to.contains("@")) {
+                    type = CreateCallType.SIP;
+                } else if (to.startsWith("client")) {
+                    type = CreateCallType.CLIENT;
+                } else {
+                    type = CreateCallType.PSTN;
+                }
+                final CreateCall create = new CreateCall(from, to, username, password, true, callTimeout, type, accountId,
+                        null, statusCallback, statusCallbackMethod, statusCallbackEvent, customHeaders);
+                create.setCreateCDR(false);
+                calls.add(create);
+            }
+        } catch (final IllegalArgumentException exception) {
+            return status(BAD_REQUEST).entity(exception.getMessage()).build();
+        }
+
+        final Sid sid = Sid.generate(Sid.Type.BULK_CALL);
+        final URI uri = URI.create("/" + apiVersion + "/Accounts/" + accountId.toString() + "/BulkCalls/" + sid.toString());
+        final BulkCall bulkCall = new BulkCall(sid, accountId, apiVersion, uri, calls, url, method, fallbackUrl,
+                fallbackMethod, callTimeout, limit(callsPerSecond, maxCallsPerSecond),
+                limit(concurrentCalls, maxConcurrentCalls));
+        bulkCalls.purge(DateTime.now().minusSeconds(retention));
+        bulkCalls.add(bulkCall);
+        dialer.tell(new CreateBulkCall(bulkCall), null);
+        return toResponse(bulkCall, responseType);
+    }
+
+    protected Response updateBulkCall(final String accountSid, final String sid, final MultivaluedMap<String, String> data,
+            final MediaType responseType, final UserIdentityContext userIdentityContext) {
+        final Account account = daos.getAccountsDao().getAccount(accountSid);
+        permissionEvaluator.secure(account, "RestComm:Modify:Calls", userIdentityContext);
+        final BulkCall bulkCall = getBulkCall(sid);
+        if (bulkCall == null) {
+            return status(NOT_FOUND).build();
+        }
+        permissionEvaluator.secure(account, bulkCall.getAccountSid(), SecuredType.SECURED_STANDARD, userIdentityContext);
+        final String requested = data.getFirst("Status");
+        if (!BulkCall.Status.CANCELED.toString().equalsIgnoreCase(requested)) {
+            return status(BAD_REQUEST).entity("Status can only be set to " + BulkCall.Status.CANCELED + ".").build();
+        }
+        bulkCall.cancel();
+        return toResponse(bulkCall, responseType);
+    }
+
+    private BulkCall getBulkCall(final String sid) {
+        if (!Sid.isValid(sid)) {
+            return null;
+        }
+        return bulkCalls.get(new Sid(sid));
+    }
+
+    private Response toResponse(final BulkCall bulkCall, final MediaType responseType) {
+        if (APPLICATION_XML_TYPE.equals(responseType)) {
+            final RestCommResponse response = new RestCommResponse(bulkCall);
+            return ok(xstream.toXML(response), APPLICATION_XML).build();
+        } else if (APPLICATION_JSON_TYPE.equals(responseType)) {
+            return ok(gson.toJson(bulkCall), APPLICATION_JSON).build();
+        } else {
+            return null;
+        }
+    }
+
+    private int limit(final Integer requested, final int maximum) {
+        if (requested == null || requested > maximum) {
+            return maximum;
+        }
+        return requested;
+    }
+
+    private String normalize(final String number, final boolean from) throws IllegalArgumentException {
+        if (!normalizePhoneNumbers || number.contains("@")) {
+            return number;
+        }
+        if (number.startsWith("client")) {
+            if (!from && number.split(":").length != 2) {
+                throw new IllegalArgumentException(number + " is an invalid client identifier.");
+            }
+            return number;
+        }
+        final PhoneNumberUtil phoneNumberUtil = PhoneNumberUtil.getInstance();
+        try {
+            return phoneNumberUtil.format(phoneNumberUtil.parse(number, "US"), PhoneNumberFormat.E164);
+        } catch (final NumberParseException exception) {
+            throw new IllegalArgumentException(exception);
+        }
+    }
+
+    private void validate(final MultivaluedMap<String, String> data) throws RuntimeException {
+        if (!data.containsKey("From")) {
+            throw new NullPointerException("From can not be null.");
+        } else if (!data.containsKey("To")) {
+            throw new NullPointerException("To can not be null.");
+        } else if (!data.containsKey("Url")) {
+            throw new NullPointerException("Url can not be null.");
+        }
+        final int destinations = data.get("To").size();
+        if (destinations > maxDestinations) {
+            throw new IllegalArgumentException("A bulk call can not have more than " + maxDestinations + " destinations.");
+        }
+        final Integer callsPerSecond = getInteger("CallsPerSecond", data);
+        final Integer concurrentCalls = getInteger("MaxConcurrentCalls", data);
+        if ((callsPerSecond != null && callsPerSecond < 1) || (concurrentCalls != null && concurrentCalls < 1)) {
+            throw new IllegalArgumentException("CallsPerSecond and MaxConcurrentCalls must be positive.");
+        }
+        URI.create(data.getFirst("Url"));
+    }
+
+    @GET
+    @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
+    public Response getBulkCalls(@PathParam("accountSid") final String accountSid,
+                                 @HeaderParam("Accept") String accept,
+                                 @Context SecurityContext sec) {
+        return getBulkCalls(accountSid, retrieveMediaType(accept), ContextUtil.convert(sec));
+    }
+
+    @POST
+    @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
+    public Response putBulkCall(@PathParam("accountSid") final String accountSid,
+                                final MultivaluedMap<String, String> data,
+                                @HeaderParam("Accept") String accept,
+                                @Context SecurityContext sec) {
+        return putBulkCall(accountSid, data, retrieveMediaType(accept), ContextUtil.convert(sec));
+    }
+
+    @Path("/{sid}")
+    @GET
+    @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
+    public Response getBulkCall(@PathParam("accountSid") final String accountSid,
+                                @PathParam("sid") final String sid,
+                                @HeaderParam("Accept") String accept,
+                                @Context SecurityContext sec) {
+        return getBulkCall(accountSid, sid, retrieveMediaType(accept), ContextUtil.convert(sec));
+    }
+
+    @Path("/{sid}")
+    @POST
+    @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
+    public Response updateBulkCall(@PathParam("accountSid") final String accountSid,
+                                   @PathParam("sid") final String sid,
+                                   final MultivaluedMap<String, String> data,
+                                   @HeaderParam("Accept") String accept,
+                                   @Context SecurityContext sec) {
+        return updateBulkCall(accountSid, sid, data, retrieveMediaType(accept), ContextUtil.convert(sec));
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.http;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON_TYPE;
+import static javax.ws.rs.core.MediaType.APPLICATION_XML;
+import static javax.ws.rs.core.MediaType.APPLICATION_XML_TYPE;
+import static javax.ws.rs.core.Response.ok;
+import static javax.ws.rs.core.Response.status;
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static javax.ws.rs.core.Response.Status.NOT_FOUND;
+import static javax.ws.rs.core.Response.Status.SERVICE_UNAVAILABLE;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.ServletContext;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
+
+import org.apache.commons.configuration.Configuration;
+import org.joda.time.DateTime;
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.dao.DaoManager;
+import org.restcomm.connect.dao.entities.Account;
+import org.restcomm.connect.dao.entities.RestCommResponse;
+import org.restcomm.connect.http.converter.BulkSmsMessageConverter;
+import org.restcomm.connect.http.converter.BulkSmsMessageList;
+import org.restcomm.connect.http.converter.BulkSmsMessageListConverter;
+import org.restcomm.connect.http.converter.RestCommResponseConverter;
+import org.restcomm.connect.http.security.ContextUtil;
+import org.restcomm.connect.http.security.PermissionEvaluator.SecuredType;
+import org.restcomm.connect.identity.UserIdentityContext;
+import org.restcomm.connect.sms.api.BulkSmsMessage;
+import org.restcomm.connect.sms.api.BulkSmsMessages;
+import org.restcomm.connect.sms.api.CreateBulkSmsMessage;
+import org.restcomm.connect.sms.api.SmsSessionRequest;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.i18n.phonenumbers.NumberParseException;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberFormat;
+import com.sun.jersey.spi.resource.Singleton;
+import com.thoughtworks.xstream.XStream;
+
+import akka.actor.ActorRef;
+
+/**
+ * Sends the same text message to many recipients at once. The request returns as soon as the bulk message is queued,
+ * the SmsMessage records are then created and sent at the requested pace by the BulkSmsSender and the progress is read
+ * from the bulk message resource.
+ */
+@Path("/Accounts/{accountSid}/SMS/BulkMessages")
+@ThreadSafe
+@Singleton
+public class BulkSmsMessagesEndpoint extends AbstractEndpoint {
+    @Context
+    private ServletContext context;
+    private Configuration configuration;
+    private DaoManager daos;
+    private ActorRef sender;
+    private BulkSmsMessages bulkSmsMessages;
+    private Gson gson;
+    private XStream xstream;
+    private boolean normalizePhoneNumbers;
+    private int maxMessagesPerSecond;
+    private int maxInFlight;
+    private int maxRecipients;
+    private int retention;
+
+    public BulkSmsMessagesEndpoint() {
+        super();
+    }
+
+    @PostConstruct
+    public void init() {
+        configuration = (Configuration) context.getAttribute(Configuration.class.getName());
+        configuration = configuration.subset("runtime-settings");
+        daos = (DaoManager) context.getAttribute(DaoManager.class.getName());
+        sender = (ActorRef) context.getAttribute("org.restcomm.connect.sms.BulkSmsSender");
+        bulkSmsMessages = (BulkSmsMessages) context.getAttribute(BulkSmsMessages.class.getName());
+        super.init(configuration);
+        final BulkSmsMessageConverter converter = new BulkSmsMessageConverter(configuration);
+        final GsonBuilder builder = new GsonBuilder();
+        builder.registerTypeAdapter(BulkSmsMessage.class, converter);
+        builder.setPrettyPrinting();
+        gson = builder.create();
+        xstream = new XStream();
+        xstream.alias("RestcommResponse", RestCommResponse.class);
+        xstream.registerConverter(converter);
+        xstream.registerConverter(new BulkSmsMessageListConverter(configuration));
+        xstream.registerConverter(new RestCommResponseConverter(configuration));
+
+        normalizePhoneNumbers = configuration.getBoolean("normalize-numbers-for-outbound-calls");
+        maxMessagesPerSecond = configuration.getInt("bulk-sms.max-messages-per-second", 50);
+        maxInFlight = configuration.getInt("bulk-sms.max-in-flight", 100);
+        maxRecipients = configuration.getInt("bulk-sms.max-recipients", 10000);
+        retention = configuration.getInt("bulk-sms.retention", 3600);
+    }
+
+    protected Response getBulkSmsMessage(final String accountSid, final String sid, final MediaType responseType,
+            final UserIdentityContext userIdentityContext) {
+        final Account account = daos.getAccountsDao().getAccount(accountSid);
+        permissionEvaluator.secure(account, "RestComm:Read:SmsMessages", userIdentityContext);
+        final BulkSmsMessage bulkSmsMessage = getBulkSmsMessage(sid);
+        if (bulkSmsMessage == null) {
+            return status(NOT_FOUND).build();
+        }
+        permissionEvaluator.secure(account, bulkSmsMessage.getAccountSid(), SecuredType.SECURED_STANDARD, userIdentityContext);
+        return toResponse(bulkSmsMessage, responseType);
+    }
+
+    protected Response getBulkSmsMessages(final String accountSid, final MediaType responseType,
+            final UserIdentityContext userIdentityContext) {
+        final Account account = daos.getAccountsDao().getAccount(accountSid);
+        permissionEvaluator.secure(account, "RestComm:Read:SmsMessages", userIdentityContext);
+        bulkSmsMessages.purge(DateTime.now().minusSeconds(retention));
+        final List<BulkSmsMessage> list = bulkSmsMessages.getByAccountSid(account.getSid());
+        if (APPLICATION_XML_TYPE.equals(responseType)) {
+            final RestCommResponse response = new RestCommResponse(new BulkSmsMessageList(list));
+            return ok(xstream.toXML(response), APPLICATION_XML).build();
+        } else if (APPLICATION_JSON_TYPE.equals(responseType)) {
+            return ok(gson.toJson(list), APPLICATION_JSON).build();
+        } else {
+            return null;
+        }
+    }
+
+    protected Response putBulkSmsMessage(final String accountSid, final MultivaluedMap<String, String> data,
+            final MediaType responseType, final UserIdentityContext userIdentityContext) {
+        final Account account = daos.getAccountsDao().getAccount(accountSid);
+        permissionEvaluator.secure(account, "RestComm:Create:SmsMessages", userIdentityContext);
+        try {
+            validate(data);
+        } catch (final RuntimeException exception) {
+            return status(BAD_REQUEST).entity(exception.getMessage()).build();
+        }
+        if (sender == null) {
+            return status(SERVICE_UNAVAILABLE).build();
+        }
+
+        final Sid accountId = account.getSid();
+        final String apiVersion = getApiVersion(data);
+        final String body = data.getFirst("Body");
+        final SmsSessionRequest.Encoding encoding;
+        if (!data.containsKey("Encoding")) {
+            encoding = SmsSessionRequest.Encoding.GSM;
+        } else {
+            encoding = SmsSessionRequest.Encoding.valueOf(data.getFirst("Encoding").replace('-', '_'));
+        }
+        final URI statusCallback;
+        if (!data.containsKey("StatusCallback")) {
+            statusCallback = null;
+        } else {
+            statusCallback = URI.create(data.getFirst("StatusCallback"));
+        }
+        final Integer messagesPerSecond = getInteger("MessagesPerSecond", data);
+        final Integer inFlight = getInteger("MaxInFlight", data);
+
+        final String from;
+        final List<String> recipients = new ArrayList<String>();
+        try {
+            from = normalize(data.getFirst("From").trim());
+            for (final String recipient : data.get("To")) {
+                recipients.add(normalize(recipient.trim()));
+            }
+        } catch (final IllegalArgumentException exception) {
+            return status(BAD_REQUEST).entity(exception.getMessage()).build();
+        }
+
+        final Sid sid = Sid.generate(Sid.Type.BULK_SMS);
+        final URI uri = URI.create("/" + apiVersion + "/Accounts/" + accountId.toString() + "/SMS/BulkMessages/" + sid.toString());
+        final BulkSmsMessage bulkSmsMessage = new BulkSmsMessage(sid, accountId, apiVersion, uri, from, recipients, body,
+                encoding, statusCallback, limit(messagesPerSecond, maxMessagesPerSecond), limit(inFlight, maxInFlight));
+        bulkSmsMessages.purge(DateTime.now().minusSeconds(retention));
+        bulkSmsMessages.add(bulkSmsMessage);
+        sender.tell(new CreateBulkSmsMessage(bulkSmsMessage), null);
+        return toResponse(bulkSmsMessage, responseType);
+    }
+
+    protected Response updateBulkSmsMessage(final String accountSid, final String sid,
+            final MultivaluedMap<String, String> data, final MediaType responseType,
+            final UserIdentityContext userIdentityContext) {
+        final Account account = daos.getAccountsDao().getAccount(accountSid);
+        permissionEvaluator.secure(account, "RestComm:Create:SmsMessages", userIdentityContext);
+        final BulkSmsMessage bulkSmsMessage = getBulkSmsMessage(sid);
+        if (bulkSmsMessage == null) {
+            return status(NOT_FOUND).build();
+        }
+        permissionEvaluator.secure(account, bulkSmsMessage.getAccountSid(), SecuredType.SECURED_STANDARD, userIdentityContext);
+        final String requested = data.getFirst("Status");
+        if (!BulkSmsMessage.Status.CANCELED.toString().equalsIgnoreCase(requested)) {
+            return status(BAD_REQUEST).entity("Status can only be set to " + BulkSmsMessage.Status.CANCELED + ".").build();
+        }
+        bulkSmsMessage.cancel();
+        return toResponse(bulkSmsMessage, responseType);
+    }
+
+    private BulkSmsMessage getBulkSmsMessage(final String sid) {
+        if (!Sid.isValid(sid)) {
+            return null;
+        }
+        return bulkSmsMessages.get(new Sid(sid));
+    }
+
+    private Response toResponse(final BulkSmsMessage bulkSmsMessage, final MediaType responseType) {
+        if (APPLICATION_XML_TYPE.equals(responseType)) {
+            final RestCommResponse response = new RestCommResponse(bulkSmsMessage);
+            return ok(xstream.toXML(response), APPLICATION_XML).build();
+        } else if (APPLICATION_JSON_TYPE.equals(responseType)) {
+            return ok(gson.toJson(bulkSmsMessage), APPLICATION_JSON).build();
+        } else {
+            return null;
+        }
+    }
+
+    private int limit(final Integer requested, final int maximum) {
+        if (requested == null || requested > maximum) {
+            return maximum;
+        }
+        return requested;
+    }
+
+    private String normalize(final String number) throws IllegalArgumentException {
+        if (!normalizePhoneNumbers || number.startsWith("client")) {
+            return number;
+        }
+        final PhoneNumberUtil phoneNumberUtil = PhoneNumberUtil.getInstance();
+        try {
+            return phoneNumberUtil.format(phoneNumberUtil.parse(number, "US"), PhoneNumberFormat.E164);
+        } catch (final NumberParseException exception) {
+            throw new IllegalArgumentException(exception);
+        }
+    }
+
+    private void validate(final MultivaluedMap<String, String> data) throws RuntimeException {
+        if (!data.containsKey("From")) {
+            throw new NullPointerException("From can not be null.");
+        } else if (!data.containsKey("To")) {
+            throw new NullPointerException("To can not be null.");
+        } else if (!data.containsKey("Body")) {
+            throw new NullPointerException("Body can not be null.");
+        }
+        final int recipients = data.get("To").size();
+        if (recipients > maxRecipients) {
+            throw new IllegalArgumentException("A bulk message can not have more than " + maxRecipients + " recipients.");
+        }
+        final Integer messagesPerSecond = getInteger("MessagesPerSecond", data);
+        final Integer inFlight = getInteger("MaxInFlight", data);
+        if ((messagesPerSecond != null && messagesPerSecond < 1) || (inFlight != null && inFlight < 1)) {
+            throw new IllegalArgumentException("MessagesPerSecond and MaxInFlight must be positive.");
+        }
+        if (data.containsKey("Encoding")) {
+            SmsSessionRequest.Encoding.valueOf(data.getFirst("Encoding").replace('-', '_'));
+        }
+    }
+
+    @GET
+    @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
+    public Response getBulkSmsMessages(@PathParam("accountSid") final String accountSid,
+                                       @HeaderParam("Accept") String accept,
+                                       @Context SecurityContext sec) {
+        return getBulkSmsMessages(accountSid, retrieveMediaType(accept), ContextUtil.convert(sec));
+    }
+
+    @POST
+    @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
+    public Response putBulkSmsMessage(@PathParam("accountSid") final String accountSid,
+                                      final MultivaluedMap<String, String> data,
+                                      @HeaderParam("Accept") String accept,
+                                      @Context SecurityContext sec) {
+        return putBulkSmsMessage(accountSid, data, retrieveMediaType(accept), ContextUtil.convert(sec));
+    }
+
+    @Path("/{sid}")
+    @GET
+    @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
+    public Response getBulkSmsMessage(@PathParam("accountSid") final String accountSid,
+                                      @PathParam("sid") final String sid,
+                                      @HeaderParam("Accept") String accept,
+                                      @Context SecurityContext sec) {
+        return getBulkSmsMessage(accountSid, sid, retrieveMediaType(accept), ContextUtil.convert(sec));
+    }
+
+    @Path("/{sid}")
+    @POST
+    @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
+    public Response updateBulkSmsMessage(@PathParam("accountSid") final String accountSid,
+                                         @PathParam("sid") final String sid,
+                                         final MultivaluedMap<String, String> data,
+                                         @HeaderParam("Accept") String accept,
+                                         @Context SecurityContext sec) {
+        return updateBulkSmsMessage(accountSid, sid, data, retrieveMediaType(accept), ContextUtil.convert(sec));
+    }
+}
@@ -94,12 +94,15 @@ import org.restcomm.connect.dao.entities.RecordingList;
 import org.restcomm.connect.dao.entities.RestCommResponse;
 import org.restcomm.connect.http.converter.CallDetailRecordConverter;
 import org.restcomm.connect.http.converter.CallDetailRecordListConverter;
+import org.restcomm.connect.http.converter.PagingContext;
 import org.restcomm.connect.http.converter.RecordingConverter;
 import org.restcomm.connect.http.converter.RecordingListConverter;
 import org.restcomm.connect.http.converter.RestCommResponseConverter;
+import org.restcomm.connect.http.converter.StreamingListWriter;
 import org.restcomm.connect.http.security.ContextUtil;
 import org.restcomm.connect.http.security.PermissionEvaluator.SecuredType;
 import org.restcomm.connect.identity.UserIdentityContext;
+import org.restcomm.connect.monitoringservice.LiveCallRegistry;
 import org.restcomm.connect.telephony.api.CallInfo;
 import org.restcomm.connect.telephony.api.CallManagerResponse;
 import org.restcomm.connect.telephony.api.CallResponse;
@@ -140,6 +143,7 @@ public class CallsEndpoint extends AbstractEndpoint {
     private GsonBuilder builder;
     private XStream xstream;
     private CallDetailRecordListConverter listConverter;
+    private StreamingListWriter listWriter;
     private AccountsDao accountsDao;
     private RecordingsDao recordingsDao;
     private String instanceId;
@@ -177,6 +181,7 @@ public class CallsEndpoint extends AbstractEndpoint {
         xstream.registerConverter(new RecordingListConverter(configuration));
         xstream.registerConverter(new RestCommResponseConverter(configuration));
         xstream.registerConverter(listConverter);
+        listWriter = new StreamingListWriter(gson, xstream);
 
         instanceId = RestcommConfiguration.getInstance().getMain().getInstanceId();
 
@@ -234,6 +239,12 @@ public class CallsEndpoint extends AbstractEndpoint {
         if (querySubAccountsParam != null && querySubAccountsParam.equalsIgnoreCase("true"))
             querySubAccounts = true;
 
+        // shall we read the records moved out by the retention job instead of the live ones ?
+        boolean queryArchive = false;
+        String queryArchiveParam = info.getQueryParameters().getFirst("Archived");
+        if (queryArchiveParam != null && queryArchiveParam.equalsIgnoreCase("true"))
+            queryArchive = true;
+
         String pageSize = info.getQueryParameters().getFirst("PageSize");
         String page = info.getQueryParameters().getFirst("Page");
         // String afterSid = info.getQueryParameters().getFirst("AfterSid");
@@ -381,6 +392,7 @@ public class CallsEndpoint extends AbstractEndpoint {
                 .byEndTime(endTime)
                 .byParentCallSid(parentCallSid)
                 .byConferenceSid(conferenceSid)
+                .archived(queryArchive)
                 .limited(limit, offset);
         if (!localInstanceOnly) {
             filterBuilder.byInstanceId(instanceId);
@@ -401,16 +413,16 @@ public class CallsEndpoint extends AbstractEndpoint {
 
         final List<CallDetailRecord> cdrs = dao.getCallDetailRecords(filter);
 
-        listConverter.setCount(total);
-        listConverter.setPage(Integer.parseInt(page));
-        listConverter.setPageSize(Integer.parseInt(pageSize));
-        listConverter.setPathUri("/" + getApiVersion(null) + "/" + info.getPath());
+        final int currentPage = Integer.parseInt(page);
+        final Sid afterSid = (currentPage == total / limit || cdrs.size() < limit) ? null : cdrs.get(limit - 1).getSid();
+        final PagingContext paging = new PagingContext(currentPage, limit, total, "/" + getApiVersion(null) + "/"
+                + info.getPath(), cdrs.size(), afterSid);
 
         if (APPLICATION_XML_TYPE.equals(responseType)) {
             final RestCommResponse response = new RestCommResponse(new CallDetailRecordList(cdrs));
-            return ok(xstream.toXML(response), APPLICATION_XML).build();
+            return ok(listWriter.xml(response, paging), APPLICATION_XML).build();
         } else if (APPLICATION_JSON_TYPE.equals(responseType)) {
-            return ok(gson.toJson(new CallDetailRecordList(cdrs)), APPLICATION_JSON).build();
+            return ok(listWriter.json("calls", CallDetailRecord.class, cdrs, paging), APPLICATION_JSON).build();
         } else {
             return null;
         }
@@ -663,13 +675,20 @@ public class CallsEndpoint extends AbstractEndpoint {
 
         try {
             callPath = cdr.getCallPath();
-            Future<Object> future = (Future<Object>) ask(callManager, new GetCall(callPath), expires);
-            call = (ActorRef) Await.result(future, Duration.create(10, TimeUnit.SECONDS));
+            // Calls of this instance are in the registry, the others are looked up from their path
+            LiveCallRegistry.LiveCall liveCall = LiveCallRegistry.getInstance().getByCallSid(cdr.getSid());
+            if (liveCall != null && liveCall.getInfo() != null) {
+                call = liveCall.getCall();
+                callInfo = liveCall.getInfo();
+            } else {
+                Future<Object> future = (Future<Object>) ask(callManager, new GetCall(callPath), expires);
+                call = (ActorRef) Await.result(future, Duration.create(10, TimeUnit.SECONDS));
 
-            future = (Future<Object>) ask(call, new GetCallInfo(), expires);
-            CallResponse<CallInfo> response = (CallResponse<CallInfo>) Await.result(future,
-                    Duration.create(10, TimeUnit.SECONDS));
-            callInfo = response.get();
+                future = (Future<Object>) ask(call, new GetCallInfo(), expires);
+                CallResponse<CallInfo> response = (CallResponse<CallInfo>) Await.result(future,
+                        Duration.create(10, TimeUnit.SECONDS));
+                callInfo = response.get();
+            }
         } catch (AskTimeoutException ate) {
             final String msg = "Call is already completed.";
             if (logger.isDebugEnabled())
@@ -59,6 +59,8 @@ import org.restcomm.connect.dao.entities.ConferenceDetailRecordList;
 import org.restcomm.connect.dao.entities.RestCommResponse;
 import org.restcomm.connect.http.converter.ConferenceDetailRecordConverter;
 import org.restcomm.connect.http.converter.ConferenceDetailRecordListConverter;
+import org.restcomm.connect.http.converter.PagingContext;
+import org.restcomm.connect.http.converter.StreamingListWriter;
 import org.restcomm.connect.http.security.ContextUtil;
 import org.restcomm.connect.http.security.PermissionEvaluator.SecuredType;
 import org.restcomm.connect.identity.UserIdentityContext;
@@ -79,6 +81,7 @@ public class ConferencesEndpoint extends AbstractEndpoint {
     private GsonBuilder builder;
     private XStream xstream;
     private ConferenceDetailRecordListConverter listConverter;
+    private StreamingListWriter listWriter;
 
 
 
@@ -105,6 +108,7 @@ public class ConferencesEndpoint extends AbstractEndpoint {
         xstream.alias("RestcommResponse", RestCommResponse.class);
         xstream.registerConverter(converter);
         xstream.registerConverter(listConverter);
+        listWriter = new StreamingListWriter(gson, xstream);
     }
 
     protected Response getConference(final String accountSid, final String sid,
@@ -198,16 +202,17 @@ public class ConferencesEndpoint extends AbstractEndpoint {
 
         final List<ConferenceDetailRecord> cdrs = dao.getConferenceDetailRecords(filter);
 
-        listConverter.setCount(total);
-        listConverter.setPage(Integer.parseInt(page));
-        listConverter.setPageSize(Integer.parseInt(pageSize));
-        listConverter.setPathUri("/"+getApiVersion(null)+"/"+info.getPath());
+        final int currentPage = Integer.parseInt(page);
+        final Sid afterSid = (currentPage == total / limit || cdrs.size() < limit) ? null
+                : cdrs.get(limit - 1).getSid();
+        final PagingContext paging = new PagingContext(currentPage, limit, total, "/" + getApiVersion(null) + "/" + info.getPath(),
+                cdrs.size(), afterSid);
 
         if (APPLICATION_XML_TYPE.equals(responseType)) {
             final RestCommResponse response = new RestCommResponse(new ConferenceDetailRecordList(cdrs));
-            return ok(xstream.toXML(response), APPLICATION_XML).build();
+            return ok(listWriter.xml(response, paging), APPLICATION_XML).build();
         } else if (APPLICATION_JSON_TYPE.equals(responseType)) {
-            return ok(gson.toJson(new ConferenceDetailRecordList(cdrs)), APPLICATION_JSON).build();
+            return ok(listWriter.json("conferences", ConferenceDetailRecord.class, cdrs, paging), APPLICATION_JSON).build();
         } else {
             return null;
         }
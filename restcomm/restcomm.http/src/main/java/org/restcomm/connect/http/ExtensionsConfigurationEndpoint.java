@@ -54,6 +54,7 @@ import org.restcomm.connect.dao.ExtensionsConfigurationDao;
 import org.restcomm.connect.dao.entities.RestCommResponse;
 import org.restcomm.connect.extension.api.ConfigurationException;
 import org.restcomm.connect.extension.api.ExtensionConfiguration;
+import org.restcomm.connect.extension.configuration.ExtensionConfigurationRegistry;
 import org.restcomm.connect.http.converter.ExtensionConfigurationConverter;
 import org.restcomm.connect.http.converter.RestCommResponseConverter;
 import static org.restcomm.connect.http.security.AccountPrincipal.SUPER_ADMIN_ROLE;
@@ -203,6 +204,7 @@ public class  ExtensionsConfigurationEndpoint extends AbstractEndpoint {
             } catch (ConfigurationException exception) {
                 return status(NOT_ACCEPTABLE).entity(exception.getMessage()).build();
             }
+            ExtensionConfigurationRegistry.getInstance().update(extensionConfiguration);
         }
         if (accountSid!=null) {
             try {
@@ -252,6 +254,7 @@ public class  ExtensionsConfigurationEndpoint extends AbstractEndpoint {
         try {
             if (accountSid==null) {
                 extensionsConfigurationDao.updateConfiguration(updatedExtensionConfiguration);
+                ExtensionConfigurationRegistry.getInstance().update(updatedExtensionConfiguration);
             } else {
                 extensionsConfigurationDao.updateAccountExtensionConfiguration(updatedExtensionConfiguration, accountSid);
             }
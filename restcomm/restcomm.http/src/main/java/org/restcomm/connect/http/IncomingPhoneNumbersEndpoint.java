@@ -82,7 +82,9 @@ import org.restcomm.connect.http.converter.AvailableCountriesConverter;
 import org.restcomm.connect.http.converter.AvailableCountriesList;
 import org.restcomm.connect.http.converter.IncomingPhoneNumberConverter;
 import org.restcomm.connect.http.converter.IncomingPhoneNumberListConverter;
+import org.restcomm.connect.http.converter.PagingContext;
 import org.restcomm.connect.http.converter.RestCommResponseConverter;
+import org.restcomm.connect.http.converter.StreamingListWriter;
 import org.restcomm.connect.http.filters.ExtensionFilter;
 import static org.restcomm.connect.http.security.AccountPrincipal.SUPER_ADMIN_ROLE;
 import org.restcomm.connect.http.security.ContextUtil;
@@ -111,6 +113,7 @@ public class IncomingPhoneNumbersEndpoint extends AbstractEndpoint {
     private ServletContext context;
     private PhoneNumberProvisioningManager phoneNumberProvisioningManager;
     private IncomingPhoneNumberListConverter listConverter;
+    private StreamingListWriter listWriter;
     PhoneNumberParameters phoneNumberParameters;
     String callbackPort = "";
     private IncomingPhoneNumbersDao dao;
@@ -180,6 +183,7 @@ public class IncomingPhoneNumbersEndpoint extends AbstractEndpoint {
         xstream.registerConverter(listConverter);
         xstream.registerConverter(new AvailableCountriesConverter(configuration));
         xstream.registerConverter(new RestCommResponseConverter(configuration));
+        listWriter = new StreamingListWriter(gson, xstream);
 
     }
 
@@ -371,16 +375,17 @@ public class IncomingPhoneNumbersEndpoint extends AbstractEndpoint {
 
             final List<IncomingPhoneNumber> incomingPhoneNumbers = dao.getIncomingPhoneNumbersByFilter(filterBuilder.build());
 
-            listConverter.setCount(total);
-            listConverter.setPage(pageAsInt);
-            listConverter.setPageSize(limit);
-            listConverter.setPathUri("/" + getApiVersion(null) + "/" + info.getPath());
+            final Sid afterSid = (pageAsInt == total / limit || incomingPhoneNumbers.size() < limit) ? null
+                    : incomingPhoneNumbers.get(limit - 1).getSid();
+            final PagingContext paging = new PagingContext(pageAsInt, limit, total, "/" + getApiVersion(null) + "/"
+                    + info.getPath(), incomingPhoneNumbers.size(), afterSid);
 
             if (APPLICATION_JSON_TYPE.equals(responseType)) {
-                return ok(gson.toJson(new IncomingPhoneNumberList(incomingPhoneNumbers)), APPLICATION_JSON).build();
+                return ok(listWriter.json("incomingPhoneNumbers", IncomingPhoneNumber.class, incomingPhoneNumbers, paging),
+                        APPLICATION_JSON).build();
             } else if (APPLICATION_XML_TYPE.equals(responseType)) {
                 final RestCommResponse response = new RestCommResponse(new IncomingPhoneNumberList(incomingPhoneNumbers));
-                return ok(xstream.toXML(response), APPLICATION_XML).build();
+                return ok(listWriter.xml(response, paging), APPLICATION_XML).build();
             } else {
                 return null;
             }
@@ -56,7 +56,9 @@ import org.restcomm.connect.dao.entities.NotificationList;
 import org.restcomm.connect.dao.entities.RestCommResponse;
 import org.restcomm.connect.http.converter.NotificationConverter;
 import org.restcomm.connect.http.converter.NotificationListConverter;
+import org.restcomm.connect.http.converter.PagingContext;
 import org.restcomm.connect.http.converter.RestCommResponseConverter;
+import org.restcomm.connect.http.converter.StreamingListWriter;
 import org.restcomm.connect.http.security.ContextUtil;
 import org.restcomm.connect.http.security.PermissionEvaluator.SecuredType;
 import org.restcomm.connect.identity.UserIdentityContext;
@@ -81,6 +83,7 @@ public class NotificationsEndpoint extends AbstractEndpoint {
     private Gson gson;
     private XStream xstream;
     private NotificationListConverter listConverter;
+    private StreamingListWriter listWriter;
     private String instanceId;
 
     public NotificationsEndpoint() {
@@ -107,6 +110,7 @@ public class NotificationsEndpoint extends AbstractEndpoint {
         xstream.registerConverter(new NotificationListConverter(configuration));
         xstream.registerConverter(new RestCommResponseConverter(configuration));
         xstream.registerConverter(listConverter);
+        listWriter = new StreamingListWriter(gson, xstream);
 
         instanceId = RestcommConfiguration.getInstance().getMain().getInstanceId();
     }
@@ -279,16 +283,17 @@ public class NotificationsEndpoint extends AbstractEndpoint {
 
         final List<Notification> cdrs = dao.getNotifications(filter);
 
-        listConverter.setCount(total);
-        listConverter.setPage(Integer.parseInt(page));
-        listConverter.setPageSize(Integer.parseInt(pageSize));
-        listConverter.setPathUri(info.getRequestUri().getPath());
+        final int currentPage = Integer.parseInt(page);
+        final Sid afterSid = (currentPage == total / limit || cdrs.size() < limit) ? null
+                : cdrs.get(limit - 1).getSid();
+        final PagingContext paging = new PagingContext(currentPage, limit, total, info.getRequestUri().getPath(),
+                cdrs.size(), afterSid);
 
         if (APPLICATION_XML_TYPE.equals(responseType)) {
             final RestCommResponse response = new RestCommResponse(new NotificationList(cdrs));
-            return ok(xstream.toXML(response), APPLICATION_XML).build();
+            return ok(listWriter.xml(response, paging), APPLICATION_XML).build();
         } else if (APPLICATION_JSON_TYPE.equals(responseType)) {
-            return ok(gson.toJson(new NotificationList(cdrs)), APPLICATION_JSON).build();
+            return ok(listWriter.json("notifications", Notification.class, cdrs, paging), APPLICATION_JSON).build();
         } else {
             return null;
         }
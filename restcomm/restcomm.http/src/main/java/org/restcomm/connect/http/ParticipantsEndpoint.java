@@ -26,7 +26,10 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.sun.jersey.spi.resource.Singleton;
 import com.thoughtworks.xstream.XStream;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.PostConstruct;
 import javax.servlet.ServletContext;
@@ -69,12 +72,15 @@ import org.restcomm.connect.dao.entities.Recording;
 import org.restcomm.connect.dao.entities.RestCommResponse;
 import org.restcomm.connect.http.converter.CallDetailRecordListConverter;
 import org.restcomm.connect.http.converter.ConferenceParticipantConverter;
+import org.restcomm.connect.http.converter.PagingContext;
 import org.restcomm.connect.http.converter.RecordingConverter;
 import org.restcomm.connect.http.converter.RecordingListConverter;
 import org.restcomm.connect.http.converter.RestCommResponseConverter;
+import org.restcomm.connect.http.converter.StreamingListWriter;
 import org.restcomm.connect.http.security.ContextUtil;
 import org.restcomm.connect.http.security.PermissionEvaluator.SecuredType;
 import org.restcomm.connect.identity.UserIdentityContext;
+import org.restcomm.connect.monitoringservice.LiveCallRegistry;
 import org.restcomm.connect.telephony.api.CallInfo;
 import org.restcomm.connect.telephony.api.CallResponse;
 import org.restcomm.connect.telephony.api.GetCall;
@@ -99,6 +105,7 @@ public class ParticipantsEndpoint extends AbstractEndpoint {
     private GsonBuilder builder;
     private XStream xstream;
     private CallDetailRecordListConverter listConverter;
+    private StreamingListWriter listWriter;
     private AccountsDao accountsDao;
     private RecordingsDao recordingsDao;
     private String instanceId;
@@ -135,6 +142,7 @@ public class ParticipantsEndpoint extends AbstractEndpoint {
         xstream.registerConverter(new RecordingListConverter(configuration));
         xstream.registerConverter(new RestCommResponseConverter(configuration));
         xstream.registerConverter(listConverter);
+        listWriter = new StreamingListWriter(gson, xstream);
 
         instanceId = RestcommConfiguration.getInstance().getMain().getInstanceId();
     }
@@ -207,13 +215,14 @@ public class ParticipantsEndpoint extends AbstractEndpoint {
 
         CallDetailRecordsDao dao = daos.getCallDetailRecordsDao();
 
-        final int total = dao.getTotalRunningCallDetailRecordsByConferenceSid(new Sid(conferenceSid));
+        final List<CallDetailRecord> cdrs = participants(dao.getRunningCallDetailRecordsByConferenceSid(new Sid(conferenceSid)),
+                new Sid(conferenceSid));
+        final int total = cdrs.size();
 
         if (Integer.parseInt(page) > (total / limit)) {
             return status(javax.ws.rs.core.Response.Status.BAD_REQUEST).build();
         }
 
-        final List<CallDetailRecord> cdrs = dao.getRunningCallDetailRecordsByConferenceSid(new Sid(conferenceSid));
         if (logger.isDebugEnabled()) {
             final List<CallDetailRecord> allCdrs = dao.getCallDetailRecordsByAccountSid(new Sid(accountSid));
             logger.debug("CDR with filter size: "+ cdrs.size()+", all CDR with no filter size: "+allCdrs.size());
@@ -223,21 +232,43 @@ public class ParticipantsEndpoint extends AbstractEndpoint {
             }
         }
 
-        listConverter.setCount(total);
-        listConverter.setPage(Integer.parseInt(page));
-        listConverter.setPageSize(Integer.parseInt(pageSize));
-        listConverter.setPathUri("/"+getApiVersion(null)+"/"+info.getPath());
+        final int currentPage = Integer.parseInt(page);
+        final Sid afterSid = (currentPage == total / limit || cdrs.size() < limit) ? null
+                : cdrs.get(limit - 1).getSid();
+        final PagingContext paging = new PagingContext(currentPage, limit, total, "/" + getApiVersion(null) + "/" + info.getPath(),
+                cdrs.size(), afterSid);
 
         if (APPLICATION_XML_TYPE.equals(responseType)) {
             final RestCommResponse response = new RestCommResponse(new CallDetailRecordList(cdrs));
-            return ok(xstream.toXML(response), APPLICATION_XML).build();
+            return ok(listWriter.xml(response, paging), APPLICATION_XML).build();
         } else if (APPLICATION_JSON_TYPE.equals(responseType)) {
-            return ok(gson.toJson(new CallDetailRecordList(cdrs)), APPLICATION_JSON).build();
+            return ok(listWriter.json("calls", CallDetailRecord.class, cdrs, paging), APPLICATION_JSON).build();
         } else {
             return null;
         }
     }
 
+    /**
+     * Keeps the running records of other instances and, for the calls of this instance, only those that the
+     * LiveCallRegistry still has in the conference, so calls that left or records left running by a crash are not listed.
+     */
+    private List<CallDetailRecord> participants(final List<CallDetailRecord> cdrs, final Sid conferenceSid) {
+        final Set<Sid> local = new HashSet<Sid>();
+        for (final LiveCallRegistry.LiveCall liveCall : LiveCallRegistry.getInstance().getByConferenceSid(conferenceSid)) {
+            final CallInfo callInfo = liveCall.getInfo();
+            if (callInfo != null) {
+                local.add(callInfo.sid());
+            }
+        }
+        final List<CallDetailRecord> participants = new ArrayList<CallDetailRecord>(cdrs.size());
+        for (final CallDetailRecord cdr : cdrs) {
+            if (!instanceId.equals(cdr.getInstanceId()) || local.contains(cdr.getSid())) {
+                participants.add(cdr);
+            }
+        }
+        return participants;
+    }
+
     @SuppressWarnings("unchecked")
     protected Response updateCall(final String sid,
             final String callSid,
@@ -284,13 +315,20 @@ public class ParticipantsEndpoint extends AbstractEndpoint {
             final CallInfo callInfo;
             try {
                 callPath = cdr.getCallPath();
-                Future<Object> future = (Future<Object>) ask(callManager, new GetCall(callPath), expires);
-                call = (ActorRef) Await.result(future, Duration.create(100000, TimeUnit.SECONDS));
+                // Calls of this instance are in the registry, the others are looked up from their path
+                LiveCallRegistry.LiveCall liveCall = LiveCallRegistry.getInstance().getByCallSid(cdr.getSid());
+                if (liveCall != null && liveCall.getInfo() != null) {
+                    call = liveCall.getCall();
+                    callInfo = liveCall.getInfo();
+                } else {
+                    Future<Object> future = (Future<Object>) ask(callManager, new GetCall(callPath), expires);
+                    call = (ActorRef) Await.result(future, Duration.create(100000, TimeUnit.SECONDS));
 
-                future = (Future<Object>) ask(call, new GetCallInfo(), expires);
-                CallResponse<CallInfo> response = (CallResponse<CallInfo>) Await.result(future,
-                        Duration.create(100000, TimeUnit.SECONDS));
-                callInfo = response.get();
+                    future = (Future<Object>) ask(call, new GetCallInfo(), expires);
+                    CallResponse<CallInfo> response = (CallResponse<CallInfo>) Await.result(future,
+                            Duration.create(100000, TimeUnit.SECONDS));
+                    callInfo = response.get();
+                }
             } catch (Exception exception) {
                 return status(INTERNAL_SERVER_ERROR).entity(exception.getMessage()).build();
             }
@@ -39,9 +39,11 @@ import org.restcomm.connect.dao.entities.Recording;
 import org.restcomm.connect.dao.entities.RecordingFilter;
 import org.restcomm.connect.dao.entities.RecordingList;
 import org.restcomm.connect.dao.entities.RestCommResponse;
+import org.restcomm.connect.http.converter.PagingContext;
 import org.restcomm.connect.http.converter.RecordingConverter;
 import org.restcomm.connect.http.converter.RecordingListConverter;
 import org.restcomm.connect.http.converter.RestCommResponseConverter;
+import org.restcomm.connect.http.converter.StreamingListWriter;
 import org.restcomm.connect.http.security.ContextUtil;
 import org.restcomm.connect.http.security.PermissionEvaluator.SecuredType;
 import org.restcomm.connect.identity.UserIdentityContext;
@@ -97,6 +99,7 @@ public class RecordingsEndpoint extends AbstractEndpoint {
     private S3AccessTool s3AccessTool;
     private RecordingSecurityLevel securityLevel = RecordingSecurityLevel.SECURE;
     private RecordingListConverter listConverter;
+    private StreamingListWriter listWriter;
     private String instanceId;
     private RecordingService recordingService;
 
@@ -147,6 +150,7 @@ public class RecordingsEndpoint extends AbstractEndpoint {
         }
 
         xstream.registerConverter(listConverter);
+        listWriter = new StreamingListWriter(gson, xstream);
 
         instanceId = RestcommConfiguration.getInstance().getMain().getInstanceId();
     }
@@ -333,16 +337,17 @@ public class RecordingsEndpoint extends AbstractEndpoint {
 
         final List<Recording> cdrs = dao.getRecordings(filter);
 
-        listConverter.setCount(total);
-        listConverter.setPage(Integer.parseInt(page));
-        listConverter.setPageSize(Integer.parseInt(pageSize));
-        listConverter.setPathUri(info.getRequestUri().getPath());
+        final int currentPage = Integer.parseInt(page);
+        final Sid afterSid = (currentPage == total / limit || cdrs.size() < limit) ? null
+                : cdrs.get(limit - 1).getSid();
+        final PagingContext paging = new PagingContext(currentPage, limit, total, info.getRequestUri().getPath(),
+                cdrs.size(), afterSid);
 
         if (APPLICATION_XML_TYPE.equals(responseType)) {
             final RestCommResponse response = new RestCommResponse(new RecordingList(cdrs));
-            return ok(xstream.toXML(response), APPLICATION_XML).build();
+            return ok(listWriter.xml(response, paging), APPLICATION_XML).build();
         } else if (APPLICATION_JSON_TYPE.equals(responseType)) {
-            return ok(gson.toJson(new RecordingList(cdrs)), APPLICATION_JSON).build();
+            return ok(listWriter.json("recordings", Recording.class, cdrs, paging), APPLICATION_JSON).build();
         } else {
             return null;
         }
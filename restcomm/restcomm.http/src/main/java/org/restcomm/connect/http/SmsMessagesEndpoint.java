@@ -76,9 +76,11 @@ import org.restcomm.connect.dao.entities.RestCommResponse;
 import org.restcomm.connect.dao.entities.SmsMessage;
 import org.restcomm.connect.dao.entities.SmsMessageFilter;
 import org.restcomm.connect.dao.entities.SmsMessageList;
+import org.restcomm.connect.http.converter.PagingContext;
 import org.restcomm.connect.http.converter.RestCommResponseConverter;
 import org.restcomm.connect.http.converter.SmsMessageConverter;
 import org.restcomm.connect.http.converter.SmsMessageListConverter;
+import org.restcomm.connect.http.converter.StreamingListWriter;
 import org.restcomm.connect.http.security.ContextUtil;
 import org.restcomm.connect.http.security.PermissionEvaluator.SecuredType;
 import org.restcomm.connect.identity.UserIdentityContext;
@@ -122,6 +124,7 @@ public class SmsMessagesEndpoint extends AbstractEndpoint {
     protected Gson gson;
     protected XStream xstream;
     protected SmsMessageListConverter listConverter;
+    protected StreamingListWriter listWriter;
     protected String instanceId;
     private boolean normalizePhoneNumbers;
 
@@ -151,6 +154,7 @@ public class SmsMessagesEndpoint extends AbstractEndpoint {
         xstream.registerConverter(new SmsMessageListConverter(configuration));
         xstream.registerConverter(new RestCommResponseConverter(configuration));
         xstream.registerConverter(listConverter);
+        listWriter = new StreamingListWriter(gson, xstream);
 
         instanceId = RestcommConfiguration.getInstance().getMain().getInstanceId();
 
@@ -206,6 +210,12 @@ public class SmsMessagesEndpoint extends AbstractEndpoint {
         if (querySubAccountsParam != null && querySubAccountsParam.equalsIgnoreCase("true"))
             querySubAccounts = true;
 
+        // shall we read the records moved out by the retention job instead of the live ones ?
+        boolean queryArchive = false;
+        String queryArchiveParam = info.getQueryParameters().getFirst("Archived");
+        if (queryArchiveParam != null && queryArchiveParam.equalsIgnoreCase("true"))
+            queryArchive = true;
+
         String pageSize = info.getQueryParameters().getFirst("PageSize");
         String page = info.getQueryParameters().getFirst("Page");
         // String afterSid = info.getQueryParameters().getFirst("AfterSid");
@@ -328,6 +338,7 @@ public class SmsMessagesEndpoint extends AbstractEndpoint {
                 .byStartTime(startTime)
                 .byEndTime(endTime)
                 .byBody(body)
+                .archived(queryArchive)
                 .limited(limit, offset);
         if (!localInstanceOnly) {
             filterBuilder.byInstanceId(instanceId);
@@ -347,16 +358,16 @@ public class SmsMessagesEndpoint extends AbstractEndpoint {
 
         final List<SmsMessage> cdrs = dao.getSmsMessages(filter);
 
-        listConverter.setCount(total);
-        listConverter.setPage(Integer.parseInt(page));
-        listConverter.setPageSize(Integer.parseInt(pageSize));
-        listConverter.setPathUri(info.getRequestUri().getPath());
+        final int currentPage = Integer.parseInt(page);
+        final Sid afterSid = (currentPage == total / limit || cdrs.size() < limit) ? null : cdrs.get(limit - 1).getSid();
+        final PagingContext paging = new PagingContext(currentPage, limit, total, info.getRequestUri().getPath(),
+                cdrs.size(), afterSid);
 
         if (APPLICATION_XML_TYPE.equals(responseType)) {
             final RestCommResponse response = new RestCommResponse(new SmsMessageList(cdrs));
-            return ok(xstream.toXML(response), APPLICATION_XML).build();
+            return ok(listWriter.xml(response, paging), APPLICATION_XML).build();
         } else if (APPLICATION_JSON_TYPE.equals(responseType)) {
-            return ok(gson.toJson(new SmsMessageList(cdrs)), APPLICATION_JSON).build();
+            return ok(listWriter.json("messages", SmsMessage.class, cdrs, paging), APPLICATION_JSON).build();
         } else {
             return null;
         }
@@ -28,6 +28,7 @@ import com.google.gson.GsonBuilder;
 import com.sun.jersey.spi.resource.Singleton;
 import com.thoughtworks.xstream.XStream;
 import java.text.ParseException;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.PostConstruct;
 import javax.annotation.security.RolesAllowed;
@@ -53,6 +54,8 @@ import javax.ws.rs.core.UriInfo;
 import org.apache.commons.configuration.Configuration;
 import org.apache.log4j.Logger;
 import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.commons.metrics.CallSetupBreakdown;
+import org.restcomm.connect.commons.metrics.CallSetupTracer;
 import org.restcomm.connect.dao.DaoManager;
 import org.restcomm.connect.dao.entities.CallDetailRecordFilter;
 import org.restcomm.connect.dao.entities.RestCommResponse;
@@ -113,6 +116,7 @@ public class SupervisorEndpoint extends AbstractEndpoint{
         gson = builder.create();
         xstream = new XStream();
         xstream.alias("RestcommResponse", RestCommResponse.class);
+        xstream.alias("SlowCall", CallSetupBreakdown.class);
         xstream.registerConverter(converter);
         xstream.registerConverter(listConverter);
         xstream.registerConverter(callDetailsConverter);
@@ -207,6 +211,19 @@ public class SupervisorEndpoint extends AbstractEndpoint{
         }
     }
 
+    protected Response getSlowCalls(final String accountSid, final MediaType responseType) {
+        //following 2 things are enough to grant access: 1. a valid authentication token is present. 2 it is a super admin.
+        final List<CallSetupBreakdown> slowCalls = CallSetupTracer.getInstance().getSlowCallBreakdowns();
+        if (APPLICATION_XML_TYPE.equals(responseType)) {
+            final RestCommResponse response = new RestCommResponse(slowCalls);
+            return ok(xstream.toXML(response), APPLICATION_XML).build();
+        } else if (APPLICATION_JSON_TYPE.equals(responseType)) {
+            return ok(gson.toJson(slowCalls), APPLICATION_JSON).build();
+        } else {
+            return null;
+        }
+    }
+
     //Register a remote location where Restcomm will send monitoring updates
     protected Response registerForUpdates(final String accountSid, final UriInfo info, MediaType responseType) {
         //following 2 things are enough to grant access: 1. a valid authentication token is present. 2 it is a super admin.
@@ -310,6 +327,15 @@ public class SupervisorEndpoint extends AbstractEndpoint{
         return getLiveCalls(accountSid, retrieveMediaType(accept));
     }
 
+    //Get the per phase breakdown of the most recent slow call setups
+    @Path("/slowcalls")
+    @GET
+    @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
+    public Response getSlowCalls(@PathParam("accountSid") final String accountSid,
+            @HeaderParam("Accept") String accept) {
+        return getSlowCalls(accountSid, retrieveMediaType(accept));
+    }
+
     //Register a remote location where Restcomm will send monitoring updates
     @Path("/remote")
     @POST
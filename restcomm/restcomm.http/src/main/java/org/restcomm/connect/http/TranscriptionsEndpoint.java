@@ -52,7 +52,9 @@ import org.restcomm.connect.dao.entities.RestCommResponse;
 import org.restcomm.connect.dao.entities.Transcription;
 import org.restcomm.connect.dao.entities.TranscriptionFilter;
 import org.restcomm.connect.dao.entities.TranscriptionList;
+import org.restcomm.connect.http.converter.PagingContext;
 import org.restcomm.connect.http.converter.RestCommResponseConverter;
+import org.restcomm.connect.http.converter.StreamingListWriter;
 import org.restcomm.connect.http.converter.TranscriptionConverter;
 import org.restcomm.connect.http.converter.TranscriptionListConverter;
 import org.restcomm.connect.http.security.ContextUtil;
@@ -72,6 +74,7 @@ public class TranscriptionsEndpoint extends AbstractEndpoint {
     private Gson gson;
     private XStream xstream;
     private TranscriptionListConverter listConverter;
+    private StreamingListWriter listWriter;
     private String instanceId;
 
 
@@ -101,6 +104,7 @@ public class TranscriptionsEndpoint extends AbstractEndpoint {
         xstream.registerConverter(new TranscriptionListConverter(configuration));
         xstream.registerConverter(new RestCommResponseConverter(configuration));
         xstream.registerConverter(listConverter);
+        listWriter = new StreamingListWriter(gson, xstream);
 
         instanceId = RestcommConfiguration.getInstance().getMain().getInstanceId();
     }
@@ -218,16 +222,17 @@ public class TranscriptionsEndpoint extends AbstractEndpoint {
 
         final List<Transcription> cdrs = dao.getTranscriptions(filter);
 
-        listConverter.setCount(total);
-        listConverter.setPage(Integer.parseInt(page));
-        listConverter.setPageSize(Integer.parseInt(pageSize));
-        listConverter.setPathUri(info.getRequestUri().getPath());
+        final int currentPage = Integer.parseInt(page);
+        final Sid afterSid = (currentPage == total / limit || cdrs.size() < limit) ? null
+                : cdrs.get(limit - 1).getSid();
+        final PagingContext paging = new PagingContext(currentPage, limit, total, info.getRequestUri().getPath(),
+                cdrs.size(), afterSid);
 
         if (APPLICATION_XML_TYPE.equals(responseType)) {
             final RestCommResponse response = new RestCommResponse(new TranscriptionList(cdrs));
-            return ok(xstream.toXML(response), APPLICATION_XML).build();
+            return ok(listWriter.xml(response, paging), APPLICATION_XML).build();
         } else if (APPLICATION_JSON_TYPE.equals(responseType)) {
-            return ok(gson.toJson(new TranscriptionList(cdrs)), APPLICATION_JSON).build();
+            return ok(listWriter.json("transcriptions", Transcription.class, cdrs, paging), APPLICATION_JSON).build();
         } else {
             return null;
         }
@@ -664,4 +664,25 @@ public abstract class AbstractConverter implements Converter {
         }
     }
 
+    /**
+     * Writes the paging attributes of a list node from the {@link PagingContext} the {@link StreamingListWriter}
+     * put in the marshalling context, if any.
+     */
+    protected void writePaging(final MarshallingContext context, final HierarchicalStreamWriter writer) {
+        final PagingContext paging = (PagingContext) context.get(PagingContext.class);
+        if (paging != null) {
+            writer.addAttribute("page", String.valueOf(paging.getPage()));
+            writer.addAttribute("numpages", String.valueOf(paging.getTotalPages()));
+            writer.addAttribute("pagesize", String.valueOf(paging.getPageSize()));
+            writer.addAttribute("total", String.valueOf(paging.getTotalPages()));
+            writer.addAttribute("start", paging.getFirstIndex());
+            writer.addAttribute("end", paging.getLastIndex());
+            writer.addAttribute("uri", paging.getPathUri());
+            writer.addAttribute("firstpageuri", paging.getFirstPageUri());
+            writer.addAttribute("previouspageuri", paging.getPreviousPageUri());
+            writer.addAttribute("nextpageuri", paging.getNextPageUri());
+            writer.addAttribute("lastpageuri", paging.getLastPageUri());
+        }
+    }
+
 }
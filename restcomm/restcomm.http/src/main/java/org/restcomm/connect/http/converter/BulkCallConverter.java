@@ -0,0 +1,119 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.http.converter;
+
+import java.lang.reflect.Type;
+
+import org.apache.commons.configuration.Configuration;
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.telephony.api.BulkCall;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import com.thoughtworks.xstream.converters.MarshallingContext;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+
+@ThreadSafe
+public final class BulkCallConverter extends AbstractConverter implements JsonSerializer<BulkCall> {
+    public BulkCallConverter(final Configuration configuration) {
+        super(configuration);
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public boolean canConvert(final Class klass) {
+        return BulkCall.class.equals(klass);
+    }
+
+    @Override
+    public void marshal(final Object object, final HierarchicalStreamWriter writer, final MarshallingContext context) {
+        final BulkCall bulkCall = (BulkCall) object;
+        writer.startNode("BulkCall");
+        writeSid(bulkCall.getSid(), writer);
+        writeDateCreated(bulkCall.getDateCreated(), writer);
+        writeDateUpdated(bulkCall.getDateUpdated(), writer);
+        writeAccountSid(bulkCall.getAccountSid(), writer);
+        writeStatus(bulkCall.getStatus().toString(), writer);
+        writeUrl(bulkCall.getUrl().toString(), writer);
+        writeMethod(bulkCall.getMethod(), writer);
+        writeCount("CallsPerSecond", bulkCall.getCallsPerSecond(), writer);
+        writeCount("MaxConcurrentCalls", bulkCall.getMaxConcurrentCalls(), writer);
+        writeCount("Destinations", bulkCall.getCalls().size(), writer);
+        writeCount("Dialed", bulkCall.getDialed(), writer);
+        writeCount("Created", bulkCall.getCreated(), writer);
+        writeCount("Failed", bulkCall.getFailed(), writer);
+        writeCount("Outstanding", bulkCall.getOutstanding(), writer);
+        writeCount("Pending", bulkCall.getPending(), writer);
+        writeApiVersion(bulkCall.getApiVersion(), writer);
+        writeUri(bulkCall.getUri(), writer);
+        writer.endNode();
+    }
+
+    @Override
+    public JsonElement serialize(final BulkCall bulkCall, final Type type, final JsonSerializationContext context) {
+        final JsonObject object = new JsonObject();
+        writeSid(bulkCall.getSid(), object);
+        writeDateCreated(bulkCall.getDateCreated(), object);
+        writeDateUpdated(bulkCall.getDateUpdated(), object);
+        writeAccountSid(bulkCall.getAccountSid(), object);
+        writeStatus(bulkCall.getStatus().toString(), object);
+        writeUrl(bulkCall.getUrl().toString(), object);
+        writeMethod(bulkCall.getMethod(), object);
+        object.addProperty("calls_per_second", bulkCall.getCallsPerSecond());
+        object.addProperty("max_concurrent_calls", bulkCall.getMaxConcurrentCalls());
+        object.addProperty("destinations", bulkCall.getCalls().size());
+        object.addProperty("dialed", bulkCall.getDialed());
+        object.addProperty("created", bulkCall.getCreated());
+        object.addProperty("failed", bulkCall.getFailed());
+        object.addProperty("outstanding", bulkCall.getOutstanding());
+        object.addProperty("pending", bulkCall.getPending());
+        writeApiVersion(bulkCall.getApiVersion(), object);
+        writeUri(bulkCall.getUri(), object);
+        return object;
+    }
+
+    private void writeUrl(final String url, final HierarchicalStreamWriter writer) {
+        writer.startNode("Url");
+        writer.setValue(url);
+        writer.endNode();
+    }
+
+    private void writeUrl(final String url, final JsonObject object) {
+        object.addProperty("url", url);
+    }
+
+    private void writeMethod(final String method, final HierarchicalStreamWriter writer) {
+        writer.startNode("Method");
+        writer.setValue(method);
+        writer.endNode();
+    }
+
+    private void writeMethod(final String method, final JsonObject object) {
+        object.addProperty("method", method);
+    }
+
+    private void writeCount(final String name, final int count, final HierarchicalStreamWriter writer) {
+        writer.startNode(name);
+        writer.setValue(Integer.toString(count));
+        writer.endNode();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.http.converter;
+
+import java.lang.reflect.Type;
+
+import org.apache.commons.configuration.Configuration;
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.sms.api.BulkSmsMessage;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import com.thoughtworks.xstream.converters.MarshallingContext;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+
+@ThreadSafe
+public final class BulkSmsMessageConverter extends AbstractConverter implements JsonSerializer<BulkSmsMessage> {
+    public BulkSmsMessageConverter(final Configuration configuration) {
+        super(configuration);
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public boolean canConvert(final Class klass) {
+        return BulkSmsMessage.class.equals(klass);
+    }
+
+    @Override
+    public void marshal(final Object object, final HierarchicalStreamWriter writer, final MarshallingContext context) {
+        final BulkSmsMessage bulkSmsMessage = (BulkSmsMessage) object;
+        writer.startNode("BulkSmsMessage");
+        writeSid(bulkSmsMessage.getSid(), writer);
+        writeDateCreated(bulkSmsMessage.getDateCreated(), writer);
+        writeDateUpdated(bulkSmsMessage.getDateUpdated(), writer);
+        writeAccountSid(bulkSmsMessage.getAccountSid(), writer);
+        writeStatus(bulkSmsMessage.getStatus().toString(), writer);
+        writeFrom(bulkSmsMessage.getFrom(), writer);
+        writeBody(bulkSmsMessage.getBody(), writer);
+        writeStatusCallback(bulkSmsMessage.getStatusCallback(), writer);
+        writeCount("MessagesPerSecond", bulkSmsMessage.getMessagesPerSecond(), writer);
+        writeCount("MaxInFlight", bulkSmsMessage.getMaxInFlight(), writer);
+        writeCount("Recipients", bulkSmsMessage.getRecipients().size(), writer);
+        writeCount("Queued", bulkSmsMessage.getQueued(), writer);
+        writeCount("Submitted", bulkSmsMessage.getSubmitted(), writer);
+        writeCount("Sent", bulkSmsMessage.getSent(), writer);
+        writeCount("Failed", bulkSmsMessage.getFailed(), writer);
+        writeCount("Unconfirmed", bulkSmsMessage.getUnconfirmed(), writer);
+        writeCount("InFlight", bulkSmsMessage.getInFlight(), writer);
+        writeCount("Pending", bulkSmsMessage.getPending(), writer);
+        writeApiVersion(bulkSmsMessage.getApiVersion(), writer);
+        writeUri(bulkSmsMessage.getUri(), writer);
+        writer.endNode();
+    }
+
+    @Override
+    public JsonElement serialize(final BulkSmsMessage bulkSmsMessage, final Type type, final JsonSerializationContext context) {
+        final JsonObject object = new JsonObject();
+        writeSid(bulkSmsMessage.getSid(), object);
+        writeDateCreated(bulkSmsMessage.getDateCreated(), object);
+        writeDateUpdated(bulkSmsMessage.getDateUpdated(), object);
+        writeAccountSid(bulkSmsMessage.getAccountSid(), object);
+        writeStatus(bulkSmsMessage.getStatus().toString(), object);
+        writeFrom(bulkSmsMessage.getFrom(), object);
+        object.addProperty("body", bulkSmsMessage.getBody());
+        writeStatusCallback(bulkSmsMessage.getStatusCallback(), object);
+        object.addProperty("messages_per_second", bulkSmsMessage.getMessagesPerSecond());
+        object.addProperty("max_in_flight", bulkSmsMessage.getMaxInFlight());
+        object.addProperty("recipients", bulkSmsMessage.getRecipients().size());
+        object.addProperty("queued", bulkSmsMessage.getQueued());
+        object.addProperty("submitted", bulkSmsMessage.getSubmitted());
+        object.addProperty("sent", bulkSmsMessage.getSent());
+        object.addProperty("failed", bulkSmsMessage.getFailed());
+        object.addProperty("unconfirmed", bulkSmsMessage.getUnconfirmed());
+        object.addProperty("in_flight", bulkSmsMessage.getInFlight());
+        object.addProperty("pending", bulkSmsMessage.getPending());
+        writeApiVersion(bulkSmsMessage.getApiVersion(), object);
+        writeUri(bulkSmsMessage.getUri(), object);
+        return object;
+    }
+
+    private void writeBody(final String body, final HierarchicalStreamWriter writer) {
+        writer.startNode("Body");
+        writer.setValue(body);
+        writer.endNode();
+    }
+
+    private void writeCount(final String name, final int count, final HierarchicalStreamWriter writer) {
+        writer.startNode(name);
+        writer.setValue(Integer.toString(count));
+        writer.endNode();
+    }
+}
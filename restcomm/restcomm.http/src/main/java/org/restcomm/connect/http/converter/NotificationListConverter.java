@@ -38,8 +38,6 @@ import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
  */
 @ThreadSafe
 public final class NotificationListConverter extends AbstractConverter implements JsonSerializer<NotificationList> {
-    Integer page, pageSize, total;
-    String pathUri;
 
     public NotificationListConverter(final Configuration configuration) {
         super(configuration);
@@ -71,69 +69,8 @@ public final class NotificationListConverter extends AbstractConverter implement
             array.add(context.serialize(cdr));
         }
 
-        if (total != null && pageSize != null && page != null) {
-            result.addProperty("page", page);
-            result.addProperty("num_pages", getTotalPages());
-            result.addProperty("page_size", pageSize);
-            result.addProperty("total", total);
-            result.addProperty("start", getFirstIndex());
-            result.addProperty("end", getLastIndex(ntfList));
-            result.addProperty("uri", pathUri);
-            result.addProperty("first_page_uri", getFirstPageUri());
-            result.addProperty("previous_page_uri", getPreviousPageUri());
-            result.addProperty("next_page_uri", getNextPageUri(ntfList));
-            result.addProperty("last_page_uri", getLastPageUri());
-        }
-
         result.add("notifications", array);
 
         return result;
     }
-
-    private int getTotalPages() {
-        return total / pageSize;
-    }
-
-    private String getFirstIndex() {
-        return String.valueOf(page * pageSize);
-    }
-
-    private String getLastIndex(NotificationList list) {
-        return String.valueOf((page == getTotalPages()) ? (page * pageSize) + list.getNotifications().size()
-                : (pageSize - 1) + (page * pageSize));
-    }
-
-    private String getFirstPageUri() {
-        return pathUri + "?Page=0&PageSize=" + pageSize;
-    }
-
-    private String getPreviousPageUri() {
-        return ((page == 0) ? "null" : pathUri + "?Page=" + (page - 1) + "&PageSize=" + pageSize);
-    }
-
-    private String getNextPageUri(NotificationList list) {
-        String lastSid = (page == getTotalPages()) ? "null" : list.getNotifications().get(pageSize - 1).getSid().toString();
-        return (page == getTotalPages()) ? "null" : pathUri + "?Page=" + (page + 1) + "&PageSize=" + pageSize + "&AfterSid="
-                + lastSid;
-    }
-
-    private String getLastPageUri() {
-        return pathUri + "?Page=" + getTotalPages() + "&PageSize=" + pageSize;
-    }
-
-    public void setPage(Integer page) {
-        this.page = page;
-    }
-
-    public void setPageSize(Integer pageSize) {
-        this.pageSize = pageSize;
-    }
-
-    public void setCount(Integer count) {
-        this.total = count;
-    }
-
-    public void setPathUri(String pathUri) {
-        this.pathUri = pathUri;
-    }
 }
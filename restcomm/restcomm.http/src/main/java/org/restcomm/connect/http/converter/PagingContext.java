@@ -0,0 +1,101 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.http.converter;
+
+import org.restcomm.connect.commons.annotations.concurrency.Immutable;
+import org.restcomm.connect.commons.dao.Sid;
+
+/**
+ * Paging metadata of a single list response. It is created per request and handed to the serializers, so
+ * concurrent requests served by a singleton endpoint never share it.
+ */
+@Immutable
+public final class PagingContext {
+    private final int page;
+    private final int pageSize;
+    private final int total;
+    private final String pathUri;
+    private final int count;
+    private final Sid afterSid;
+
+    /**
+     * @param page the requested page.
+     * @param pageSize the requested page size.
+     * @param total the number of records matching the query.
+     * @param pathUri the uri of the list resource.
+     * @param count the number of records in this page.
+     * @param afterSid the sid of the last record of a full page, used to build the next page uri.
+     */
+    public PagingContext(final int page, final int pageSize, final int total, final String pathUri, final int count,
+            final Sid afterSid) {
+        super();
+        this.page = page;
+        this.pageSize = pageSize;
+        this.total = total;
+        this.pathUri = pathUri;
+        this.count = count;
+        this.afterSid = afterSid;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public String getPathUri() {
+        return pathUri;
+    }
+
+    public int getTotalPages() {
+        return total / pageSize;
+    }
+
+    public String getFirstIndex() {
+        return String.valueOf(page * pageSize);
+    }
+
+    public String getLastIndex() {
+        return String.valueOf((page == getTotalPages()) ? (page * pageSize) + count : (pageSize - 1) + (page * pageSize));
+    }
+
+    public String getFirstPageUri() {
+        return pathUri + "?Page=0&PageSize=" + pageSize;
+    }
+
+    public String getPreviousPageUri() {
+        return ((page == 0) ? "null" : pathUri + "?Page=" + (page - 1) + "&PageSize=" + pageSize);
+    }
+
+    public String getNextPageUri() {
+        return (page == getTotalPages()) ? "null" : pathUri + "?Page=" + (page + 1) + "&PageSize=" + pageSize
+                + "&AfterSid=" + afterSid;
+    }
+
+    public String getLastPageUri() {
+        return pathUri + "?Page=" + getTotalPages() + "&PageSize=" + pageSize;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.http.converter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.core.MapBackedDataHolder;
+import com.thoughtworks.xstream.converters.DataHolder;
+import com.thoughtworks.xstream.io.xml.PrettyPrintWriter;
+
+/**
+ * Writes list responses straight to the servlet output stream. JSON goes through a {@link JsonWriter} one record
+ * at a time instead of building the whole {@code JsonObject} tree, XML is marshalled by XStream into the same
+ * indenting {@link PrettyPrintWriter} {@code XStream.toXML} uses, over the response stream instead of an in memory
+ * String. The paging metadata travels with each call as a {@link PagingContext} and reaches the XStream converters
+ * through the marshalling context.
+ */
+@ThreadSafe
+public final class StreamingListWriter {
+    private static final String INDENT = "  ";
+
+    private final Gson gson;
+    private final XStream xstream;
+
+    public StreamingListWriter(final Gson gson, final XStream xstream) {
+        super();
+        this.gson = gson;
+        this.xstream = xstream;
+    }
+
+    /**
+     * @param name the name of the JSON array holding the records, i.e. "calls".
+     * @param type the type of the records, used to look up their serializer.
+     * @param records the records of the page.
+     * @param paging the paging metadata or null to leave it out.
+     */
+    public <T> StreamingOutput json(final String name, final Type type, final List<T> records, final PagingContext paging) {
+        return new StreamingOutput() {
+            @Override
+            public void write(final OutputStream output) throws IOException, WebApplicationException {
+                final JsonWriter writer = new JsonWriter(new OutputStreamWriter(output, "UTF-8"));
+                writer.setIndent(INDENT);
+                writer.setHtmlSafe(true);
+                writer.beginObject();
+                if (paging != null) {
+                    writer.name("page").value(paging.getPage());
+                    writer.name("num_pages").value(paging.getTotalPages());
+                    writer.name("page_size").value(paging.getPageSize());
+                    writer.name("total").value(paging.getTotal());
+                    writer.name("start").value(paging.getFirstIndex());
+                    writer.name("end").value(paging.getLastIndex());
+                    writer.name("uri").value(paging.getPathUri());
+                    writer.name("first_page_uri").value(paging.getFirstPageUri());
+                    writer.name("previous_page_uri").value(paging.getPreviousPageUri());
+                    writer.name("next_page_uri").value(paging.getNextPageUri());
+                    writer.name("last_page_uri").value(paging.getLastPageUri());
+                }
+                writer.name(name);
+                writer.beginArray();
+                for (final T record : records) {
+                    gson.toJson(record, type, writer);
+                }
+                writer.endArray();
+                writer.endObject();
+                writer.flush();
+            }
+        };
+    }
+
+    /**
+     * @param response the object to marshal, usually a RestCommResponse wrapping the list.
+     * @param paging the paging metadata or null to leave it out.
+     */
+    public StreamingOutput xml(final Object response, final PagingContext paging) {
+        return new StreamingOutput() {
+            @Override
+            public void write(final OutputStream output) throws IOException, WebApplicationException {
+                final DataHolder holder = new MapBackedDataHolder();
+                if (paging != null) {
+                    holder.put(PagingContext.class, paging);
+                }
+                final PrettyPrintWriter writer = new PrettyPrintWriter(new OutputStreamWriter(output, "UTF-8"));
+                xstream.marshal(response, writer, holder);
+                writer.flush();
+            }
+        };
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.http.converter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.ws.rs.core.StreamingOutput;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.dao.entities.CallDetailRecord;
+import org.restcomm.connect.dao.entities.CallDetailRecordList;
+import org.restcomm.connect.dao.entities.RestCommResponse;
+import org.w3c.dom.Element;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.thoughtworks.xstream.XStream;
+
+public class StreamingListWriterTest {
+    private static final String PATH = "/2012-04-24/Accounts/ACae6e420f425248d6a26948c17a9e2acf/Calls";
+
+    private Gson gson;
+    private XStream xstream;
+    private StreamingListWriter writer;
+
+    @Before
+    public void before() {
+        final Configuration configuration = new BaseConfiguration();
+        configuration.setProperty("api-version", "2012-04-24");
+        final CallDetailRecordConverter converter = new CallDetailRecordConverter(configuration);
+        final CallDetailRecordListConverter listConverter = new CallDetailRecordListConverter(configuration);
+        final GsonBuilder builder = new GsonBuilder();
+        builder.registerTypeAdapter(CallDetailRecord.class, converter);
+        builder.registerTypeAdapter(CallDetailRecordList.class, listConverter);
+        builder.setPrettyPrinting();
+        gson = builder.create();
+        xstream = new XStream();
+        xstream.alias("RestcommResponse", RestCommResponse.class);
+        xstream.registerConverter(converter);
+        xstream.registerConverter(new RestCommResponseConverter(configuration));
+        xstream.registerConverter(listConverter);
+        writer = new StreamingListWriter(gson, xstream);
+    }
+
+    private List<CallDetailRecord> cdrs(final int size) {
+        final Sid account = new Sid("ACae6e420f425248d6a26948c17a9e2acf");
+        final List<CallDetailRecord> cdrs = new ArrayList<CallDetailRecord>();
+        for (int i = 0; i < size; i++) {
+            final CallDetailRecord.Builder builder = CallDetailRecord.builder();
+            builder.setSid(Sid.generate(Sid.Type.APPLICATION));
+            builder.setDateCreated(new DateTime(2018, 1, 1, 0, 0).plusMinutes(i));
+            builder.setAccountSid(account);
+            builder.setTo("+1305587" + (1000 + i));
+            builder.setFrom("+15126002188");
+            builder.setStatus("completed");
+            builder.setDirection("inbound");
+            builder.setDuration(i);
+            cdrs.add(builder.build());
+        }
+        return cdrs;
+    }
+
+    private String write(final StreamingOutput output) throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        output.write(bytes);
+        return bytes.toString("UTF-8");
+    }
+
+    @Test
+    public void testJsonMatchesTreeSerializer() throws Exception {
+        final List<CallDetailRecord> cdrs = cdrs(10);
+        final PagingContext paging = new PagingContext(1, 10, 35, PATH, cdrs.size(), cdrs.get(9).getSid());
+        final String streamed = write(writer.json("calls", CallDetailRecord.class, cdrs, paging));
+        final JsonParser parser = new JsonParser();
+        final JsonObject expected = parser.parse(gson.toJson(new CallDetailRecordList(cdrs))).getAsJsonObject();
+        final JsonObject actual = parser.parse(streamed).getAsJsonObject();
+        assertEquals(expected.get("calls"), actual.get("calls"));
+        assertEquals(1, actual.get("page").getAsInt());
+        assertEquals(3, actual.get("num_pages").getAsInt());
+        assertEquals(35, actual.get("total").getAsInt());
+        assertEquals(PATH + "?Page=2&PageSize=10&AfterSid=" + cdrs.get(9).getSid(), actual.get("next_page_uri").getAsString());
+    }
+
+    @Test
+    public void testXmlUsesRequestPaging() throws Exception {
+        final List<CallDetailRecord> cdrs = cdrs(5);
+        final StreamingOutput other = writer.xml(new RestCommResponse(new CallDetailRecordList(cdrs(50))),
+                new PagingContext(7, 50, 1000, PATH, 50, null));
+        final PagingContext paging = new PagingContext(3, 5, 15, PATH, cdrs.size(), null);
+        final StreamingOutput output = writer.xml(new RestCommResponse(new CallDetailRecordList(cdrs)), paging);
+        // the paging of another request served by the same converters must not leak into this one
+        write(other);
+        final String streamed = write(output);
+
+        final Element root = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(new ByteArrayInputStream(streamed.getBytes("UTF-8"))).getDocumentElement();
+        assertEquals("RestcommResponse", root.getTagName());
+        final Element calls = (Element) root.getElementsByTagName("Calls").item(0);
+        assertEquals("3", calls.getAttribute("page"));
+        assertEquals("5", calls.getAttribute("pagesize"));
+        assertEquals("15", calls.getAttribute("start"));
+        assertEquals("null", calls.getAttribute("nextpageuri"));
+        assertEquals(PATH + "?Page=2&PageSize=5", calls.getAttribute("previouspageuri"));
+        assertEquals(5, calls.getElementsByTagName("Call").getLength());
+    }
+
+    @Test
+    public void testXmlMatchesTreeMarshaller() throws Exception {
+        final RestCommResponse response = new RestCommResponse(new CallDetailRecordList(cdrs(3)));
+        assertEquals(xstream.toXML(response), write(writer.xml(response, null)));
+    }
+
+    @Test
+    public void testJsonWithoutPaging() throws Exception {
+        final List<CallDetailRecord> cdrs = cdrs(2);
+        final String streamed = write(writer.json("calls", CallDetailRecord.class, cdrs, null));
+        final JsonParser parser = new JsonParser();
+        assertEquals(2, parser.parse(streamed).getAsJsonObject().getAsJsonArray("calls").size());
+        assertNull(parser.parse(streamed).getAsJsonObject().get("page"));
+    }
+}
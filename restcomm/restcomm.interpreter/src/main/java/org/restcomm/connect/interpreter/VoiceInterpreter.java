@@ -47,6 +47,7 @@ import org.restcomm.connect.commons.fsm.Transition;
 import org.restcomm.connect.commons.fsm.TransitionFailedException;
 import org.restcomm.connect.commons.fsm.TransitionNotFoundException;
 import org.restcomm.connect.commons.fsm.TransitionRollbackException;
+import org.restcomm.connect.commons.metrics.CallSetupTracer;
 import org.restcomm.connect.commons.patterns.Observe;
 import org.restcomm.connect.commons.patterns.StopObserving;
 import org.restcomm.connect.commons.telephony.CreateCallType;
@@ -220,6 +221,10 @@ public class VoiceInterpreter extends BaseVoiceInterpreter {
     private ActorRef bridge;
     private boolean beep;
 
+    // Call setup tracing, the first verb ends the setup of an inbound call
+    private long rcmlRequested;
+    private long rcmlParsing;
+
     private boolean enable200OkDelay;
 
     // IMS authentication
@@ -755,6 +760,15 @@ public class VoiceInterpreter extends BaseVoiceInterpreter {
                     final CreateConference create = new CreateConference(conferenceNameWithAccountAndFriendlyName, callSid);
                     conferenceCenter.tell(create, self());
                 }
+                break;
+            case FAILED:
+                conferenceState = event.state();
+                if(is(joiningConference)){
+                    // The conference refused us, either it failed or it is at capacity
+                    logger.warning("Could not join conference "+conferenceNameWithAccountAndFriendlyName+", will hang up the call");
+                    fsm.transition(message, hangingUp);
+                }
+                break;
             default:
                 break;
         }
@@ -955,6 +969,12 @@ public class VoiceInterpreter extends BaseVoiceInterpreter {
 
     private void onTagMessage(Object message) throws TransitionFailedException, TransitionNotFoundException, TransitionRollbackException {
         verb = (Tag) message;
+        if (rcmlParsing > 0 && callInfo != null) {
+            final CallSetupTracer tracer = CallSetupTracer.getInstance();
+            tracer.record(callInfo.sid().toString(), CallSetupTracer.Phase.RCML_PARSE, rcmlParsing);
+            tracer.finish(callInfo.sid().toString());
+            rcmlParsing = 0;
+        }
         if (logger.isDebugEnabled()) {
             logger.debug("Tag received, name: "+verb.name()+", text: "+verb.text());
         }
@@ -1839,6 +1859,7 @@ public class VoiceInterpreter extends BaseVoiceInterpreter {
             // Ask the downloader to get us the application that will be executed.
             final List<NameValuePair> parameters = parameters();
             request = new HttpRequestDescriptor(url, method, parameters);
+            rcmlRequested = System.nanoTime();
             downloader.tell(request, source);
         }
     }
@@ -1965,6 +1986,11 @@ public class VoiceInterpreter extends BaseVoiceInterpreter {
                     || finishGathering.equals(state) || finishRecording.equals(state) || sendingSms.equals(state)
                     || finishDialing.equals(state) || finishConferencing.equals(state) || is(forking)) {
                 response = ((DownloaderResponse) message).get();
+                if (downloadingRcml.equals(state) && rcmlRequested > 0 && callInfo != null) {
+                    CallSetupTracer.getInstance().record(callInfo.sid().toString(), CallSetupTracer.Phase.RCML_DOWNLOAD, rcmlRequested);
+                    rcmlRequested = 0;
+                    rcmlParsing = System.nanoTime();
+                }
                 if (parser != null) {
                     context.stop(parser);
                     parser = null;
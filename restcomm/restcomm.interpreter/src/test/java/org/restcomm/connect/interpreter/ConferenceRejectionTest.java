@@ -0,0 +1,237 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.interpreter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.util.ArrayList;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.configuration.XMLConfiguration;
+import org.joda.time.DateTime;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.restcomm.connect.commons.configuration.RestcommConfiguration;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.commons.patterns.Observe;
+import org.restcomm.connect.commons.telephony.CreateCallType;
+import org.restcomm.connect.core.service.RestcommConnectServiceProvider;
+import org.restcomm.connect.core.service.util.UriUtils;
+import org.restcomm.connect.dao.CallDetailRecordsDao;
+import org.restcomm.connect.dao.DaoManager;
+import org.restcomm.connect.dao.entities.MediaAttributes;
+import org.restcomm.connect.http.client.DownloaderResponse;
+import org.restcomm.connect.http.client.HttpRequestDescriptor;
+import org.restcomm.connect.http.client.HttpResponseDescriptor;
+import org.restcomm.connect.interpreter.rcml.MockedActor;
+import org.restcomm.connect.telephony.api.AddParticipant;
+import org.restcomm.connect.telephony.api.CallInfo;
+import org.restcomm.connect.telephony.api.CallResponse;
+import org.restcomm.connect.telephony.api.CallStateChanged;
+import org.restcomm.connect.telephony.api.ConferenceCenterResponse;
+import org.restcomm.connect.telephony.api.ConferenceInfo;
+import org.restcomm.connect.telephony.api.ConferenceResponse;
+import org.restcomm.connect.telephony.api.ConferenceStateChanged;
+import org.restcomm.connect.telephony.api.CreateConference;
+import org.restcomm.connect.telephony.api.GetCallInfo;
+import org.restcomm.connect.telephony.api.GetConferenceInfo;
+import org.restcomm.connect.telephony.api.Hangup;
+
+import akka.actor.Actor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.actor.UntypedActorFactory;
+import akka.testkit.JavaTestKit;
+import akka.testkit.TestActorRef;
+
+/**
+ * A call whose conference refuses it, because the room or its media server is full, is hung up.
+ */
+public class ConferenceRejectionTest {
+    private static final Sid ACCOUNT_SID = new Sid("ACae6e420f425248d6a26948c17a9e2acf");
+
+    private static ActorSystem system;
+
+    private Configuration configuration;
+
+    private URI requestUri = URI.create("http://127.0.0.1/conference.xml");
+    private String conferenceRcml = "<Response><Dial><Conference>room</Conference></Dial></Response>";
+
+    @BeforeClass
+    public static void before() throws Exception {
+        final UriUtils uriUtils = Mockito.mock(UriUtils.class);
+        RestcommConnectServiceProvider.getInstance().setUriUtils(uriUtils);
+        Mockito.when(uriUtils.resolveWithBase(Mockito.any(URI.class), Mockito.any(URI.class))).thenAnswer(new Answer<URI>() {
+            public URI answer(InvocationOnMock invocation) {
+                return invocation.getArgument(1);
+            }
+        });
+        Mockito.when(uriUtils.resolve(Mockito.any(URI.class), Mockito.any(Sid.class))).thenAnswer(new Answer<URI>() {
+            public URI answer(InvocationOnMock invocation) {
+                return invocation.getArgument(0);
+            }
+        });
+        system = ActorSystem.create();
+    }
+
+    @AfterClass
+    public static void after() throws Exception {
+        system.shutdown();
+    }
+
+    @Before
+    public void init() throws Exception {
+        final XMLConfiguration xmlConfiguration = new XMLConfiguration();
+        xmlConfiguration.setDelimiterParsingDisabled(true);
+        xmlConfiguration.setAttributeSplittingDisabled(true);
+        xmlConfiguration.load(this.getClass().getResource("/restcomm.xml").getFile());
+        configuration = xmlConfiguration;
+        RestcommConfiguration.createOnce(configuration);
+    }
+
+    private TestActorRef<VoiceInterpreter> createVoiceInterpreter(final ActorRef observer, final ActorRef conferenceCenter) {
+        final CallDetailRecordsDao recordsDao = mock(CallDetailRecordsDao.class);
+        when(recordsDao.getCallDetailRecord(any(Sid.class))).thenReturn(null);
+        final DaoManager storage = mock(DaoManager.class);
+        when(storage.getCallDetailRecordsDao()).thenReturn(recordsDao);
+
+        final VoiceInterpreterParams.Builder builder = new VoiceInterpreterParams.Builder();
+        builder.setConfiguration(configuration);
+        builder.setStorage(storage);
+        builder.setCallManager(new MockedActor("callManager").asRef(system));
+        builder.setConferenceCenter(conferenceCenter);
+        builder.setAccount(ACCOUNT_SID);
+        builder.setVersion("2012-04-24");
+        builder.setUrl(requestUri);
+        builder.setMethod("GET");
+        builder.setAsImsUa(false);
+
+        final Props props = new Props(new UntypedActorFactory() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public Actor create() throws Exception {
+                return new VoiceInterpreter(builder.build()) {
+                    @Override
+                    protected ActorRef downloader() {
+                        return observer;
+                    }
+
+                    @Override
+                    protected ActorRef httpAsycClientHelper() {
+                        return observer;
+                    }
+                };
+            }
+        });
+        return TestActorRef.create(system, props, "VoiceInterpreter" + System.currentTimeMillis());
+    }
+
+    private HttpResponseDescriptor getOkRcml(URI uri, String rcml) {
+        HttpResponseDescriptor.Builder builder = HttpResponseDescriptor.builder();
+        builder.setURI(uri);
+        builder.setStatusCode(200);
+        builder.setStatusDescription("OK");
+        builder.setContent(rcml);
+        builder.setContentLength(rcml.length());
+        builder.setContentType("text/xml");
+        return builder.build();
+    }
+
+    /**
+     * Skips the messages the test does not care about until one of the given class arrives.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T receive(final JavaTestKit probe, final Class<T> klass) {
+        while (true) {
+            final Object message = probe.receiveN(1, probe.duration("10 seconds"))[0];
+            if (klass.isInstance(message)) {
+                return (T) message;
+            }
+        }
+    }
+
+    @Test
+    public void testCallRefusedByConferenceIsHungUp() throws Exception {
+        new JavaTestKit(system) {
+            {
+                final ActorRef observer = getRef();
+                final JavaTestKit conferenceCenter = new JavaTestKit(system);
+                final JavaTestKit conference = new JavaTestKit(system);
+                final ActorRef interpreter = createVoiceInterpreter(observer, conferenceCenter.getRef());
+                interpreter.tell(new StartInterpreter(observer), observer);
+
+                expectMsgClass(GetCallInfo.class);
+                interpreter.tell(new CallResponse(new CallInfo(
+                        new Sid("CAae6e420f425248d6a26948c17a9e2acf"),
+                        ACCOUNT_SID,
+                        CallStateChanged.State.IN_PROGRESS,
+                        CreateCallType.SIP,
+                        "inbound",
+                        new DateTime(),
+                        null,
+                        "test", "test",
+                        "testTo",
+                        null,
+                        null,
+                        false,
+                        false,
+                        false,
+                        new DateTime(),
+                        new MediaAttributes())), observer);
+                expectMsgClass(Observe.class);
+
+                HttpRequestDescriptor callback = expectMsgClass(HttpRequestDescriptor.class);
+                assertEquals(requestUri, callback.getUri());
+                interpreter.tell(new DownloaderResponse(getOkRcml(requestUri, conferenceRcml)), observer);
+
+                final CreateConference create = receive(conferenceCenter, CreateConference.class);
+                assertTrue(create.name().endsWith(":room"));
+                interpreter.tell(new ConferenceCenterResponse(conference.getRef()), conferenceCenter.getRef());
+
+                receive(conference, GetConferenceInfo.class);
+                final Sid conferenceSid = Sid.generate(Sid.Type.CONFERENCE);
+                interpreter.tell(new ConferenceResponse<ConferenceInfo>(new ConferenceInfo(conferenceSid,
+                        new ArrayList<ActorRef>(), ConferenceStateChanged.State.RUNNING_MODERATOR_ABSENT, create.name(),
+                        false, 0)), conference.getRef());
+
+                // The room is full, the conference refuses the call.
+                final AddParticipant add = receive(conference, AddParticipant.class);
+                assertSame(observer, add.call());
+                interpreter.tell(new ConferenceStateChanged(create.name(), ConferenceStateChanged.State.FAILED),
+                        conference.getRef());
+
+                receive(this, Hangup.class);
+            }
+        };
+    }
+}
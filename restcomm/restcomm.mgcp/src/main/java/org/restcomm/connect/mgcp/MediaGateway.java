@@ -20,6 +20,7 @@
 package org.restcomm.connect.mgcp;
 import akka.actor.Actor;
 import akka.actor.ActorRef;
+import akka.actor.Cancellable;
 import akka.actor.Props;
 import akka.actor.UntypedActor;
 import akka.actor.UntypedActorContext;
@@ -40,17 +41,39 @@ import jain.protocol.ip.mgcp.message.parms.ConnectionIdentifier;
 import jain.protocol.ip.mgcp.message.parms.EventName;
 import jain.protocol.ip.mgcp.message.parms.NotifiedEntity;
 import org.restcomm.connect.commons.faulttolerance.RestcommUntypedActor;
+import org.restcomm.connect.commons.metrics.Gauge;
+import org.restcomm.connect.commons.metrics.Histogram;
+import org.restcomm.connect.commons.metrics.MetricsRegistry;
 import org.restcomm.connect.commons.util.RevolvingCounter;
+import scala.concurrent.duration.Duration;
+import scala.concurrent.duration.FiniteDuration;
 
 import java.net.InetAddress;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.TooManyListenersException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * When powered on with more than one partition the gateway spawns partition workers, each one a MediaGateway
+ * child with its own mailbox and its own ranges of transaction, request and session ids. Creation requests
+ * are spread round robin over the partitions and the endpoints, connections and links created by a partition
+ * send their MGCP commands through it. Only the first partition is registered as JAIN MGCP listener, the
+ * listener tables are shared so responses and NOTIFYs are dispatched straight to the owning actor.
+ * <p>
+ * Every partition counts the MGCP transactions it sent and has no response for yet. A transaction left without
+ * response for twice the gateway timeout is dropped, its listener has given up on it by then.
+ *
  * @author quintana.thomas@gmail.com (Thomas Quintana)
  */
 public final class MediaGateway extends RestcommUntypedActor implements JainMgcpListener {
+    public static final String ROUND_TRIP_METRIC = "MgcpRoundTripMicros";
+    public static final String IN_FLIGHT_METRIC = "MgcpGatewayInFlight";
+    // MGCP transaction identifiers are limited to 9 digits.
+    private static final long MAX_PARTITIONED_ID = 999999999L;
+
     private final LoggingAdapter logger = Logging.getLogger(getContext().system(), this);
     // MediaGateway connection information.
     private String name;
@@ -72,16 +95,97 @@ public final class MediaGateway extends RestcommUntypedActor implements JainMgcp
     private String domain;
     // Message responseListeners.
     private Map<String, ActorRef> notificationListeners;
-    private Map<Integer, ActorRef> responseListeners;
+    private Map<Integer, PendingTransaction> responseListeners;
     // Runtime stuff.
     private RevolvingCounter requestIdPool;
     private RevolvingCounter sessionIdPool;
     private RevolvingCounter transactionIdPool;
+    // Partitioning.
+    private final int partition;
+    private ActorRef[] partitions;
+    private int nextPartition;
+    // Metrics.
+    private final Histogram roundTrip;
+    private final Histogram inFlightDepth;
+    // Decremented by the JAIN MGCP stack thread that delivers the response.
+    private final AtomicInteger inFlight;
+    private Cancellable expiry;
 
     public MediaGateway() {
+        this(0, new ConcurrentHashMap<String, ActorRef>(), new ConcurrentHashMap<Integer, PendingTransaction>());
+    }
+
+    private MediaGateway(final int partition, final Map<String, ActorRef> notificationListeners,
+            final Map<Integer, PendingTransaction> responseListeners) {
         super();
-        notificationListeners = new ConcurrentHashMap<String, ActorRef>();
-        responseListeners = new ConcurrentHashMap<Integer, ActorRef>();
+        this.partition = partition;
+        this.notificationListeners = notificationListeners;
+        this.responseListeners = responseListeners;
+        this.roundTrip = MetricsRegistry.getInstance().histogram(ROUND_TRIP_METRIC);
+        this.inFlightDepth = MetricsRegistry.getInstance().histogram(IN_FLIGHT_METRIC + "." + partition);
+        this.inFlight = new AtomicInteger();
+    }
+
+    private ActorRef getPartition(final int index) {
+        final Map<String, ActorRef> notificationListeners = this.notificationListeners;
+        final Map<Integer, PendingTransaction> responseListeners = this.responseListeners;
+        final Props props = new Props(new UntypedActorFactory() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public UntypedActor create() throws Exception {
+                return new MediaGateway(index, notificationListeners, responseListeners);
+            }
+        });
+        return getContext().actorOf(props, "partition-" + index);
+    }
+
+    private ActorRef nextPartition() {
+        if (partitions == null) {
+            return self();
+        }
+        final ActorRef next = partitions[nextPartition];
+        nextPartition = (nextPartition + 1) % partitions.length;
+        return next;
+    }
+
+    /**
+     * @return the partition that created the given actor, endpoints and connections can only be stopped by it.
+     */
+    private ActorRef ownerOf(final ActorRef child) {
+        if (partitions == null || child == null) {
+            return self();
+        }
+        final akka.actor.ActorPath parent = child.path().parent();
+        for (final ActorRef candidate : partitions) {
+            if (candidate.path().equals(parent)) {
+                return candidate;
+            }
+        }
+        return self();
+    }
+
+    private RevolvingCounter idPool(final int count) {
+        if (count <= 1) {
+            return new RevolvingCounter(1, Long.MAX_VALUE);
+        }
+        final long span = MAX_PARTITIONED_ID / count;
+        return new RevolvingCounter(partition * span + 1, (partition + 1) * span);
+    }
+
+    /**
+     * Drops the transactions of this partition that are still without response after twice the gateway timeout.
+     */
+    private void expireTransactions() {
+        final long expired = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(2 * timeout);
+        final Iterator<PendingTransaction> iterator = responseListeners.values().iterator();
+        while (iterator.hasNext()) {
+            final PendingTransaction transaction = iterator.next();
+            if (transaction.inFlight == inFlight && transaction.sent - expired < 0) {
+                iterator.remove();
+                inFlight.decrementAndGet();
+            }
+        }
     }
 
     private ActorRef getConnection(final Object message) {
@@ -206,12 +310,24 @@ public final class MediaGateway extends RestcommUntypedActor implements JainMgcp
     }
 
     private void powerOff(final Object message) {
+        if (expiry != null) {
+            expiry.cancel();
+            expiry = null;
+        }
+        if (partitions != null) {
+            for (int i = 1; i < partitions.length; i++) {
+                getContext().stop(partitions[i]);
+            }
+            partitions = null;
+        }
         // Clean up the JAIN MGCP provider.
-        try {
-            provider.removeJainMgcpListener(this);
-            stack.deleteProvider(provider);
-        } catch (final DeleteProviderException exception) {
-            logger.error(exception, "Could not clean up the JAIN MGCP provider.");
+        if (partition == 0) {
+            try {
+                provider.removeJainMgcpListener(this);
+                stack.deleteProvider(provider);
+            } catch (final DeleteProviderException exception) {
+                logger.error(exception, "Could not clean up the JAIN MGCP provider.");
+            }
         }
         // Make sure we don't leave anything behind.
         name = null;
@@ -226,7 +342,10 @@ public final class MediaGateway extends RestcommUntypedActor implements JainMgcp
         stack = null;
         agent = null;
         domain = null;
-        responseListeners.clear();
+        if (partition == 0) {
+            responseListeners.clear();
+        }
+        inFlight.set(0);
         responseListeners = null;
         requestIdPool = null;
         sessionIdPool = null;
@@ -245,21 +364,48 @@ public final class MediaGateway extends RestcommUntypedActor implements JainMgcp
         timeout = request.getTimeout();
         stack = request.getStack();
         provider = request.getProvider();
-        //stack = new JainMgcpStackImpl(localIp, localPort);
-        try {
-            //provider = stack.createProvider();
-            provider.addJainMgcpListener(this);
-        } catch (final TooManyListenersException exception) {
-        //} catch (final CreateProviderException exception) {
-            logger.error(exception, "Could not create a JAIN MGCP provider.");
+        final int count = request.getPartitions();
+        if (partition == 0) {
+            //stack = new JainMgcpStackImpl(localIp, localPort);
+            try {
+                //provider = stack.createProvider();
+                provider.addJainMgcpListener(this);
+            } catch (final TooManyListenersException exception) {
+            //} catch (final CreateProviderException exception) {
+                logger.error(exception, "Could not create a JAIN MGCP provider.");
+            }
+            notificationListeners.clear();
+            responseListeners.clear();
         }
         agent = new NotifiedEntity("restcomm", localIp.getHostAddress(), localPort);
         domain = new StringBuilder().append(remoteIp.getHostAddress()).append(":").append(remotePort).toString();
-        notificationListeners.clear();
-        responseListeners.clear();
-        requestIdPool = new RevolvingCounter(1, Long.MAX_VALUE);
-        sessionIdPool = new RevolvingCounter(1, Long.MAX_VALUE);
-        transactionIdPool = new RevolvingCounter(1, Long.MAX_VALUE);
+        requestIdPool = idPool(count);
+        sessionIdPool = idPool(count);
+        transactionIdPool = idPool(count);
+        final AtomicInteger inFlight = this.inFlight;
+        MetricsRegistry.getInstance().register(IN_FLIGHT_METRIC + ".Current." + partition, new Gauge() {
+            @Override
+            public long value() {
+                return inFlight.get();
+            }
+        });
+        if (timeout > 0) {
+            final FiniteDuration interval = Duration.create(timeout, TimeUnit.MILLISECONDS);
+            expiry = getContext().system().scheduler().schedule(interval, interval, self(), new ExpireTransactions(),
+                    getContext().dispatcher());
+        }
+        if (partition == 0 && count > 1) {
+            partitions = new ActorRef[count];
+            partitions[0] = self();
+            for (int i = 1; i < count; i++) {
+                partitions[i] = getPartition(i);
+                partitions[i].tell(message, self());
+            }
+            nextPartition = 0;
+            if (logger.isInfoEnabled()) {
+                logger.info("MediaGateway " + name + " powered on with " + count + " partitions");
+            }
+        }
     }
 
     private boolean isPartialNotify(final Notify notify) {
@@ -291,9 +437,11 @@ public final class MediaGateway extends RestcommUntypedActor implements JainMgcp
     @Override
     public void processMgcpResponseEvent(final JainMgcpResponseEvent event) {
         final int id = event.getTransactionHandle();
-        final ActorRef listener = responseListeners.remove(id);
-        if (listener != null) {
-            listener.tell(event, self());
+        final PendingTransaction transaction = responseListeners.remove(id);
+        if (transaction != null) {
+            transaction.inFlight.decrementAndGet();
+            roundTrip.recordSince(transaction.sent);
+            transaction.listener.tell(event, self());
         }
     }
 
@@ -305,14 +453,25 @@ public final class MediaGateway extends RestcommUntypedActor implements JainMgcp
         final ActorRef sender = sender();
 
         if (logger.isDebugEnabled()){
-            logger.debug("MediaGateway onReceive. self.isTerminated: "+self.isTerminated()+" | Processing "+klass.getName()+" | object snapshot: \n"+this.toString());
+            logger.debug("MediaGateway " + partition + " onReceive. self.isTerminated: "+self.isTerminated()+" | Processing "+klass.getName());
         }
         if(self.isTerminated())
             logger.error("MediaGateway is Terminated.");
+        if (partitions != null && isCreationRequest(klass)) {
+            final ActorRef target = nextPartition();
+            if (!self.equals(target)) {
+                target.forward(message, context);
+                return;
+            }
+        }
         if (PowerOnMediaGateway.class.equals(klass)) {
             powerOn(message);
         } else if (PowerOffMediaGateway.class.equals(klass)) {
             powerOff(message);
+        } else if (ExpireTransactions.class.equals(klass)) {
+            if (responseListeners != null) {
+                expireTransactions();
+            }
         } else if (GetMediaGatewayInfo.class.equals(klass)) {
             sender.tell(new MediaGatewayResponse<MediaGatewayInfo>(getInfo(message)), sender);
         } else if (CreateConnection.class.equals(klass)) {
@@ -335,13 +494,25 @@ public final class MediaGateway extends RestcommUntypedActor implements JainMgcp
             sender.tell(new MediaGatewayResponse<ActorRef>(endpoint), self);
         } else if (DestroyConnection.class.equals(klass)) {
             final DestroyConnection request = (DestroyConnection) message;
-            if (request.connection() != null)
+            final ActorRef owner = ownerOf(request.connection());
+            if (!self.equals(owner)) {
+                owner.forward(message, context);
+            } else if (request.connection() != null)
                 context.stop(request.connection());
         } else if (DestroyLink.class.equals(klass)) {
             final DestroyLink request = (DestroyLink) message;
-            context.stop(request.link());
+            final ActorRef owner = ownerOf(request.link());
+            if (!self.equals(owner)) {
+                owner.forward(message, context);
+            } else
+                context.stop(request.link());
         } else if (DestroyEndpoint.class.equals(klass)) {
             final DestroyEndpoint request = (DestroyEndpoint) message;
+            final ActorRef owner = ownerOf(request.endpoint());
+            if (!self.equals(owner)) {
+                owner.forward(message, context);
+                return;
+            }
             if (logger.isInfoEnabled())
                 logger.info("Gateway: "+self().path()+" about to stop endpoint path: "+request.endpoint().path()+" isTerminated: "+request.endpoint().isTerminated()+" sender: "+sender().path());
             while (notificationListeners.containsValue(request.endpoint())) {
@@ -355,11 +526,19 @@ public final class MediaGateway extends RestcommUntypedActor implements JainMgcp
         }
     }
 
+    private boolean isCreationRequest(final Class<?> klass) {
+        return CreateConnection.class.equals(klass) || CreateLink.class.equals(klass)
+                || CreateMediaSession.class.equals(klass) || CreateBridgeEndpoint.class.equals(klass)
+                || CreatePacketRelayEndpoint.class.equals(klass) || CreateIvrEndpoint.class.equals(klass)
+                || CreateConferenceEndpoint.class.equals(klass);
+    }
+
     private void send(final Object message, final ActorRef sender) {
         final JainMgcpCommandEvent command = (JainMgcpCommandEvent) message;
         final int transactionId = (int) transactionIdPool.get();
         command.setTransactionHandle(transactionId);
-        responseListeners.put(transactionId, sender);
+        responseListeners.put(transactionId, new PendingTransaction(sender, System.nanoTime(), inFlight));
+        inFlightDepth.record(inFlight.incrementAndGet());
         if (NotificationRequest.class.equals(command.getClass())) {
             final NotificationRequest request = (NotificationRequest) command;
             final String id = Long.toString(requestIdPool.get());
@@ -376,7 +555,7 @@ public final class MediaGateway extends RestcommUntypedActor implements JainMgcp
 
     @Override
     public String toString() {
-        return "MediaGateway [logger=" + logger + ", name=" + name + ", localIp=" + localIp + ", localPort=" + localPort
+        return "MediaGateway [logger=" + logger + ", partition=" + partition + ", name=" + name + ", localIp=" + localIp + ", localPort=" + localPort
                 + ", remoteIp=" + remoteIp + ", remotePort=" + remotePort + ", useNat=" + useNat + ", externalIp="
                 + externalIp + ", timeout=" + timeout + ", provider=" + provider + ", stack=" + stack + ", agent="
                 + agent + ", domain=" + domain + ", notificationListeners=" + notificationListeners
@@ -384,8 +563,33 @@ public final class MediaGateway extends RestcommUntypedActor implements JainMgcp
                 + sessionIdPool + ", transactionIdPool=" + transactionIdPool + "]";
     }
 
+    private static final class ExpireTransactions {
+    }
+
+    private static final class PendingTransaction {
+        private final ActorRef listener;
+        private final long sent;
+        // The counter of the partition that sent the command.
+        private final AtomicInteger inFlight;
+
+        private PendingTransaction(final ActorRef listener, final long sent, final AtomicInteger inFlight) {
+            this.listener = listener;
+            this.sent = sent;
+            this.inFlight = inFlight;
+        }
+
+        @Override
+        public String toString() {
+            return listener.toString();
+        }
+    }
+
     @Override
     public void postStop() {
+        if (expiry != null) {
+            expiry.cancel();
+        }
+        MetricsRegistry.getInstance().unregister(IN_FLIGHT_METRIC + ".Current." + partition);
         if (logger.isDebugEnabled()){
             logger.debug("MediaGateway at postStop, here is object snapshot: \n"+this.toString());
         }
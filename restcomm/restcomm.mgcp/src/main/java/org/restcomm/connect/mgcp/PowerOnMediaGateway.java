@@ -45,10 +45,18 @@ public final class PowerOnMediaGateway {
     private final JainMgcpStack stack;
     private final JainMgcpProvider provider;
     private final ActorRef monitoringService;
+    // Number of gateway workers sharing the MGCP traffic, 1 disables partitioning.
+    private final int partitions;
 
     public PowerOnMediaGateway(final String name, final InetAddress localIp, final int localPort, final InetAddress remoteIp,
             final int remotePort, final boolean useNat, final InetAddress externalIp, final long timeout, final JainMgcpStack stack,
                                final JainMgcpProvider provider, final ActorRef monitoringService) {
+        this(name, localIp, localPort, remoteIp, remotePort, useNat, externalIp, timeout, stack, provider, monitoringService, 1);
+    }
+
+    public PowerOnMediaGateway(final String name, final InetAddress localIp, final int localPort, final InetAddress remoteIp,
+            final int remotePort, final boolean useNat, final InetAddress externalIp, final long timeout, final JainMgcpStack stack,
+                               final JainMgcpProvider provider, final ActorRef monitoringService, final int partitions) {
         super();
         this.name = name;
         this.localIp = localIp;
@@ -61,6 +69,7 @@ public final class PowerOnMediaGateway {
         this.stack = stack;
         this.provider = provider;
         this.monitoringService = monitoringService;
+        this.partitions = partitions < 1 ? 1 : partitions;
     }
 
     public static Builder builder() {
@@ -111,6 +120,10 @@ public final class PowerOnMediaGateway {
         return monitoringService;
     }
 
+    public int getPartitions() {
+        return partitions;
+    }
+
     public static final class Builder {
         private String name;
         private InetAddress localIp;
@@ -123,13 +136,14 @@ public final class PowerOnMediaGateway {
         private JainMgcpStack stack;
         private JainMgcpProvider provider;
         private ActorRef monitoringService;
+        private int partitions = 1;
 
         private Builder() {
             super();
         }
 
         public PowerOnMediaGateway build() {
-            return new PowerOnMediaGateway(name, localIp, localPort, remoteIp, remotePort, useNat, externalIp, timeout, stack, provider, monitoringService);
+            return new PowerOnMediaGateway(name, localIp, localPort, remoteIp, remotePort, useNat, externalIp, timeout, stack, provider, monitoringService, partitions);
         }
 
         public void setName(final String name) {
@@ -175,5 +189,9 @@ public final class PowerOnMediaGateway {
         public void setMonitoringService (ActorRef monitoringService) {
             this.monitoringService = monitoringService;
         }
+
+        public void setPartitions(final int partitions) {
+            this.partitions = partitions;
+        }
     }
 }
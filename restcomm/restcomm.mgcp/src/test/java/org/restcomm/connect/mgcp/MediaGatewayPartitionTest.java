@@ -0,0 +1,130 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.mgcp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.net.InetAddress;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.restcomm.connect.commons.metrics.MetricsRegistry;
+
+import akka.actor.ActorPath;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.actor.Terminated;
+import akka.testkit.JavaTestKit;
+import jain.protocol.ip.mgcp.JainMgcpProvider;
+import jain.protocol.ip.mgcp.JainMgcpStack;
+
+public class MediaGatewayPartitionTest {
+    private static ActorSystem system;
+
+    @BeforeClass
+    public static void before() throws Exception {
+        system = ActorSystem.create();
+    }
+
+    @AfterClass
+    public static void after() throws Exception {
+        system.shutdown();
+    }
+
+    private static PowerOnMediaGateway powerOn(final int partitions) {
+        final PowerOnMediaGateway.Builder builder = PowerOnMediaGateway.builder();
+        builder.setName("test");
+        builder.setLocalIP(InetAddress.getLoopbackAddress());
+        builder.setLocalPort(2727);
+        builder.setRemoteIP(InetAddress.getLoopbackAddress());
+        builder.setRemotePort(2427);
+        builder.setTimeout(500);
+        builder.setStack(mock(JainMgcpStack.class));
+        builder.setProvider(mock(JainMgcpProvider.class));
+        builder.setPartitions(partitions);
+        return builder.build();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testCreationRequestsAreSpreadOverPartitions() {
+        new JavaTestKit(system) {
+            {
+                final ActorRef observer = getRef();
+                final ActorRef gateway = system.actorOf(new Props(MediaGateway.class));
+                gateway.tell(powerOn(3), observer);
+
+                // Sessions come from disjoint id ranges, one per partition.
+                final Set<Integer> ranges = new HashSet<Integer>();
+                MediaSession session = null;
+                for (int i = 0; i < 3; i++) {
+                    gateway.tell(new CreateMediaSession(), observer);
+                    final MediaGatewayResponse<MediaSession> response = expectMsgClass(MediaGatewayResponse.class);
+                    assertTrue(response.succeeded());
+                    session = response.get();
+                    ranges.add(session.id() / 333333333);
+                }
+                assertEquals(3, ranges.size());
+
+                // Endpoints are created, and owned, by different partitions.
+                final Set<ActorPath> owners = new HashSet<ActorPath>();
+                ActorRef endpoint = null;
+                for (int i = 0; i < 3; i++) {
+                    gateway.tell(new CreateBridgeEndpoint(session), observer);
+                    final MediaGatewayResponse<ActorRef> response = expectMsgClass(MediaGatewayResponse.class);
+                    assertTrue(response.succeeded());
+                    endpoint = response.get();
+                    owners.add(endpoint.path().parent());
+                }
+                assertEquals(3, owners.size());
+
+                // Destroying through the gateway reaches the owning partition.
+                watch(endpoint);
+                gateway.tell(new DestroyEndpoint(endpoint), observer);
+                expectMsgClass(Terminated.class);
+
+                assertTrue(MetricsRegistry.getInstance().gauges(MediaGateway.IN_FLIGHT_METRIC).size() >= 3);
+                gateway.tell(new PowerOffMediaGateway(), observer);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testSinglePartitionKeepsOneGateway() {
+        new JavaTestKit(system) {
+            {
+                final ActorRef observer = getRef();
+                final ActorRef gateway = system.actorOf(new Props(MediaGateway.class));
+                gateway.tell(powerOn(1), observer);
+                gateway.tell(new CreateBridgeEndpoint(new MediaSession(1)), observer);
+                final MediaGatewayResponse<ActorRef> response = expectMsgClass(MediaGatewayResponse.class);
+                assertEquals(gateway.path(), response.get().path().parent());
+                gateway.tell(new PowerOffMediaGateway(), observer);
+            }
+        };
+    }
+}
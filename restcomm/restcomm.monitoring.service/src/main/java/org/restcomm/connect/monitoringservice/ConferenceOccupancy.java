@@ -0,0 +1,249 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.monitoringservice;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.commons.metrics.Gauge;
+import org.restcomm.connect.commons.metrics.MetricsRegistry;
+
+/**
+ * In memory view of the conference rooms of this instance, the media server mixing each of them and their participants.
+ * <p>
+ * The MediaResourceBroker places a new room on the least loaded media server, the Conference actors then ask for a
+ * seat before joining a call and give it back when the call leaves. A seat is refused once the room or its media server
+ * reached its budget, zero meaning no limit. Participants of a room joined through another instance are not counted.
+ * Reads are lock free, updates are serialized.
+ */
+@ThreadSafe
+public final class ConferenceOccupancy {
+    private static final ConferenceOccupancy instance = new ConferenceOccupancy();
+
+    private final Map<Sid, Room> rooms;
+    private final Map<String, AtomicInteger> mediaServers;
+    private final AtomicInteger participants;
+    private final AtomicLong rejected;
+    private volatile int maxParticipantsPerRoom;
+    private volatile int maxParticipantsPerMediaServer;
+
+    private ConferenceOccupancy() {
+        super();
+        rooms = new ConcurrentHashMap<Sid, Room>();
+        mediaServers = new ConcurrentHashMap<String, AtomicInteger>();
+        participants = new AtomicInteger();
+        rejected = new AtomicLong();
+        final MetricsRegistry registry = MetricsRegistry.getInstance();
+        registry.register(MonitoringMetrics.CONFERENCE_METRICS_PREFIX + ".Rooms", new Gauge() {
+            @Override
+            public long value() {
+                return rooms.size();
+            }
+        });
+        registry.register(MonitoringMetrics.CONFERENCE_METRICS_PREFIX + ".Participants", new Gauge() {
+            @Override
+            public long value() {
+                return participants.get();
+            }
+        });
+        registry.register(MonitoringMetrics.CONFERENCE_METRICS_PREFIX + ".Rejected", new Gauge() {
+            @Override
+            public long value() {
+                return rejected.get();
+            }
+        });
+    }
+
+    public static ConferenceOccupancy getInstance() {
+        return instance;
+    }
+
+    public int getMaxParticipantsPerRoom() {
+        return maxParticipantsPerRoom;
+    }
+
+    public void setMaxParticipantsPerRoom(final int maxParticipantsPerRoom) {
+        this.maxParticipantsPerRoom = Math.max(0, maxParticipantsPerRoom);
+    }
+
+    public int getMaxParticipantsPerMediaServer() {
+        return maxParticipantsPerMediaServer;
+    }
+
+    public void setMaxParticipantsPerMediaServer(final int maxParticipantsPerMediaServer) {
+        this.maxParticipantsPerMediaServer = Math.max(0, maxParticipantsPerMediaServer);
+    }
+
+    /**
+     * Places the room on a media server unless it is placed already.
+     *
+     * @param candidates the ids of the media servers able to mix the room
+     * @param preferred the media server to keep if it is one of the candidates, e.g. the one already mixing the room on
+     *        another instance, may be null
+     * @return the id of the media server mixing the room
+     */
+    public synchronized String place(final Sid conferenceSid, final Collection<String> candidates, final String preferred) {
+        Room room = rooms.get(conferenceSid);
+        if (room == null || room.msId == null) {
+            final String msId = preferred != null && candidates.contains(preferred) ? preferred : leastLoaded(candidates);
+            if (msId == null) {
+                return null;
+            }
+            if (room == null) {
+                room = new Room(msId);
+                rooms.put(conferenceSid, room);
+            } else {
+                room.msId = msId;
+            }
+            mediaServer(msId).addAndGet(room.participants);
+        }
+        return room.msId;
+    }
+
+    /**
+     * @return the candidate mixing the fewest participants, the first one on a tie
+     */
+    public String leastLoaded(final Collection<String> candidates) {
+        String leastLoaded = null;
+        int lowest = Integer.MAX_VALUE;
+        for (String msId : candidates) {
+            final AtomicInteger load = mediaServers.get(msId);
+            final int current = load == null ? 0 : load.get();
+            if (current < lowest) {
+                leastLoaded = msId;
+                lowest = current;
+            }
+        }
+        return leastLoaded;
+    }
+
+    /**
+     * Takes a seat in the room for a joining participant.
+     *
+     * @return false if the room or its media server is full
+     */
+    public synchronized boolean admit(final Sid conferenceSid) {
+        Room room = rooms.get(conferenceSid);
+        if (room == null) {
+            // The room was not placed by the broker, only its own budget applies.
+            room = new Room(null);
+            rooms.put(conferenceSid, room);
+        }
+        final AtomicInteger mediaServer = room.msId == null ? null : mediaServer(room.msId);
+        if ((maxParticipantsPerRoom > 0 && room.participants >= maxParticipantsPerRoom)
+                || (mediaServer != null && maxParticipantsPerMediaServer > 0 && mediaServer.get() >= maxParticipantsPerMediaServer)) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        room.participants++;
+        participants.incrementAndGet();
+        if (mediaServer != null) {
+            mediaServer.incrementAndGet();
+        }
+        return true;
+    }
+
+    /**
+     * Gives back the seat of a participant that left the room.
+     */
+    public synchronized void release(final Sid conferenceSid) {
+        final Room room = conferenceSid == null ? null : rooms.get(conferenceSid);
+        if (room == null || room.participants == 0) {
+            return;
+        }
+        room.participants--;
+        participants.decrementAndGet();
+        if (room.msId != null) {
+            mediaServer(room.msId).decrementAndGet();
+        }
+    }
+
+    /**
+     * Gives back the given seats and forgets the room once nobody is left in it. A room may still have seats when a new
+     * Conference actor took it over while the previous one was stopping.
+     */
+    public synchronized void close(final Sid conferenceSid, final int seats) {
+        for (int i = 0; i < seats; i++) {
+            release(conferenceSid);
+        }
+        final Room room = conferenceSid == null ? null : rooms.get(conferenceSid);
+        if (room != null && room.participants == 0) {
+            rooms.remove(conferenceSid);
+        }
+    }
+
+    public String getMediaServer(final Sid conferenceSid) {
+        final Room room = conferenceSid == null ? null : rooms.get(conferenceSid);
+        return room == null ? null : room.msId;
+    }
+
+    public int getParticipants(final Sid conferenceSid) {
+        final Room room = conferenceSid == null ? null : rooms.get(conferenceSid);
+        return room == null ? 0 : room.participants;
+    }
+
+    public int getParticipantsOnMediaServer(final String msId) {
+        final AtomicInteger load = msId == null ? null : mediaServers.get(msId);
+        return load == null ? 0 : load.get();
+    }
+
+    public int getRooms() {
+        return rooms.size();
+    }
+
+    public int getParticipants() {
+        return participants.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    private AtomicInteger mediaServer(final String msId) {
+        AtomicInteger load = mediaServers.get(msId);
+        if (load == null) {
+            final AtomicInteger created = new AtomicInteger();
+            load = created;
+            mediaServers.put(msId, created);
+            MetricsRegistry.getInstance().register(MonitoringMetrics.CONFERENCE_METRICS_PREFIX + ".MediaServer." + msId + ".Participants", new Gauge() {
+                @Override
+                public long value() {
+                    return created.get();
+                }
+            });
+        }
+        return load;
+    }
+
+    private static final class Room {
+        private volatile String msId;
+        private volatile int participants;
+
+        private Room(final String msId) {
+            super();
+            this.msId = msId;
+        }
+    }
+}
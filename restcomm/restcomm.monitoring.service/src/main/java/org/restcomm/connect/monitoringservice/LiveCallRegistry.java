@@ -0,0 +1,342 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.monitoringservice;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.sip.Address;
+import javax.servlet.sip.ServletParseException;
+import javax.sip.header.ContactHeader;
+
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.telephony.api.CallInfo;
+import org.restcomm.connect.telephony.api.CallStateChanged;
+
+import akka.actor.ActorRef;
+
+/**
+ * In memory registry of the calls of this instance that are alive, indexed by call sid, SIP Call-ID, Contact of the
+ * initial INVITE, account and conference, with the count of in-progress calls per account and per client.
+ * <p>
+ * The Call actors keep their own entry up to date, from creation until they stop, so the endpoints, the CallManager and
+ * the {@link MonitoringService} can look up a call and its latest {@link CallInfo} without asking any actor.
+ * Reads are lock free, updates are serialized.
+ */
+@ThreadSafe
+public final class LiveCallRegistry {
+    private static final LiveCallRegistry instance = new LiveCallRegistry();
+
+    private final Map<ActorRef, LiveCall> calls;
+    private final Map<Sid, LiveCall> callSids;
+    private final Map<String, LiveCall> sipCallIds;
+    private final Map<String, LiveCall> locations;
+    private final Map<Sid, Set<LiveCall>> accounts;
+    private final Map<Sid, Set<LiveCall>> conferences;
+    private final Map<Sid, Integer> inProgressByAccount;
+    private final Map<String, Integer> inProgressByClient;
+    private final AtomicInteger inbound;
+    private final AtomicInteger outbound;
+
+    private LiveCallRegistry() {
+        super();
+        calls = new ConcurrentHashMap<ActorRef, LiveCall>();
+        callSids = new ConcurrentHashMap<Sid, LiveCall>();
+        sipCallIds = new ConcurrentHashMap<String, LiveCall>();
+        locations = new ConcurrentHashMap<String, LiveCall>();
+        accounts = new ConcurrentHashMap<Sid, Set<LiveCall>>();
+        conferences = new ConcurrentHashMap<Sid, Set<LiveCall>>();
+        inProgressByAccount = new ConcurrentHashMap<Sid, Integer>();
+        inProgressByClient = new ConcurrentHashMap<String, Integer>();
+        inbound = new AtomicInteger();
+        outbound = new AtomicInteger();
+    }
+
+    public static LiveCallRegistry getInstance() {
+        return instance;
+    }
+
+    public LiveCall get(final ActorRef call) {
+        return call == null ? null : calls.get(call);
+    }
+
+    public LiveCall getByCallSid(final Sid callSid) {
+        return callSid == null ? null : callSids.get(callSid);
+    }
+
+    public LiveCall getBySipCallId(final String sipCallId) {
+        return sipCallId == null ? null : sipCallIds.get(sipCallId);
+    }
+
+    /**
+     * @param location the URI of the Contact header of the initial INVITE
+     */
+    public LiveCall getByLocation(final String location) {
+        return location == null ? null : locations.get(location);
+    }
+
+    public List<LiveCall> getByAccountSid(final Sid accountSid) {
+        return list(accountSid == null ? null : accounts.get(accountSid));
+    }
+
+    /**
+     * @return the calls of this instance that are in the conference
+     */
+    public List<LiveCall> getByConferenceSid(final Sid conferenceSid) {
+        return list(conferenceSid == null ? null : conferences.get(conferenceSid));
+    }
+
+    public List<LiveCall> getCalls() {
+        return list(calls.values());
+    }
+
+    public int size() {
+        return calls.size();
+    }
+
+    public int getInboundCalls() {
+        return inbound.get();
+    }
+
+    /**
+     * @return the outbound calls, either created by the API or by a Dial
+     */
+    public int getOutboundCalls() {
+        return outbound.get();
+    }
+
+    /**
+     * @return the in-progress calls of the account, the legs created by a Dial are not counted
+     */
+    public int getInProgressCallsByAccountSid(final Sid accountSid) {
+        return value(accountSid == null ? null : inProgressByAccount.get(accountSid));
+    }
+
+    /**
+     * @param client the from of the calls, the client name for the calls placed by a client
+     * @return the in-progress calls from the client, the legs created by a Dial are not counted
+     */
+    public int getInProgressCallsByClientName(final String client) {
+        return value(client == null ? null : inProgressByClient.get(client));
+    }
+
+    /**
+     * Registers the call if needed and indexes it with the given info. A null info, as returned by a call that is not
+     * initialized yet, only registers the call. The other setters register the call as well.
+     */
+    public synchronized void update(final ActorRef call, final CallInfo info) {
+        final LiveCall liveCall = register(call);
+        if (liveCall == null || info == null) {
+            return;
+        }
+        final CallInfo previous = liveCall.info;
+        liveCall.info = info;
+        if (previous == null) {
+            callSids.put(info.sid(), liveCall);
+            add(accounts, info.accountSid(), liveCall);
+        } else {
+            count(previous, -1);
+        }
+        count(info, 1);
+        reindex(sipCallIds, sipCallId(previous), sipCallId(info), liveCall);
+        reindex(locations, location(previous), location(info), liveCall);
+    }
+
+    /**
+     * @param interpreter the observer driving the call, null when the call is no longer observed
+     */
+    public synchronized void setInterpreter(final ActorRef call, final ActorRef interpreter) {
+        final LiveCall liveCall = register(call);
+        if (liveCall != null) {
+            liveCall.interpreter = interpreter;
+        }
+    }
+
+    /**
+     * @param conferenceSid the conference the call joined, null when the call left it
+     */
+    public synchronized void setConference(final ActorRef call, final Sid conferenceSid) {
+        final LiveCall liveCall = register(call);
+        if (liveCall == null) {
+            return;
+        }
+        remove(conferences, liveCall.conferenceSid, liveCall);
+        liveCall.conferenceSid = conferenceSid;
+        add(conferences, conferenceSid, liveCall);
+    }
+
+    public synchronized void remove(final ActorRef call) {
+        final LiveCall liveCall = call == null ? null : calls.remove(call);
+        if (liveCall == null) {
+            return;
+        }
+        remove(conferences, liveCall.conferenceSid, liveCall);
+        final CallInfo info = liveCall.info;
+        if (info != null) {
+            remove(callSids, info.sid(), liveCall);
+            remove(sipCallIds, sipCallId(info), liveCall);
+            remove(locations, location(info), liveCall);
+            remove(accounts, info.accountSid(), liveCall);
+            count(info, -1);
+        }
+    }
+
+    private void count(final CallInfo info, final int delta) {
+        if ("inbound".equalsIgnoreCase(info.direction())) {
+            inbound.addAndGet(delta);
+        } else if (info.direction() != null && info.direction().contains("outbound")) {
+            outbound.addAndGet(delta);
+        }
+        // Legs created by a Dial have a parent call and are not counted, like in the call detail records queries.
+        if (CallStateChanged.State.IN_PROGRESS.equals(info.state()) && !"outbound-dial".equals(info.direction())) {
+            add(inProgressByAccount, info.accountSid(), delta);
+            add(inProgressByClient, info.from(), delta);
+        }
+    }
+
+    private static <K> void add(final Map<K, Integer> counts, final K key, final int delta) {
+        if (key == null) {
+            return;
+        }
+        final int count = value(counts.get(key)) + delta;
+        if (count > 0) {
+            counts.put(key, count);
+        } else {
+            counts.remove(key);
+        }
+    }
+
+    private static int value(final Integer count) {
+        return count == null ? 0 : count;
+    }
+
+    private LiveCall register(final ActorRef call) {
+        if (call == null || call.isTerminated()) {
+            return null;
+        }
+        LiveCall liveCall = calls.get(call);
+        if (liveCall == null) {
+            liveCall = new LiveCall(call);
+            calls.put(call, liveCall);
+        }
+        return liveCall;
+    }
+
+    private static String sipCallId(final CallInfo info) {
+        return info == null || info.invite() == null ? null : info.invite().getCallId();
+    }
+
+    private static String location(final CallInfo info) {
+        if (info == null || info.invite() == null) {
+            return null;
+        }
+        try {
+            final Address contact = info.invite().getAddressHeader(ContactHeader.NAME);
+            return contact == null ? null : contact.getURI().toString();
+        } catch (ServletParseException e) {
+            return null;
+        }
+    }
+
+    private static void reindex(final Map<String, LiveCall> index, final String previous, final String key,
+            final LiveCall liveCall) {
+        if (key == null ? previous == null : key.equals(previous)) {
+            return;
+        }
+        remove(index, previous, liveCall);
+        if (key != null) {
+            index.put(key, liveCall);
+        }
+    }
+
+    private static <K> void remove(final Map<K, LiveCall> index, final K key, final LiveCall liveCall) {
+        // Only drop the key if it still points to this call, it may have been taken by a newer one.
+        if (key != null && index.get(key) == liveCall) {
+            index.remove(key);
+        }
+    }
+
+    private static void add(final Map<Sid, Set<LiveCall>> index, final Sid key, final LiveCall liveCall) {
+        if (key == null) {
+            return;
+        }
+        Set<LiveCall> values = index.get(key);
+        if (values == null) {
+            values = Collections.newSetFromMap(new ConcurrentHashMap<LiveCall, Boolean>());
+            index.put(key, values);
+        }
+        values.add(liveCall);
+    }
+
+    private static void remove(final Map<Sid, Set<LiveCall>> index, final Sid key, final LiveCall liveCall) {
+        final Set<LiveCall> values = key == null ? null : index.get(key);
+        if (values != null) {
+            values.remove(liveCall);
+            if (values.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static List<LiveCall> list(final Collection<LiveCall> values) {
+        return values == null ? Collections.<LiveCall>emptyList() : new ArrayList<LiveCall>(values);
+    }
+
+    /**
+     * A call of this instance and the latest state it published.
+     */
+    public static final class LiveCall {
+        private final ActorRef call;
+        private volatile CallInfo info;
+        private volatile ActorRef interpreter;
+        private volatile Sid conferenceSid;
+
+        private LiveCall(final ActorRef call) {
+            super();
+            this.call = call;
+        }
+
+        public ActorRef getCall() {
+            return call;
+        }
+
+        /**
+         * @return the latest info of the call, null until the call is initialized
+         */
+        public CallInfo getInfo() {
+            return info;
+        }
+
+        public ActorRef getInterpreter() {
+            return interpreter;
+        }
+
+        public Sid getConferenceSid() {
+            return conferenceSid;
+        }
+    }
+}
@@ -16,6 +16,8 @@ public class MonitoringMetrics {
     public static String DURATION_MAP_AVERAGE_CALL_DURATION_IN_SECONDS_LAST_HOUR="AverageCallDurationInSecondsLastHour";
     public static String COUNTERS_MAP_LIVE_INCOMING_CALLS="LiveIncomingCalls";
     public static String COUNTERS_MAP_LIVE_OUTGOING_CALLS="LiveOutgoingCalls";
+    // In-progress calls of the account of the request on this instance, the legs created by a Dial are not counted
+    public static String COUNTERS_MAP_IN_PROGRESS_ACCOUNT_CALLS="InProgressAccountCalls";
     public static String COUNTERS_MAP_COMPLETED_CALLS="CompletedCalls";
     public static String COUNTERS_MAP_NO_ANSWER_CALLS="NoAnswerCalls";
     public static String COUNTERS_MAP_BUSY_CALLS="BusyCalls";
@@ -34,4 +36,16 @@ public class MonitoringMetrics {
     public static String COUNTERS_MAP_MGCP_ENDPOINTS_IVR="MgcpEndpointsIvr";
     public static String COUNTERS_MAP_MGCP_ENDPOINTS_PACKETRELAY="MgcpEndpointsPacketRelay";
     public static String COUNTERS_MAP_MGCP_ENDPOINTS_CONFERENCE="MgcpEndpointsConference";
+    // Prefix of the MGCP histograms and gauges kept in the MetricsRegistry
+    public static String MGCP_METRICS_PREFIX="Mgcp";
+    // Prefix of the per bind SMPP histograms and gauges kept in the MetricsRegistry
+    public static String SMPP_METRICS_PREFIX="Smpp";
+    // Prefix of the per region DAO cache gauges kept in the MetricsRegistry
+    public static String DAO_CACHE_METRICS_PREFIX="DaoCache";
+    // Prefix of the per phase call setup histograms kept in the MetricsRegistry
+    public static String CALL_SETUP_METRICS_PREFIX="CallSetup";
+    // Prefix of the per extension latency histograms and outcome gauges kept in the MetricsRegistry
+    public static String EXTENSIONS_METRICS_PREFIX="Extensions";
+    // Prefix of the conference occupancy gauges kept in the MetricsRegistry
+    public static String CONFERENCE_METRICS_PREFIX="Conference";
 }
@@ -26,6 +26,8 @@ import akka.event.LoggingAdapter;
 import org.restcomm.connect.commons.configuration.RestcommConfiguration;
 import org.restcomm.connect.commons.dao.Sid;
 import org.restcomm.connect.commons.faulttolerance.RestcommUntypedActor;
+import org.restcomm.connect.commons.metrics.HistogramSnapshot;
+import org.restcomm.connect.commons.metrics.MetricsRegistry;
 import org.restcomm.connect.commons.patterns.Observing;
 import org.restcomm.connect.commons.patterns.StopObserving;
 import org.restcomm.connect.dao.DaoManager;
@@ -46,7 +48,6 @@ import org.restcomm.connect.telephony.api.TextMessage;
 import org.restcomm.connect.telephony.api.UserRegistration;
 
 import javax.servlet.sip.ServletParseException;
-import javax.sip.header.ContactHeader;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.text.ParseException;
@@ -66,12 +67,6 @@ public class MonitoringService extends RestcommUntypedActor {
     private final LoggingAdapter logger = Logging.getLogger(getContext().system(), this);
     private DaoManager daoManager;
 
-    private final Map<String, ActorRef> callMap;
-    private final Map<String, ActorRef> callLocationMap;
-    private final Map<String,CallInfo> callDetailsMap;
-    private final Map<String,CallInfo> incomingCallDetailsMap;
-    private final Map<String,CallInfo> outgoingCallDetailsMap;
-    private final Map<String, CallStateChanged.State> callStateMap;
     private final Map<String, String> registeredUsers;
     private final AtomicInteger callsUpToNow;
     private final AtomicInteger incomingCallsUpToNow;
@@ -101,16 +96,11 @@ public class MonitoringService extends RestcommUntypedActor {
 
 
     private InstanceId instanceId;
+    private final LiveCallRegistry liveCalls = LiveCallRegistry.getInstance();
 
 
     public MonitoringService(final DaoManager daoManager) {
         this.daoManager = daoManager;
-        callMap = new ConcurrentHashMap<String, ActorRef>();
-        callLocationMap = new ConcurrentHashMap<String, ActorRef>();
-        callDetailsMap = new ConcurrentHashMap<String, CallInfo>();
-        incomingCallDetailsMap = new ConcurrentHashMap<String, CallInfo>();
-        outgoingCallDetailsMap = new ConcurrentHashMap<String, CallInfo>();
-        callStateMap = new ConcurrentHashMap<String, CallStateChanged.State>();
         registeredUsers = new ConcurrentHashMap<String, String>();
         callsUpToNow = new AtomicInteger();
         incomingCallsUpToNow = new AtomicInteger();
@@ -229,7 +219,7 @@ public class MonitoringService extends RestcommUntypedActor {
             logger.debug("MonitoringService onGetCall, location: "+location);
         }
         if (location != null) {
-            ActorRef call = callLocationMap.get(location);
+            ActorRef call = call(liveCalls.getByLocation(location));
             if(call == null && location.indexOf("@") != -1 && location.indexOf(":") != -1) {
                 // required in case the Contact Header of the INVITE doesn't contain any user part
                 // as it is the case for Restcomm SDKs
@@ -239,7 +229,7 @@ public class MonitoringService extends RestcommUntypedActor {
                 int indexOfAt = location.indexOf("@");
                 int indexOfColumn = location.indexOf(":");
                 String newLocation = location.substring(0, indexOfColumn+1).concat(location.substring(indexOfAt+1));
-                call = callLocationMap.get(newLocation);
+                call = call(liveCalls.getByLocation(newLocation));
                 if (logger.isDebugEnabled()) {
                     logger.debug("MonitoringService onGetCall call " + call + " found for new Location " + newLocation);
                 }
@@ -258,6 +248,10 @@ public class MonitoringService extends RestcommUntypedActor {
         }
     }
 
+    private ActorRef call(LiveCallRegistry.LiveCall liveCall) {
+        return liveCall != null ? liveCall.getCall() : null;
+    }
+
     /**
      * @param message
      * @param self
@@ -320,7 +314,6 @@ public class MonitoringService extends RestcommUntypedActor {
     private void onStartObserve(Observing message, ActorRef self, ActorRef sender) {
         String senderPath = sender.path().name();
         sender.tell(new GetCallInfo(), self);
-        callMap.put(senderPath, sender);
         callsUpToNow.incrementAndGet();
     }
 
@@ -330,26 +323,10 @@ public class MonitoringService extends RestcommUntypedActor {
      * @param sender
      */
     private void onStopObserving(StopObserving message, ActorRef self, ActorRef sender) throws ServletParseException {
-        String senderPath = sender.path().name();
-        callMap.remove(senderPath);
-        CallInfo callInfo = callDetailsMap.remove(senderPath);
-        if (callInfo != null && callInfo.invite() != null) {
-            callLocationMap.remove(callInfo.invite().getAddressHeader(ContactHeader.NAME).getURI().toString());
-        }
-        if (callInfo.direction().equalsIgnoreCase("inbound")) {
-            if (logger.isDebugEnabled()) {
-                String msg = String.format("MonitoringService Removed inbound call from: %s to: %s, currently liveCalls: %d", callInfo.from(), callInfo.to(),callDetailsMap.size());
-                logger.debug(msg);
-            }
-            incomingCallDetailsMap.remove(senderPath);
-        } else {
-            if (logger.isDebugEnabled()) {
-                String msg = String.format("MonitoringService Removed outbound call from: %s to: %s, currently liveCallS: %d ", callInfo.from(), callInfo.to(),callDetailsMap.size());
-                logger.debug(msg);
-            }
-            outgoingCallDetailsMap.remove(senderPath);
+        if (logger.isDebugEnabled()) {
+            String msg = String.format("MonitoringService Removed call %s, currently liveCalls: %d", sender.path().name(), liveCalls.size());
+            logger.debug(msg);
         }
-        callStateMap.remove(senderPath);
     }
 
     /**
@@ -358,34 +335,30 @@ public class MonitoringService extends RestcommUntypedActor {
      * @param sender
      */
     private void onCallResponse(CallResponse<CallInfo> message, ActorRef self, ActorRef sender) throws ServletParseException {
-        String senderPath = sender.path().name();
         CallInfo callInfo = message.get();
-        callDetailsMap.put(senderPath, callInfo);
-        if (callInfo != null && callInfo.invite() != null) {
-            callLocationMap.put(callInfo.invite().getAddressHeader(ContactHeader.NAME).getURI().toString(), sender);
+        if (callInfo == null) {
+            return;
         }
         if (callInfo.direction().equalsIgnoreCase("inbound")) {
             if (logger.isDebugEnabled()) {
                 logger.debug("MonitoringService New inbound call from: "+callInfo.from()+"  to: "+callInfo.to());
             }
-            incomingCallDetailsMap.put(senderPath, callInfo);
             incomingCallsUpToNow.incrementAndGet();
         } else {
             if (logger.isDebugEnabled()) {
                 logger.debug("MonitoringService New outbound call from: "+callInfo.from()+"  to: "+callInfo.to());
             }
-            outgoingCallDetailsMap.put(senderPath, callInfo);
             outgoingCallsUpToNow.incrementAndGet();
         }
         //Calculate Maximum concurrent calls
-        if (maxConcurrentCalls.get() < callDetailsMap.size()) {
-            maxConcurrentCalls.set(callDetailsMap.size());
+        if (maxConcurrentCalls.get() < liveCalls.size()) {
+            maxConcurrentCalls.set(liveCalls.size());
         }
-        if (maxConcurrentIncomingCalls.get() < incomingCallDetailsMap.size()) {
-            maxConcurrentIncomingCalls.set(incomingCallDetailsMap.size());
+        if (maxConcurrentIncomingCalls.get() < liveCalls.getInboundCalls()) {
+            maxConcurrentIncomingCalls.set(liveCalls.getInboundCalls());
         }
-        if (maxConcurrentOutgoingCalls.get() < outgoingCallDetailsMap.size()) {
-            maxConcurrentOutgoingCalls.set(outgoingCallDetailsMap.size());
+        if (maxConcurrentOutgoingCalls.get() < liveCalls.getOutboundCalls()) {
+            maxConcurrentOutgoingCalls.set(liveCalls.getOutboundCalls());
         }
     }
 
@@ -396,30 +369,24 @@ public class MonitoringService extends RestcommUntypedActor {
      */
     private void onCallStateChanged(CallStateChanged message, ActorRef self, ActorRef sender) {
         String senderPath = sender.path().name();
-        if (senderPath != null && message != null && callStateMap != null && callDetailsMap != null) {
+        if (senderPath != null && message != null) {
             CallStateChanged.State callState = message.state();
-            callStateMap.put(senderPath, callState);
-            CallInfo callInfo = callDetailsMap.get(senderPath);
-            if (callInfo != null) {
-                callInfo.setState(callState);
-                if (callState.equals(CallStateChanged.State.FAILED)) {
-                    failedCalls.incrementAndGet();
-                } else if (callState.equals(CallStateChanged.State.COMPLETED)) {
-                    completedCalls.incrementAndGet();
-                } else if(callState.equals(CallStateChanged.State.BUSY)) {
-                    busyCalls.incrementAndGet();
-                } else if (callState.equals(CallStateChanged.State.CANCELED)) {
-                    canceledCalls.incrementAndGet();
-                } else if (callState.equals(CallStateChanged.State.NO_ANSWER)) {
-                    noAnswerCalls.incrementAndGet();
-                } else if (callState.equals(CallStateChanged.State.NOT_FOUND)) {
-                    notFoundCalls.incrementAndGet();
-                }
-            } else if(logger.isInfoEnabled()){
-                logger.info("MonitoringService CallInfo was not in the store for Call: "+senderPath);
+            // Only the calls observed from their creation send their state, so every final state is counted.
+            if (callState.equals(CallStateChanged.State.FAILED)) {
+                failedCalls.incrementAndGet();
+            } else if (callState.equals(CallStateChanged.State.COMPLETED)) {
+                completedCalls.incrementAndGet();
+            } else if(callState.equals(CallStateChanged.State.BUSY)) {
+                busyCalls.incrementAndGet();
+            } else if (callState.equals(CallStateChanged.State.CANCELED)) {
+                canceledCalls.incrementAndGet();
+            } else if (callState.equals(CallStateChanged.State.NO_ANSWER)) {
+                noAnswerCalls.incrementAndGet();
+            } else if (callState.equals(CallStateChanged.State.NOT_FOUND)) {
+                notFoundCalls.incrementAndGet();
             }
         } else {
-            logger.error("MonitoringService, SenderPath or storage is null.");
+            logger.error("MonitoringService, SenderPath or message is null.");
         }
     }
 
@@ -430,7 +397,7 @@ public class MonitoringService extends RestcommUntypedActor {
      */
     private void onGetStatistics (GetStatistics message, ActorRef self, ActorRef sender) throws ParseException {
 
-        List<CallInfo> callDetailsList = new ArrayList<CallInfo>(callDetailsMap.values());
+        List<CallInfo> callDetailsList = liveCallDetails();
         Map<String, Integer> countersMap = new HashMap<String, Integer>();
         Map<String, Double> durationMap = new HashMap<String, Double>();
 
@@ -441,7 +408,7 @@ public class MonitoringService extends RestcommUntypedActor {
         countersMap.put(MonitoringMetrics.COUNTERS_MAP_INCOMING_CALLS_SINCE_UPTIME, incomingCallsUpToNow.get());
         countersMap.put(MonitoringMetrics.COUNTERS_MAP_OUTGOING_CALL_SINCE_UPTIME, outgoingCallsUpToNow.get());
         countersMap.put(MonitoringMetrics.COUNTERS_MAP_REGISTERED_USERS, registeredUsers.size());
-        countersMap.put(MonitoringMetrics.COUNTERS_MAP_LIVE_CALLS, callDetailsMap.size());
+        countersMap.put(MonitoringMetrics.COUNTERS_MAP_LIVE_CALLS, callDetailsList.size());
         countersMap.put(MonitoringMetrics.COUNTERS_MAP_MAXIMUM_CONCURRENT_CALLS, maxConcurrentCalls.get());
         countersMap.put(MonitoringMetrics.COUNTERS_MAP_MAXIMUM_CONCURRENT_INCOMING_CALLS, maxConcurrentIncomingCalls.get());
         countersMap.put(MonitoringMetrics.COUNTERS_MAP_MAXIMUM_CONCURRENT_OUTGOING_CALLS, maxConcurrentOutgoingCalls.get());
@@ -478,6 +445,10 @@ public class MonitoringService extends RestcommUntypedActor {
         }
         countersMap.put(MonitoringMetrics.COUNTERS_MAP_LIVE_INCOMING_CALLS, liveIncomingCalls.get());
         countersMap.put(MonitoringMetrics.COUNTERS_MAP_LIVE_OUTGOING_CALLS, liveOutgoingCalls.get());
+        if (Sid.isValid(message.getAccountSid())) {
+            countersMap.put(MonitoringMetrics.COUNTERS_MAP_IN_PROGRESS_ACCOUNT_CALLS,
+                    liveCalls.getInProgressCallsByAccountSid(new Sid(message.getAccountSid())));
+        }
 
         countersMap.put(MonitoringMetrics.COUNTERS_MAP_COMPLETED_CALLS, completedCalls.get());
         countersMap.put(MonitoringMetrics.COUNTERS_MAP_NO_ANSWER_CALLS, noAnswerCalls.get());
@@ -490,6 +461,11 @@ public class MonitoringService extends RestcommUntypedActor {
         countersMap.put(MonitoringMetrics.COUNTERS_MAP_TEXT_MESSAGE_INBOUND_TO_PROXY_OUT, textInboundToProxyOut.get());
         countersMap.put(MonitoringMetrics.COUNTERS_MAP_TEXT_MESSAGE_NOT_FOUND, textNotFound.get());
         countersMap.put(MonitoringMetrics.COUNTERS_MAP_TEXT_MESSAGE_OUTBOUND, textOutbound.get());
+        addMetrics(MonitoringMetrics.SMPP_METRICS_PREFIX, countersMap, durationMap);
+        addMetrics(MonitoringMetrics.DAO_CACHE_METRICS_PREFIX, countersMap, durationMap);
+        addMetrics(MonitoringMetrics.CALL_SETUP_METRICS_PREFIX, countersMap, durationMap);
+        addMetrics(MonitoringMetrics.EXTENSIONS_METRICS_PREFIX, countersMap, durationMap);
+        addMetrics(MonitoringMetrics.CONFERENCE_METRICS_PREFIX, countersMap, durationMap);
 
         if (message.isWithMgcpStats()) {
             countersMap.put(MonitoringMetrics.COUNTERS_MAP_MGCP_CONNECTIONS, mgcpConnectionMap.size());
@@ -500,6 +476,7 @@ public class MonitoringService extends RestcommUntypedActor {
                 countersMap.put(MonitoringMetrics.COUNTERS_MAP_MGCP_ENDPOINTS_CONFERENCE, mgcpEndpointsConference.get());
                 countersMap.put(MonitoringMetrics.COUNTERS_MAP_MGCP_ENDPOINTS_PACKETRELAY, mgcpEndpointsPacketRelay.get());
             }
+            addMetrics(MonitoringMetrics.MGCP_METRICS_PREFIX, countersMap, durationMap);
         }
 
         MonitoringServiceResponse callInfoList = null;
@@ -517,16 +494,39 @@ public class MonitoringService extends RestcommUntypedActor {
         sender.tell(callInfoList, self);
     }
 
+    /**
+     * Copies the histograms and gauges registered under the given prefix into the statistics maps.
+     */
+    private void addMetrics(final String prefix, final Map<String, Integer> countersMap, final Map<String, Double> durationMap) {
+        final MetricsRegistry registry = MetricsRegistry.getInstance();
+        for (HistogramSnapshot snapshot : registry.histograms(prefix).values()) {
+            durationMap.putAll(snapshot.summary());
+        }
+        for (Map.Entry<String, Long> gauge : registry.gauges(prefix).entrySet()) {
+            countersMap.put(gauge.getKey(), (int) Math.min(Integer.MAX_VALUE, gauge.getValue()));
+        }
+    }
+
     /**
      * @param message
      * @param self
      * @param sender
      */
     private void onGetLiveCalls (GetLiveCalls message, ActorRef self, ActorRef sender) throws ParseException {
-        List<CallInfo> callDetailsList = new ArrayList<CallInfo>(callDetailsMap.values());
+        List<CallInfo> callDetailsList = liveCallDetails();
         sender.tell(new LiveCallsDetails(callDetailsList), self());
     }
 
+    private List<CallInfo> liveCallDetails() {
+        List<CallInfo> callDetailsList = new ArrayList<CallInfo>(liveCalls.size());
+        for (LiveCallRegistry.LiveCall liveCall : liveCalls.getCalls()) {
+            if (liveCall.getInfo() != null) {
+                callDetailsList.add(liveCall.getInfo());
+            }
+        }
+        return callDetailsList;
+    }
+
     @Override
     public void postStop() {
         if(logger.isInfoEnabled()){
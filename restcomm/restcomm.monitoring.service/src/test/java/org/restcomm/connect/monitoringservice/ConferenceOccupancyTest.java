@@ -0,0 +1,197 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.monitoringservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.restcomm.connect.commons.dao.Sid;
+
+public class ConferenceOccupancyTest {
+    private final ConferenceOccupancy occupancy = ConferenceOccupancy.getInstance();
+    private String msA;
+    private String msB;
+    private List<String> candidates;
+
+    @Before
+    public void before() {
+        // The occupancy is shared by the whole instance, every test works with its own media servers and rooms.
+        final String suffix = Sid.generate(Sid.Type.INSTANCE).toString();
+        msA = "ms-a-" + suffix;
+        msB = "ms-b-" + suffix;
+        candidates = Arrays.asList(msA, msB);
+    }
+
+    @After
+    public void after() {
+        occupancy.setMaxParticipantsPerRoom(0);
+        occupancy.setMaxParticipantsPerMediaServer(0);
+    }
+
+    private static Sid room() {
+        return Sid.generate(Sid.Type.CONFERENCE);
+    }
+
+    private void admit(final Sid room, final int participants) {
+        for (int i = 0; i < participants; i++) {
+            assertTrue(occupancy.admit(room));
+        }
+    }
+
+    @Test
+    public void roomIsPlacedOnLeastLoadedMediaServer() {
+        assertEquals(msA, occupancy.leastLoaded(candidates));
+
+        final Sid first = room();
+        assertEquals(msA, occupancy.place(first, candidates, null));
+        admit(first, 2);
+        assertEquals(2, occupancy.getParticipantsOnMediaServer(msA));
+        assertEquals(msB, occupancy.leastLoaded(candidates));
+
+        final Sid second = room();
+        assertEquals(msB, occupancy.place(second, candidates, null));
+        // A placed room keeps its media server.
+        assertEquals(msB, occupancy.place(second, candidates, msA));
+        assertEquals(msB, occupancy.getMediaServer(second));
+
+        occupancy.close(first, 2);
+        occupancy.close(second, 0);
+    }
+
+    @Test
+    public void roomKeepsPreferredMediaServerOnlyIfCandidate() {
+        final Sid first = room();
+        assertEquals(msB, occupancy.place(first, candidates, msB));
+        final Sid second = room();
+        assertEquals(msA, occupancy.place(second, candidates, "ms-unknown"));
+        assertNull(occupancy.place(room(), Arrays.<String>asList(), null));
+
+        occupancy.close(first, 0);
+        occupancy.close(second, 0);
+    }
+
+    @Test
+    public void fullRoomIsRejected() {
+        occupancy.setMaxParticipantsPerRoom(2);
+        final Sid room = room();
+        occupancy.place(room, candidates, null);
+        final long rejected = occupancy.getRejected();
+        admit(room, 2);
+        assertFalse(occupancy.admit(room));
+        assertEquals(rejected + 1, occupancy.getRejected());
+        assertEquals(2, occupancy.getParticipants(room));
+
+        // A seat given back can be taken again.
+        occupancy.release(room);
+        assertTrue(occupancy.admit(room));
+
+        occupancy.close(room, 2);
+    }
+
+    @Test
+    public void fullMediaServerIsRejected() {
+        occupancy.setMaxParticipantsPerMediaServer(3);
+        final Sid first = room();
+        final Sid second = room();
+        occupancy.place(first, candidates, msA);
+        occupancy.place(second, candidates, msA);
+        admit(first, 2);
+        admit(second, 1);
+        assertFalse(occupancy.admit(first));
+        assertFalse(occupancy.admit(second));
+        assertEquals(3, occupancy.getParticipantsOnMediaServer(msA));
+
+        // The other media server still has room.
+        final Sid third = room();
+        assertEquals(msB, occupancy.place(third, candidates, null));
+        assertTrue(occupancy.admit(third));
+
+        occupancy.close(first, 2);
+        occupancy.close(second, 1);
+        occupancy.close(third, 1);
+    }
+
+    @Test
+    public void unplacedRoomOnlyHasItsOwnBudget() {
+        occupancy.setMaxParticipantsPerRoom(2);
+        occupancy.setMaxParticipantsPerMediaServer(1);
+        final Sid room = room();
+        admit(room, 2);
+        assertFalse(occupancy.admit(room));
+        assertNull(occupancy.getMediaServer(room));
+
+        occupancy.close(room, 2);
+    }
+
+    @Test
+    public void zeroMeansNoLimit() {
+        occupancy.setMaxParticipantsPerRoom(0);
+        occupancy.setMaxParticipantsPerMediaServer(-1);
+        assertEquals(0, occupancy.getMaxParticipantsPerMediaServer());
+        final Sid room = room();
+        occupancy.place(room, candidates, null);
+        admit(room, 500);
+        assertEquals(500, occupancy.getParticipantsOnMediaServer(msA));
+
+        occupancy.close(room, 500);
+    }
+
+    @Test
+    public void releaseAndCloseGiveSeatsBack() {
+        final int participants = occupancy.getParticipants();
+        final int rooms = occupancy.getRooms();
+        final Sid room = room();
+        occupancy.place(room, candidates, null);
+        admit(room, 3);
+        assertEquals(participants + 3, occupancy.getParticipants());
+        assertEquals(rooms + 1, occupancy.getRooms());
+
+        occupancy.release(room);
+        assertEquals(2, occupancy.getParticipants(room));
+        assertEquals(2, occupancy.getParticipantsOnMediaServer(msA));
+        assertEquals(participants + 2, occupancy.getParticipants());
+
+        // Seats a new Conference actor took meanwhile keep the room.
+        occupancy.close(room, 1);
+        assertEquals(1, occupancy.getParticipants(room));
+        assertEquals(msA, occupancy.getMediaServer(room));
+
+        occupancy.close(room, 1);
+        assertEquals(0, occupancy.getParticipants(room));
+        assertNull(occupancy.getMediaServer(room));
+        assertEquals(0, occupancy.getParticipantsOnMediaServer(msA));
+        assertEquals(participants, occupancy.getParticipants());
+        assertEquals(rooms, occupancy.getRooms());
+
+        // Nothing left to give back.
+        occupancy.release(room);
+        occupancy.close(room, 1);
+        assertEquals(participants, occupancy.getParticipants());
+        assertEquals(rooms, occupancy.getRooms());
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.monitoringservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.sip.Address;
+import javax.servlet.sip.SipServletRequest;
+import javax.servlet.sip.URI;
+import javax.sip.header.ContactHeader;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.telephony.api.CallInfo;
+import org.restcomm.connect.telephony.api.CallStateChanged;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Terminated;
+import akka.testkit.JavaTestKit;
+
+public class LiveCallRegistryTest {
+    private static ActorSystem system;
+
+    private final LiveCallRegistry registry = LiveCallRegistry.getInstance();
+    private final List<ActorRef> calls = new ArrayList<ActorRef>();
+    private final Sid accountSid = Sid.generate(Sid.Type.ACCOUNT);
+
+    @BeforeClass
+    public static void before() throws Exception {
+        system = ActorSystem.create();
+    }
+
+    @AfterClass
+    public static void after() throws Exception {
+        system.shutdown();
+    }
+
+    @After
+    public void removeCalls() {
+        for (ActorRef call : calls) {
+            registry.remove(call);
+        }
+    }
+
+    private ActorRef call() {
+        final ActorRef call = new JavaTestKit(system).getRef();
+        calls.add(call);
+        return call;
+    }
+
+    private CallInfo info(final Sid sid, final CallStateChanged.State state, final String direction, final String from,
+            final SipServletRequest invite) {
+        return new CallInfo(sid, accountSid, state, null, direction, null, null, null, from, "+1234", invite, null,
+                false, false, false, null, null);
+    }
+
+    private SipServletRequest invite(final String location, final String sipCallId) throws Exception {
+        final URI uri = mock(URI.class);
+        when(uri.toString()).thenReturn(location);
+        final Address contact = mock(Address.class);
+        when(contact.getURI()).thenReturn(uri);
+        final SipServletRequest invite = mock(SipServletRequest.class);
+        when(invite.getAddressHeader(ContactHeader.NAME)).thenReturn(contact);
+        when(invite.getCallId()).thenReturn(sipCallId);
+        return invite;
+    }
+
+    @Test
+    public void callIsRegisteredBeforeItHasInfo() {
+        final ActorRef call = call();
+        registry.update(call, null);
+        final LiveCallRegistry.LiveCall liveCall = registry.get(call);
+        assertSame(call, liveCall.getCall());
+        assertNull(liveCall.getInfo());
+        assertEquals(1, registry.size());
+        assertEquals(0, registry.getInboundCalls() + registry.getOutboundCalls());
+    }
+
+    @Test
+    public void callIsFoundBySidCallIdAndLocation() throws Exception {
+        final ActorRef call = call();
+        final Sid sid = Sid.generate(Sid.Type.CALL);
+        registry.update(call, info(sid, CallStateChanged.State.RINGING, "inbound", "alice",
+                invite("sip:alice@127.0.0.1:5090", "call-id-1")));
+        assertSame(call, registry.getByCallSid(sid).getCall());
+        assertSame(call, registry.getBySipCallId("call-id-1").getCall());
+        assertSame(call, registry.getByLocation("sip:alice@127.0.0.1:5090").getCall());
+
+        // A re-INVITE from another Contact moves the call to the new location.
+        registry.update(call, info(sid, CallStateChanged.State.IN_PROGRESS, "inbound", "alice",
+                invite("sip:alice@127.0.0.1:5091", "call-id-1")));
+        assertNull(registry.getByLocation("sip:alice@127.0.0.1:5090"));
+        assertSame(call, registry.getByLocation("sip:alice@127.0.0.1:5091").getCall());
+        assertSame(call, registry.getBySipCallId("call-id-1").getCall());
+
+        registry.remove(call);
+        assertNull(registry.get(call));
+        assertNull(registry.getByCallSid(sid));
+        assertNull(registry.getBySipCallId("call-id-1"));
+        assertNull(registry.getByLocation("sip:alice@127.0.0.1:5091"));
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void callsAreFoundByAccountAndConference() {
+        final ActorRef alice = call();
+        final ActorRef bob = call();
+        registry.update(alice, info(Sid.generate(Sid.Type.CALL), CallStateChanged.State.IN_PROGRESS, "inbound", "alice", null));
+        registry.update(bob, info(Sid.generate(Sid.Type.CALL), CallStateChanged.State.IN_PROGRESS, "inbound", "bob", null));
+        assertEquals(2, registry.getByAccountSid(accountSid).size());
+        assertTrue(registry.getByAccountSid(Sid.generate(Sid.Type.ACCOUNT)).isEmpty());
+
+        final Sid room = Sid.generate(Sid.Type.CONFERENCE);
+        final Sid otherRoom = Sid.generate(Sid.Type.CONFERENCE);
+        registry.setConference(alice, room);
+        registry.setConference(bob, room);
+        assertEquals(2, registry.getByConferenceSid(room).size());
+        assertEquals(room, registry.get(alice).getConferenceSid());
+
+        // Moving to another room leaves the first one, leaving the conference leaves every room.
+        registry.setConference(bob, otherRoom);
+        assertEquals(1, registry.getByConferenceSid(room).size());
+        assertSame(bob, registry.getByConferenceSid(otherRoom).get(0).getCall());
+        registry.setConference(bob, null);
+        assertTrue(registry.getByConferenceSid(otherRoom).isEmpty());
+        assertNull(registry.get(bob).getConferenceSid());
+
+        registry.remove(alice);
+        assertTrue(registry.getByConferenceSid(room).isEmpty());
+        assertEquals(1, registry.getByAccountSid(accountSid).size());
+    }
+
+    @Test
+    public void callsAreCountedByDirection() {
+        registry.update(call(), info(Sid.generate(Sid.Type.CALL), CallStateChanged.State.RINGING, "inbound", "alice", null));
+        final ActorRef outbound = call();
+        registry.update(outbound, info(Sid.generate(Sid.Type.CALL), CallStateChanged.State.QUEUED, "outbound-api", "bob", null));
+        registry.update(call(), info(Sid.generate(Sid.Type.CALL), CallStateChanged.State.RINGING, "outbound-dial", "bob", null));
+        assertEquals(1, registry.getInboundCalls());
+        assertEquals(2, registry.getOutboundCalls());
+
+        // Updates do not count the call again.
+        registry.update(outbound, info(Sid.generate(Sid.Type.CALL), CallStateChanged.State.IN_PROGRESS, "outbound-api", "bob", null));
+        assertEquals(2, registry.getOutboundCalls());
+
+        registry.remove(outbound);
+        assertEquals(1, registry.getOutboundCalls());
+        assertEquals(2, registry.getCalls().size());
+    }
+
+    @Test
+    public void inProgressCallsAreCountedByAccountAndClient() {
+        final ActorRef alice = call();
+        final Sid aliceSid = Sid.generate(Sid.Type.CALL);
+        registry.update(alice, info(aliceSid, CallStateChanged.State.RINGING, "inbound", "alice", null));
+        assertEquals(0, registry.getInProgressCallsByAccountSid(accountSid));
+
+        registry.update(alice, info(aliceSid, CallStateChanged.State.IN_PROGRESS, "inbound", "alice", null));
+        // The same state published twice is counted once.
+        registry.update(alice, info(aliceSid, CallStateChanged.State.IN_PROGRESS, "inbound", "alice", null));
+        registry.update(call(), info(Sid.generate(Sid.Type.CALL), CallStateChanged.State.IN_PROGRESS, "outbound-api", "bob", null));
+        // Legs created by a Dial are not counted.
+        registry.update(call(), info(Sid.generate(Sid.Type.CALL), CallStateChanged.State.IN_PROGRESS, "outbound-dial", "alice", null));
+        assertEquals(2, registry.getInProgressCallsByAccountSid(accountSid));
+        assertEquals(1, registry.getInProgressCallsByClientName("alice"));
+        assertEquals(1, registry.getInProgressCallsByClientName("bob"));
+        assertEquals(0, registry.getInProgressCallsByAccountSid(Sid.generate(Sid.Type.ACCOUNT)));
+
+        // The call leaves the count when it ends, and is not discounted again when it stops.
+        registry.update(alice, info(aliceSid, CallStateChanged.State.COMPLETED, "inbound", "alice", null));
+        assertEquals(1, registry.getInProgressCallsByAccountSid(accountSid));
+        assertEquals(0, registry.getInProgressCallsByClientName("alice"));
+        registry.remove(alice);
+        registry.remove(alice);
+        assertEquals(1, registry.getInProgressCallsByAccountSid(accountSid));
+    }
+
+    @Test
+    public void stoppedCallIsNotRegistered() {
+        final JavaTestKit watcher = new JavaTestKit(system);
+        final ActorRef call = new JavaTestKit(system).getRef();
+        watcher.watch(call);
+        system.stop(call);
+        watcher.expectMsgClass(Terminated.class);
+        registry.update(call, info(Sid.generate(Sid.Type.CALL), CallStateChanged.State.IN_PROGRESS, "inbound", "alice", null));
+        assertNull(registry.get(call));
+        assertTrue(registry.getCalls().isEmpty());
+        assertEquals(0, registry.getInProgressCallsByClientName("alice"));
+    }
+}
@@ -43,6 +43,7 @@ import org.restcomm.connect.dao.entities.ConferenceDetailRecordFilter;
 import org.restcomm.connect.dao.entities.MediaServerEntity;
 import org.restcomm.connect.mgcp.MediaResourceBrokerResponse;
 import org.restcomm.connect.mgcp.PowerOnMediaGateway;
+import org.restcomm.connect.monitoringservice.ConferenceOccupancy;
 import org.restcomm.connect.mrb.api.GetConferenceMediaResourceController;
 import org.restcomm.connect.mrb.api.GetMediaGateway;
 import org.restcomm.connect.mrb.api.MediaGatewayForConference;
@@ -187,6 +188,7 @@ public class MediaResourceBrokerGeneric extends RestcommUntypedActor {
         builder.setStack(mgcpStack);
         builder.setProvider(mgcpProvider);
         builder.setMonitoringService(monitoringService);
+        builder.setPartitions(configuration.getInt("mgcp-server.partitions", 1));
 
         final PowerOnMediaGateway powerOn = builder.build();
         gateway.tell(powerOn, null);
@@ -284,19 +286,23 @@ public class MediaResourceBrokerGeneric extends RestcommUntypedActor {
                 if(records != null && records.size()>0){
                     cdr = records.get(0);
                     sid = cdr.getSid();
+                    // keep mixing the room where it is already mixed
+                    ConferenceOccupancy.getInstance().place(sid, mediaGatewayMap.keySet(), cdr.getMasterMsId());
                     if(logger.isInfoEnabled())
                         logger.info("A conference with same name is running. According to database record. given SID is: "+sid);
                 }else{
                     // this is first record of this conference on all instances of
-                    addNewConferenceRecord(accountSid, callRecord, friendlyName);
+                    final String msId = ConferenceOccupancy.getInstance().leastLoaded(mediaGatewayMap.keySet());
+                    addNewConferenceRecord(accountSid, callRecord, friendlyName, msId);
 
                     //getting CDR again as it is a conditional insert(select if exists or insert) to handle concurrency (incase another participant joins on another instance at very same time)
                     cdr = dao.getConferenceDetailRecords(filter).get(0);
                     sid = cdr.getSid();
+                    ConferenceOccupancy.getInstance().place(sid, mediaGatewayMap.keySet(), cdr.getMasterMsId());
                     if(logger.isInfoEnabled())
-                        logger.info("addConferenceDetailRecord: SID: "+sid+" NAME: "+conferenceName);
+                        logger.info("addConferenceDetailRecord: SID: "+sid+" NAME: "+conferenceName+" msId: "+msId);
                 }
-                mgc = new MediaGatewayForConference(sid, localMediaGateway, null, false);
+                mgc = new MediaGatewayForConference(sid, mediaGateway(ConferenceOccupancy.getInstance().getMediaServer(sid)), null, false);
             }else{
                 logger.error("call record is null");
             }
@@ -304,13 +310,23 @@ public class MediaResourceBrokerGeneric extends RestcommUntypedActor {
         return mgc;
     }
 
+    /**
+     * @param msId
+     * @return the media gateway of the given media server, the local one if it is unknown
+     */
+    protected ActorRef mediaGateway(final String msId) {
+        final ActorRef mediaGateway = msId == null ? null : mediaGatewayMap.get(msId);
+        return mediaGateway == null ? localMediaGateway : mediaGateway;
+    }
+
     /**
      * addNewConferenceRecord
      * @param accountSid
      * @param callRecord
      * @param friendlyName
+     * @param msId media server that will mix the conference
      */
-    protected void addNewConferenceRecord(String accountSid, CallDetailRecord callRecord, String friendlyName){
+    protected void addNewConferenceRecord(String accountSid, CallDetailRecord callRecord, String friendlyName, String msId){
         final ConferenceDetailRecord.Builder conferenceBuilder = ConferenceDetailRecord.builder();
         Sid sid = Sid.generate(Sid.Type.CONFERENCE);
         conferenceBuilder.setSid(sid);
@@ -325,7 +341,7 @@ public class MediaResourceBrokerGeneric extends RestcommUntypedActor {
         final URI uri = URI.create(UriBuffer.toString());
         conferenceBuilder.setUri(uri);
         conferenceBuilder.setFriendlyName(friendlyName);
-        conferenceBuilder.setMasterMsId(localMsId);
+        conferenceBuilder.setMasterMsId(msId == null ? localMsId : msId);
 
         ConferenceDetailRecord cdr = conferenceBuilder.build();
         storage.getConferenceDetailRecordsDao().addConferenceDetailRecord(cdr);
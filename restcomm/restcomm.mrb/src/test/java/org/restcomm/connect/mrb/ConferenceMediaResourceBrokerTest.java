@@ -23,6 +23,7 @@ import org.restcomm.connect.mrb.api.ConferenceMediaResourceControllerStateChange
 import org.restcomm.connect.mrb.api.GetConferenceMediaResourceController;
 import org.restcomm.connect.mrb.api.GetMediaGateway;
 import org.restcomm.connect.mrb.api.MediaGatewayForConference;
+import org.restcomm.connect.monitoringservice.ConferenceOccupancy;
 import org.restcomm.connect.mrb.api.StartConferenceMediaResourceController;
 import org.restcomm.connect.mrb.util.MediaResourceBrokerTestUtil;
 import org.restcomm.connect.telephony.api.ConferenceStateChanged;
@@ -88,6 +89,8 @@ public class ConferenceMediaResourceBrokerTest extends MediaResourceBrokerTestUt
             	ConferenceDetailRecord cdr = daoManager.getConferenceDetailRecordsDao().getConferenceDetailRecord(mgfc.conferenceSid());
             	//mrb must generate a proper conference cdr
             	assertTrue(cdr != null && cdr.getStatus().equals(ConferenceStateChanged.State.RUNNING_INITIALIZING+"") && cdr.isMasterPresent() && cdr.getFriendlyName().equals(RANDOM_CONFERENCE_NAME));
+            	//the room must be placed on the media server recorded as master
+            	assertTrue(cdr.getMasterMsId() != null && cdr.getMasterMsId().equals(ConferenceOccupancy.getInstance().getMediaServer(mgfc.conferenceSid())));
 
             	//verify that we ger cmrc actor and its not terminated
             	mediaResourceBrokerNode1.tell(new GetConferenceMediaResourceController(RANDOM_CONFERENCE_NAME), tester);
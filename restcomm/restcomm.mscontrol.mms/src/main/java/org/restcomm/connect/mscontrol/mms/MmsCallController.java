@@ -36,6 +36,7 @@ import org.restcomm.connect.commons.dao.Sid;
 import org.restcomm.connect.commons.fsm.FiniteStateMachine;
 import org.restcomm.connect.commons.fsm.State;
 import org.restcomm.connect.commons.fsm.Transition;
+import org.restcomm.connect.commons.metrics.CallSetupTracer;
 import org.restcomm.connect.commons.patterns.Observe;
 import org.restcomm.connect.commons.patterns.Observing;
 import org.restcomm.connect.commons.patterns.StopObserving;
@@ -135,6 +136,7 @@ public class MmsCallController extends MediaServerController {
     private String connectionMode;
     private boolean callOutbound;
     private boolean webrtc;
+    private long setupPhaseStarted;
 
     // CallMediaGroup
     private ActorRef mediaGroup;
@@ -409,6 +411,7 @@ public class MmsCallController extends MediaServerController {
 
     private void onMediaResourceBrokerResponse(MediaResourceBrokerResponse<?> message, ActorRef self, ActorRef sender) throws Exception {
         this.mediaGateway = (ActorRef) message.get();
+        CallSetupTracer.getInstance().record(callSetupKey(), CallSetupTracer.Phase.MEDIA_GATEWAY, setupPhaseStarted);
         fsm.transition(message, acquiringMediaGatewayInfo);
 
     }
@@ -430,6 +433,10 @@ public class MmsCallController extends MediaServerController {
         }
     }
 
+    private String callSetupKey() {
+        return callId == null ? null : callId.toString();
+    }
+
     private void onCreateMediaSession(CreateMediaSession message, ActorRef self, ActorRef sender) throws Exception {
         this.call = sender;
         this.connectionMode = message.getConnectionMode();
@@ -470,6 +477,10 @@ public class MmsCallController extends MediaServerController {
     }
 
     private void onConnectionStateChanged(ConnectionStateChanged message, ActorRef self, ActorRef sender) throws Exception {
+        if (is(openingRemoteConnection) && !ConnectionStateChanged.State.CLOSED.equals(message.state())) {
+            // CRCX answered by the media server
+            CallSetupTracer.getInstance().record(callSetupKey(), CallSetupTracer.Phase.CREATE_CONNECTION, setupPhaseStarted);
+        }
         switch (message.state()) {
             case CLOSED:
                 if (is(initializingRemoteConnection)) {
@@ -660,6 +671,7 @@ public class MmsCallController extends MediaServerController {
 
         @Override
         public void execute(final Object message) throws Exception {
+            setupPhaseStarted = System.nanoTime();
             mrb.tell(new GetMediaGateway(callId), self());
         }
     }
@@ -748,6 +760,7 @@ public class MmsCallController extends MediaServerController {
                 final ConnectionDescriptor descriptor = new ConnectionDescriptor(remoteSdp);
                 open = new OpenConnection(descriptor, ConnectionMode.SendRecv, webrtc);
             }
+            setupPhaseStarted = System.nanoTime();
             remoteConn.tell(open, source);
         }
     }
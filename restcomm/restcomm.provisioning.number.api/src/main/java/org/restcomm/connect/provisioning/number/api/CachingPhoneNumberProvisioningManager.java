@@ -0,0 +1,131 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.provisioning.number.api;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.log4j.Logger;
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * Decorates a {@link PhoneNumberProvisioningManager} with a short lived cache of search results keyed by
+ * {@link PhoneNumberSearchKey}. Purchases and cancellations drop the cached results since they change the
+ * inventory the provider will return.
+ */
+@ThreadSafe
+public class CachingPhoneNumberProvisioningManager implements PhoneNumberProvisioningManager {
+    private static final Logger logger = Logger.getLogger(CachingPhoneNumberProvisioningManager.class);
+
+    public static final long DEFAULT_TTL_SECONDS = 30;
+    public static final long DEFAULT_MAX_ENTRIES = 1000;
+
+    private final PhoneNumberProvisioningManager delegate;
+    private final Cache<PhoneNumberSearchKey, List<PhoneNumber>> searches;
+
+    public CachingPhoneNumberProvisioningManager(final PhoneNumberProvisioningManager delegate, final long ttl,
+            final TimeUnit unit, final long maxEntries) {
+        this.delegate = delegate;
+        this.searches = CacheBuilder.newBuilder().expireAfterWrite(ttl, unit).maximumSize(maxEntries).recordStats()
+                .build();
+    }
+
+    /**
+     * Builds the decorator from the &lt;search-cache&gt; element found inside &lt;phone-number-provisioning&gt;.
+     */
+    public CachingPhoneNumberProvisioningManager(final PhoneNumberProvisioningManager delegate,
+            final Configuration searchCacheConfiguration) {
+        this(delegate, searchCacheConfiguration.getLong("ttl", DEFAULT_TTL_SECONDS), TimeUnit.SECONDS,
+                searchCacheConfiguration.getLong("max-entries", DEFAULT_MAX_ENTRIES));
+    }
+
+    /**
+     * Does nothing, the manager is built by {@link PhoneNumberProvisioningManagerProvider} around an already
+     * initialized delegate.
+     */
+    @Override
+    public void init(Configuration phoneNumberProvisioningConfiguration, Configuration teleStaxProxyConfiguration,
+            ContainerConfiguration containerConfiguration) {
+    }
+
+    @Override
+    public List<PhoneNumber> searchForNumbers(String country, PhoneNumberSearchFilters listFilters) {
+        final PhoneNumberSearchKey key = PhoneNumberSearchKey.of(country, listFilters);
+        List<PhoneNumber> numbers = searches.getIfPresent(key);
+        if (numbers != null) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Phone number search served from cache " + key);
+            }
+            return numbers;
+        }
+        numbers = delegate.searchForNumbers(country, listFilters);
+        if (numbers == null) {
+            return null;
+        }
+        numbers = Collections.unmodifiableList(numbers);
+        // Empty results are usually the consequence of a provider error, don't keep them around.
+        if (!numbers.isEmpty()) {
+            searches.put(key, numbers);
+        }
+        return numbers;
+    }
+
+    @Override
+    public boolean buyNumber(PhoneNumber phoneNumber, PhoneNumberParameters phoneNumberParameters) {
+        final boolean bought = delegate.buyNumber(phoneNumber, phoneNumberParameters);
+        if (bought) {
+            searches.invalidateAll();
+        }
+        return bought;
+    }
+
+    @Override
+    public boolean updateNumber(PhoneNumber number, PhoneNumberParameters phoneNumberParameters) {
+        return delegate.updateNumber(number, phoneNumberParameters);
+    }
+
+    @Override
+    public boolean cancelNumber(PhoneNumber number) {
+        final boolean cancelled = delegate.cancelNumber(number);
+        if (cancelled) {
+            searches.invalidateAll();
+        }
+        return cancelled;
+    }
+
+    @Override
+    public List<String> getAvailableCountries() {
+        return delegate.getAvailableCountries();
+    }
+
+    public CacheStats stats() {
+        return searches.stats();
+    }
+
+    public PhoneNumberProvisioningManager getDelegate() {
+        return delegate;
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.provisioning.number.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.log4j.Logger;
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.i18n.phonenumbers.NumberParseException;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+
+/**
+ * Queries several provisioning providers in parallel and merges whatever they answered before the search deadline.
+ * The search itself stays synchronous, the caller is blocked until every provider answered or the deadline passed.
+ * Providers that miss the deadline or fail are skipped for that search. Numbers are de-duplicated in provider order,
+ * and the provider that offered a number is remembered so a later purchase is routed to it. A number no recent search
+ * of this node offered, i.e. one found through another node of the cluster, is searched for on every provider and
+ * bought from the first one that offers it.
+ */
+@ThreadSafe
+public class FanOutPhoneNumberProvisioningManager implements PhoneNumberProvisioningManager {
+    private static final Logger logger = Logger.getLogger(FanOutPhoneNumberProvisioningManager.class);
+
+    public static final long DEFAULT_TIMEOUT_MILLIS = 3000;
+
+    private final List<PhoneNumberProvisioningManager> providers;
+    private final ExecutorService executor;
+    private final long timeout;
+    // number -> provider that offered it in a recent search
+    private final Cache<String, PhoneNumberProvisioningManager> origins;
+
+    public FanOutPhoneNumberProvisioningManager(final List<PhoneNumberProvisioningManager> providers,
+            final long timeoutMillis, final int poolSize) {
+        if (providers == null || providers.isEmpty()) {
+            throw new IllegalArgumentException("At least one phone number provisioning provider is required");
+        }
+        this.providers = Collections.unmodifiableList(new ArrayList<PhoneNumberProvisioningManager>(providers));
+        this.timeout = timeoutMillis;
+        this.executor = Executors.newFixedThreadPool(poolSize, new SearchThreadFactory());
+        this.origins = CacheBuilder.newBuilder().expireAfterWrite(1, TimeUnit.HOURS).maximumSize(100000).build();
+    }
+
+    /**
+     * Does nothing, the providers are handed over already initialized by {@link PhoneNumberProvisioningManagerProvider}.
+     */
+    @Override
+    public void init(Configuration phoneNumberProvisioningConfiguration, Configuration teleStaxProxyConfiguration,
+            ContainerConfiguration containerConfiguration) {
+    }
+
+    @Override
+    public List<PhoneNumber> searchForNumbers(final String country, final PhoneNumberSearchFilters listFilters) {
+        final List<List<PhoneNumber>> results = search(country, listFilters);
+        final Map<String, PhoneNumber> merged = new LinkedHashMap<String, PhoneNumber>();
+        for (int i = 0; i < results.size(); i++) {
+            final List<PhoneNumber> numbers = results.get(i);
+            if (numbers == null) {
+                continue;
+            }
+            for (PhoneNumber number : numbers) {
+                final String key = number.getPhoneNumber();
+                if (key != null && !merged.containsKey(key)) {
+                    merged.put(key, number);
+                    origins.put(key, providers.get(i));
+                }
+            }
+        }
+        return new ArrayList<PhoneNumber>(merged.values());
+    }
+
+    /**
+     * @return the numbers of every provider in provider order, null for the providers that failed or missed the deadline
+     */
+    private List<List<PhoneNumber>> search(final String country, final PhoneNumberSearchFilters listFilters) {
+        final List<Callable<List<PhoneNumber>>> searches = new ArrayList<Callable<List<PhoneNumber>>>(providers.size());
+        for (final PhoneNumberProvisioningManager provider : providers) {
+            searches.add(new Callable<List<PhoneNumber>>() {
+                @Override
+                public List<PhoneNumber> call() throws Exception {
+                    return provider.searchForNumbers(country, listFilters);
+                }
+            });
+        }
+        final List<List<PhoneNumber>> numbers = new ArrayList<List<PhoneNumber>>(providers.size());
+        final List<Future<List<PhoneNumber>>> results;
+        try {
+            // invokeAll cancels whatever did not complete before the deadline
+            results = executor.invokeAll(searches, timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return numbers;
+        }
+        for (int i = 0; i < results.size(); i++) {
+            numbers.add(get(providers.get(i), results.get(i)));
+        }
+        return numbers;
+    }
+
+    private List<PhoneNumber> get(final PhoneNumberProvisioningManager provider, final Future<List<PhoneNumber>> result) {
+        try {
+            return result.get();
+        } catch (CancellationException exception) {
+            logger.warn("Phone number search on " + provider.getClass().getName() + " missed the " + timeout
+                    + "ms deadline");
+        } catch (ExecutionException exception) {
+            logger.error("Phone number search on " + provider.getClass().getName() + " failed", exception.getCause());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    @Override
+    public boolean buyNumber(PhoneNumber phoneNumber, PhoneNumberParameters phoneNumberParameters) {
+        PhoneNumberProvisioningManager origin = origins.getIfPresent(phoneNumber.getPhoneNumber());
+        if (origin == null) {
+            origin = locate(phoneNumber);
+            if (origin == null) {
+                logger.warn("Phone number " + phoneNumber.getPhoneNumber() + " is not offered by any provider");
+                return false;
+            }
+        }
+        return origin.buyNumber(phoneNumber, phoneNumberParameters);
+    }
+
+    /**
+     * Searches every provider for the number itself and remembers the first one offering it.
+     */
+    private PhoneNumberProvisioningManager locate(final PhoneNumber phoneNumber) {
+        final PhoneNumberUtil util = PhoneNumberUtil.getInstance();
+        String country = phoneNumber.getIsoCountry();
+        String national = digits(phoneNumber.getPhoneNumber());
+        try {
+            final com.google.i18n.phonenumbers.Phonenumber.PhoneNumber parsed = util.parse(phoneNumber.getPhoneNumber(),
+                    country == null ? "US" : country);
+            national = util.getNationalSignificantNumber(parsed);
+            if (country == null) {
+                country = util.getRegionCodeForNumber(parsed);
+            }
+            if (country == null) {
+                // not a valid number of any region, ask for the main region of its country code
+                country = util.getRegionCodeForCountryCode(parsed.getCountryCode());
+            }
+        } catch (NumberParseException exception) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Could not parse phone number " + phoneNumber.getPhoneNumber(), exception);
+            }
+        }
+        // ZZ is the unknown region of libphonenumber
+        if (country == null || "ZZ".equals(country) || national.isEmpty()) {
+            return null;
+        }
+        // providers match the pattern against numbers with or without the country code
+        final PhoneNumberSearchFilters filters = new PhoneNumberSearchFilters();
+        filters.setFilterPattern(Pattern.compile(".*" + Pattern.quote(national)));
+        final List<List<PhoneNumber>> results = search(country, filters);
+        for (int i = 0; i < results.size(); i++) {
+            final List<PhoneNumber> numbers = results.get(i);
+            if (numbers == null) {
+                continue;
+            }
+            for (PhoneNumber number : numbers) {
+                if (number.getPhoneNumber() != null && digits(number.getPhoneNumber()).endsWith(national)) {
+                    final PhoneNumberProvisioningManager provider = providers.get(i);
+                    origins.put(phoneNumber.getPhoneNumber(), provider);
+                    return provider;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String digits(final String number) {
+        final StringBuilder digits = new StringBuilder(number.length());
+        for (int i = 0; i < number.length(); i++) {
+            if (Character.isDigit(number.charAt(i))) {
+                digits.append(number.charAt(i));
+            }
+        }
+        return digits.toString();
+    }
+
+    @Override
+    public boolean updateNumber(PhoneNumber number, PhoneNumberParameters phoneNumberParameters) {
+        final PhoneNumberProvisioningManager origin = origins.getIfPresent(number.getPhoneNumber());
+        if (origin != null) {
+            return origin.updateNumber(number, phoneNumberParameters);
+        }
+        for (PhoneNumberProvisioningManager provider : providers) {
+            if (provider.updateNumber(number, phoneNumberParameters)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean cancelNumber(PhoneNumber number) {
+        final PhoneNumberProvisioningManager origin = origins.getIfPresent(number.getPhoneNumber());
+        if (origin != null) {
+            origins.invalidate(number.getPhoneNumber());
+            return origin.cancelNumber(number);
+        }
+        for (PhoneNumberProvisioningManager provider : providers) {
+            if (provider.cancelNumber(number)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public List<String> getAvailableCountries() {
+        final Set<String> countries = new LinkedHashSet<String>();
+        for (PhoneNumberProvisioningManager provider : providers) {
+            final List<String> available = provider.getAvailableCountries();
+            if (available != null) {
+                countries.addAll(available);
+            }
+        }
+        return new ArrayList<String>(countries);
+    }
+
+    public List<PhoneNumberProvisioningManager> getProviders() {
+        return providers;
+    }
+
+    /**
+     * Stops the search threads, called by {@link PhoneNumberProvisioningManagerProvider#shutdown()}.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static final class SearchThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, "phone-number-search-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -27,6 +27,7 @@ import org.restcomm.connect.commons.loader.ObjectInstantiationException;
 import javax.servlet.ServletContext;
 import javax.servlet.sip.SipServlet;
 import javax.servlet.sip.SipURI;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -52,11 +53,38 @@ public class PhoneNumberProvisioningManagerProvider {
         final String phoneNumberProvisioningManagerClass = configuration.getString("phone-number-provisioning[@class]");
         Configuration phoneNumberProvisioningConfiguration = configuration.subset("phone-number-provisioning");
         Configuration telestaxProxyConfiguration = configuration.subset("runtime-settings").subset("telestax-proxy");
+        ContainerConfiguration containerConfiguration = new ContainerConfiguration(getOutboundInterfaces());
+        PhoneNumberProvisioningManager phoneNumberProvisioningManager;
+        if (phoneNumberProvisioningConfiguration.getBoolean("fan-out[@enabled]", false)) {
+            // query every configured provider in parallel and merge the answers
+            final Configuration fanOutConfiguration = phoneNumberProvisioningConfiguration.subset("fan-out");
+            final List<PhoneNumberProvisioningManager> providers = new ArrayList<PhoneNumberProvisioningManager>();
+            for (String providerClass : fanOutConfiguration.getStringArray("provider")) {
+                providers.add(create(providerClass, phoneNumberProvisioningConfiguration, telestaxProxyConfiguration, containerConfiguration));
+            }
+            if (providers.isEmpty()) {
+                providers.add(create(phoneNumberProvisioningManagerClass, phoneNumberProvisioningConfiguration, telestaxProxyConfiguration, containerConfiguration));
+            }
+            final long timeout = fanOutConfiguration.getLong("timeout", FanOutPhoneNumberProvisioningManager.DEFAULT_TIMEOUT_MILLIS);
+            final int poolSize = fanOutConfiguration.getInt("pool-size", providers.size() * 4);
+            phoneNumberProvisioningManager = new FanOutPhoneNumberProvisioningManager(providers, timeout, poolSize);
+        } else {
+            phoneNumberProvisioningManager = create(phoneNumberProvisioningManagerClass, phoneNumberProvisioningConfiguration, telestaxProxyConfiguration, containerConfiguration);
+        }
+        if (phoneNumberProvisioningConfiguration.getBoolean("search-cache[@enabled]", false)) {
+            phoneNumberProvisioningManager = new CachingPhoneNumberProvisioningManager(phoneNumberProvisioningManager,
+                    phoneNumberProvisioningConfiguration.subset("search-cache"));
+        }
+        return phoneNumberProvisioningManager;
+    }
+
+    private PhoneNumberProvisioningManager create(final String phoneNumberProvisioningManagerClass,
+            final Configuration phoneNumberProvisioningConfiguration, final Configuration telestaxProxyConfiguration,
+            final ContainerConfiguration containerConfiguration) {
         PhoneNumberProvisioningManager phoneNumberProvisioningManager;
         try {
             phoneNumberProvisioningManager = (PhoneNumberProvisioningManager) new ObjectFactory(getClass().getClassLoader())
-                    .getObjectInstance(phoneNumberProvisioningManagerClass);
-            ContainerConfiguration containerConfiguration = new ContainerConfiguration(getOutboundInterfaces());
+                    .getObjectInstance(phoneNumberProvisioningManagerClass.trim());
             phoneNumberProvisioningManager.init(phoneNumberProvisioningConfiguration, telestaxProxyConfiguration, containerConfiguration);
         } catch (ObjectInstantiationException e) {
             throw new RuntimeException(e);
@@ -81,4 +109,18 @@ public class PhoneNumberProvisioningManagerProvider {
         return manager;
     }
 
+    /**
+     * Releases the resources of the manager stored in the Servlet context, if any, and removes it from there.
+     */
+    public void shutdown() {
+        PhoneNumberProvisioningManager manager = (PhoneNumberProvisioningManager) context.getAttribute("PhoneNumberProvisioningManager");
+        if (manager instanceof CachingPhoneNumberProvisioningManager) {
+            manager = ((CachingPhoneNumberProvisioningManager) manager).getDelegate();
+        }
+        if (manager instanceof FanOutPhoneNumberProvisioningManager) {
+            ((FanOutPhoneNumberProvisioningManager) manager).shutdown();
+        }
+        context.removeAttribute("PhoneNumberProvisioningManager");
+    }
+
 }
@@ -0,0 +1,85 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.provisioning.number.api;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import org.restcomm.connect.commons.annotations.concurrency.Immutable;
+
+/**
+ * Normalized representation of a phone number search. Two searches that only differ in letter case or surrounding
+ * whitespace of their criteria produce equal keys, so the key can be used to share results between them.
+ */
+@Immutable
+public final class PhoneNumberSearchKey {
+    private final Object[] criteria;
+    private final int hashCode;
+
+    private PhoneNumberSearchKey(final Object[] criteria) {
+        this.criteria = criteria;
+        this.hashCode = Arrays.hashCode(criteria);
+    }
+
+    public static PhoneNumberSearchKey of(final String country, final PhoneNumberSearchFilters filters) {
+        final Object[] criteria = new Object[] { normalize(country),
+                normalize(filters.getAreaCode()),
+                filters.getFilterPattern() == null ? null : filters.getFilterPattern().pattern(),
+                filters.getSmsEnabled(), filters.getMmsEnabled(), filters.getVoiceEnabled(),
+                filters.getFaxEnabled(), filters.getUssdEnabled(),
+                normalize(filters.getNearNumber()), normalize(filters.getNearLatLong()),
+                normalize(filters.getDistance()), normalize(filters.getInPostalCode()),
+                normalize(filters.getInRegion()), normalize(filters.getInRateCenter()),
+                normalize(filters.getInLata()),
+                filters.getRangeSize(), filters.getRangeIndex(),
+                filters.getPhoneNumberTypeSearch() };
+        return new PhoneNumberSearchKey(criteria);
+    }
+
+    private static String normalize(final String value) {
+        if (value == null) {
+            return null;
+        }
+        final String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed.toUpperCase(Locale.ENGLISH);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof PhoneNumberSearchKey)) {
+            return false;
+        }
+        final PhoneNumberSearchKey key = (PhoneNumberSearchKey) other;
+        return hashCode == key.hashCode && Arrays.equals(criteria, key.criteria);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return "PhoneNumberSearchKey" + Arrays.toString(criteria);
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.provisioning.number.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.apache.commons.configuration.Configuration;
+import org.junit.After;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Exercises the search cache and the parallel provider search against providers talking HTTP to local mock servers.
+ */
+public class PhoneNumberSearchTest {
+
+    private final List<MockProviderServer> servers = new ArrayList<MockProviderServer>();
+    private FanOutPhoneNumberProvisioningManager fanOut;
+
+    @After
+    public void after() {
+        if (fanOut != null) {
+            fanOut.shutdown();
+        }
+        for (MockProviderServer server : servers) {
+            server.stop();
+        }
+    }
+
+    private HttpProvider provider(final long delay, final String... numbers) throws IOException {
+        final MockProviderServer server = new MockProviderServer(delay, numbers);
+        servers.add(server);
+        return new HttpProvider(server);
+    }
+
+    @Test
+    public void testEquivalentSearchesShareKey() {
+        final PhoneNumberSearchFilters first = new PhoneNumberSearchFilters();
+        first.setAreaCode(" 305 ");
+        first.setInRegion("fl");
+        first.setFilterPattern(Pattern.compile("((305)+).*"));
+        final PhoneNumberSearchFilters second = new PhoneNumberSearchFilters();
+        second.setAreaCode("305");
+        second.setInRegion("FL");
+        second.setFilterPattern(Pattern.compile("((305)+).*"));
+        assertEquals(PhoneNumberSearchKey.of("us", first), PhoneNumberSearchKey.of("US", second));
+
+        second.setSmsEnabled(true);
+        assertTrue(!PhoneNumberSearchKey.of("US", first).equals(PhoneNumberSearchKey.of("US", second)));
+    }
+
+    @Test
+    public void testSearchIsCachedUntilPurchase() throws IOException {
+        final HttpProvider provider = provider(0, "+13055550001", "+13055550002");
+        final CachingPhoneNumberProvisioningManager manager = new CachingPhoneNumberProvisioningManager(provider, 1,
+                TimeUnit.MINUTES, 100);
+        final PhoneNumberSearchFilters filters = new PhoneNumberSearchFilters();
+        filters.setAreaCode("305");
+
+        final List<PhoneNumber> first = manager.searchForNumbers("US", filters);
+        final List<PhoneNumber> second = manager.searchForNumbers("US", filters);
+        assertEquals(2, first.size());
+        assertSame(first, second);
+        assertEquals(1, provider.server.searches.get());
+
+        manager.buyNumber(first.get(0), null);
+        manager.searchForNumbers("US", filters);
+        assertEquals(2, provider.server.searches.get());
+    }
+
+    @Test
+    public void testFanOutMergesProvidersWithinDeadline() throws IOException {
+        final HttpProvider fast = provider(0, "+13055550001", "+13055550002");
+        final HttpProvider overlapping = provider(50, "+13055550002", "+13055550003");
+        final HttpProvider slow = provider(5000, "+13055550004");
+        fanOut = new FanOutPhoneNumberProvisioningManager(
+                Arrays.<PhoneNumberProvisioningManager> asList(fast, overlapping, slow), 500, 4);
+
+        final long start = System.currentTimeMillis();
+        final List<PhoneNumber> numbers = fanOut.searchForNumbers("US", new PhoneNumberSearchFilters());
+        final long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue("search took " + elapsed + "ms", elapsed < 2000);
+        assertEquals(3, numbers.size());
+        assertEquals("+13055550001", numbers.get(0).getPhoneNumber());
+        assertEquals("+13055550003", numbers.get(2).getPhoneNumber());
+
+        // purchases go to the provider that offered the number
+        assertTrue(fanOut.buyNumber(numbers.get(2), null));
+        assertEquals(0, fast.server.purchases.get());
+        assertEquals(1, overlapping.server.purchases.get());
+    }
+
+    @Test
+    public void testFanOutLocatesNumbersOfUnknownOrigin() throws IOException {
+        final HttpProvider first = provider(0, "+13055550001");
+        final HttpProvider second = provider(0, "+13055550002");
+        fanOut = new FanOutPhoneNumberProvisioningManager(
+                Arrays.<PhoneNumberProvisioningManager> asList(first, second), 500, 2);
+
+        // found by a search on another node, this one never saw it
+        assertTrue(fanOut.buyNumber(number("+13055550002"), null));
+        assertEquals(0, first.server.purchases.get());
+        assertEquals(1, second.server.purchases.get());
+        assertEquals(1, first.server.searches.get());
+
+        // the provider found is remembered
+        assertTrue(fanOut.buyNumber(number("+13055550002"), null));
+        assertEquals(2, second.server.purchases.get());
+        assertEquals(1, first.server.searches.get());
+
+        assertFalse(fanOut.buyNumber(number("+13055559999"), null));
+        assertEquals(0, first.server.purchases.get());
+        assertEquals(2, second.server.purchases.get());
+    }
+
+    @Test
+    public void testFanOutSurvivesFailingProvider() throws IOException {
+        final HttpProvider failing = provider(0);
+        failing.server.failing = true;
+        final HttpProvider working = provider(0, "+13055550001");
+        fanOut = new FanOutPhoneNumberProvisioningManager(
+                Arrays.<PhoneNumberProvisioningManager> asList(failing, working), 500, 2);
+        assertEquals(1, fanOut.searchForNumbers("US", new PhoneNumberSearchFilters()).size());
+    }
+
+    private static PhoneNumber number(final String number) {
+        return new PhoneNumber(number, number, null, null, null, null, null, null, null, null, true, true, false, false,
+                false);
+    }
+
+    /**
+     * A provisioning provider answering from its inventory over HTTP. GET /search lists the numbers matching the
+     * optional pattern one per line, POST /buy answers 404 for a number it does not have.
+     */
+    private static final class MockProviderServer {
+        private final HttpServer server;
+        private final long delay;
+        private final List<String> numbers;
+        private final AtomicInteger searches = new AtomicInteger();
+        private final AtomicInteger purchases = new AtomicInteger();
+        private volatile boolean failing;
+
+        private MockProviderServer(final long delay, final String... numbers) throws IOException {
+            this.delay = delay;
+            this.numbers = Arrays.asList(numbers);
+            this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/search", new HttpHandler() {
+                @Override
+                public void handle(final HttpExchange exchange) throws IOException {
+                    searches.incrementAndGet();
+                    try {
+                        Thread.sleep(MockProviderServer.this.delay);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    if (failing) {
+                        respond(exchange, 500, "provider down");
+                        return;
+                    }
+                    final String pattern = query(exchange).get("pattern");
+                    final StringBuilder body = new StringBuilder();
+                    for (String number : MockProviderServer.this.numbers) {
+                        if (pattern == null || Pattern.matches(pattern, number)) {
+                            body.append(number).append('\n');
+                        }
+                    }
+                    respond(exchange, 200, body.toString());
+                }
+            });
+            server.createContext("/buy", new HttpHandler() {
+                @Override
+                public void handle(final HttpExchange exchange) throws IOException {
+                    if (MockProviderServer.this.numbers.contains(query(exchange).get("number"))) {
+                        purchases.incrementAndGet();
+                        respond(exchange, 200, "");
+                    } else {
+                        respond(exchange, 404, "");
+                    }
+                }
+            });
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.start();
+        }
+
+        private String uri(final String path) {
+            return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+        }
+
+        private void stop() {
+            server.stop(0);
+        }
+
+        private static Map<String, String> query(final HttpExchange exchange) throws IOException {
+            final Map<String, String> parameters = new HashMap<String, String>();
+            final String query = exchange.getRequestURI().getRawQuery();
+            if (query != null) {
+                for (String parameter : query.split("&")) {
+                    final int separator = parameter.indexOf('=');
+                    parameters.put(parameter.substring(0, separator),
+                            URLDecoder.decode(parameter.substring(separator + 1), "UTF-8"));
+                }
+            }
+            return parameters;
+        }
+
+        private static void respond(final HttpExchange exchange, final int status, final String body)
+                throws IOException {
+            final byte[] bytes = body.getBytes("UTF-8");
+            exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+            final OutputStream output = exchange.getResponseBody();
+            output.write(bytes);
+            output.close();
+        }
+    }
+
+    /**
+     * Talks to a {@link MockProviderServer} the way the real providers talk to their REST APIs.
+     */
+    private static final class HttpProvider implements PhoneNumberProvisioningManager {
+        private final MockProviderServer server;
+
+        private HttpProvider(final MockProviderServer server) {
+            this.server = server;
+        }
+
+        @Override
+        public void init(Configuration phoneNumberProvisioningConfiguration, Configuration teleStaxProxyConfiguration,
+                ContainerConfiguration containerConfiguration) {
+        }
+
+        @Override
+        public List<PhoneNumber> searchForNumbers(String country, PhoneNumberSearchFilters listFilters) {
+            String uri = server.uri("/search?country=" + country);
+            try {
+                if (listFilters.getFilterPattern() != null) {
+                    uri += "&pattern=" + URLEncoder.encode(listFilters.getFilterPattern().pattern(), "UTF-8");
+                }
+                final HttpURLConnection connection = open(uri, "GET");
+                if (connection.getResponseCode() != 200) {
+                    throw new IllegalStateException("search failed with " + connection.getResponseCode());
+                }
+                final List<PhoneNumber> result = new ArrayList<PhoneNumber>();
+                final BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(),
+                        "UTF-8"));
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        result.add(new PhoneNumber(line, line, null, null, null, null, null, null, country, null, true,
+                                true, false, false, false));
+                    }
+                } finally {
+                    reader.close();
+                }
+                return result;
+            } catch (IOException exception) {
+                throw new IllegalStateException(exception);
+            }
+        }
+
+        @Override
+        public boolean buyNumber(PhoneNumber phoneNumber, PhoneNumberParameters phoneNumberParameters) {
+            try {
+                final HttpURLConnection connection = open(server.uri("/buy?number="
+                        + URLEncoder.encode(phoneNumber.getPhoneNumber(), "UTF-8")), "POST");
+                return connection.getResponseCode() == 200;
+            } catch (IOException exception) {
+                return false;
+            }
+        }
+
+        @Override
+        public boolean updateNumber(PhoneNumber number, PhoneNumberParameters phoneNumberParameters) {
+            return true;
+        }
+
+        @Override
+        public boolean cancelNumber(PhoneNumber number) {
+            return true;
+        }
+
+        @Override
+        public List<String> getAvailableCountries() {
+            return Arrays.asList("US");
+        }
+
+        private static HttpURLConnection open(final String uri, final String method) throws IOException {
+            final HttpURLConnection connection = (HttpURLConnection) new URL(uri).openConnection();
+            connection.setRequestMethod(method);
+            connection.setConnectTimeout(1000);
+            connection.setReadTimeout(10000);
+            return connection;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.sms.api;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.joda.time.DateTime;
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.commons.bulk.BulkJob;
+import org.restcomm.connect.commons.dao.Sid;
+
+/**
+ * A text message sent through the API to a list of recipients, one SmsMessage record per recipient.
+ * <p>
+ * The BulkSmsSender persists the records in batches ahead of the sending and hands them to the SmsService at a pace of
+ * messagesPerSecond, keeping at most maxInFlight of them waiting for the outcome of their submission. The sender is the
+ * only writer of the progress, the API reads it.
+ */
+@ThreadSafe
+public final class BulkSmsMessage implements BulkJob {
+    public enum Status {
+        QUEUED("queued"), IN_PROGRESS("in-progress"), COMPLETED("completed"), CANCELED("canceled");
+
+        private final String text;
+
+        private Status(final String text) {
+            this.text = text;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    };
+
+    private final Sid sid;
+    private final Sid accountSid;
+    private final String apiVersion;
+    private final URI uri;
+    private final DateTime dateCreated;
+    private final String from;
+    private final List<String> recipients;
+    private final String body;
+    private final SmsSessionRequest.Encoding encoding;
+    private final URI statusCallback;
+    private final int messagesPerSecond;
+    private final int maxInFlight;
+
+    private volatile Status status;
+    private volatile DateTime dateUpdated;
+    private volatile int inFlight;
+    private final AtomicInteger queued;
+    private final AtomicInteger submitted;
+    private final AtomicInteger sent;
+    private final AtomicInteger failed;
+    private final AtomicInteger unconfirmed;
+
+    public BulkSmsMessage(final Sid sid, final Sid accountSid, final String apiVersion, final URI uri, final String from,
+            final List<String> recipients, final String body, final SmsSessionRequest.Encoding encoding,
+            final URI statusCallback, final int messagesPerSecond, final int maxInFlight) {
+        super();
+        this.sid = sid;
+        this.accountSid = accountSid;
+        this.apiVersion = apiVersion;
+        this.uri = uri;
+        this.dateCreated = DateTime.now();
+        this.from = from;
+        this.recipients = Collections.unmodifiableList(recipients);
+        this.body = body;
+        this.encoding = encoding;
+        this.statusCallback = statusCallback;
+        this.messagesPerSecond = messagesPerSecond;
+        this.maxInFlight = maxInFlight;
+        this.status = Status.QUEUED;
+        this.dateUpdated = dateCreated;
+        this.queued = new AtomicInteger();
+        this.submitted = new AtomicInteger();
+        this.sent = new AtomicInteger();
+        this.failed = new AtomicInteger();
+        this.unconfirmed = new AtomicInteger();
+    }
+
+    @Override
+    public Sid getSid() {
+        return sid;
+    }
+
+    @Override
+    public Sid getAccountSid() {
+        return accountSid;
+    }
+
+    public String getApiVersion() {
+        return apiVersion;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    public DateTime getDateCreated() {
+        return dateCreated;
+    }
+
+    @Override
+    public DateTime getDateUpdated() {
+        return dateUpdated;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    /**
+     * @return the recipients, in sending order
+     */
+    public List<String> getRecipients() {
+        return recipients;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public SmsSessionRequest.Encoding getEncoding() {
+        return encoding;
+    }
+
+    public URI getStatusCallback() {
+        return statusCallback;
+    }
+
+    public int getMessagesPerSecond() {
+        return messagesPerSecond;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    @Override
+    public boolean isFinished() {
+        final Status current = status;
+        return Status.COMPLETED.equals(current) || Status.CANCELED.equals(current);
+    }
+
+    /**
+     * @return the SmsMessage records persisted so far
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * @return the messages handed to the SmsService so far
+     */
+    public int getSubmitted() {
+        return submitted.get();
+    }
+
+    /**
+     * @return the messages the SIP peer or the SMSC accepted
+     */
+    public int getSent() {
+        return sent.get();
+    }
+
+    /**
+     * @return the messages refused by the SmsService, the SIP peer or the SMSC, and those dropped by a cancel
+     */
+    public int getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * @return the messages submitted whose outcome was not known within the in-flight timeout
+     */
+    public int getUnconfirmed() {
+        return unconfirmed.get();
+    }
+
+    /**
+     * @return the messages submitted and waiting for their outcome
+     */
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public int getPending() {
+        return recipients.size() - submitted.get();
+    }
+
+    /**
+     * Stops sending to the remaining recipients, the messages in flight go on.
+     *
+     * @return false if the bulk message was already finished
+     */
+    public synchronized boolean cancel() {
+        if (isFinished()) {
+            return false;
+        }
+        update(Status.CANCELED);
+        return true;
+    }
+
+    public void queued(final int messages) {
+        queued.addAndGet(messages);
+        dateUpdated = DateTime.now();
+    }
+
+    public void submitted() {
+        submitted.incrementAndGet();
+        if (Status.QUEUED.equals(status)) {
+            update(Status.IN_PROGRESS);
+        } else {
+            dateUpdated = DateTime.now();
+        }
+    }
+
+    public void sent() {
+        sent.incrementAndGet();
+        dateUpdated = DateTime.now();
+    }
+
+    public void failed(final int messages) {
+        failed.addAndGet(messages);
+        dateUpdated = DateTime.now();
+    }
+
+    public void unconfirmed() {
+        unconfirmed.incrementAndGet();
+        dateUpdated = DateTime.now();
+    }
+
+    public void setInFlight(final int inFlight) {
+        this.inFlight = inFlight;
+    }
+
+    public synchronized void completed() {
+        if (!isFinished()) {
+            update(Status.COMPLETED);
+        }
+    }
+
+    private synchronized void update(final Status status) {
+        this.status = status;
+        this.dateUpdated = DateTime.now();
+    }
+}
@@ -0,0 +1,459 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+package org.restcomm.connect.sms;
+
+import static akka.pattern.Patterns.ask;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration.Configuration;
+import org.joda.time.DateTime;
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.commons.faulttolerance.RestcommUntypedActor;
+import org.restcomm.connect.commons.patterns.Observe;
+import org.restcomm.connect.commons.util.TokenBucket;
+import org.restcomm.connect.dao.SmsMessagesDao;
+import org.restcomm.connect.dao.entities.SmsMessage;
+import org.restcomm.connect.sms.api.BulkSmsMessage;
+import org.restcomm.connect.sms.api.CreateBulkSmsMessage;
+import org.restcomm.connect.sms.api.CreateSmsSession;
+import org.restcomm.connect.sms.api.DestroySmsSession;
+import org.restcomm.connect.sms.api.SmsServiceResponse;
+import org.restcomm.connect.sms.api.SmsSessionAttribute;
+import org.restcomm.connect.sms.api.SmsSessionRequest;
+import org.restcomm.connect.sms.api.SmsSessionResponse;
+import org.restcomm.connect.sms.api.SmsStatusUpdated;
+
+import akka.actor.ActorRef;
+import akka.dispatch.Futures;
+import akka.dispatch.OnComplete;
+import akka.dispatch.OnFailure;
+import akka.event.Logging;
+import akka.event.LoggingAdapter;
+import akka.util.Timeout;
+import scala.concurrent.ExecutionContext;
+import scala.concurrent.Future;
+import scala.concurrent.duration.Duration;
+
+/**
+ * Feeds the SmsService with the messages of the bulk messages.
+ * <p>
+ * The SmsMessage records of a bulk message are persisted in JDBC batches of batch-size, one batch ahead of the sending.
+ * The inserts and the status updates run on the restcomm-blocking-dispatcher, an insert comes back as a Persisted message,
+ * so the database round trips never hold the pacing of this actor. Every bulk message gets a {@link TokenBucket} of
+ * messagesPerSecond permits, a permit is spent only while less than maxInFlight messages wait for their outcome. The
+ * SmsSession decides between SMPP and SIP MESSAGE as for any other outbound message, the outcome comes back as a
+ * SmsSessionResponse for SIP and as the SmsStatusUpdated the SmsService publishes for SMPP. A message without outcome
+ * after in-flight-timeout no longer holds its slot of the window, its record is marked failed and the bulk message counts
+ * it as unconfirmed.
+ */
+public final class BulkSmsSender extends RestcommUntypedActor {
+    private static final long TICK = 100;
+    private static final String RECORD = "record";
+    private static final Timeout EXPIRES = new Timeout(Duration.create(10, TimeUnit.SECONDS));
+
+    private final LoggingAdapter logger = Logging.getLogger(getContext().system(), this);
+
+    private final ActorRef smsService;
+    private final SmsMessagesDao dao;
+    private final ExecutionContext blocking;
+    private final int batchSize;
+    private final long inFlightTimeout;
+    private final Map<Sid, Job> jobs;
+    // The job of every message in flight, by SmsMessage sid.
+    private final Map<Sid, Job> messages;
+    private boolean ticking;
+
+    public BulkSmsSender(final Configuration configuration, final SmsMessagesDao dao, final ActorRef smsService) {
+        super();
+        final Configuration runtime = configuration.subset("runtime-settings");
+        this.smsService = smsService;
+        this.dao = dao;
+        this.blocking = getContext().system().dispatchers().lookup("restcomm-blocking-dispatcher");
+        this.batchSize = Math.max(1, runtime.getInt("bulk-sms.batch-size", 100));
+        this.inFlightTimeout = TimeUnit.SECONDS.toMillis(runtime.getInt("bulk-sms.in-flight-timeout", 30));
+        this.jobs = new HashMap<Sid, Job>();
+        this.messages = new HashMap<Sid, Job>();
+        this.ticking = false;
+    }
+
+    @Override
+    public void preStart() {
+        getContext().system().eventStream().subscribe(self(), SmsStatusUpdated.class);
+    }
+
+    @Override
+    public void postStop() {
+        getContext().system().eventStream().unsubscribe(self());
+        super.postStop();
+    }
+
+    @Override
+    public void onReceive(final Object message) throws Exception {
+        final Class<?> klass = message.getClass();
+        if (CreateBulkSmsMessage.class.equals(klass)) {
+            onCreateBulkSmsMessage((CreateBulkSmsMessage) message);
+        } else if (Tick.class.equals(klass)) {
+            ticking = false;
+            onTick();
+        } else if (Created.class.equals(klass)) {
+            onCreated((Created) message);
+        } else if (Persisted.class.equals(klass)) {
+            onPersisted((Persisted) message);
+        } else if (SmsSessionResponse.class.equals(klass)) {
+            // The SmsSession sent a SIP MESSAGE, its outcome is ours to persist.
+            final SmsSessionResponse response = (SmsSessionResponse) message;
+            final SmsMessage record = (SmsMessage) response.info().attributes().get(RECORD);
+            if (record != null) {
+                update(record);
+                onOutcome(record, response.succeeded());
+            }
+        } else if (SmsStatusUpdated.class.equals(klass)) {
+            // The SmsService persisted the outcome of an SMPP submission.
+            final SmsMessage record = (SmsMessage) ((SmsStatusUpdated) message).getInfo().attributes().get(RECORD);
+            if (record != null) {
+                onOutcome(record, !SmsMessage.Status.FAILED.equals(record.getStatus()));
+            }
+        } else {
+            unhandled(message);
+        }
+    }
+
+    private void onCreateBulkSmsMessage(final CreateBulkSmsMessage message) {
+        final BulkSmsMessage bulkSmsMessage = message.bulkSmsMessage();
+        jobs.put(bulkSmsMessage.getSid(), new Job(bulkSmsMessage));
+        if (logger.isInfoEnabled()) {
+            logger.info("Bulk message " + bulkSmsMessage.getSid() + " queued with " + bulkSmsMessage.getRecipients().size()
+                    + " recipients at " + bulkSmsMessage.getMessagesPerSecond() + " messages per second");
+        }
+        onTick();
+    }
+
+    private void onTick() {
+        final long now = System.currentTimeMillis();
+        final Iterator<Job> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            final Job job = iterator.next();
+            final BulkSmsMessage bulkSmsMessage = job.bulkSmsMessage;
+            job.expire(now);
+            if (BulkSmsMessage.Status.CANCELED.equals(bulkSmsMessage.getStatus())) {
+                job.drop();
+            } else {
+                job.permits.refill(now, bulkSmsMessage.getMessagesPerSecond());
+                if (!job.persisting && job.ready.size() < batchSize && job.next < bulkSmsMessage.getRecipients().size()) {
+                    job.persist();
+                }
+                while (!job.ready.isEmpty() && job.permits.available() && job.inFlight.size() < bulkSmsMessage.getMaxInFlight()) {
+                    submit(job, now);
+                }
+            }
+            bulkSmsMessage.setInFlight(job.inFlight.size());
+            if (!job.persisting && job.inFlight.isEmpty() && job.ready.isEmpty() && (bulkSmsMessage.isFinished()
+                    || job.next == bulkSmsMessage.getRecipients().size())) {
+                bulkSmsMessage.completed();
+                iterator.remove();
+                if (logger.isInfoEnabled()) {
+                    logger.info("Bulk message " + bulkSmsMessage.getSid() + " " + bulkSmsMessage.getStatus() + ", submitted "
+                            + bulkSmsMessage.getSubmitted() + ", sent " + bulkSmsMessage.getSent() + ", failed "
+                            + bulkSmsMessage.getFailed() + ", unconfirmed " + bulkSmsMessage.getUnconfirmed());
+                }
+            }
+        }
+        if (!jobs.isEmpty() && !ticking) {
+            ticking = true;
+            getContext().system().scheduler().scheduleOnce(Duration.create(TICK, TimeUnit.MILLISECONDS), self(),
+                    new Tick(), getContext().dispatcher());
+        }
+    }
+
+    private void submit(final Job job, final long now) {
+        final BulkSmsMessage bulkSmsMessage = job.bulkSmsMessage;
+        final SmsMessage record = job.ready.poll();
+        job.permits.take();
+        job.inFlight.put(record.getSid(), new InFlight(record, now + inFlightTimeout));
+        messages.put(record.getSid(), job);
+        bulkSmsMessage.submitted();
+        final ActorRef self = self();
+        final CreateSmsSession request = new CreateSmsSession(bulkSmsMessage.getFrom(), record.getRecipient(),
+                bulkSmsMessage.getAccountSid().toString(), true);
+        final Future<Object> future = ask(smsService, request, EXPIRES);
+        future.onComplete(new OnComplete<Object>() {
+            @Override
+            public void onComplete(final Throwable failure, final Object response) throws Throwable {
+                self.tell(new Created(record, failure, response), null);
+            }
+        }, getContext().dispatcher());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onCreated(final Created message) {
+        final SmsMessage record = message.record;
+        final Job job = messages.get(record.getSid());
+        final InFlight inFlight = job == null ? null : job.inFlight.get(record.getSid());
+        final Object response = message.response;
+        if (inFlight == null) {
+            // Expired while the SmsService was busy, the session would outlive its bulk message.
+            if (response instanceof SmsServiceResponse && ((SmsServiceResponse<?>) response).succeeded()) {
+                smsService.tell(new DestroySmsSession(((SmsServiceResponse<ActorRef>) response).get()), null);
+            }
+            return;
+        }
+        if (response instanceof SmsServiceResponse && ((SmsServiceResponse<?>) response).succeeded()) {
+            final BulkSmsMessage bulkSmsMessage = job.bulkSmsMessage;
+            final ActorRef session = ((SmsServiceResponse<ActorRef>) response).get();
+            inFlight.session = session;
+            // The message was accepted, send it even if the bulk message was canceled meanwhile.
+            final ActorRef self = self();
+            session.tell(new Observe(self), self);
+            session.tell(new SmsSessionAttribute(RECORD, record), null);
+            session.tell(new SmsSessionRequest(bulkSmsMessage.getFrom(), record.getRecipient(), bulkSmsMessage.getBody(),
+                    bulkSmsMessage.getEncoding(), new ConcurrentHashMap<String, String>()), null);
+        } else {
+            if (logger.isInfoEnabled()) {
+                final Throwable cause = message.failure != null ? message.failure
+                        : response instanceof SmsServiceResponse ? ((SmsServiceResponse<?>) response).cause() : null;
+                logger.info("Bulk message " + job.bulkSmsMessage.getSid() + " could not send to " + record.getRecipient()
+                        + (cause != null ? ": " + cause.getMessage() : ""));
+            }
+            update(SmsMessage.builder().copyMessage(record).setStatus(SmsMessage.Status.FAILED).build());
+            job.inFlight.remove(record.getSid());
+            messages.remove(record.getSid());
+            job.bulkSmsMessage.failed(1);
+        }
+    }
+
+    private void onPersisted(final Persisted message) {
+        final Job job = message.job;
+        final BulkSmsMessage bulkSmsMessage = job.bulkSmsMessage;
+        job.persisting = false;
+        if (message.failure != null) {
+            logger.error(message.failure, "Bulk message " + bulkSmsMessage.getSid() + " could not persist its messages");
+            bulkSmsMessage.failed(message.batch.size());
+        } else {
+            job.ready.addAll(message.batch);
+            bulkSmsMessage.queued(message.batch.size());
+        }
+        onTick();
+    }
+
+    /**
+     * Updates the records on the blocking dispatcher, nothing waits for the outcome.
+     */
+    private void update(final SmsMessage... records) {
+        Futures.future(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                for (final SmsMessage record : records) {
+                    dao.updateSmsMessage(record);
+                }
+                return null;
+            }
+        }, blocking).onFailure(new OnFailure() {
+            @Override
+            public void onFailure(final Throwable failure) throws Throwable {
+                logger.error(failure, "Bulk message records could not be updated");
+            }
+        }, blocking);
+    }
+
+    /**
+     * Closes the message on its first outcome, the later delivery receipts of SMPP are not followed.
+     */
+    private void onOutcome(final SmsMessage record, final boolean succeeded) {
+        final Job job = messages.remove(record.getSid());
+        if (job == null) {
+            return;
+        }
+        final InFlight inFlight = job.inFlight.remove(record.getSid());
+        if (inFlight == null) {
+            return;
+        }
+        if (succeeded) {
+            job.bulkSmsMessage.sent();
+        } else {
+            job.bulkSmsMessage.failed(1);
+        }
+        if (inFlight.session != null) {
+            smsService.tell(new DestroySmsSession(inFlight.session), null);
+        }
+        job.bulkSmsMessage.setInFlight(job.inFlight.size());
+    }
+
+    private SmsMessage record(final BulkSmsMessage bulkSmsMessage, final String recipient, final DateTime now) {
+        final Sid sid = Sid.generate(Sid.Type.SMS_MESSAGE);
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append("/").append(bulkSmsMessage.getApiVersion()).append("/Accounts/");
+        buffer.append(bulkSmsMessage.getAccountSid().toString()).append("/SMS/Messages/");
+        buffer.append(sid.toString());
+        return SmsMessage.builder()
+                .setSid(sid)
+                .setAccountSid(bulkSmsMessage.getAccountSid())
+                .setApiVersion(bulkSmsMessage.getApiVersion())
+                .setSender(bulkSmsMessage.getFrom())
+                .setRecipient(recipient)
+                .setBody(bulkSmsMessage.getBody())
+                .setStatus(SmsMessage.Status.QUEUED)
+                .setDirection(SmsMessage.Direction.OUTBOUND_API)
+                .setPrice(new BigDecimal(0.00))
+                .setPriceUnit(Currency.getInstance("USD"))
+                .setUri(URI.create(buffer.toString()))
+                .setStatusCallback(bulkSmsMessage.getStatusCallback())
+                .setDateCreated(now)
+                .build();
+    }
+
+    private final class Job {
+        private final BulkSmsMessage bulkSmsMessage;
+        // The records persisted and not submitted yet.
+        private final LinkedList<SmsMessage> ready;
+        private final Map<Sid, InFlight> inFlight;
+        private final TokenBucket permits;
+        private int next;
+        // A batch is being inserted, the next one waits for it.
+        private boolean persisting;
+
+        private Job(final BulkSmsMessage bulkSmsMessage) {
+            super();
+            this.bulkSmsMessage = bulkSmsMessage;
+            this.ready = new LinkedList<SmsMessage>();
+            this.inFlight = new HashMap<Sid, InFlight>();
+            this.next = 0;
+            this.persisting = false;
+            this.permits = new TokenBucket(System.currentTimeMillis());
+        }
+
+        /**
+         * Persists the records of the next batch of recipients, they become ready once the Persisted message is back.
+         */
+        private void persist() {
+            final List<String> recipients = bulkSmsMessage.getRecipients();
+            final int end = Math.min(recipients.size(), next + batchSize);
+            final DateTime now = DateTime.now();
+            final List<SmsMessage> batch = new ArrayList<SmsMessage>(end - next);
+            for (int i = next; i < end; i++) {
+                batch.add(record(bulkSmsMessage, recipients.get(i), now));
+            }
+            next = end;
+            persisting = true;
+            final Job job = this;
+            final ActorRef self = self();
+            final Future<Void> future = Futures.future(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    dao.addSmsMessages(batch);
+                    return null;
+                }
+            }, blocking);
+            future.onComplete(new OnComplete<Void>() {
+                @Override
+                public void onComplete(final Throwable failure, final Void result) throws Throwable {
+                    self.tell(new Persisted(job, batch, failure), null);
+                }
+            }, blocking);
+        }
+
+        /**
+         * Fails the records persisted but not submitted before the cancel.
+         */
+        private void drop() {
+            if (ready.isEmpty()) {
+                return;
+            }
+            final SmsMessage[] failed = new SmsMessage[ready.size()];
+            int i = 0;
+            for (final SmsMessage record : ready) {
+                failed[i++] = SmsMessage.builder().copyMessage(record).setStatus(SmsMessage.Status.FAILED).build();
+            }
+            update(failed);
+            bulkSmsMessage.failed(ready.size());
+            ready.clear();
+        }
+
+        private void expire(final long now) {
+            final Iterator<InFlight> iterator = inFlight.values().iterator();
+            while (iterator.hasNext()) {
+                final InFlight message = iterator.next();
+                if (message.expires <= now) {
+                    iterator.remove();
+                    messages.remove(message.record.getSid());
+                    // Nothing will update the record anymore, it would stay queued.
+                    update(SmsMessage.builder().copyMessage(message.record).setStatus(SmsMessage.Status.FAILED).build());
+                    bulkSmsMessage.unconfirmed();
+                    if (message.session != null) {
+                        smsService.tell(new DestroySmsSession(message.session), null);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class InFlight {
+        private final SmsMessage record;
+        private final long expires;
+        private ActorRef session;
+
+        private InFlight(final SmsMessage record, final long expires) {
+            super();
+            this.record = record;
+            this.expires = expires;
+        }
+    }
+
+    private static final class Tick {
+    }
+
+    private static final class Persisted {
+        private final Job job;
+        private final List<SmsMessage> batch;
+        private final Throwable failure;
+
+        private Persisted(final Job job, final List<SmsMessage> batch, final Throwable failure) {
+            super();
+            this.job = job;
+            this.batch = batch;
+            this.failure = failure;
+        }
+    }
+
+    private static final class Created {
+        private final SmsMessage record;
+        private final Throwable failure;
+        private final Object response;
+
+        private Created(final SmsMessage record, final Throwable failure, final Object response) {
+            super();
+            this.record = record;
+            this.failure = failure;
+            this.response = response;
+        }
+    }
+}
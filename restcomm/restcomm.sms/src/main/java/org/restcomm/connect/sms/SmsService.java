@@ -47,6 +47,7 @@ import org.restcomm.connect.commons.dao.Sid;
 import org.restcomm.connect.commons.faulttolerance.RestcommUntypedActor;
 import org.restcomm.connect.commons.push.PushNotificationServerHelper;
 import org.restcomm.connect.core.service.RestcommConnectServiceProvider;
+import org.restcomm.connect.core.service.api.RateLimiterService;
 import org.restcomm.connect.core.service.util.UriUtils;
 import org.restcomm.connect.core.service.api.NumberSelectorService;
 import org.restcomm.connect.dao.AccountsDao;
@@ -143,6 +144,7 @@ public final class SmsService extends RestcommUntypedActor {
     private final NumberSelectorService numberSelector;
 
     private UriUtils uriUtils;
+    private RateLimiterService rateLimiter;
 
     public SmsService(final Configuration configuration, final SipFactory factory,
             final DaoManager storage, final ServletContext servletContext) {
@@ -175,6 +177,7 @@ public final class SmsService extends RestcommUntypedActor {
         }
 
         this.uriUtils = RestcommConnectServiceProvider.getInstance().uriUtils();
+        this.rateLimiter = RestcommConnectServiceProvider.getInstance().rateLimiterService();
     }
 
     private void message(final Object message) throws IOException {
@@ -342,7 +345,7 @@ public final class SmsService extends RestcommUntypedActor {
                 final IExtensionFeatureAccessRequest far = new FeatureAccessRequest(FeatureAccessRequest.Feature.OUTBOUND_SMS, client.getAccountSid());
                 ExtensionResponse er = ec.executePreOutboundAction(far, this.extensions);
 
-                if (er.isAllowed()) {
+                if (er.isAllowed() && acquire(client.getAccountSid(), client.getLogin(), null)) {
                     final SipServletResponse trying = request.createResponse(SipServletResponse.SC_TRYING);
                     trying.send();
                     //TODO:do extensions check here too?
@@ -549,18 +552,25 @@ public final class SmsService extends RestcommUntypedActor {
         IExtensionCreateSmsSessionRequest ier = (CreateSmsSession) message;
         ier.setConfiguration(this.configuration);
         ExtensionResponse executePreOutboundAction = ec.executePreOutboundAction(ier, this.extensions);
-        if (executePreOutboundAction.isAllowed()) {
-            CreateSmsSession createSmsSession = (CreateSmsSession) message;
+        CreateSmsSession createSmsSession = (CreateSmsSession) message;
+        if (!executePreOutboundAction.isAllowed()) {
+            final SmsServiceResponse<ActorRef> response = new SmsServiceResponse(new RestcommExtensionException("Now allowed to create SmsSession"));
+            sender.tell(response, self());
+        } else if (!acquire(new Sid(createSmsSession.getAccountSid()), null, createSmsSession.getFrom())) {
+            final SmsServiceResponse<ActorRef> response = new SmsServiceResponse(new RestcommExtensionException("Outbound SMS rate limit reached"));
+            sender.tell(response, self());
+        } else {
             final ActorRef session = session(ier.getConfiguration(), OrganizationUtil.getOrganizationSidByAccountSid(storage, new Sid(createSmsSession.getAccountSid())));
             final SmsServiceResponse<ActorRef> response = new SmsServiceResponse<ActorRef>(session);
             sender.tell(response, self);
-        } else {
-            final SmsServiceResponse<ActorRef> response = new SmsServiceResponse(new RestcommExtensionException("Now allowed to create SmsSession"));
-            sender.tell(response, self());
         }
         ec.executePostOutboundAction(ier, this.extensions);
     }
 
+    private boolean acquire(final Sid accountSid, final String client, final String number) {
+        return rateLimiter == null || rateLimiter.tryAcquire(RateLimiterService.Event.OUTBOUND_SMS, accountSid, client, number);
+    }
+
     private void response(final Object message) throws Exception {
         final ActorRef self = self();
         final SipServletResponse response = (SipServletResponse) message;
@@ -690,6 +700,8 @@ public final class SmsService extends RestcommUntypedActor {
         SmsMessage msg = (SmsMessage) event.getInfo().attributes().get(RECORD_ATT);
         storage.getSmsMessagesDao().updateSmsMessage(msg);
         notifyStatus(msg);
+        // The BulkSmsSender follows the SMPP outcomes of its messages
+        system.eventStream().publish(event);
 
     }
 
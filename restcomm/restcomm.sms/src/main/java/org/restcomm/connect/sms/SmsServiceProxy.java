@@ -27,6 +27,7 @@ import akka.actor.UntypedActorFactory;
 import org.apache.commons.configuration.Configuration;
 import org.apache.log4j.Logger;
 import org.restcomm.connect.dao.DaoManager;
+import org.restcomm.connect.sms.api.BulkSmsMessages;
 import org.restcomm.connect.sms.smpp.SmppMessageHandler;
 import org.restcomm.connect.sms.smpp.SmppService;
 
@@ -80,6 +81,17 @@ public final class SmsServiceProxy extends SipServlet implements SipServletListe
         return system.actorOf(props);
     }
 
+    private ActorRef bulkSmsSender(final Configuration configuration, final DaoManager storage, final ActorRef service) {
+        final Props props = new Props(new UntypedActorFactory() {
+            private static final long serialVersionUID = 1L;
+            @Override
+            public UntypedActor create() throws Exception {
+                return new BulkSmsSender(configuration, storage.getSmsMessagesDao(), service);
+            }
+        });
+        return system.actorOf(props);
+    }
+
     private ActorRef smppService(final Configuration configuration, final SipFactory factory, final DaoManager storage,
                                  final ServletContext context, final ActorRef smppMessageHandler) {
         final Props props = new Props(new UntypedActorFactory() {
@@ -113,6 +125,8 @@ public final class SmsServiceProxy extends SipServlet implements SipServletListe
             system = (ActorSystem) context.getAttribute(ActorSystem.class.getName());
             service = service(configuration, factory, storage);
             context.setAttribute(SmsService.class.getName(), service);
+            context.setAttribute(BulkSmsSender.class.getName(), bulkSmsSender(configuration, storage, service));
+            context.setAttribute(BulkSmsMessages.class.getName(), new BulkSmsMessages());
             if (configuration.subset("smpp").getString("[@activateSmppConnection]", "false").equalsIgnoreCase("true")) {
                 if(logger.isInfoEnabled()) {
                     logger.info("Will initialize SMPP");
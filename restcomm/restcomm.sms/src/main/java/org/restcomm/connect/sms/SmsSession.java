@@ -357,7 +357,7 @@ public final class SmsSession extends RestcommUntypedActor {
         return sendUsingSmpp(from, to, body, null, encoding);
     }
     private boolean sendUsingSmpp(String from, String to, String body, TlvSet tlvSet, Charset encoding) {
-        if ((SmppClientOpsThread.getSmppSession() != null && SmppClientOpsThread.getSmppSession().isBound()) && smppMessageHandler != null) {
+        if ((SmppClientOpsThread.getSessionPool() != null && SmppClientOpsThread.getSessionPool().isAvailable()) && smppMessageHandler != null) {
             if(logger.isInfoEnabled()) {
                 logger.info("SMPP session is available and connected, outbound message will be forwarded to :  " + to );
                 logger.info("Encoding:  " + encoding );
@@ -365,8 +365,10 @@ public final class SmsSession extends RestcommUntypedActor {
 
             SmsMessage record = (SmsMessage)this.attributes.get(SMS_RECORD);
             Sid sid = null;
+            Sid accountSid = null;
             if(record!=null) {
                 sid = record.getSid();
+                accountSid = record.getAccountSid();
                 if(logger.isInfoEnabled()) {
                     logger.info("record sid = "+sid.toString());
                 }
@@ -374,7 +376,7 @@ public final class SmsSession extends RestcommUntypedActor {
                 logger.error("record is null");
             }
             try {
-                final SmppOutboundMessageEntity sms = new SmppOutboundMessageEntity(to, from, body, encoding, tlvSet, sid);
+                final SmppOutboundMessageEntity sms = new SmppOutboundMessageEntity(to, from, body, encoding, tlvSet, sid, accountSid);
                 smppMessageHandler.tell(sms, null);
             }catch (final Exception exception) {
                 // Log the exception.
@@ -49,6 +49,8 @@ public class Smpp {
     private Charset outboundCharacterEncoding;
     private boolean messagePayloadFlag;
     private boolean autoDetectDcsFlag;
+    // maximum submits per second allowed on this bind, 0 means unlimited
+    private int tps;
 
     // not used as of today, but later we can allow users to stop each SMPP
     private boolean started = true;
@@ -248,6 +250,14 @@ public class Smpp {
         return autoDetectDcsFlag;
     }
 
+    public int getTps() {
+        return tps;
+    }
+
+    public void setTps(int tps) {
+        this.tps = tps;
+    }
+
     public boolean isStarted() {
         return started;
     }
@@ -274,7 +284,7 @@ public class Smpp {
                 + ", interfaceVersion=" + interfaceVersion + ", address=" + address + ", connectTimeout=" + connectTimeout
                 + ", windowSize=" + windowSize + ", windowWaitTimeout=" + windowWaitTimeout + ", requestExpiryTimeout="
                 + requestExpiryTimeout + ", windowMonitorInterval=" + windowMonitorInterval + ", countersEnabled="
-                + countersEnabled + ", logBytes=" + logBytes + ", enquireLinkDelay=" + enquireLinkDelay
+                + countersEnabled + ", logBytes=" + logBytes + ", enquireLinkDelay=" + enquireLinkDelay + ", tps=" + tps
                 + ", inboundCharacterEncoding=" + inboundCharacterEncoding.toString()
                 + ", outboundCharacterEncoding=" + outboundCharacterEncoding.toString()
                 + "]";
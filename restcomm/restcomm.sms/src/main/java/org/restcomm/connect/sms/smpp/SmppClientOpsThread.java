@@ -26,6 +26,7 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.ServletException;
 
@@ -67,9 +68,10 @@ public class SmppClientOpsThread implements Runnable {
     private List<ChangeRequest> pendingChanges = new CopyOnWriteArrayList<ChangeRequest>();
     private Object waitObject = new Object();
     private final DefaultSmppClient clientBootstrap;
-    private static SmppSession getSmppSession;
-    //FIXME: like getSmppSession, this is bad design
-    //this assumes singular SMPP connection all the time,so it works
+    //binds used to process SMS received from Restcomm
+    private static volatile SmppSessionPool sessionPool;
+    //FIXME: this is bad design
+    //this assumes all SMPP connections share the same encoding settings
     private static Charset outboundEncoding;
     private static Charset inboundEncoding;
     private static boolean messagePayloadFlag;
@@ -78,11 +80,25 @@ public class SmppClientOpsThread implements Runnable {
     private static int sipPort;
 
     private final ActorRef smppMessageHandler;
+    private final SmppReassemblyBuffer reassemblyBuffer;
 
     public SmppClientOpsThread(DefaultSmppClient clientBootstrap, int sipPort, final ActorRef smppMessageHandler) {
+        this(clientBootstrap, sipPort, smppMessageHandler, new SmppSessionPool(SmppSessionPool.Selection.ROUND_ROBIN));
+    }
+
+    public SmppClientOpsThread(DefaultSmppClient clientBootstrap, int sipPort, final ActorRef smppMessageHandler,
+            final SmppSessionPool sessionPool) {
+        this(clientBootstrap, sipPort, smppMessageHandler, sessionPool, new SmppReassemblyBuffer(
+                SmppReassemblyBuffer.DEFAULT_MAX_PENDING, SmppReassemblyBuffer.DEFAULT_TIMEOUT, TimeUnit.SECONDS));
+    }
+
+    public SmppClientOpsThread(DefaultSmppClient clientBootstrap, int sipPort, final ActorRef smppMessageHandler,
+            final SmppSessionPool sessionPool, final SmppReassemblyBuffer reassemblyBuffer) {
         this.clientBootstrap = clientBootstrap;
         this.sipPort = sipPort;
         this.smppMessageHandler = smppMessageHandler;
+        this.reassemblyBuffer = reassemblyBuffer;
+        SmppClientOpsThread.sessionPool = sessionPool;
     }
 
 
@@ -95,10 +111,14 @@ public class SmppClientOpsThread implements Runnable {
     }
 
     protected void scheduleConnect(Smpp esme) {
+        scheduleConnect(esme, SCHEDULE_CONNECT_DELAY);
+    }
+
+    protected void scheduleConnect(Smpp esme, long delay) {
         synchronized (this.pendingChanges) {
             this.pendingChanges.add(new ChangeRequest(esme,
                     ChangeRequest.CONNECT, System.currentTimeMillis()
-                    + SCHEDULE_CONNECT_DELAY));
+                    + delay));
         }
 
         synchronized (this.waitObject) {
@@ -275,13 +295,12 @@ public class SmppClientOpsThread implements Runnable {
 
             session0 = clientBootstrap.bind(config0, sessionHandler);
 
-
-            //getting session to be used to process SMS received from Restcomm
-            getSmppSession = session0;
-
             // Set in ESME
             esme.setSmppSession((DefaultSmppSession) session0);
 
+            //make the bind available to process SMS received from Restcomm
+            sessionPool.add(esme);
+
             // Finally set Enquire Link schedule
             this.scheduleEnquireLink(esme);
         } catch (Exception e) {
@@ -347,6 +366,8 @@ public class SmppClientOpsThread implements Runnable {
                     + this.esme.getName() + " PduAsyncResponse="
                     + pduAsyncResponse);
 
+            sessionPool.onResponse(this.esme, pduAsyncResponse);
+
             //forward this to smppMessageHandle so we can potentially update the message status
             smppMessageHandler.tell(pduAsyncResponse, null);
         }
@@ -402,6 +423,20 @@ public class SmppClientOpsThread implements Runnable {
                             logger.error("incoming message has no message body nor message_payload");
                         }
                     }
+                    if (msgType == 0x0) {
+                        //hold the segments of a concatenated message until it is complete
+                        SmppSegmenter.Segment segment = SmppSegmenter.parse(deliverSm, pduMessage);
+                        if (segment != null) {
+                            String key = sourceSmppAddress + "/" + destSmppAddress + "/" + segment.getReference();
+                            pduMessage = reassemblyBuffer.offer(key, segment);
+                            if (pduMessage == null) {
+                                if (logger.isDebugEnabled()) {
+                                    logger.debug("Segment " + segment.getSequence() + "/" + segment.getTotal() + " of message " + key + " buffered");
+                                }
+                                return response;
+                            }
+                        }
+                    }
                     String decodedPduMessage = CharsetUtil.decode(pduMessage, encoding);
                     //send received SMPP PDU message to restcomm only if not DLR
                     if (msgType == 0x0) {
@@ -467,13 +502,12 @@ public class SmppClientOpsThread implements Runnable {
         }
     }
 
-    //smpp session to be used for sending SMS from Restcomm to smpp endpoint
-    public static SmppSession getSmppSession() {
-        return getSmppSession;
+    //smpp binds to be used for sending SMS from Restcomm to smpp endpoint
+    public static SmppSessionPool getSessionPool() {
+        return sessionPool;
     }
 
     public void sendSmppMessageToRestcomm(String smppMessage, String smppTo, String smppFrom, Charset charset) throws IOException, ServletException {
-        SmppSession smppSession = SmppClientOpsThread.getSmppSession();
         String to = smppTo;
         String from = smppFrom;
         String inboundMessage = smppMessage;
@@ -25,6 +25,7 @@ import akka.actor.UntypedActor;
 import akka.actor.UntypedActorFactory;
 import akka.event.Logging;
 import akka.event.LoggingAdapter;
+import com.cloudhopper.commons.charset.Charset;
 import com.cloudhopper.commons.charset.CharsetUtil;
 import com.cloudhopper.smpp.PduAsyncResponse;
 import com.cloudhopper.smpp.SmppConstants;
@@ -45,13 +46,13 @@ import org.restcomm.connect.commons.configuration.sets.RcmlserverConfigurationSe
 import org.restcomm.connect.commons.dao.Sid;
 import org.restcomm.connect.commons.faulttolerance.RestcommUntypedActor;
 import org.restcomm.connect.core.service.RestcommConnectServiceProvider;
+import org.restcomm.connect.core.service.api.RateLimiterService;
 import org.restcomm.connect.core.service.util.UriUtils;
 import org.restcomm.connect.core.service.api.NumberSelectorService;
 import org.restcomm.connect.dao.AccountsDao;
 import org.restcomm.connect.dao.ApplicationsDao;
 import org.restcomm.connect.dao.DaoManager;
 import org.restcomm.connect.dao.NotificationsDao;
-import org.restcomm.connect.dao.SmsMessagesDao;
 import org.restcomm.connect.dao.entities.Application;
 import org.restcomm.connect.dao.entities.IncomingPhoneNumber;
 import org.restcomm.connect.dao.entities.Notification;
@@ -68,6 +69,7 @@ import org.restcomm.connect.sms.SmsSession;
 import org.restcomm.connect.sms.smpp.dlr.spi.DLRPayload;
 import org.restcomm.connect.telephony.api.FeatureAccessRequest;
 import org.restcomm.smpp.parameter.TlvSet;
+import scala.concurrent.duration.Duration;
 
 import javax.servlet.ServletContext;
 import javax.servlet.sip.SipFactory;
@@ -79,7 +81,10 @@ import java.net.URISyntaxException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import org.restcomm.connect.sms.SmsService;
 import org.restcomm.connect.sms.api.SmsSessionInfo;
 import org.restcomm.connect.sms.api.SmsStatusUpdated;
@@ -87,6 +92,8 @@ import org.restcomm.connect.sms.api.SmsStatusUpdated;
 public class SmppMessageHandler extends RestcommUntypedActor {
 
     private static final int SEND_TIMEOUT = 10000;
+    // Segmented messages whose receipts are still awaited, the oldest ones are forgotten past that
+    private static final int MAX_SEGMENTED_MESSAGES = 10000;
     private final LoggingAdapter logger = Logging.getLogger(getContext().system(), this);
     private final ServletContext servletContext;
     private final DaoManager storage;
@@ -95,10 +102,16 @@ public class SmppMessageHandler extends RestcommUntypedActor {
     private final ActorRef monitoringService;
     private final NumberSelectorService numberSelector;
     private final ActorRef smsService;
+    private final SmppSegmenter segmenter;
+    // Messages sent in several segments, from their submit until every segment is delivered or one failed
+    private final Map<Sid, SmppSegmenter.SegmentedMessage> segmentedMessages;
+    // SMPP message id of every accepted segment, the delivery receipts of segments are correlated in memory
+    private final Map<String, Sid> segmentIds;
     //List of extensions for SmsService
     List<RestcommExtensionGeneric> extensions;
 
     private UriUtils uriUtils;
+    private RateLimiterService rateLimiter;
 
     public SmppMessageHandler(final ServletContext servletContext) {
         this.servletContext = servletContext;
@@ -114,6 +127,10 @@ public class SmppMessageHandler extends RestcommUntypedActor {
         }
         smsService = (ActorRef) servletContext.getAttribute(SmsService.class.getName());
         uriUtils = RestcommConnectServiceProvider.getInstance().uriUtils();
+        rateLimiter = RestcommConnectServiceProvider.getInstance().rateLimiterService();
+        segmenter = new SmppSegmenter(SmppSegmenter.Mode.parse(configuration.getString("smpp.connections[@segmentation]")));
+        segmentedMessages = new BoundedMap<Sid, SmppSegmenter.SegmentedMessage>(MAX_SEGMENTED_MESSAGES);
+        segmentIds = new BoundedMap<String, Sid>(MAX_SEGMENTED_MESSAGES * 4);
     }
 
     @Override
@@ -135,6 +152,8 @@ public class SmppMessageHandler extends RestcommUntypedActor {
                 logger.info("SmppMessageHandler processing Outbound Message " + message.toString());
             }
             outbound((SmppOutboundMessageEntity) message);
+        } else if (message instanceof SubmitSm) {
+            submit((SubmitSm) message);
         } else if (message instanceof DLRPayload) {
             onDLR((DLRPayload) message);
         } else if (message instanceof PduAsyncResponse) {
@@ -156,45 +175,117 @@ public class SmppMessageHandler extends RestcommUntypedActor {
         final String smppMessageId = submitSmResp.getMessageId();
         final Object ref = pduAsyncResponse.getRequest().getReferenceObject();
 
-        if (ref != null && ref instanceof Sid) {
-            // BS-230: Ensure there is no other message sharing same SMPP Message ID
-            final List<SmsMessage> smsMessages = this.storage.getSmsMessagesDao().findBySmppMessageId(smppMessageId);
-
-            // Delete correlation between messages and SMPP Message ID
-            for (SmsMessage smsMessage : smsMessages) {
-                SmsMessage.Builder builder = SmsMessage.builder();
-                builder.copyMessage(smsMessage);
-                builder.setSmppMessageId(null);
-                this.storage.getSmsMessagesDao().updateSmsMessage(builder.build());
-                logger.warning("Correlation between SmsMessage " + smsMessage.getSid() + " and SMPP Message " + smppMessageId + " expired.");
+        if (ref instanceof SmppSegmenter.SegmentReference) {
+            final SmppSegmenter.SegmentReference segment = (SmppSegmenter.SegmentReference) ref;
+            if (submitSmResp.getCommandStatus() == SmppConstants.STATUS_OK) {
+                onSegmentSubmitted(segment, smppMessageId);
+            } else {
+                onSegmentRefused(segment, submitSmResp.getCommandStatus(), submitSmResp.getResultMessage());
             }
-
-            // Update status of target message
-            SmsMessage smsMessage = storage.getSmsMessagesDao().getSmsMessage((Sid) ref);
-            SmsMessage.Builder builder = SmsMessage.builder();
-            builder.copyMessage(smsMessage);
+        } else if (ref != null && ref instanceof Sid) {
             if (submitSmResp.getCommandStatus() == SmppConstants.STATUS_OK) {
-                // Successful reponse: update smppMessageId as well as status to SENT and date sent
-                builder.setSmppMessageId(smppMessageId).setStatus(SmsMessage.Status.SENT).setDateSent(DateTime.now());
+                submitted((Sid) ref, smppMessageId);
             } else {
-                // Failure response: set status to FAILED and do not correlate to any smppMessageId
-                logger.warning(String.format("SubmitSmResp Failure! Message could not be sent Status Code %s Result Messages: %s", submitSmResp.getCommandStatus(), submitSmResp.getResultMessage()));
-                builder.setSmppMessageId(null).setStatus(SmsMessage.Status.FAILED);
-                org.restcomm.connect.commons.dao.MessageError err = ErrorCodeMapper.parseRestcommErrorCode(submitSmResp.getCommandStatus());
-                builder.setError(err);
+                refused((Sid) ref, submitSmResp.getCommandStatus(), submitSmResp.getResultMessage());
             }
-            SmsMessage msgUpdated = builder.build();
-            HashMap<String,Object> hashMap = new HashMap();
-            hashMap.put("record", msgUpdated);
-            SmsSessionInfo info = new SmsSessionInfo(msgUpdated.getSender(),
-                    msgUpdated.getRecipient(), hashMap);
-            SmsStatusUpdated smsStatusUpdated = new SmsStatusUpdated(info);
-            smsService.tell(smsStatusUpdated, self());
         } else {
             logger.warning("PduAsyncResponse reference is null or not Sid");
         }
     }
 
+    private void onSegmentSubmitted(final SmppSegmenter.SegmentReference segment, final String smppMessageId) {
+        final SmppSegmenter.SegmentedMessage message = segmentedMessages.get(segment.getSid());
+        if (message == null) {
+            logger.warning("Segment " + segment.getSequence() + " of SmsMessage " + segment.getSid() + " is not tracked anymore");
+            return;
+        }
+        message.submitted(segment.getSequence(), smppMessageId);
+        segmentIds.put(smppMessageId, message.getSid());
+        if (message.isSubmitted()) {
+            if (message.isFailed()) {
+                // the message already failed with one of its segments
+                forget(message);
+            } else {
+                // the record is correlated to the first segment, the receipts of the others are correlated in memory
+                submitted(message.getSid(), message.getSmppMessageId(1));
+            }
+        }
+    }
+
+    private void onSegmentRefused(final SmppSegmenter.SegmentReference segment, final int status, final String result) {
+        final SmppSegmenter.SegmentedMessage message = segmentedMessages.get(segment.getSid());
+        if (message == null) {
+            logger.warning("Segment " + segment.getSequence() + " of SmsMessage " + segment.getSid() + " is not tracked anymore");
+            return;
+        }
+        final boolean failed = message.isFailed();
+        message.submitted(segment.getSequence(), null);
+        // the first refused segment fails the whole message, whatever the other segments get afterwards
+        if (!failed) {
+            refused(message.getSid(), status, result);
+        }
+        if (message.isSubmitted()) {
+            forget(message);
+        }
+    }
+
+    private void forget(final SmppSegmenter.SegmentedMessage message) {
+        segmentedMessages.remove(message.getSid());
+        for (int i = 1; i <= message.getTotal(); i++) {
+            final String smppMessageId = message.getSmppMessageId(i);
+            if (smppMessageId != null && !smppMessageId.isEmpty()) {
+                segmentIds.remove(smppMessageId);
+            }
+        }
+    }
+
+    /**
+     * Successful response: update smppMessageId as well as status to SENT and date sent.
+     */
+    private void submitted(final Sid sid, final String smppMessageId) {
+        // BS-230: Ensure there is no other message sharing same SMPP Message ID
+        final List<SmsMessage> smsMessages = this.storage.getSmsMessagesDao().findBySmppMessageId(smppMessageId);
+
+        // Delete correlation between messages and SMPP Message ID
+        for (SmsMessage smsMessage : smsMessages) {
+            SmsMessage.Builder builder = SmsMessage.builder();
+            builder.copyMessage(smsMessage);
+            builder.setSmppMessageId(null);
+            this.storage.getSmsMessagesDao().updateSmsMessage(builder.build());
+            logger.warning("Correlation between SmsMessage " + smsMessage.getSid() + " and SMPP Message " + smppMessageId + " expired.");
+        }
+
+        // Update status of target message
+        SmsMessage smsMessage = storage.getSmsMessagesDao().getSmsMessage(sid);
+        SmsMessage.Builder builder = SmsMessage.builder();
+        builder.copyMessage(smsMessage);
+        builder.setSmppMessageId(smppMessageId).setStatus(SmsMessage.Status.SENT).setDateSent(DateTime.now());
+        statusUpdated(builder.build());
+    }
+
+    /**
+     * Failure response: set status to FAILED and do not correlate to any smppMessageId.
+     */
+    private void refused(final Sid sid, final int status, final String result) {
+        logger.warning(String.format("SubmitSmResp Failure! Message could not be sent Status Code %s Result Messages: %s", status, result));
+        SmsMessage smsMessage = storage.getSmsMessagesDao().getSmsMessage(sid);
+        SmsMessage.Builder builder = SmsMessage.builder();
+        builder.copyMessage(smsMessage);
+        builder.setSmppMessageId(null).setStatus(SmsMessage.Status.FAILED);
+        org.restcomm.connect.commons.dao.MessageError err = ErrorCodeMapper.parseRestcommErrorCode(status);
+        builder.setError(err);
+        statusUpdated(builder.build());
+    }
+
+    private void statusUpdated(final SmsMessage msgUpdated) {
+        HashMap<String,Object> hashMap = new HashMap();
+        hashMap.put("record", msgUpdated);
+        SmsSessionInfo info = new SmsSessionInfo(msgUpdated.getSender(),
+                msgUpdated.getRecipient(), hashMap);
+        SmsStatusUpdated smsStatusUpdated = new SmsStatusUpdated(info);
+        smsService.tell(smsStatusUpdated, self());
+    }
+
     private void onDLR(DLRPayload deliveryReceipt) {
         final String smppMessageId = deliveryReceipt.getId();
         final SmsMessage.Status deliveryStatus = deliveryReceipt.getStat();
@@ -203,6 +294,13 @@ public class SmppMessageHandler extends RestcommUntypedActor {
             logger.debug("DLR Received for SMPP Message " + deliveryReceipt.getId() + " with status " + deliveryStatus);
         }
 
+        final Sid segmented = smppMessageId == null ? null : segmentIds.get(smppMessageId);
+        final SmppSegmenter.SegmentedMessage message = segmented == null ? null : segmentedMessages.get(segmented);
+        if (message != null) {
+            onSegmentDLR(message, deliveryReceipt);
+            return;
+        }
+
         // Find message bound to the SMPP Message ID
         // NOTE: We ensure there is only one message bound to any SmppMessageId at this point because uniqueness is enforced on submit_response event
         final SmsMessage sms = this.storage.getSmsMessagesDao().getSmsMessageBySmppMessageId(smppMessageId);
@@ -211,20 +309,37 @@ public class SmppMessageHandler extends RestcommUntypedActor {
         if (sms == null) {
             logger.warning("responseMessageId=" + smppMessageId + " was never received!");
         } else {
-            SmsMessage.Builder builder = SmsMessage.builder();
-            builder.copyMessage(sms);
-            builder.setSmppMessageId(null);
-            builder.setStatus(deliveryReceipt.getStat());
-            builder.setError(deliveryReceipt.getErr());
-            SmsMessage msgUpdated = builder.build();
-            HashMap<String,Object> hashMap = new HashMap();
-            hashMap.put("record", msgUpdated);
-            SmsSessionInfo info = new SmsSessionInfo(msgUpdated.getSender(),
-                    msgUpdated.getRecipient(), hashMap);
-            SmsStatusUpdated smsStatusUpdated = new SmsStatusUpdated(info);
-            smsService.tell(smsStatusUpdated, self());
+            delivered(sms, deliveryReceipt);
+        }
+
+    }
+
+    private void onSegmentDLR(final SmppSegmenter.SegmentedMessage message, final DLRPayload deliveryReceipt) {
+        final SmsMessage.Status deliveryStatus = deliveryReceipt.getStat();
+        final boolean success = SmsMessage.Status.DELIVERED.equals(deliveryStatus);
+        if (!success && !SmsMessage.Status.FAILED.equals(deliveryStatus) && !SmsMessage.Status.UNDELIVERED.equals(deliveryStatus)) {
+            // intermediate receipt of one segment, the message keeps its status
+            return;
+        }
+        message.delivered(message.getSequence(deliveryReceipt.getId()), success);
+        segmentIds.remove(deliveryReceipt.getId());
+        // the message is delivered with its last segment, the first undelivered segment fails it
+        if (message.isFailed() || message.isDelivered()) {
+            forget(message);
+            final SmsMessage sms = storage.getSmsMessagesDao().getSmsMessage(message.getSid());
+            if (sms != null) {
+                delivered(sms, deliveryReceipt);
+            }
         }
+    }
 
+    private void delivered(final SmsMessage sms, final DLRPayload deliveryReceipt) {
+        SmsMessage.Builder builder = SmsMessage.builder();
+        builder.copyMessage(sms);
+        builder.setSmppMessageId(null);
+        builder.setStatus(deliveryReceipt.getStat());
+        builder.setError(deliveryReceipt.getErr());
+        statusUpdated(builder.build());
     }
 
     private void inbound(final SmppInboundMessageEntity request) throws IOException {
@@ -244,7 +359,6 @@ public class SmppMessageHandler extends RestcommUntypedActor {
 
     static final int ERROR_NOTIFICATION = 0;
     static final int WARNING_NOTIFICATION = 1;
-    private static final int CONTENT_LENGTH_MAX = 140;
     private static final int DATA_CODING_AUTODETECT = 0x80;
 
     // used for sending warning and error logs to notification engine and to the console
@@ -431,10 +545,8 @@ public class SmppMessageHandler extends RestcommUntypedActor {
 //        if(logger.isInfoEnabled()) {
 //            logger.info("Message is Received by the SmppSessionOutbound Class");
 //        }
-        SmsMessagesDao smsDao = storage.getSmsMessagesDao();
-        SmsMessage msg = smsDao.getSmsMessage(request.getMessageSid());
-
         byte[] textBytes;
+        Charset charset;
         int smppTonNpiValue = Integer.parseInt(SmppService.getSmppTonNpiValue());
         boolean autodetectdcs = SmppClientOpsThread.getAutoDetectDcsFlag();
         // add delivery receipt
@@ -444,11 +556,12 @@ public class SmppMessageHandler extends RestcommUntypedActor {
         submit0.setDestAddress(new Address((byte) smppTonNpiValue, (byte) smppTonNpiValue, request.getSmppTo()));
         if (CharsetUtil.CHARSET_UCS_2 == request.getSmppEncoding()) {
             submit0.setDataCoding(SmppConstants.DATA_CODING_UCS2);
-            textBytes = CharsetUtil.encode(request.getSmppContent(), CharsetUtil.CHARSET_UCS_2);
+            charset = CharsetUtil.CHARSET_UCS_2;
         } else {
             submit0.setDataCoding(SmppConstants.DATA_CODING_DEFAULT);
-            textBytes = CharsetUtil.encode(request.getSmppContent(), SmppClientOpsThread.getOutboundDefaultEncoding());
+            charset = SmppClientOpsThread.getOutboundDefaultEncoding();
         }
+        textBytes = CharsetUtil.encode(request.getSmppContent(), charset);
         if (autodetectdcs) {
             submit0.setDataCoding((byte) DATA_CODING_AUTODETECT);
         }
@@ -461,14 +574,8 @@ public class SmppMessageHandler extends RestcommUntypedActor {
         TlvSet tlvSet = request.getTlvSet();
 
         if (logger.isDebugEnabled()) {
-            logger.debug("msg.body=" + msg.getBody() + " msg.getStatus()=" + msg.getStatus() + " payloadFlag=" + payloadFlag + " contentLength=" + contentLength + " textBytes=" + Arrays.toString(textBytes));
+            logger.debug("messageSid=" + request.getMessageSid() + " payloadFlag=" + payloadFlag + " contentLength=" + contentLength + " textBytes=" + Arrays.toString(textBytes));
         }
-        if (payloadFlag || (contentLength > CONTENT_LENGTH_MAX)) {
-            tlvSet.addOptionalParameter(new Tlv(SmppConstants.TAG_MESSAGE_PAYLOAD, textBytes));
-        } else {
-            submit0.setShortMessage(textBytes);
-        }
-
         if (tlvSet != null) {
             for (Tlv tlv : (Collection<Tlv>) tlvSet.getOptionalParameters()) {
                 submit0.setOptionalParameter(tlv);
@@ -476,15 +583,104 @@ public class SmppMessageHandler extends RestcommUntypedActor {
         } else if (logger.isInfoEnabled()) {
             logger.info("TlvSet is null");
         }
-        try {
-            if (logger.isInfoEnabled()) {
-                logger.info("Sending SubmitSM for " + request + " messageSid=" + request.getMessageSid());
+        // long messages are split in segments sent one after the other without waiting for their responses
+        final List<SubmitSm> segments = segmenter.segment(submit0, textBytes, charset, payloadFlag);
+        if (logger.isInfoEnabled()) {
+            logger.info("Sending SubmitSM for " + request + " messageSid=" + request.getMessageSid() + " segments=" + segments.size());
+        }
+        if (!acquire(request, segments.size())) {
+            logger.warning("SMS segments rate limit reached, " + request.getMessageSid() + " will not be sent");
+            reject(request.getMessageSid());
+            return;
+        }
+        if (segments.size() == 1) {
+            segments.get(0).setReferenceObject(request.getMessageSid());
+        } else {
+            // every segment reports its own outcome, see onSegmentSubmitted and onSegmentRefused
+            for (int i = 0; i < segments.size(); i++) {
+                segments.get(i).setReferenceObject(new SmppSegmenter.SegmentReference(request.getMessageSid(), i + 1));
             }
+            segmentedMessages.put(request.getMessageSid(), new SmppSegmenter.SegmentedMessage(request.getMessageSid(), segments.size()));
+        }
+        for (SubmitSm segment : segments) {
+            submit(segment);
+        }
+    }
 
-            submit0.setReferenceObject(request.getMessageSid());
-            SmppClientOpsThread.getSmppSession().sendRequestPdu(submit0, SEND_TIMEOUT, false);
+    private boolean acquire(final SmppOutboundMessageEntity request, final int segments) {
+        if (rateLimiter == null || request.getAccountSid() == null) {
+            return true;
+        }
+        // segments already acquired when the limit is reached stay counted
+        for (int i = 0; i < segments; i++) {
+            if (!rateLimiter.tryAcquire(RateLimiterService.Event.OUTBOUND_SMS_SEGMENT, request.getAccountSid(), null, request.getSmppFrom())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void reject(final Sid messageSid) {
+        final SmsMessage smsMessage = messageSid == null ? null : storage.getSmsMessagesDao().getSmsMessage(messageSid);
+        if (smsMessage != null) {
+            final SmsMessage.Builder builder = SmsMessage.builder();
+            builder.copyMessage(smsMessage);
+            builder.setStatus(SmsMessage.Status.FAILED);
+            storage.getSmsMessagesDao().updateSmsMessage(builder.build());
+        }
+    }
+
+    private void submit(final SubmitSm submit) {
+        final SmppSessionPool pool = SmppClientOpsThread.getSessionPool();
+        if (pool == null || !pool.isAvailable()) {
+            logger.error("SMPP message cannot be sent : no SMPP session is bound");
+            lost(submit);
+            return;
+        }
+        final Smpp bind = pool.select();
+        if (bind == null) {
+            // Every window is full or every bind is throttled, try again once one of them frees up
+            final long delay = pool.retryDelayMillis();
+            if (logger.isDebugEnabled()) {
+                logger.debug("No SMPP bind can take SubmitSM " + submit.getReferenceObject() + " now, retrying in " + delay + "ms");
+            }
+            getContext().system().scheduler().scheduleOnce(Duration.create(delay, TimeUnit.MILLISECONDS), self(), submit,
+                    getContext().dispatcher());
+            return;
+        }
+        try {
+            pool.submit(bind, submit, SEND_TIMEOUT);
         } catch (RecoverablePduException | UnrecoverablePduException | SmppTimeoutException | SmppChannelException | InterruptedException e) {
-            logger.error("SMPP message cannot be sent : " + e);
+            logger.error("SMPP message cannot be sent through " + bind.getName() + " : " + e);
+            lost(submit);
+        }
+    }
+
+    /**
+     * No submit_sm_resp will ever come for a segment that could not be sent, it is refused right away so the message
+     * does not wait for it.
+     */
+    private void lost(final SubmitSm submit) {
+        if (submit.getReferenceObject() instanceof SmppSegmenter.SegmentReference) {
+            onSegmentRefused((SmppSegmenter.SegmentReference) submit.getReferenceObject(), SmppConstants.STATUS_SYSERR, null);
+        }
+    }
+
+    /**
+     * Insertion ordered map dropping its oldest entry once it holds more than the given number of entries.
+     */
+    private static final class BoundedMap<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+        private final int capacity;
+
+        private BoundedMap(final int capacity) {
+            super();
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+            return size() > capacity;
         }
     }
 }
@@ -14,6 +14,7 @@ public class SmppOutboundMessageEntity {
     private final Charset smppEncoding;
     private final TlvSet tlvSet;
     private final Sid msgSid;
+    private final Sid accountSid;
 
 
     public SmppOutboundMessageEntity(String smppTo, String smppFrom, String smppContent, Charset smppEncoding){
@@ -21,12 +22,17 @@ public class SmppOutboundMessageEntity {
     }
 
     public SmppOutboundMessageEntity(String smppTo, String smppFrom, String smppContent, Charset smppEncoding, TlvSet tlvSet, Sid smsSid){
+        this(smppTo, smppFrom, smppContent, smppEncoding, tlvSet, smsSid, null);
+    }
+
+    public SmppOutboundMessageEntity(String smppTo, String smppFrom, String smppContent, Charset smppEncoding, TlvSet tlvSet, Sid smsSid, Sid accountSid){
         this.smppTo = smppTo;
         this.smppFrom = smppFrom;
         this.smppContent = smppContent;
         this.smppEncoding = smppEncoding;
         this.tlvSet = tlvSet;
         this.msgSid = smsSid;
+        this.accountSid = accountSid;
     }
 
     public final TlvSet getTlvSet(){
@@ -53,6 +59,10 @@ public class SmppOutboundMessageEntity {
         return msgSid;
     }
 
+    public Sid getAccountSid() {
+        return accountSid;
+    }
+
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
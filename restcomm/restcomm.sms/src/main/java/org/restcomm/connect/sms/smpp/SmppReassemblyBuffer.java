@@ -0,0 +1,140 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.sms.smpp;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+
+/**
+ * Holds the segments of inbound concatenated messages until every segment arrived. The buffer is bounded both in
+ * number of pending messages and in time: the oldest pending message is dropped when the buffer is full and messages
+ * still incomplete after the timeout are dropped, so a lost segment can't pin memory forever.
+ */
+@ThreadSafe
+public final class SmppReassemblyBuffer {
+
+    public static final int DEFAULT_MAX_PENDING = 10000;
+    public static final long DEFAULT_TIMEOUT = 60;
+
+    private static final Logger logger = Logger.getLogger(SmppReassemblyBuffer.class);
+
+    private final int maxPending;
+    private final long timeoutNanos;
+    // insertion ordered, the head is always the oldest pending message
+    private final LinkedHashMap<String, Pending> pending;
+    private final AtomicLong dropped;
+
+    public SmppReassemblyBuffer(final int maxPending, final long timeout, final TimeUnit unit) {
+        super();
+        this.maxPending = Math.max(1, maxPending);
+        this.timeoutNanos = unit.toNanos(timeout);
+        this.pending = new LinkedHashMap<String, Pending>();
+        this.dropped = new AtomicLong();
+    }
+
+    /**
+     * @param key identifies the message the segment belongs to, typically source, destination and reference.
+     * @return the payload of the whole message if this segment completed it, null otherwise.
+     */
+    public byte[] offer(final String key, final SmppSegmenter.Segment segment) {
+        final long now = System.nanoTime();
+        synchronized (pending) {
+            expire(now);
+            Pending message = pending.get(key);
+            if (message == null || message.parts.length != segment.getTotal()) {
+                if (message != null) {
+                    // same reference reused with another segment count, the old message can't complete anymore
+                    pending.remove(key);
+                    drop(key, message);
+                }
+                if (pending.size() >= maxPending) {
+                    final Iterator<Map.Entry<String, Pending>> oldest = pending.entrySet().iterator();
+                    final Map.Entry<String, Pending> entry = oldest.next();
+                    oldest.remove();
+                    drop(entry.getKey(), entry.getValue());
+                }
+                message = new Pending(segment.getTotal(), now);
+                pending.put(key, message);
+            }
+            if (message.parts[segment.getSequence() - 1] == null) {
+                message.parts[segment.getSequence() - 1] = segment.getPayload();
+                message.received++;
+                message.length += segment.getPayload().length;
+            }
+            if (message.received < message.parts.length) {
+                return null;
+            }
+            pending.remove(key);
+            final byte[] whole = new byte[message.length];
+            int position = 0;
+            for (byte[] part : message.parts) {
+                System.arraycopy(part, 0, whole, position, part.length);
+                position += part.length;
+            }
+            return whole;
+        }
+    }
+
+    public int getPending() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private void expire(final long now) {
+        final Iterator<Map.Entry<String, Pending>> messages = pending.entrySet().iterator();
+        while (messages.hasNext()) {
+            final Map.Entry<String, Pending> entry = messages.next();
+            if (now - entry.getValue().created < timeoutNanos) {
+                break;
+            }
+            messages.remove();
+            drop(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void drop(final String key, final Pending message) {
+        dropped.incrementAndGet();
+        logger.warn("Dropping incomplete concatenated SMPP message " + key + ", received " + message.received + " of "
+                + message.parts.length + " segments");
+    }
+
+    private static final class Pending {
+        private final byte[][] parts;
+        private final long created;
+        private int received;
+        private int length;
+
+        private Pending(final int total, final long created) {
+            this.parts = new byte[total][];
+            this.created = created;
+        }
+    }
+}
@@ -0,0 +1,432 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.sms.smpp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.restcomm.connect.commons.annotations.concurrency.Immutable;
+import org.restcomm.connect.commons.annotations.concurrency.NotThreadSafe;
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.commons.dao.Sid;
+
+import com.cloudhopper.commons.charset.Charset;
+import com.cloudhopper.commons.charset.CharsetUtil;
+import com.cloudhopper.smpp.SmppConstants;
+import com.cloudhopper.smpp.pdu.BaseSm;
+import com.cloudhopper.smpp.pdu.SubmitSm;
+import com.cloudhopper.smpp.tlv.Tlv;
+import com.cloudhopper.smpp.type.SmppInvalidArgumentException;
+
+/**
+ * Splits outbound messages that do not fit in a single short_message into concatenated segments and recognises the
+ * segments of inbound messages. Segments are numbered either with a User Data Header in the short_message or with the
+ * sar_* optional parameters. Messages can also be sent whole in the message_payload parameter for the SMSCs that
+ * accept it.
+ * <p>
+ * The split is done on the encoded bytes and never cuts a GSM escape sequence, a UCS-2 surrogate pair or a multi byte
+ * UTF-8 character in two.
+ */
+@ThreadSafe
+public final class SmppSegmenter {
+
+    public enum Mode {
+        PAYLOAD, UDH, SAR;
+
+        public static Mode parse(final String value) {
+            if (value != null) {
+                final String mode = value.trim();
+                if ("payload".equalsIgnoreCase(mode)) {
+                    return PAYLOAD;
+                } else if ("sar".equalsIgnoreCase(mode)) {
+                    return SAR;
+                }
+            }
+            return UDH;
+        }
+    }
+
+    // Septets of a single GSM 7-bit message, the GSM charset is unpacked so one septet is one byte
+    private static final int GSM_SINGLE = 160;
+    // Octets of a single 8-bit or UCS-2 message
+    private static final int OCTET_SINGLE = 140;
+    // Concatenation UDH with an 8-bit reference: length, IEI, IE length, reference, total, sequence
+    private static final int UDH_LENGTH = 6;
+    // The 6 octets of UDH take 7 septets once the message is packed
+    private static final int GSM_UDH_SEPTETS = 7;
+    private static final byte UDH_IEI_CONCAT_8BIT = 0x00;
+    private static final byte UDH_IEI_CONCAT_16BIT = 0x08;
+    private static final byte GSM_ESCAPE = 0x1B;
+    private static final int MAX_SEGMENTS = 255;
+
+    private final Mode mode;
+    private final AtomicInteger references;
+
+    public SmppSegmenter(final Mode mode) {
+        super();
+        this.mode = mode;
+        this.references = new AtomicInteger();
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @param submit the submit_sm carrying every parameter but the text.
+     * @param text the text encoded with charset.
+     * @param charset the charset used to encode the text.
+     * @param payload true to always send the text in message_payload.
+     * @return the submit_sm to send, in order. A text that fits in one short_message is sent as is in the given
+     *         submit_sm.
+     */
+    public List<SubmitSm> segment(final SubmitSm submit, final byte[] text, final Charset charset, final boolean payload)
+            throws SmppInvalidArgumentException {
+        if (payload || (mode == Mode.PAYLOAD && text.length > singleLength(charset))) {
+            submit.setOptionalParameter(new Tlv(SmppConstants.TAG_MESSAGE_PAYLOAD, text));
+            return Collections.singletonList(submit);
+        }
+        if (text.length <= singleLength(charset)) {
+            submit.setShortMessage(text);
+            return Collections.singletonList(submit);
+        }
+        final List<byte[]> parts = split(text, charset, segmentLength(charset, mode));
+        final int reference = references.incrementAndGet();
+        final List<SubmitSm> segments = new ArrayList<SubmitSm>(parts.size());
+        for (int i = 0; i < parts.size(); i++) {
+            final SubmitSm segment = copy(submit);
+            final byte total = (byte) parts.size();
+            final byte sequence = (byte) (i + 1);
+            if (mode == Mode.SAR) {
+                segment.setShortMessage(parts.get(i));
+                segment.setOptionalParameter(new Tlv(SmppConstants.TAG_SAR_MSG_REF_NUM,
+                        new byte[] { (byte) (reference >> 8), (byte) reference }));
+                segment.setOptionalParameter(new Tlv(SmppConstants.TAG_SAR_TOTAL_SEGMENTS, new byte[] { total }));
+                segment.setOptionalParameter(new Tlv(SmppConstants.TAG_SAR_SEGMENT_SEQNUM, new byte[] { sequence }));
+            } else {
+                final byte[] part = parts.get(i);
+                final byte[] message = new byte[UDH_LENGTH + part.length];
+                message[0] = UDH_LENGTH - 1;
+                message[1] = UDH_IEI_CONCAT_8BIT;
+                message[2] = 3;
+                message[3] = (byte) reference;
+                message[4] = total;
+                message[5] = sequence;
+                System.arraycopy(part, 0, message, UDH_LENGTH, part.length);
+                segment.setEsmClass((byte) (segment.getEsmClass() | SmppConstants.ESM_CLASS_UDHI_MASK));
+                segment.setShortMessage(message);
+            }
+            segments.add(segment);
+        }
+        return segments;
+    }
+
+    static int singleLength(final Charset charset) {
+        return charset == CharsetUtil.CHARSET_GSM ? GSM_SINGLE : OCTET_SINGLE;
+    }
+
+    static int segmentLength(final Charset charset, final Mode mode) {
+        if (mode == Mode.SAR) {
+            return singleLength(charset);
+        }
+        return charset == CharsetUtil.CHARSET_GSM ? GSM_SINGLE - GSM_UDH_SEPTETS : OCTET_SINGLE - UDH_LENGTH;
+    }
+
+    static List<byte[]> split(final byte[] text, final Charset charset, final int length) {
+        final List<byte[]> parts = new ArrayList<byte[]>(text.length / length + 1);
+        int start = 0;
+        while (start < text.length) {
+            int end = Math.min(text.length, start + length);
+            if (end < text.length) {
+                end = boundary(text, start, end, charset);
+            }
+            final byte[] part = new byte[end - start];
+            System.arraycopy(text, start, part, 0, part.length);
+            parts.add(part);
+            start = end;
+        }
+        if (parts.size() > MAX_SEGMENTS) {
+            throw new IllegalArgumentException("Message too long, " + parts.size() + " segments needed");
+        }
+        return parts;
+    }
+
+    private static int boundary(final byte[] text, final int start, int end, final Charset charset) {
+        if (charset == CharsetUtil.CHARSET_GSM) {
+            // an escaped character is two septets and must stay in one segment
+            if (text[end - 1] == GSM_ESCAPE && end - 1 > start) {
+                end--;
+            }
+        } else if (charset == CharsetUtil.CHARSET_UCS_2) {
+            end -= (end - start) % 2;
+            final int high = text[end - 2] & 0xFF;
+            if (high >= 0xD8 && high <= 0xDB && end - 2 > start) {
+                end -= 2;
+            }
+        } else if (charset == CharsetUtil.CHARSET_UTF_8) {
+            while (end > start + 1 && (text[end] & 0xC0) == 0x80) {
+                end--;
+            }
+        }
+        return end;
+    }
+
+    private static SubmitSm copy(final SubmitSm submit) throws SmppInvalidArgumentException {
+        final SubmitSm copy = new SubmitSm();
+        copy.setServiceType(submit.getServiceType());
+        copy.setSourceAddress(submit.getSourceAddress());
+        copy.setDestAddress(submit.getDestAddress());
+        copy.setEsmClass(submit.getEsmClass());
+        copy.setProtocolId(submit.getProtocolId());
+        copy.setPriority(submit.getPriority());
+        copy.setScheduleDeliveryTime(submit.getScheduleDeliveryTime());
+        copy.setValidityPeriod(submit.getValidityPeriod());
+        copy.setRegisteredDelivery(submit.getRegisteredDelivery());
+        copy.setReplaceIfPresent(submit.getReplaceIfPresent());
+        copy.setDataCoding(submit.getDataCoding());
+        copy.setDefaultMsgId(submit.getDefaultMsgId());
+        if (submit.getOptionalParameters() != null) {
+            for (Tlv tlv : submit.getOptionalParameters()) {
+                copy.setOptionalParameter(tlv);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * @return the segment carried by the given deliver_sm or submit_sm, or null if it holds a whole message. A User Data
+     *         Header that is truncated or whose information elements overflow it is ignored, the message is then
+     *         handled as a whole one.
+     */
+    public static Segment parse(final BaseSm sm, final byte[] message) {
+        if ((sm.getEsmClass() & SmppConstants.ESM_CLASS_UDHI_MASK) != 0 && message != null && message.length > 0) {
+            final int headerLength = (message[0] & 0xFF) + 1;
+            if (headerLength > message.length) {
+                return null;
+            }
+            int position = 1;
+            while (position + 1 < headerLength) {
+                final byte iei = message[position];
+                final int ieLength = message[position + 1] & 0xFF;
+                final int value = position + 2;
+                if (value + ieLength > headerLength) {
+                    return null;
+                }
+                if (iei == UDH_IEI_CONCAT_8BIT && ieLength == 3) {
+                    return segment(message[value] & 0xFF, message[value + 1], message[value + 2], message, headerLength);
+                } else if (iei == UDH_IEI_CONCAT_16BIT && ieLength == 4) {
+                    final int reference = ((message[value] & 0xFF) << 8) | (message[value + 1] & 0xFF);
+                    return segment(reference, message[value + 2], message[value + 3], message, headerLength);
+                }
+                position = value + ieLength;
+            }
+            return null;
+        }
+        final Tlv reference = sm.getOptionalParameter(SmppConstants.TAG_SAR_MSG_REF_NUM);
+        final Tlv total = sm.getOptionalParameter(SmppConstants.TAG_SAR_TOTAL_SEGMENTS);
+        final Tlv sequence = sm.getOptionalParameter(SmppConstants.TAG_SAR_SEGMENT_SEQNUM);
+        if (reference != null && total != null && sequence != null && reference.getValue().length == 2
+                && total.getValue().length == 1 && sequence.getValue().length == 1) {
+            final byte[] value = reference.getValue();
+            return segment(((value[0] & 0xFF) << 8) | (value[1] & 0xFF), total.getValue()[0], sequence.getValue()[0],
+                    message, 0);
+        }
+        return null;
+    }
+
+    private static Segment segment(final int reference, final byte total, final byte sequence, final byte[] message,
+            final int offset) {
+        final int segments = total & 0xFF;
+        final int number = sequence & 0xFF;
+        if (segments < 2 || number < 1 || number > segments) {
+            return null;
+        }
+        final byte[] payload = new byte[message.length - offset];
+        System.arraycopy(message, offset, payload, 0, payload.length);
+        return new Segment(reference, segments, number, payload);
+    }
+
+    @Immutable
+    public static final class Segment {
+        private final int reference;
+        private final int total;
+        private final int sequence;
+        private final byte[] payload;
+
+        public Segment(final int reference, final int total, final int sequence, final byte[] payload) {
+            super();
+            this.reference = reference;
+            this.total = total;
+            this.sequence = sequence;
+            this.payload = payload;
+        }
+
+        public int getReference() {
+            return reference;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public int getSequence() {
+            return sequence;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+    }
+
+    /**
+     * Reference object of every segment of a message sent in several segments.
+     */
+    @Immutable
+    public static final class SegmentReference {
+        private final Sid sid;
+        private final int sequence;
+
+        public SegmentReference(final Sid sid, final int sequence) {
+            super();
+            this.sid = sid;
+            this.sequence = sequence;
+        }
+
+        public Sid getSid() {
+            return sid;
+        }
+
+        /**
+         * @return the number of the segment, starting at 1.
+         */
+        public int getSequence() {
+            return sequence;
+        }
+    }
+
+    /**
+     * Outcome of the segments of one message. The message is sent once every segment was accepted and delivered once
+     * every accepted segment was delivered. It fails as soon as one segment is refused or undelivered, whatever the
+     * other segments report afterwards.
+     */
+    @NotThreadSafe
+    public static final class SegmentedMessage {
+        private final Sid sid;
+        private final String[] smppMessageIds;
+        private final boolean[] delivered;
+        private int responses;
+        private int deliveries;
+        private boolean failed;
+
+        public SegmentedMessage(final Sid sid, final int total) {
+            super();
+            this.sid = sid;
+            this.smppMessageIds = new String[total];
+            this.delivered = new boolean[total];
+        }
+
+        public Sid getSid() {
+            return sid;
+        }
+
+        public int getTotal() {
+            return smppMessageIds.length;
+        }
+
+        /**
+         * @return the SMPP message id given to the segment, null until it is accepted.
+         */
+        public String getSmppMessageId(final int sequence) {
+            return smppMessageIds[sequence - 1];
+        }
+
+        /**
+         * @return the sequence of the segment that was given the SMPP message id, 0 if none was.
+         */
+        public int getSequence(final String smppMessageId) {
+            for (int i = 0; i < smppMessageIds.length; i++) {
+                if (smppMessageIds[i] != null && smppMessageIds[i].equals(smppMessageId)) {
+                    return i + 1;
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Records the submit_sm_resp of a segment, a segment answered twice only counts once.
+         *
+         * @param smppMessageId the id given by the SMSC, null if the segment was refused.
+         */
+        public void submitted(final int sequence, final String smppMessageId) {
+            if (sequence < 1 || sequence > smppMessageIds.length || responded(sequence)) {
+                return;
+            }
+            responses++;
+            if (smppMessageId == null) {
+                failed = true;
+                // an empty id marks the segment as answered
+                smppMessageIds[sequence - 1] = "";
+            } else {
+                smppMessageIds[sequence - 1] = smppMessageId;
+            }
+        }
+
+        private boolean responded(final int sequence) {
+            return smppMessageIds[sequence - 1] != null;
+        }
+
+        /**
+         * Records the delivery receipt of a segment.
+         *
+         * @param success true if the segment was delivered.
+         */
+        public void delivered(final int sequence, final boolean success) {
+            if (sequence < 1 || sequence > delivered.length || delivered[sequence - 1]) {
+                return;
+            }
+            if (success) {
+                delivered[sequence - 1] = true;
+                deliveries++;
+            } else {
+                failed = true;
+            }
+        }
+
+        /**
+         * @return true once every segment was answered.
+         */
+        public boolean isSubmitted() {
+            return responses == smppMessageIds.length;
+        }
+
+        /**
+         * @return true once every segment was delivered.
+         */
+        public boolean isDelivered() {
+            return deliveries == delivered.length;
+        }
+
+        public boolean isFailed() {
+            return failed;
+        }
+    }
+}
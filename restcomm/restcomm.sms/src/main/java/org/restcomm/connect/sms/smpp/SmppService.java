@@ -28,6 +28,8 @@ import com.cloudhopper.smpp.impl.DefaultSmppClient;
 import com.cloudhopper.smpp.type.Address;
 import org.apache.commons.configuration.Configuration;
 import org.restcomm.connect.commons.faulttolerance.RestcommUntypedActor;
+import org.restcomm.connect.commons.metrics.Gauge;
+import org.restcomm.connect.commons.metrics.MetricsRegistry;
 import org.restcomm.connect.dao.DaoManager;
 
 import javax.servlet.ServletConfig;
@@ -40,6 +42,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static javax.servlet.sip.SipServlet.OUTBOUND_INTERFACES;
@@ -62,6 +65,9 @@ public final class SmppService extends RestcommUntypedActor {
     private final ServletContext servletContext;
     private static String smppActivated;
 
+    static final String REASSEMBLY_PENDING_METRIC = "SmppReassemblyPending";
+    static final String REASSEMBLY_DROPPED_METRIC = "SmppReassemblyDropped";
+
     static final int ERROR_NOTIFICATION = 0;
     static final int WARNING_NOTIFICATION = 1;
     private static String smppSourceAddressMap;
@@ -163,17 +169,23 @@ public final class SmppService extends RestcommUntypedActor {
             String outboundCharacterEncoding = smppConfiguration.getString("connections.connection(" + count + ").outboundencoding");
             boolean messagePayloadFlag = smppConfiguration.getBoolean("connections.connection(" + count + ").messagepayloadflag");
             boolean autoDetectDcsFlag = smppConfiguration.getBoolean("connections.connection(" + count + ").autodetectdcsflag");
-
-            Smpp smpp = new Smpp(name, systemId, peerIp, peerPort, bindtype, password, systemType, interfaceVersion, address,
-                    connectTimeout, windowSize, windowWaitTimeout, requestExpiryTimeout, windowMonitorInterval,
-                    countersEnabled, logBytes, enquireLinkDelay, inboundCharacterEncoding, outboundCharacterEncoding, messagePayloadFlag, autoDetectDcsFlag);
-
-            this.smppList.add(smpp);
-
-            if(logger.isInfoEnabled()) {
-                logger.info("creating new SMPP connection " + smpp);
+            // several binds towards the same SMSC share its throughput, each one with its own window and throttle
+            int binds = Math.max(1, smppConfiguration.getInt("connections.connection(" + count + ").binds", 1));
+            int tps = smppConfiguration.getInt("connections.connection(" + count + ").tps", 0);
+
+            for (int bind = 0; bind < binds; bind++) {
+                String bindName = binds == 1 ? name : name + "-" + bind;
+                Smpp smpp = new Smpp(bindName, systemId, peerIp, peerPort, bindtype, password, systemType, interfaceVersion, address,
+                        connectTimeout, windowSize, windowWaitTimeout, requestExpiryTimeout, windowMonitorInterval,
+                        countersEnabled, logBytes, enquireLinkDelay, inboundCharacterEncoding, outboundCharacterEncoding, messagePayloadFlag, autoDetectDcsFlag);
+                smpp.setTps(tps);
+
+                this.smppList.add(smpp);
+
+                if(logger.isInfoEnabled()) {
+                    logger.info("creating new SMPP connection " + smpp);
+                }
             }
-
         }
 
         // for monitoring thread use, it's preferable to create your own
@@ -210,16 +222,33 @@ public final class SmppService extends RestcommUntypedActor {
         // threads it will ever use, despite the "max pool size", etc. set on
         // the executor passed in here
 
-        // Setting expected session to be 25. May be this should be
+        // Setting expected session to be at least 25. May be this should be
         // configurable?
-        this.clientBootstrap = new DefaultSmppClient(this.executor, 25, monitorExecutor);
+        this.clientBootstrap = new DefaultSmppClient(this.executor, Math.max(25, this.smppList.size()), monitorExecutor);
 
-        this.smppClientOpsThread = new SmppClientOpsThread(this.clientBootstrap, outboundInterface("udp").getPort(), smppMessageHandler);
+        SmppSessionPool.Selection selection = SmppSessionPool.Selection.parse(smppConfiguration.getString("connections[@selection]"));
+        final SmppReassemblyBuffer reassemblyBuffer = new SmppReassemblyBuffer(
+                smppConfiguration.getInt("reassembly.max-pending", SmppReassemblyBuffer.DEFAULT_MAX_PENDING),
+                smppConfiguration.getLong("reassembly.timeout", SmppReassemblyBuffer.DEFAULT_TIMEOUT), TimeUnit.SECONDS);
+        MetricsRegistry.getInstance().register(REASSEMBLY_PENDING_METRIC, new Gauge() {
+            @Override
+            public long value() {
+                return reassemblyBuffer.getPending();
+            }
+        });
+        MetricsRegistry.getInstance().register(REASSEMBLY_DROPPED_METRIC, new Gauge() {
+            @Override
+            public long value() {
+                return reassemblyBuffer.getDropped();
+            }
+        });
+        this.smppClientOpsThread = new SmppClientOpsThread(this.clientBootstrap, outboundInterface("udp").getPort(), smppMessageHandler,
+                new SmppSessionPool(selection), reassemblyBuffer);
 
         (new Thread(this.smppClientOpsThread)).start();
 
         for(Smpp smpp : this.smppList){
-            this.smppClientOpsThread.scheduleConnect(smpp);
+            this.smppClientOpsThread.scheduleConnect(smpp, 0);
         }
 
         if(logger.isInfoEnabled()) {
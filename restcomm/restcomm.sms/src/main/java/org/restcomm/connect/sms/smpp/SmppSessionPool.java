@@ -0,0 +1,271 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.sms.smpp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.commons.metrics.Gauge;
+import org.restcomm.connect.commons.metrics.Histogram;
+import org.restcomm.connect.commons.metrics.MetricsRegistry;
+
+import com.cloudhopper.smpp.PduAsyncResponse;
+import com.cloudhopper.smpp.impl.DefaultSmppSession;
+import com.cloudhopper.smpp.pdu.PduRequest;
+import com.cloudhopper.smpp.type.RecoverablePduException;
+import com.cloudhopper.smpp.type.SmppChannelException;
+import com.cloudhopper.smpp.type.SmppTimeoutException;
+import com.cloudhopper.smpp.type.UnrecoverablePduException;
+
+/**
+ * Pool of the SMPP binds opened towards the SMSCs. Outbound submits are spread over the bound sessions that have a
+ * free slot in their send window and a permit from their {@link SmppThrottle}, either in turn or to the session with
+ * the fewest outstanding requests. Submits are always windowed: the response is delivered asynchronously to the
+ * session handler and the caller is never blocked waiting for a window slot.
+ */
+@ThreadSafe
+public final class SmppSessionPool {
+
+    public enum Selection {
+        ROUND_ROBIN, LEAST_OUTSTANDING;
+
+        public static Selection parse(final String value) {
+            if (value != null && "least-outstanding".equalsIgnoreCase(value.trim())) {
+                return LEAST_OUTSTANDING;
+            }
+            return ROUND_ROBIN;
+        }
+    }
+
+    public static final String SUBMITTED_METRIC = "SmppSubmitted";
+    public static final String OUTSTANDING_METRIC = "SmppOutstanding";
+    public static final String LATENCY_METRIC = "SmppSubmitLatencyMicros";
+    // Delay before retrying a submit when every window is full
+    private static final long WINDOW_RETRY_DELAY = 10;
+
+    private static final Logger logger = Logger.getLogger(SmppSessionPool.class);
+
+    private final Selection selection;
+    private final List<Bind> binds;
+    private final AtomicInteger next;
+
+    public SmppSessionPool(final Selection selection) {
+        super();
+        this.selection = selection;
+        this.binds = new CopyOnWriteArrayList<Bind>();
+        this.next = new AtomicInteger();
+    }
+
+    public Selection getSelection() {
+        return selection;
+    }
+
+    /**
+     * Registers a bind with the pool. Registering the same bind again after a reconnection is a no-op.
+     */
+    public synchronized void add(final Smpp esme) {
+        if (bind(esme) == null) {
+            final Bind bind = new Bind(esme);
+            binds.add(bind);
+            bind.register();
+            if (logger.isInfoEnabled()) {
+                logger.info("SMPP bind " + esme.getName() + " added to the session pool, tps=" + esme.getTps());
+            }
+        }
+    }
+
+    public synchronized void remove(final Smpp esme) {
+        final Bind bind = bind(esme);
+        if (bind != null) {
+            binds.remove(bind);
+            bind.unregister();
+        }
+    }
+
+    public int size() {
+        return binds.size();
+    }
+
+    /**
+     * @return true if at least one bind of the pool is bound to its SMSC.
+     */
+    public boolean isAvailable() {
+        for (Bind bind : binds) {
+            if (bind.isBound()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Picks a bind that can take a submit right now and consumes a throttle permit from it.
+     *
+     * @return the selected bind or null if every bind is unbound, has a full window or is throttled.
+     */
+    public Smpp select() {
+        final List<Bind> candidates = new ArrayList<Bind>(binds.size());
+        for (Bind bind : binds) {
+            if (bind.isBound() && bind.hasWindow()) {
+                candidates.add(bind);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        if (selection == Selection.LEAST_OUTSTANDING) {
+            // Rotate first so that binds with the same number of outstanding requests take turns
+            Collections.rotate(candidates, next.getAndIncrement() & Integer.MAX_VALUE);
+            Collections.sort(candidates, OUTSTANDING);
+            for (Bind bind : candidates) {
+                if (bind.throttle.tryAcquire()) {
+                    return bind.esme;
+                }
+            }
+        } else {
+            final int start = (next.getAndIncrement() & Integer.MAX_VALUE) % candidates.size();
+            for (int i = 0; i < candidates.size(); i++) {
+                final Bind bind = candidates.get((start + i) % candidates.size());
+                if (bind.throttle.tryAcquire()) {
+                    return bind.esme;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return how long to wait, in milliseconds, before {@link #select()} has a chance to return a bind.
+     */
+    public long retryDelayMillis() {
+        long delay = Long.MAX_VALUE;
+        for (Bind bind : binds) {
+            if (bind.isBound()) {
+                delay = Math.min(delay, bind.hasWindow() ? bind.throttle.delayMillis() : WINDOW_RETRY_DELAY);
+            }
+        }
+        return delay == Long.MAX_VALUE ? WINDOW_RETRY_DELAY : Math.max(1, delay);
+    }
+
+    /**
+     * Sends the request through the given bind without waiting for the response, which is handed to the session
+     * handler of the bind.
+     */
+    public void submit(final Smpp esme, final PduRequest request, final long timeoutMillis) throws RecoverablePduException,
+            UnrecoverablePduException, SmppTimeoutException, SmppChannelException, InterruptedException {
+        esme.getSmppSession().sendRequestPdu(request, timeoutMillis, false);
+        final Bind bind = bind(esme);
+        if (bind != null) {
+            bind.submitted.incrementAndGet();
+        }
+    }
+
+    /**
+     * Records the round trip of a submit answered by the SMSC.
+     */
+    public void onResponse(final Smpp esme, final PduAsyncResponse response) {
+        final Bind bind = bind(esme);
+        if (bind != null) {
+            bind.latency.record(TimeUnit.MILLISECONDS.toMicros(response.getResponseTime()));
+        }
+    }
+
+    public long getSubmitted(final Smpp esme) {
+        final Bind bind = bind(esme);
+        return bind == null ? 0 : bind.submitted.get();
+    }
+
+    private Bind bind(final Smpp esme) {
+        for (Bind bind : binds) {
+            if (bind.esme.equals(esme)) {
+                return bind;
+            }
+        }
+        return null;
+    }
+
+    private static final Comparator<Bind> OUTSTANDING = new Comparator<Bind>() {
+        @Override
+        public int compare(final Bind first, final Bind second) {
+            final int a = first.outstanding();
+            final int b = second.outstanding();
+            return a < b ? -1 : (a == b ? 0 : 1);
+        }
+    };
+
+    private static final class Bind {
+        private final Smpp esme;
+        private final SmppThrottle throttle;
+        private final AtomicLong submitted;
+        private final Histogram latency;
+
+        private Bind(final Smpp esme) {
+            this.esme = esme;
+            this.throttle = new SmppThrottle(esme.getTps());
+            this.submitted = new AtomicLong();
+            this.latency = MetricsRegistry.getInstance().histogram(LATENCY_METRIC + "." + esme.getName());
+        }
+
+        private boolean isBound() {
+            final DefaultSmppSession session = esme.getSmppSession();
+            return session != null && session.isBound();
+        }
+
+        private boolean hasWindow() {
+            return esme.getSmppSession().getSendWindow().getFreeSize() > 0;
+        }
+
+        private int outstanding() {
+            final DefaultSmppSession session = esme.getSmppSession();
+            return session == null ? 0 : session.getSendWindow().getSize();
+        }
+
+        private void register() {
+            final MetricsRegistry registry = MetricsRegistry.getInstance();
+            registry.register(SUBMITTED_METRIC + "." + esme.getName(), new Gauge() {
+                @Override
+                public long value() {
+                    return submitted.get();
+                }
+            });
+            registry.register(OUTSTANDING_METRIC + "." + esme.getName(), new Gauge() {
+                @Override
+                public long value() {
+                    return outstanding();
+                }
+            });
+        }
+
+        private void unregister() {
+            final MetricsRegistry registry = MetricsRegistry.getInstance();
+            registry.unregister(SUBMITTED_METRIC + "." + esme.getName());
+            registry.unregister(OUTSTANDING_METRIC + "." + esme.getName());
+            registry.unregister(LATENCY_METRIC + "." + esme.getName());
+        }
+    }
+}
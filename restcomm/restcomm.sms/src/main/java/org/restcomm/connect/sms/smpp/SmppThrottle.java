@@ -0,0 +1,79 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.sms.smpp;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+
+/**
+ * Paces the submits of a single SMPP bind so that it never goes over the transactions per second agreed with the
+ * SMSC. Permits are spread evenly over the second instead of being handed out in bursts, which is what most SMSCs
+ * enforce. The throttle never blocks: callers either get a permit or ask how long they have to wait for one.
+ */
+@ThreadSafe
+public final class SmppThrottle {
+
+    private final long intervalNanos;
+    // Earliest time at which the next permit can be handed out
+    private final AtomicLong nextPermit;
+
+    /**
+     * @param tps maximum number of submits per second, zero or less disables the throttle.
+     */
+    public SmppThrottle(final int tps) {
+        super();
+        this.intervalNanos = tps > 0 ? TimeUnit.SECONDS.toNanos(1) / tps : 0;
+        this.nextPermit = new AtomicLong(System.nanoTime());
+    }
+
+    public boolean isEnabled() {
+        return intervalNanos > 0;
+    }
+
+    public boolean tryAcquire() {
+        if (intervalNanos == 0) {
+            return true;
+        }
+        final long now = System.nanoTime();
+        while (true) {
+            final long next = nextPermit.get();
+            if (next - now > 0) {
+                return false;
+            }
+            // Do not let an idle bind build up credit, otherwise it would burst after a quiet period
+            if (nextPermit.compareAndSet(next, Math.max(next, now) + intervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return the number of milliseconds until a permit becomes available, zero if one is available now.
+     */
+    public long delayMillis() {
+        if (intervalNanos == 0) {
+            return 0;
+        }
+        final long delay = nextPermit.get() - System.nanoTime();
+        return delay > 0 ? TimeUnit.NANOSECONDS.toMillis(delay) + 1 : 0;
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.sms.smpp;
+
+import com.cloudhopper.commons.charset.CharsetUtil;
+import com.cloudhopper.smpp.SmppConstants;
+import com.cloudhopper.smpp.pdu.SubmitSm;
+import com.cloudhopper.smpp.tlv.Tlv;
+import com.cloudhopper.smpp.type.Address;
+import org.junit.Test;
+import org.restcomm.connect.commons.dao.Sid;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SmppSegmenterTest {
+
+    private static String repeat(final String text, final int times) {
+        final StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            buffer.append(text);
+        }
+        return buffer.toString();
+    }
+
+    private static SubmitSm template() {
+        final SubmitSm submit = new SubmitSm();
+        submit.setSourceAddress(new Address((byte) 1, (byte) 1, "1234"));
+        submit.setDestAddress(new Address((byte) 1, (byte) 1, "5678"));
+        submit.setRegisteredDelivery((byte) 1);
+        return submit;
+    }
+
+    private static byte[] reassemble(final List<SubmitSm> segments) {
+        final SmppReassemblyBuffer buffer = new SmppReassemblyBuffer(10, 60, TimeUnit.SECONDS);
+        byte[] whole = null;
+        // deliver them in reverse order, reassembly must not depend on arrival order
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            final SubmitSm segment = segments.get(i);
+            final SmppSegmenter.Segment parsed = SmppSegmenter.parse(segment, segment.getShortMessage());
+            assertNotNull(parsed);
+            assertEquals(segments.size(), parsed.getTotal());
+            assertEquals(i + 1, parsed.getSequence());
+            whole = buffer.offer("1234/5678/" + parsed.getReference(), parsed);
+            assertEquals(i == 0, whole != null);
+        }
+        assertEquals(0, buffer.getPending());
+        return whole;
+    }
+
+    @Test
+    public void testShortMessageIsSentWhole() throws Exception {
+        final SmppSegmenter segmenter = new SmppSegmenter(SmppSegmenter.Mode.UDH);
+        final String text = repeat("a", 160);
+        final List<SubmitSm> segments = segmenter.segment(template(), CharsetUtil.encode(text, CharsetUtil.CHARSET_GSM),
+                CharsetUtil.CHARSET_GSM, false);
+        assertEquals(1, segments.size());
+        assertEquals(0, segments.get(0).getEsmClass() & SmppConstants.ESM_CLASS_UDHI_MASK);
+        assertEquals(text, CharsetUtil.decode(segments.get(0).getShortMessage(), CharsetUtil.CHARSET_GSM));
+        assertNull(SmppSegmenter.parse(segments.get(0), segments.get(0).getShortMessage()));
+    }
+
+    @Test
+    public void testGsmUdhSegmentsKeepEscapeSequences() throws Exception {
+        final SmppSegmenter segmenter = new SmppSegmenter(SmppSegmenter.Mode.UDH);
+        // 152 plain characters then euro signs, which take two septets each
+        final String text = repeat("a", 152) + repeat("\u20AC", 100);
+        final byte[] encoded = CharsetUtil.encode(text, CharsetUtil.CHARSET_GSM);
+        final List<SubmitSm> segments = segmenter.segment(template(), encoded, CharsetUtil.CHARSET_GSM, false);
+        assertEquals(3, segments.size());
+        for (SubmitSm segment : segments) {
+            assertEquals(SmppConstants.ESM_CLASS_UDHI_MASK, segment.getEsmClass() & SmppConstants.ESM_CLASS_UDHI_MASK);
+            assertTrue(segment.getShortMessage().length <= 6 + 153);
+            assertEquals("1234", segment.getSourceAddress().getAddress());
+            assertEquals(1, segment.getRegisteredDelivery());
+        }
+        // the escape of the first euro sign does not fit in the first segment, it moves with its character
+        assertEquals(6 + 152, segments.get(0).getShortMessage().length);
+        assertEquals(text, CharsetUtil.decode(reassemble(segments), CharsetUtil.CHARSET_GSM));
+    }
+
+    @Test
+    public void testUcs2SarSegmentsKeepSurrogatePairs() throws Exception {
+        final SmppSegmenter segmenter = new SmppSegmenter(SmppSegmenter.Mode.SAR);
+        // 69 characters then emojis, a surrogate pair each
+        final String text = repeat("\u00E9", 69) + repeat("\uD83D\uDE00", 40);
+        final byte[] encoded = CharsetUtil.encode(text, CharsetUtil.CHARSET_UCS_2);
+        final List<SubmitSm> segments = segmenter.segment(template(), encoded, CharsetUtil.CHARSET_UCS_2, false);
+        assertEquals(3, segments.size());
+        for (SubmitSm segment : segments) {
+            assertEquals(0, segment.getEsmClass() & SmppConstants.ESM_CLASS_UDHI_MASK);
+            assertNotNull(segment.getOptionalParameter(SmppConstants.TAG_SAR_MSG_REF_NUM));
+            assertTrue(segment.getShortMessage().length <= 140);
+            assertEquals(0, segment.getShortMessage().length % 2);
+        }
+        assertEquals(138, segments.get(0).getShortMessage().length);
+        assertEquals(text, CharsetUtil.decode(reassemble(segments), CharsetUtil.CHARSET_UCS_2));
+    }
+
+    @Test
+    public void testTruncatedUdhIsIgnored() throws Exception {
+        final SubmitSm submit = template();
+        submit.setEsmClass(SmppConstants.ESM_CLASS_UDHI_MASK);
+        // the concatenation IE announces 3 octets but the header only holds 1
+        assertNull(SmppSegmenter.parse(submit, new byte[] { 0x03, 0x00, 0x03, 0x01 }));
+        assertNull(SmppSegmenter.parse(submit, new byte[] { 0x03, 0x08, 0x04, 0x01, 'a', 'b' }));
+        // a second IE overflowing the header after a well formed one
+        assertNull(SmppSegmenter.parse(submit, new byte[] { 0x04, 0x24, 0x01, 0x00, 0x00, 0x05, 'a' }));
+        // the header is longer than the message
+        assertNull(SmppSegmenter.parse(submit, new byte[] { 0x05, 0x00, 0x03, 0x01 }));
+        // a well formed header is still parsed
+        final SmppSegmenter.Segment segment = SmppSegmenter.parse(submit, new byte[] { 0x05, 0x00, 0x03, 0x07, 0x02, 0x01, 'a' });
+        assertNotNull(segment);
+        assertEquals(7, segment.getReference());
+        assertArrayEquals(new byte[] { 'a' }, segment.getPayload());
+    }
+
+    @Test
+    public void testSegmentedMessageTracksEverySegment() {
+        final Sid sid = Sid.generate(Sid.Type.SMS_MESSAGE);
+        final SmppSegmenter.SegmentedMessage message = new SmppSegmenter.SegmentedMessage(sid, 3);
+        message.submitted(2, "id-2");
+        message.submitted(1, "id-1");
+        assertFalse(message.isSubmitted());
+        message.submitted(3, "id-3");
+        assertTrue(message.isSubmitted());
+        assertFalse(message.isFailed());
+        assertEquals("id-1", message.getSmppMessageId(1));
+        assertEquals(3, message.getSequence("id-3"));
+        assertEquals(0, message.getSequence("unknown"));
+
+        message.delivered(1, true);
+        message.delivered(1, true);
+        message.delivered(3, true);
+        assertFalse(message.isDelivered());
+        message.delivered(2, true);
+        assertTrue(message.isDelivered());
+        assertFalse(message.isFailed());
+    }
+
+    @Test
+    public void testSegmentedMessageFailureIsSticky() {
+        final SmppSegmenter.SegmentedMessage message = new SmppSegmenter.SegmentedMessage(Sid.generate(Sid.Type.SMS_MESSAGE), 3);
+        message.submitted(1, null);
+        assertTrue(message.isFailed());
+        // a later accepted segment does not bring the message back, an answer repeated is ignored
+        message.submitted(2, "id-2");
+        message.submitted(1, "id-1");
+        message.submitted(3, "id-3");
+        assertTrue(message.isSubmitted());
+        assertTrue(message.isFailed());
+        assertEquals("id-2", message.getSmppMessageId(2));
+        assertEquals(0, message.getSequence("id-1"));
+
+        final SmppSegmenter.SegmentedMessage undelivered = new SmppSegmenter.SegmentedMessage(Sid.generate(Sid.Type.SMS_MESSAGE), 2);
+        undelivered.submitted(1, "id-1");
+        undelivered.submitted(2, "id-2");
+        undelivered.delivered(1, false);
+        undelivered.delivered(2, true);
+        assertTrue(undelivered.isFailed());
+        assertFalse(undelivered.isDelivered());
+    }
+
+    @Test
+    public void testPayloadMode() throws Exception {
+        final SmppSegmenter segmenter = new SmppSegmenter(SmppSegmenter.Mode.PAYLOAD);
+        final byte[] encoded = CharsetUtil.encode(repeat("a", 400), CharsetUtil.CHARSET_GSM);
+        final List<SubmitSm> segments = segmenter.segment(template(), encoded, CharsetUtil.CHARSET_GSM, false);
+        assertEquals(1, segments.size());
+        final Tlv payload = segments.get(0).getOptionalParameter(SmppConstants.TAG_MESSAGE_PAYLOAD);
+        assertArrayEquals(encoded, payload.getValue());
+
+        // the message payload flag wins over segmentation
+        final List<SubmitSm> forced = new SmppSegmenter(SmppSegmenter.Mode.UDH).segment(template(), encoded,
+                CharsetUtil.CHARSET_GSM, true);
+        assertEquals(1, forced.size());
+        assertNotNull(forced.get(0).getOptionalParameter(SmppConstants.TAG_MESSAGE_PAYLOAD));
+    }
+
+    @Test
+    public void testReassemblyBufferIsBounded() throws Exception {
+        final SmppReassemblyBuffer buffer = new SmppReassemblyBuffer(2, 60, TimeUnit.SECONDS);
+        assertNull(buffer.offer("a", new SmppSegmenter.Segment(1, 2, 1, new byte[] { 1 })));
+        assertNull(buffer.offer("b", new SmppSegmenter.Segment(2, 2, 1, new byte[] { 2 })));
+        assertNull(buffer.offer("c", new SmppSegmenter.Segment(3, 2, 1, new byte[] { 3 })));
+        assertEquals(2, buffer.getPending());
+        assertEquals(1, buffer.getDropped());
+        // "a" was the oldest and has been dropped, its last segment starts a new message
+        assertNull(buffer.offer("a", new SmppSegmenter.Segment(1, 2, 2, new byte[] { 4 })));
+        assertArrayEquals(new byte[] { 3, 5 }, buffer.offer("c", new SmppSegmenter.Segment(3, 2, 2, new byte[] { 5 })));
+    }
+
+    @Test
+    public void testReassemblyBufferExpiresIncompleteMessages() throws Exception {
+        final SmppReassemblyBuffer buffer = new SmppReassemblyBuffer(10, 50, TimeUnit.MILLISECONDS);
+        assertNull(buffer.offer("a", new SmppSegmenter.Segment(1, 2, 1, new byte[] { 1 })));
+        Thread.sleep(100);
+        assertNull(buffer.offer("a", new SmppSegmenter.Segment(1, 2, 2, new byte[] { 2 })));
+        assertEquals(1, buffer.getDropped());
+        assertEquals(1, buffer.getPending());
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.sms.smpp;
+
+import akka.actor.ActorSystem;
+import akka.testkit.JavaTestKit;
+import com.cloudhopper.smpp.PduAsyncResponse;
+import com.cloudhopper.smpp.SmppBindType;
+import com.cloudhopper.smpp.SmppServerConfiguration;
+import com.cloudhopper.smpp.SmppServerHandler;
+import com.cloudhopper.smpp.SmppServerSession;
+import com.cloudhopper.smpp.SmppSessionConfiguration;
+import com.cloudhopper.smpp.impl.DefaultSmppClient;
+import com.cloudhopper.smpp.impl.DefaultSmppServer;
+import com.cloudhopper.smpp.impl.DefaultSmppSessionHandler;
+import com.cloudhopper.smpp.pdu.BaseBind;
+import com.cloudhopper.smpp.pdu.BaseBindResp;
+import com.cloudhopper.smpp.pdu.PduRequest;
+import com.cloudhopper.smpp.pdu.PduResponse;
+import com.cloudhopper.smpp.pdu.SubmitSm;
+import com.cloudhopper.smpp.type.Address;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.restcomm.connect.commons.metrics.HistogramSnapshot;
+import org.restcomm.connect.commons.metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Binds a pool of sessions against a local SMPP simulator and checks how submits are spread over them.
+ */
+public class SmppSessionPoolTest {
+
+    private static final int BINDS = 3;
+
+    private static ActorSystem system;
+
+    private int port;
+    private DefaultSmppServer server;
+    private ConcurrentMap<Long, AtomicInteger> received;
+    private DefaultSmppClient client;
+    private SmppClientOpsThread opsThread;
+    private List<Smpp> binds;
+
+    @BeforeClass
+    public static void beforeAll() {
+        system = ActorSystem.create();
+    }
+
+    @AfterClass
+    public static void afterAll() {
+        system.shutdown();
+    }
+
+    @Before
+    public void before() throws Exception {
+        port = freePort();
+        received = new ConcurrentHashMap<Long, AtomicInteger>();
+
+        final SmppServerConfiguration configuration = new SmppServerConfiguration();
+        configuration.setHost("127.0.0.1");
+        configuration.setPort(port);
+        configuration.setMaxConnectionSize(10);
+        configuration.setNonBlockingSocketsEnabled(true);
+        configuration.setDefaultWindowSize(50);
+        server = new DefaultSmppServer(configuration, new SimulatorHandler(),
+                (ThreadPoolExecutor) Executors.newCachedThreadPool(),
+                (ScheduledThreadPoolExecutor) Executors.newScheduledThreadPool(1));
+        server.start();
+
+        client = new DefaultSmppClient((ThreadPoolExecutor) Executors.newCachedThreadPool(), BINDS,
+                (ScheduledThreadPoolExecutor) Executors.newScheduledThreadPool(1));
+        binds = new ArrayList<Smpp>();
+        for (int i = 0; i < BINDS; i++) {
+            binds.add(new Smpp("pool-test-" + i, "test", "127.0.0.1", port, SmppBindType.TRANSCEIVER, "test", "sms",
+                    (byte) 0x34, null, 10000, 5, 1000, 30000, 15000, true, false, 30000, null, null, false, false));
+        }
+    }
+
+    @After
+    public void after() {
+        if (opsThread != null) {
+            opsThread.setStarted(false);
+        }
+        for (Smpp bind : binds) {
+            bind.setStarted(false);
+            if (SmppClientOpsThread.getSessionPool() != null) {
+                SmppClientOpsThread.getSessionPool().remove(bind);
+            }
+            if (bind.getSmppSession() != null) {
+                bind.getSmppSession().close();
+                bind.getSmppSession().destroy();
+            }
+        }
+        client.destroy();
+        server.destroy();
+    }
+
+    @Test
+    public void testRoundRobinSpreadsSubmitsOverBinds() throws Exception {
+        new JavaTestKit(system) {
+            {
+                final SmppSessionPool pool = bind(getRef(), SmppSessionPool.Selection.ROUND_ROBIN);
+
+                final int messages = 30;
+                for (int i = 0; i < messages; i++) {
+                    submit(pool, i);
+                }
+
+                final Object[] responses = receiveN(messages, duration("10 seconds"));
+                for (Object response : responses) {
+                    assertTrue(response instanceof PduAsyncResponse);
+                }
+                assertEquals(BINDS, received.size());
+                for (AtomicInteger count : received.values()) {
+                    assertEquals(messages / BINDS, count.get());
+                }
+                long latencies = 0;
+                for (Smpp bind : binds) {
+                    assertEquals(messages / BINDS, pool.getSubmitted(bind));
+                    final HistogramSnapshot latency = MetricsRegistry.getInstance()
+                            .histograms(SmppSessionPool.LATENCY_METRIC + "." + bind.getName())
+                            .get(SmppSessionPool.LATENCY_METRIC + "." + bind.getName());
+                    latencies += latency.getCount();
+                }
+                assertEquals(messages, latencies);
+                assertEquals(Long.valueOf(messages / BINDS), MetricsRegistry.getInstance()
+                        .gauges(SmppSessionPool.SUBMITTED_METRIC).get(SmppSessionPool.SUBMITTED_METRIC + ".pool-test-0"));
+            }
+        };
+    }
+
+    @Test
+    public void testLeastOutstandingKeepsWindowsBalanced() throws Exception {
+        new JavaTestKit(system) {
+            {
+                final SmppSessionPool pool = bind(getRef(), SmppSessionPool.Selection.LEAST_OUTSTANDING);
+
+                final int messages = 60;
+                for (int i = 0; i < messages; i++) {
+                    submit(pool, i);
+                }
+
+                receiveN(messages, duration("10 seconds"));
+                int total = 0;
+                for (AtomicInteger count : received.values()) {
+                    total += count.get();
+                }
+                assertEquals(messages, total);
+                for (Smpp bind : binds) {
+                    // a window of 5 per bind cannot absorb 60 submits, every bind must have taken its share
+                    assertTrue(pool.getSubmitted(bind) > 0);
+                    assertTrue(bind.getSmppSession().getSendWindow().getFreeSize() == bind.getWindowSize());
+                }
+            }
+        };
+    }
+
+    @Test
+    public void testThrottleHonoursTps() throws Exception {
+        new JavaTestKit(system) {
+            {
+                for (Smpp bind : binds) {
+                    bind.setTps(20);
+                }
+                final SmppSessionPool pool = bind(getRef(), SmppSessionPool.Selection.ROUND_ROBIN);
+
+                // one permit per bind is available straight away, the next one 50ms later
+                for (int i = 0; i < BINDS; i++) {
+                    assertNotNull(pool.select());
+                }
+                assertNull(pool.select());
+                final long delay = pool.retryDelayMillis();
+                assertTrue(delay > 0 && delay <= 51);
+                Thread.sleep(delay);
+                assertNotNull(pool.select());
+            }
+        };
+    }
+
+    @Test
+    public void testThrottleSpreadsPermits() throws Exception {
+        final SmppThrottle throttle = new SmppThrottle(100);
+        assertTrue(throttle.isEnabled());
+        assertTrue(throttle.tryAcquire());
+        assertFalse(throttle.tryAcquire());
+        assertTrue(throttle.delayMillis() > 0);
+        Thread.sleep(throttle.delayMillis());
+        assertTrue(throttle.tryAcquire());
+
+        final SmppThrottle unlimited = new SmppThrottle(0);
+        assertFalse(unlimited.isEnabled());
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(unlimited.tryAcquire());
+        }
+        assertEquals(0, unlimited.delayMillis());
+    }
+
+    private SmppSessionPool bind(final akka.actor.ActorRef handler, final SmppSessionPool.Selection selection) throws Exception {
+        final SmppSessionPool pool = new SmppSessionPool(selection);
+        opsThread = new SmppClientOpsThread(client, 5080, handler, pool);
+        new Thread(opsThread).start();
+        for (Smpp bind : binds) {
+            opsThread.scheduleConnect(bind, 0);
+        }
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (pool.size() < BINDS || received.size() < BINDS) {
+            assertTrue("SMPP binds not established", System.currentTimeMillis() < deadline);
+            Thread.sleep(50);
+        }
+        assertSame(pool, SmppClientOpsThread.getSessionPool());
+        assertTrue(pool.isAvailable());
+        return pool;
+    }
+
+    private void submit(final SmppSessionPool pool, final int index) throws Exception {
+        final SubmitSm submit = new SubmitSm();
+        submit.setSourceAddress(new Address((byte) 1, (byte) 1, "1234"));
+        submit.setDestAddress(new Address((byte) 1, (byte) 1, "5678"));
+        submit.setShortMessage(("message " + index).getBytes());
+        Smpp bind = pool.select();
+        while (bind == null) {
+            Thread.sleep(pool.retryDelayMillis());
+            bind = pool.select();
+        }
+        pool.submit(bind, submit, 10000);
+    }
+
+    private static int freePort() throws IOException {
+        final ServerSocket socket = new ServerSocket(0);
+        try {
+            return socket.getLocalPort();
+        } finally {
+            socket.close();
+        }
+    }
+
+    private class SimulatorHandler implements SmppServerHandler {
+
+        @Override
+        public void sessionBindRequested(Long sessionId, SmppSessionConfiguration sessionConfiguration, BaseBind bindRequest) {
+        }
+
+        @Override
+        public void sessionCreated(final Long sessionId, SmppServerSession session, BaseBindResp preparedBindResponse) {
+            received.putIfAbsent(sessionId, new AtomicInteger());
+            session.serverReady(new DefaultSmppSessionHandler() {
+                @Override
+                public PduResponse firePduRequestReceived(PduRequest pduRequest) {
+                    if (pduRequest instanceof SubmitSm) {
+                        received.get(sessionId).incrementAndGet();
+                    }
+                    return pduRequest.createResponse();
+                }
+            });
+        }
+
+        @Override
+        public void sessionDestroyed(Long sessionId, SmppServerSession session) {
+            session.destroy();
+        }
+    }
+}
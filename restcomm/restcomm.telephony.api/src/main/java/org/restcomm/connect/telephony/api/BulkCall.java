@@ -0,0 +1,250 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.restcomm.connect.telephony.api;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.joda.time.DateTime;
+import org.restcomm.connect.commons.annotations.concurrency.ThreadSafe;
+import org.restcomm.connect.commons.bulk.BulkJob;
+import org.restcomm.connect.commons.dao.Sid;
+
+/**
+ * A batch of outbound calls created through the API and dialed by the BulkCallDialer at a pace of callsPerSecond,
+ * keeping at most maxConcurrentCalls of them alive at any time.
+ * <p>
+ * Every call of the batch executes the same RCML. The dialer is the only writer of the progress, the API reads it.
+ */
+@ThreadSafe
+public final class BulkCall implements BulkJob {
+    public enum Status {
+        QUEUED("queued"), IN_PROGRESS("in-progress"), COMPLETED("completed"), CANCELED("canceled");
+
+        private final String text;
+
+        private Status(final String text) {
+            this.text = text;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    };
+
+    private final Sid sid;
+    private final Sid accountSid;
+    private final String apiVersion;
+    private final URI uri;
+    private final DateTime dateCreated;
+    private final List<CreateCall> calls;
+    private final URI url;
+    private final String method;
+    private final URI fallbackUrl;
+    private final String fallbackMethod;
+    private final int timeout;
+    private final int callsPerSecond;
+    private final int maxConcurrentCalls;
+
+    private volatile Status status;
+    private volatile DateTime dateUpdated;
+    private volatile int outstanding;
+    private final AtomicInteger dialed;
+    private final AtomicInteger created;
+    private final AtomicInteger failed;
+
+    public BulkCall(final Sid sid, final Sid accountSid, final String apiVersion, final URI uri, final List<CreateCall> calls,
+            final URI url, final String method, final URI fallbackUrl, final String fallbackMethod, final int timeout,
+            final int callsPerSecond, final int maxConcurrentCalls) {
+        super();
+        this.sid = sid;
+        this.accountSid = accountSid;
+        this.apiVersion = apiVersion;
+        this.uri = uri;
+        this.dateCreated = DateTime.now();
+        this.calls = Collections.unmodifiableList(calls);
+        this.url = url;
+        this.method = method;
+        this.fallbackUrl = fallbackUrl;
+        this.fallbackMethod = fallbackMethod;
+        this.timeout = timeout;
+        this.callsPerSecond = callsPerSecond;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.status = Status.QUEUED;
+        this.dateUpdated = dateCreated;
+        this.dialed = new AtomicInteger();
+        this.created = new AtomicInteger();
+        this.failed = new AtomicInteger();
+    }
+
+    @Override
+    public Sid getSid() {
+        return sid;
+    }
+
+    @Override
+    public Sid getAccountSid() {
+        return accountSid;
+    }
+
+    public String getApiVersion() {
+        return apiVersion;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    public DateTime getDateCreated() {
+        return dateCreated;
+    }
+
+    @Override
+    public DateTime getDateUpdated() {
+        return dateUpdated;
+    }
+
+    /**
+     * @return one request per destination, in dialing order
+     */
+    public List<CreateCall> getCalls() {
+        return calls;
+    }
+
+    public URI getUrl() {
+        return url;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public URI getFallbackUrl() {
+        return fallbackUrl;
+    }
+
+    public String getFallbackMethod() {
+        return fallbackMethod;
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+    public int getCallsPerSecond() {
+        return callsPerSecond;
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    @Override
+    public boolean isFinished() {
+        final Status current = status;
+        return Status.COMPLETED.equals(current) || Status.CANCELED.equals(current);
+    }
+
+    /**
+     * @return the destinations handed to the CallManager so far
+     */
+    public int getDialed() {
+        return dialed.get();
+    }
+
+    /**
+     * @return the calls the CallManager created, a client with several registrations counts once per registration
+     */
+    public int getCreated() {
+        return created.get();
+    }
+
+    /**
+     * @return the destinations the CallManager refused or did not answer for
+     */
+    public int getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * @return the created calls that did not end yet
+     */
+    public int getOutstanding() {
+        return outstanding;
+    }
+
+    public int getPending() {
+        return calls.size() - dialed.get();
+    }
+
+    /**
+     * Stops dialing the remaining destinations, the calls already created go on.
+     *
+     * @return false if the bulk call was already finished
+     */
+    public synchronized boolean cancel() {
+        if (isFinished()) {
+            return false;
+        }
+        update(Status.CANCELED);
+        return true;
+    }
+
+    public synchronized void dialed() {
+        dialed.incrementAndGet();
+        if (Status.QUEUED.equals(status)) {
+            update(Status.IN_PROGRESS);
+        } else {
+            dateUpdated = DateTime.now();
+        }
+    }
+
+    public void created(final int calls) {
+        created.addAndGet(calls);
+        dateUpdated = DateTime.now();
+    }
+
+    public void failed() {
+        failed.incrementAndGet();
+        dateUpdated = DateTime.now();
+    }
+
+    public void setOutstanding(final int outstanding) {
+        this.outstanding = outstanding;
+    }
+
+    public synchronized void completed() {
+        if (!isFinished()) {
+            update(Status.COMPLETED);
+        }
+    }
+
+    private synchronized void update(final Status status) {
+        this.status = status;
+        this.dateUpdated = DateTime.now();
+    }
+}
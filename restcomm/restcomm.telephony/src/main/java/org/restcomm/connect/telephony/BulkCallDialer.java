@@ -0,0 +1,258 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+package org.restcomm.connect.telephony;
+
+import static akka.pattern.Patterns.ask;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.restcomm.connect.commons.dao.Sid;
+import org.restcomm.connect.commons.faulttolerance.RestcommUntypedActor;
+import org.restcomm.connect.commons.util.TokenBucket;
+import org.restcomm.connect.monitoringservice.LiveCallRegistry;
+import org.restcomm.connect.telephony.api.BulkCall;
+import org.restcomm.connect.telephony.api.CallInfo;
+import org.restcomm.connect.telephony.api.CallManagerResponse;
+import org.restcomm.connect.telephony.api.CallStateChanged;
+import org.restcomm.connect.telephony.api.CreateBulkCall;
+import org.restcomm.connect.telephony.api.CreateCall;
+import org.restcomm.connect.telephony.api.ExecuteCallScript;
+
+import akka.actor.ActorRef;
+import akka.dispatch.OnComplete;
+import akka.event.Logging;
+import akka.event.LoggingAdapter;
+import akka.util.Timeout;
+import scala.concurrent.Future;
+import scala.concurrent.duration.Duration;
+
+/**
+ * Feeds the CallManager with the CreateCall requests of the bulk calls.
+ * <p>
+ * Every bulk call gets a {@link TokenBucket} of callsPerSecond permits, so an idle bulk call does not burst. A permit is
+ * spent only while the calls asked for and the calls still alive stay below maxConcurrentCalls, the alive calls are read
+ * from the LiveCallRegistry on every tick so the pace follows the calls actually ending.
+ */
+public final class BulkCallDialer extends RestcommUntypedActor {
+    private static final long TICK = 100;
+    private static final Timeout EXPIRES = new Timeout(Duration.create(10, TimeUnit.SECONDS));
+
+    private final LoggingAdapter logger = Logging.getLogger(getContext().system(), this);
+
+    private final ActorRef callManager;
+    private final LiveCallRegistry liveCalls;
+    private final Map<Sid, Job> jobs;
+    private boolean ticking;
+
+    public BulkCallDialer(final ActorRef callManager) {
+        super();
+        this.callManager = callManager;
+        this.liveCalls = LiveCallRegistry.getInstance();
+        this.jobs = new HashMap<Sid, Job>();
+        this.ticking = false;
+    }
+
+    @Override
+    public void onReceive(final Object message) throws Exception {
+        final Class<?> klass = message.getClass();
+        if (CreateBulkCall.class.equals(klass)) {
+            onCreateBulkCall((CreateBulkCall) message);
+        } else if (Tick.class.equals(klass)) {
+            ticking = false;
+            onTick();
+        } else if (Dialed.class.equals(klass)) {
+            onDialed((Dialed) message);
+        } else {
+            unhandled(message);
+        }
+    }
+
+    private void onCreateBulkCall(final CreateBulkCall message) {
+        final BulkCall bulkCall = message.bulkCall();
+        jobs.put(bulkCall.getSid(), new Job(bulkCall));
+        if (logger.isInfoEnabled()) {
+            logger.info("Bulk call " + bulkCall.getSid() + " queued with " + bulkCall.getCalls().size()
+                    + " destinations at " + bulkCall.getCallsPerSecond() + " calls per second");
+        }
+        onTick();
+    }
+
+    private void onTick() {
+        final long now = System.currentTimeMillis();
+        final Iterator<Job> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            final Job job = iterator.next();
+            final BulkCall bulkCall = job.bulkCall;
+            job.refresh();
+            if (!BulkCall.Status.CANCELED.equals(bulkCall.getStatus())) {
+                job.permits.refill(now, bulkCall.getCallsPerSecond());
+                while (job.next < bulkCall.getCalls().size() && job.permits.available()
+                        && job.pending + job.calls.size() < bulkCall.getMaxConcurrentCalls()) {
+                    dial(job);
+                }
+            }
+            // A canceled bulk call is kept until its created calls end, so its outstanding calls stay current.
+            if (job.pending == 0 && job.calls.isEmpty()
+                    && (bulkCall.isFinished() || job.next == bulkCall.getCalls().size())) {
+                bulkCall.completed();
+                iterator.remove();
+                if (logger.isInfoEnabled()) {
+                    logger.info("Bulk call " + bulkCall.getSid() + " " + bulkCall.getStatus() + ", dialed "
+                            + bulkCall.getDialed() + ", created " + bulkCall.getCreated() + ", failed " + bulkCall.getFailed());
+                }
+            }
+        }
+        if (!jobs.isEmpty() && !ticking) {
+            ticking = true;
+            getContext().system().scheduler().scheduleOnce(Duration.create(TICK, TimeUnit.MILLISECONDS), self(),
+                    new Tick(), getContext().dispatcher());
+        }
+    }
+
+    private void dial(final Job job) {
+        final Sid sid = job.bulkCall.getSid();
+        final CreateCall request = job.bulkCall.getCalls().get(job.next++);
+        job.permits.take();
+        job.pending++;
+        job.bulkCall.dialed();
+        final ActorRef self = self();
+        final Future<Object> future = ask(callManager, request, EXPIRES);
+        future.onComplete(new OnComplete<Object>() {
+            @Override
+            public void onComplete(final Throwable failure, final Object response) throws Throwable {
+                self.tell(new Dialed(sid, request, failure, response), null);
+            }
+        }, getContext().dispatcher());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onDialed(final Dialed message) {
+        final Job job = jobs.get(message.sid);
+        if (job == null) {
+            return;
+        }
+        job.pending--;
+        final BulkCall bulkCall = job.bulkCall;
+        final Object response = message.response;
+        if (response instanceof CallManagerResponse && ((CallManagerResponse<?>) response).succeeded()) {
+            final Object result = ((CallManagerResponse<?>) response).get();
+            final List<ActorRef> created;
+            if (result instanceof List) {
+                created = (List<ActorRef>) result;
+            } else {
+                created = new ArrayList<ActorRef>();
+                created.add((ActorRef) result);
+            }
+            // The calls were created, run them even if the bulk call was canceled meanwhile.
+            for (final ActorRef call : created) {
+                final ExecuteCallScript execute = new ExecuteCallScript(call, bulkCall.getAccountSid(),
+                        bulkCall.getApiVersion(), bulkCall.getUrl(), bulkCall.getMethod(), bulkCall.getFallbackUrl(),
+                        bulkCall.getFallbackMethod(), bulkCall.getTimeout());
+                callManager.tell(execute, null);
+                job.calls.add(call);
+            }
+            bulkCall.created(created.size());
+            bulkCall.setOutstanding(job.calls.size());
+        } else {
+            bulkCall.failed();
+            if (logger.isInfoEnabled()) {
+                final Throwable cause = message.failure != null ? message.failure
+                        : response instanceof CallManagerResponse ? ((CallManagerResponse<?>) response).cause() : null;
+                logger.info("Bulk call " + bulkCall.getSid() + " could not dial " + message.request.to()
+                        + (cause != null ? ": " + cause.getMessage() : ""));
+            }
+        }
+    }
+
+    private final class Job {
+        private final BulkCall bulkCall;
+        private final List<ActorRef> calls;
+        private final TokenBucket permits;
+        private int next;
+        private int pending;
+
+        private Job(final BulkCall bulkCall) {
+            super();
+            this.bulkCall = bulkCall;
+            this.calls = new ArrayList<ActorRef>();
+            this.next = 0;
+            this.pending = 0;
+            this.permits = new TokenBucket(System.currentTimeMillis());
+        }
+
+        /**
+         * Forgets the calls that ended, they either stopped or their last known state is a final one.
+         */
+        private void refresh() {
+            final Iterator<ActorRef> iterator = calls.iterator();
+            while (iterator.hasNext()) {
+                final ActorRef call = iterator.next();
+                if (call.isTerminated()) {
+                    iterator.remove();
+                    continue;
+                }
+                final LiveCallRegistry.LiveCall liveCall = liveCalls.get(call);
+                final CallInfo info = liveCall == null ? null : liveCall.getInfo();
+                if (info != null && ended(info.state())) {
+                    iterator.remove();
+                }
+            }
+            bulkCall.setOutstanding(calls.size());
+        }
+    }
+
+    private static boolean ended(final CallStateChanged.State state) {
+        switch (state) {
+            case CANCELED:
+            case BUSY:
+            case NOT_FOUND:
+            case FAILED:
+            case NO_ANSWER:
+            case COMPLETED:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static final class Tick {
+    }
+
+    private static final class Dialed {
+        private final Sid sid;
+        private final CreateCall request;
+        private final Throwable failure;
+        private final Object response;
+
+        private Dialed(final Sid sid, final CreateCall request, final Throwable failure, final Object response) {
+            super();
+            this.sid = sid;
+            this.request = request;
+            this.failure = failure;
+            this.response = response;
+        }
+    }
+}
@@ -74,11 +74,13 @@ import org.restcomm.connect.commons.fsm.TransitionEndListener;
 import org.restcomm.connect.commons.fsm.TransitionFailedException;
 import org.restcomm.connect.commons.fsm.TransitionNotFoundException;
 import org.restcomm.connect.commons.fsm.TransitionRollbackException;
+import org.restcomm.connect.commons.metrics.CallSetupTracer;
 import org.restcomm.connect.commons.patterns.Observe;
 import org.restcomm.connect.commons.patterns.Observing;
 import org.restcomm.connect.commons.patterns.StopObserving;
 import org.restcomm.connect.commons.telephony.CreateCallType;
 import org.restcomm.connect.commons.util.DNSUtils;
+import org.restcomm.connect.commons.util.ParsedSdp;
 import org.restcomm.connect.commons.util.SdpUtils;
 import org.restcomm.connect.dao.CallDetailRecordsDao;
 import org.restcomm.connect.dao.DaoManager;
@@ -109,6 +111,7 @@ import org.restcomm.connect.mscontrol.api.messages.StopMediaGroup;
 import org.restcomm.connect.mscontrol.api.messages.StopRecording;
 import org.restcomm.connect.mscontrol.api.messages.Unmute;
 import org.restcomm.connect.mscontrol.api.messages.UpdateMediaSession;
+import org.restcomm.connect.monitoringservice.LiveCallRegistry;
 import org.restcomm.connect.telephony.api.Answer;
 import org.restcomm.connect.telephony.api.BridgeStateChanged;
 import org.restcomm.connect.telephony.api.CallFail;
@@ -227,6 +230,7 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
     private DateTime created;
     private DateTime callUpdatedTime;
     private final List<ActorRef> observers;
+    private final LiveCallRegistry liveCalls;
     private boolean receivedBye;
     private boolean sentBye;
     private boolean muted;
@@ -245,6 +249,9 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
     // Media Session Control runtime stuff
     private final ActorRef msController;
     private MediaSessionInfo mediaSessionInfo;
+    // The local SDP handed out by the media server, parsed once and re-used for every INVITE, re-INVITE and 200 OK
+    private String localSdp;
+    private ParsedSdp parsedLocalSdp;
 
     // Media Group runtime stuff
     private CallDetailRecord outgoingCallRecord;
@@ -437,6 +444,7 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
         this.instanceId = RestcommConfiguration.getInstance().getMain().getInstanceId();
         this.created = DateTime.now();
         this.observers = Collections.synchronizedList(new ArrayList<ActorRef>());
+        this.liveCalls = LiveCallRegistry.getInstance();
         this.receivedBye = false;
 
         // Media Group runtime stuff
@@ -489,6 +497,10 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
         return !isInbound();
     }
 
+    private void updateLiveCall() {
+        liveCalls.update(self(), info());
+    }
+
     private CallInfo info() {
         try {
             final String from;
@@ -941,6 +953,7 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
 
             // Notify the observers.
             external = CallStateChanged.State.QUEUED;
+            updateLiveCall();
             final CallStateChanged event = new CallStateChanged(external);
             for (final ActorRef observer : observers) {
                 observer.tell(event, source);
@@ -1068,15 +1081,7 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
                     ((SipSessionExt) session).setBypassProxy(true);
                 }
             }
-            String offer = null;
-            if (mediaSessionInfo.usesNat()) {
-                final String externalIp = mediaSessionInfo.getExternalAddress().getHostAddress();
-                final byte[] sdp = mediaSessionInfo.getLocalSdp().getBytes();
-                offer = SdpUtils.patch("application/sdp", sdp, externalIp);
-            } else {
-                offer = mediaSessionInfo.getLocalSdp();
-            }
-            offer = SdpUtils.endWithNewLine(offer);
+            final String offer = patchLocalSdp();
             invite.setContent(offer, "application/sdp");
             // Send the invite.
             invite.send();
@@ -1140,6 +1145,7 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
                 to = invite.getTo().getURI();
                 timeout = -1;
                 direction = INBOUND;
+                CallSetupTracer.getInstance().link(invite.getCallId(), id.toString());
                 try {
                     // Send a ringing response
                     final SipServletResponse ringing = invite.createResponse(SipServletResponse.SC_RINGING);
@@ -1175,6 +1181,7 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
 
             // Notify the observers.
             external = CallStateChanged.State.RINGING;
+            updateLiveCall();
             final CallStateChanged event = new CallStateChanged(external);
             for (final ActorRef observer : observers) {
                 observer.tell(event, source);
@@ -1245,6 +1252,7 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
             //since no-answer is a final state and we need to keep it so observer knows how the call ended
 //            if (!external.equals(CallStateChanged.State.NO_ANSWER)) {
                 external = CallStateChanged.State.CANCELED;
+                updateLiveCall();
 //                final CallStateChanged event = new CallStateChanged(external);
 //                for (final ActorRef observer : observers) {
 //                    observer.tell(event, source);
@@ -1331,6 +1339,7 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
             // invite.getApplicationSession().invalidate();
             // Notify the observers.
             external = CallStateChanged.State.BUSY;
+            updateLiveCall();
             final CallStateChanged event = new CallStateChanged(external, lastResponse.getStatus());
             for (final ActorRef observer : observers) {
                 observer.tell(event, source);
@@ -1372,6 +1381,7 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
 
             // Notify the observers.
             external = CallStateChanged.State.NOT_FOUND;
+            updateLiveCall();
             final CallStateChanged event = new CallStateChanged(external, SipServletResponse.SC_NOT_FOUND);
             for (final ActorRef observer : observers) {
                 observer.tell(event, source);
@@ -1400,6 +1410,7 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
             // invite.getApplicationSession().invalidate();
             // Notify the observers.
             external = CallStateChanged.State.NO_ANSWER;
+            updateLiveCall();
             final CallStateChanged event = new CallStateChanged(external, SipServletResponse.SC_REQUEST_TIMEOUT);
             for (final ActorRef observer : observers) {
                 observer.tell(event, source);
@@ -1459,6 +1470,7 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
 
             // Notify the observers.
             external = CallStateChanged.State.FAILED;
+            updateLiveCall();
             CallStateChanged event = null;
             if (lastResponse != null) {
                 event = new CallStateChanged(external, lastResponse.getStatus());
@@ -1529,8 +1541,8 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
     }
 
     private CreateMediaSession generateRequest(SipServletMessage sipMessage) throws IOException, SdpException, ServletParseException {
-        final byte[] sdp = sipMessage.getRawContent();
-        String offer = SdpUtils.getSdp(sipMessage.getContentType(), sipMessage.getRawContent());
+        final ParsedSdp sdp = ParsedSdp.parse(sipMessage.getContentType(), sipMessage.getRawContent());
+        String offer = sdp.getSdp();
         if (!disableSdpPatchingOnUpdatingMediaSession) {
             String externalIp = null;
             final SipURI externalSipUri = (SipURI) sipMessage.getSession().getAttribute("realInetUri");
@@ -1545,12 +1557,14 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
                     logger.info("ExternalSipUri stored in the session was null, will use the message InitialRemoteAddr: " + externalIp);
                 }
             }
-            offer = SdpUtils.patch(sipMessage.getContentType(), sdp, externalIp);
+            offer = sdp.patch(externalIp);
         }
 
         //Prepare media attributes to be used by call controller
-        final boolean isAudioSdp = SdpUtils.isAudioSDP(sipMessage.getContentType(), sipMessage.getRawContent());
-        final boolean isVideoSdp = SdpUtils.isVideoSDP(sipMessage.getContentType(), sipMessage.getRawContent());
+        // Media types are only read from plain SDP bodies, a multipart body is handled as audio only
+        final boolean plainSdp = "application/sdp".equalsIgnoreCase(sipMessage.getContentType());
+        final boolean isAudioSdp = plainSdp && sdp.isAudio();
+        final boolean isVideoSdp = plainSdp && sdp.isVideo();
         if(isAudioSdp && isVideoSdp){
             //Call with audio and video
             mediaAttributes = new MediaAttributes(MediaAttributes.MediaType.AUDIO_VIDEO, MediaAttributes.VideoResolution.SEVEN_TWENTY_P);
@@ -1676,19 +1690,18 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
                 }
             }
 
+            final ParsedSdp sdp = ParsedSdp.parse(response.getContentType(), response.getRawContent());
             String answer = null;
             if (!disableSdpPatchingOnUpdatingMediaSession) {
                 if (logger.isInfoEnabled()) {
                     logger.info("Will patch SDP answer from 200 OK received with the external IP Address from Response on updating media session");
                 }
-                final String externalIp = response.getInitialRemoteAddr();
-                final byte[] sdp = response.getRawContent();
-                answer = SdpUtils.patch(response.getContentType(), sdp, externalIp);
+                answer = sdp.patch(response.getInitialRemoteAddr());
             } else {
                 if (logger.isInfoEnabled()) {
                     logger.info("SDP Patching on updating media session is disabled");
                 }
-                answer = SdpUtils.getSdp(response.getContentType(), response.getRawContent());
+                answer = sdp.getSdp();
             }
 
             final UpdateMediaSession update = new UpdateMediaSession(answer);
@@ -1707,6 +1720,7 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
             // Notify the observers.
             if (external != null && !external.equals(CallStateChanged.State.WAIT_FOR_ANSWER)) {
                 external = CallStateChanged.State.WAIT_FOR_ANSWER;
+                updateLiveCall();
                 final CallStateChanged event = new CallStateChanged(external);
                 for (final ActorRef observer : observers) {
                     observer.tell(event, source);
@@ -1726,6 +1740,7 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
             // Notify the observers.
             if (external != null && !external.equals(CallStateChanged.State.IN_PROGRESS)) {
                 external = CallStateChanged.State.IN_PROGRESS;
+                updateLiveCall();
                 final CallStateChanged event = new CallStateChanged(external);
                 for (final ActorRef observer : observers) {
                     observer.tell(event, source);
@@ -1838,6 +1853,7 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
             if (!external.equals(CallStateChanged.State.CANCELED)) {
                 // Notify the observers.
                 external = CallStateChanged.State.COMPLETED;
+                updateLiveCall();
             }
             CallStateChanged event = new CallStateChanged(external);
             if (external.equals(CallStateChanged.State.CANCELED)) {
@@ -1919,6 +1935,7 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
             // Forward to media server controller
             this.msController.tell(message, sender);
             muted = true;
+            updateLiveCall();
         }
     }
 
@@ -1927,6 +1944,7 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
             // Forward to media server controller
             this.msController.tell(message, sender);
             muted = false;
+            updateLiveCall();
             if (logger.isInfoEnabled()) {
                 final String infoMsg = String.format("Call %s, direction %s, unmuted", self().path(), direction);
                 logger.info(infoMsg);
@@ -1940,6 +1958,7 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
             synchronized (this.observers) {
                 this.observers.add(observer);
                 observer.tell(new Observing(self), self);
+                liveCalls.setInterpreter(self, this.observers.get(0));
             }
         }
     }
@@ -1948,7 +1967,10 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
         final ActorRef observer = stopObservingMessage.observer();
         if (observer != null) {
             observer.tell(stopObservingMessage, self);
-            this.observers.remove(observer);
+            synchronized (this.observers) {
+                this.observers.remove(observer);
+                liveCalls.setInterpreter(self, this.observers.isEmpty() ? null : this.observers.get(0));
+            }
         } else {
             Iterator<ActorRef> observerIter = observers.iterator();
             while (observerIter.hasNext()) {
@@ -1961,6 +1983,7 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
 //                this.observers.remove(observerNext);
             }
             this.observers.clear();
+            liveCalls.setInterpreter(self, null);
         }
     }
 
@@ -1985,6 +2008,8 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
         this.conferencing = false;
         this.conference = null;
         this.bridge = null;
+        liveCalls.setConference(self, null);
+        updateLiveCall();
     }
 
     private void onAnswer(Answer message, ActorRef self, ActorRef sender) throws Exception {
@@ -2079,19 +2104,18 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
 
                 inDialogInvite = message;
 
+                final ParsedSdp sdp = ParsedSdp.parse(message.getContentType(), message.getRawContent());
                 String answer = null;
                 if (!disableSdpPatchingOnUpdatingMediaSession) {
                     if (logger.isInfoEnabled()) {
                         logger.info("Will patch SDP answer from 200 OK received with the external IP Address from Response on updating media session");
                     }
-                    final String externalIp = message.getInitialRemoteAddr();
-                    final byte[] sdp = message.getRawContent();
-                    answer = SdpUtils.patch(message.getContentType(), sdp, externalIp);
+                    answer = sdp.patch(message.getInitialRemoteAddr());
                 } else {
                     if (logger.isInfoEnabled()) {
                         logger.info("SDP Patching on updating media session is disabled");
                     }
-                    answer = SdpUtils.getSdp(message.getContentType(), message.getRawContent());
+                    answer = sdp.getSdp();
                 }
 
                 final UpdateMediaSession update = new UpdateMediaSession(answer);
@@ -2392,6 +2416,7 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
             addCustomHeaders(cancel);
             cancel.send();
             external = CallStateChanged.State.CANCELED;
+            updateLiveCall();
             fsm.transition(hangup, completed);
             return;
         } else {
@@ -2559,19 +2584,7 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
                         SipServletRequest reInvite = invite.getSession().createRequest("INVITE");
                         addCustomHeaders(reInvite);
                         mediaSessionInfo = message.getMediaSession();
-                        final byte[] sdp = mediaSessionInfo.getLocalSdp().getBytes();
-                        String answer = null;
-                        if (mediaSessionInfo.usesNat()) {
-                            final String externalIp = mediaSessionInfo.getExternalAddress().getHostAddress();
-                            answer = SdpUtils.patch("application/sdp", sdp, externalIp);
-                        } else {
-                            answer = mediaSessionInfo.getLocalSdp().toString();
-                        }
-
-                        // Issue #215:
-                        // https://bitbucket.org/telestax/telscale-restcomm/issue/215/restcomm-adds-extra-newline-to-sdp
-                        answer = SdpUtils.endWithNewLine(answer);
-
+                        final String answer = patchLocalSdp();
                         reInvite.setContent(answer, "application/sdp");
                         reInvite.send();
                     }
@@ -2590,18 +2603,7 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
 
                 } else if(is(inProgress) && inDialogRequest != null) {
                     mediaSessionInfo = message.getMediaSession();
-                    final byte[] sdp = mediaSessionInfo.getLocalSdp().getBytes();
-                    String answer = null;
-                    if (mediaSessionInfo.usesNat()) {
-                        final String externalIp = mediaSessionInfo.getExternalAddress().getHostAddress();
-                        answer = SdpUtils.patch("application/sdp", sdp, externalIp);
-                    } else {
-                        answer = mediaSessionInfo.getLocalSdp().toString();
-                    }
-
-                    // Issue #215:
-                    // https://bitbucket.org/telestax/telscale-restcomm/issue/215/restcomm-adds-extra-newline-to-sdp
-                    answer = SdpUtils.endWithNewLine(answer);
+                    final String answer = patchLocalSdp();
                     SipServletResponse resp = inDialogInvite.createResponse(Response.OK);
                     resp.setContent(answer, "application/sdp");
                     resp.send();
@@ -2645,6 +2647,7 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
                     this.conferencing = false;
                     this.conference.tell(new Left(self()), self);
                     this.conference = null;
+                    liveCalls.setConference(self(), null);
                     fsm.transition(new Hangup("failed to join conference"), failed);
                 }
                 break;
@@ -2675,6 +2678,7 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
             this.conferencing = true;
             this.conference = sender;
             this.conferenceSid = message.getSid();
+            liveCalls.setConference(self, conferenceSid);
             this.fsm.transition(message, joining);
         }
     }
@@ -2720,6 +2724,7 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
                 this.conferencing = false;
                 this.conference.tell(new Left(self()), self);
                 this.conference = null;
+                liveCalls.setConference(self(), null);
                 if (logger.isDebugEnabled()) {
                     logger.debug("Call left conference room and notification sent to conference actor");
                 }
@@ -2733,6 +2738,7 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
                     // Forward to media server controller
                     this.msController.tell(new Unmute(), sender);
                     muted = false;
+                    updateLiveCall();
                 }
                 if (!receivedBye) {
                     fsm.transition(message, inProgress);
@@ -2801,17 +2807,7 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
         }
         if(!initialInviteOkSent){
             final SipServletResponse okay = invite.createResponse(SipServletResponse.SC_OK);
-            final byte[] sdp = mediaSessionInfo.getLocalSdp().getBytes();
-            String answer = null;
-            if (mediaSessionInfo.usesNat()) {
-                final String externalIp = mediaSessionInfo.getExternalAddress().getHostAddress();
-                answer = SdpUtils.patch("application/sdp", sdp, externalIp);
-            } else {
-                answer = mediaSessionInfo.getLocalSdp().toString();
-            }
-            // Issue #215:
-            // https://bitbucket.org/telestax/telscale-restcomm/issue/215/restcomm-adds-extra-newline-to-sdp
-            answer = SdpUtils.endWithNewLine(answer);
+            final String answer = patchLocalSdp();
             okay.setContent(answer, "application/sdp");
             addCustomHeaders(okay);
             okay.send();
@@ -2819,6 +2815,28 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
         }
     }
 
+    /**
+     * Prepares the local SDP of the current media session to be sent to the remote party, patching it with the
+     * external address when the media server sits behind a NAT. The parsed SDP is kept until the media server hands
+     * out a different one.
+     */
+    private String patchLocalSdp() throws UnknownHostException, SdpException {
+        final String sdp = mediaSessionInfo.getLocalSdp();
+        String patched = null;
+        if (mediaSessionInfo.usesNat()) {
+            if (parsedLocalSdp == null || !sdp.equals(localSdp)) {
+                parsedLocalSdp = ParsedSdp.parse("application/sdp", sdp.getBytes());
+                localSdp = sdp;
+            }
+            patched = parsedLocalSdp.patch(mediaSessionInfo.getExternalAddress().getHostAddress());
+        } else {
+            patched = sdp;
+        }
+        // Issue #215:
+        // https://bitbucket.org/telestax/telscale-restcomm/issue/215/restcomm-adds-extra-newline-to-sdp
+        return SdpUtils.endWithNewLine(patched);
+    }
+
     private boolean isCallOnHoldSdp(String answer){
         if(answer.contains("a=inactive")){
             return true;
@@ -2846,7 +2864,9 @@ public final class Call extends RestcommUntypedActor implements TransitionEndLis
                 logger.info("Call actor at postStop, path: "+self().path()+", direction: "+direction+", state: "+fsm.state()+", isTerminated: "+self().isTerminated()+", sender: "+sender());
             }
             onStopObserving(new StopObserving(), self(), null);
+            liveCalls.remove(self());
             getContext().stop(msController);
+            CallSetupTracer.getInstance().abandon(id.toString());
         } catch (Exception exception) {
             if(logger.isInfoEnabled()) {
                 logger.info("Exception during Call postStop while trying to remove observers: "+exception);
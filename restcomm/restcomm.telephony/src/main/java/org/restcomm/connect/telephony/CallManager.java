@@ -38,6 +38,7 @@ import org.restcomm.connect.commons.configuration.RestcommConfiguration;
 import org.restcomm.connect.commons.configuration.sets.RcmlserverConfigurationSet;
 import org.restcomm.connect.commons.dao.Sid;
 import org.restcomm.connect.commons.faulttolerance.RestcommUntypedActor;
+import org.restcomm.connect.commons.metrics.CallSetupTracer;
 import org.restcomm.connect.commons.patterns.StopObserving;
 import org.restcomm.connect.commons.push.PushNotificationServerHelper;
 import org.restcomm.connect.commons.telephony.CreateCallType;
@@ -46,6 +47,7 @@ import org.restcomm.connect.commons.util.DNSUtils;
 import org.restcomm.connect.commons.util.SdpUtils;
 import org.restcomm.connect.core.service.RestcommConnectServiceProvider;
 import org.restcomm.connect.core.service.api.NumberSelectorService;
+import org.restcomm.connect.core.service.api.RateLimiterService;
 import org.restcomm.connect.core.service.number.api.NumberSelectionResult;
 import org.restcomm.connect.core.service.util.UriUtils;
 import org.restcomm.connect.dao.AccountsDao;
@@ -77,6 +79,7 @@ import org.restcomm.connect.interpreter.StartInterpreter;
 import org.restcomm.connect.interpreter.StopInterpreter;
 import org.restcomm.connect.interpreter.VoiceInterpreter;
 import org.restcomm.connect.interpreter.VoiceInterpreterParams;
+import org.restcomm.connect.monitoringservice.LiveCallRegistry;
 import org.restcomm.connect.monitoringservice.MonitoringService;
 import org.restcomm.connect.mscontrol.api.MediaServerControllerFactory;
 import org.restcomm.connect.telephony.api.CallInfo;
@@ -225,6 +228,8 @@ public final class CallManager extends RestcommUntypedActor {
     private boolean isActAsProxyOutUseFromHeader;
 
     private UriUtils uriUtils;
+    private RateLimiterService rateLimiter;
+    private final LiveCallRegistry liveCalls = LiveCallRegistry.getInstance();
 
     // Push notification server
     private final PushNotificationServerHelper pushNotificationServerHelper;
@@ -389,6 +394,7 @@ public final class CallManager extends RestcommUntypedActor {
         }
 
         this.uriUtils = RestcommConnectServiceProvider.getInstance().uriUtils();
+        this.rateLimiter = RestcommConnectServiceProvider.getInstance().rateLimiterService();
 
         // Push notification server
         this.pushNotificationServerHelper = new PushNotificationServerHelper(system, configuration);
@@ -512,6 +518,24 @@ public final class CallManager extends RestcommUntypedActor {
             }
         }
 
+        final CallSetupTracer tracer = CallSetupTracer.getInstance();
+        tracer.start(request.getCallId());
+        try {
+            initialInvite(request, tracer);
+        } finally {
+            // Only an INVITE handed to a Call actor keeps its trace, the Call links it to its sid. Rejected, proxied
+            // and failed ones would otherwise wait for the purge.
+            if (request.getApplicationSession().getAttribute(Call.class.getName()) == null) {
+                tracer.abandon(request.getCallId());
+            }
+        }
+    }
+
+    private void initialInvite(final SipServletRequest request, final CallSetupTracer tracer) throws IOException,
+            NumberParseException, ServletParseException {
+        final ActorRef self = self();
+        final long lookupStarted = System.nanoTime();
+
         //Run proInboundAction Extensions here
         // If it's a new invite lets try to handle it.
         final AccountsDao accounts = storage.getAccountsDao();
@@ -548,6 +572,7 @@ public final class CallManager extends RestcommUntypedActor {
 
         final Client client = clients.getClient(fromUser,sourceOrganizationSid);
         final Client toClient = clients.getClient(toUser, toOrganizationSid);
+        tracer.record(request.getCallId(), CallSetupTracer.Phase.LOOKUP, lookupStarted);
 
         if (client != null) {
             Account fromAccount = accounts.getAccount(client.getAccountSid());
@@ -770,7 +795,9 @@ public final class CallManager extends RestcommUntypedActor {
             if (toClient != null) {
                 ExtensionController ec = ExtensionController.getInstance();
                 final IExtensionCreateCallRequest cc = new CreateCall(fromUser, toUser, "", "", false, 0, CreateCallType.CLIENT, toClient.getAccountSid(), null, null, null, null);
+                final long extensionsStarted = System.nanoTime();
                 ExtensionResponse extRes = ec.executePreInboundAction(cc, this.extensions);
+                tracer.record(request.getCallId(), CallSetupTracer.Phase.PRE_INBOUND_EXTENSIONS, extensionsStarted);
 
                 if (extRes.isAllowed()) {
                     proxyDialClientThroughMediaServer(request, toClient, toClient.getLogin());
@@ -1124,6 +1151,13 @@ public final class CallManager extends RestcommUntypedActor {
         final SipApplicationSession appSession = request.getApplicationSession();
         //Initates the transfer
         ActorRef transferorActor = (ActorRef) appSession.getAttribute(Call.class.getName());
+        if (transferorActor == null) {
+            // The REFER is sent in the dialog of the transferor, so it shares the Call-ID of its initial INVITE
+            final LiveCallRegistry.LiveCall liveCall = liveCalls.getBySipCallId(request.getCallId());
+            if (liveCall != null) {
+                transferorActor = liveCall.getCall();
+            }
+        }
         if (transferorActor == null) {
             if (logger.isInfoEnabled()) {
                 logger.info("Transferor Call Actor is null, cannot proceed with SIP Refer");
@@ -1137,10 +1171,7 @@ public final class CallManager extends RestcommUntypedActor {
 
         final Timeout expires = new Timeout(Duration.create(60, TimeUnit.SECONDS));
 
-        Future<Object> infoFuture = (Future<Object>) ask(transferorActor, new GetCallInfo(), expires);
-        CallResponse<CallInfo> infoResponse = (CallResponse<CallInfo>) Await.result(infoFuture,
-                Duration.create(10, TimeUnit.SECONDS));
-        CallInfo callInfo = infoResponse.get();
+        CallInfo callInfo = callInfo(transferorActor, expires);
 
         //Call must be in-progress to accept Sip Refer
         if (callInfo != null && callInfo.state().equals(CallStateChanged.State.IN_PROGRESS)) {
@@ -1189,17 +1220,11 @@ public final class CallManager extends RestcommUntypedActor {
             return;
         }
 
-        // Get first transferorActor leg observers
-        Future<Object> future = (Future<Object>) ask(transferorActor, new GetCallObservers(), expires);
-        CallResponse<List<ActorRef>> response = (CallResponse<List<ActorRef>>) Await.result(future,
-                Duration.create(10, TimeUnit.SECONDS));
-        List<ActorRef> callObservers = response.get();
-
         // Get the Voice Interpreter currently handling the transferorActor
-        ActorRef existingInterpreter = callObservers.iterator().next();
+        ActorRef existingInterpreter = interpreter(transferorActor, expires);
 
         // Get the outbound leg of this transferorActor
-        future = (Future<Object>) ask(existingInterpreter, new GetRelatedCall(transferorActor), expires);
+        Future<Object> future = (Future<Object>) ask(existingInterpreter, new GetRelatedCall(transferorActor), expires);
         Object answer = (Object) Await.result(future, Duration.create(10, TimeUnit.SECONDS));
 
         //Transferee will be transfered to the transfer target
@@ -1312,7 +1337,9 @@ public final class CallManager extends RestcommUntypedActor {
         IncomingPhoneNumber number = null;
 
         try {
+            final long selectionStarted = System.nanoTime();
             NumberSelectionResult result = numberSelector.searchNumberWithResult(phone, sourceOrganizationSid, toOrganization);
+            CallSetupTracer.getInstance().record(request.getCallId(), CallSetupTracer.Phase.NUMBER_SELECTION, selectionStarted);
             if (numberSelector.isFailedCall(result, sourceOrganizationSid, toOrganization)) {
                 // We found the number but organization was not proper
                 if (logger.isDebugEnabled()) {
@@ -1354,7 +1381,9 @@ public final class CallManager extends RestcommUntypedActor {
             if (number != null) {
                 ExtensionController ec = ExtensionController.getInstance();
                 IExtensionFeatureAccessRequest far = new FeatureAccessRequest(FeatureAccessRequest.Feature.INBOUND_VOICE, number.getAccountSid());
+                final long extensionsStarted = System.nanoTime();
                 ExtensionResponse er = ec.executePreInboundAction(far, extensions);
+                CallSetupTracer.getInstance().record(request.getCallId(), CallSetupTracer.Phase.PRE_INBOUND_EXTENSIONS, extensionsStarted);
                 if (er.isAllowed()) {
                     final VoiceInterpreterParams.Builder builder = new VoiceInterpreterParams.Builder();
                     builder.setConfiguration(configuration);
@@ -1736,6 +1765,38 @@ public final class CallManager extends RestcommUntypedActor {
         interpreter.tell(new StartInterpreter(request.call()), self);
     }
 
+    /**
+     * Reads the info of a call from the LiveCallRegistry, asks the call only if it did not publish it yet.
+     */
+    @SuppressWarnings("unchecked")
+    private CallInfo callInfo(final ActorRef call, final Timeout expires) throws Exception {
+        final LiveCallRegistry.LiveCall liveCall = liveCalls.get(call);
+        if (liveCall != null && liveCall.getInfo() != null) {
+            return liveCall.getInfo();
+        }
+        Future<Object> future = (Future<Object>) ask(call, new GetCallInfo(), expires);
+        CallResponse<CallInfo> response = (CallResponse<CallInfo>) Await.result(future,
+                Duration.create(10, TimeUnit.SECONDS));
+        return response.get();
+    }
+
+    /**
+     * Reads the first observer of a call, the interpreter handling it, from the LiveCallRegistry and asks the call for
+     * its observers only if it is not there.
+     */
+    @SuppressWarnings("unchecked")
+    private ActorRef interpreter(final ActorRef call, final Timeout expires) throws Exception {
+        final LiveCallRegistry.LiveCall liveCall = liveCalls.get(call);
+        if (liveCall != null && liveCall.getInterpreter() != null) {
+            return liveCall.getInterpreter();
+        }
+        Future<Object> future = (Future<Object>) ask(call, new GetCallObservers(), expires);
+        CallResponse<List<ActorRef>> response = (CallResponse<List<ActorRef>>) Await.result(future,
+                Duration.create(10, TimeUnit.SECONDS));
+        List<ActorRef> callObservers = response.get();
+        return callObservers.iterator().next();
+    }
+
     @SuppressWarnings("unchecked")
     private void update(final Object message) throws Exception {
         final UpdateCallScript request = (UpdateCallScript) message;
@@ -1743,20 +1804,15 @@ public final class CallManager extends RestcommUntypedActor {
         final ActorRef call = request.call();
         final Boolean moveConnectedCallLeg = request.moveConnecteCallLeg();
 
-        // Get first call leg observers
         final Timeout expires = new Timeout(Duration.create(60, TimeUnit.SECONDS));
-        Future<Object> future = (Future<Object>) ask(call, new GetCallObservers(), expires);
-        CallResponse<List<ActorRef>> response = (CallResponse<List<ActorRef>>) Await.result(future,
-                Duration.create(10, TimeUnit.SECONDS));
-        List<ActorRef> callObservers = response.get();
 
         // Get the Voice Interpreter currently handling the call
         //TODO possible bug here. Since we have more than one call observer, later there might be the case that the first one is not the VI
         //TODO set the VI using specific message, also get the VI using specific message. The VI will still be in the observers list but it will set/get using specific method
-        ActorRef existingInterpreter = callObservers.iterator().next();
+        ActorRef existingInterpreter = interpreter(call, expires);
 
         // Get the outbound leg of this call
-        future = (Future<Object>) ask(existingInterpreter, new GetRelatedCall(call), expires);
+        Future<Object> future = (Future<Object>) ask(existingInterpreter, new GetRelatedCall(call), expires);
         Object answer = (Object) Await.result(future, Duration.create(10, TimeUnit.SECONDS));
 
         ActorRef relatedCall = null;
@@ -1901,7 +1957,16 @@ public final class CallManager extends RestcommUntypedActor {
             }
             case PSTN: {
                 if (extRes.isAllowed()) {
-                    outboundToPstn(request, sender);
+                    final String from = request.from();
+                    final boolean fromClient = from != null && from.startsWith("client:");
+                    if (rateLimiter == null || rateLimiter.tryAcquire(RateLimiterService.Event.OUTBOUND_CALL, request.accountId(),
+                            fromClient ? from.replaceFirst("client:", "") : null, fromClient ? null : from)) {
+                        outboundToPstn(request, sender);
+                    } else {
+                        final String errMsg = "Outbound call rate limit reached for account " + request.accountId();
+                        logger.warning(errMsg);
+                        sender.tell(new CallManagerResponse<ActorRef>(new RestcommExtensionException(errMsg), request), self());
+                    }
                 } else {
                     //Extensions didn't allowed this call
                     final String errMsg = "Not Allowed to make this outbound call";
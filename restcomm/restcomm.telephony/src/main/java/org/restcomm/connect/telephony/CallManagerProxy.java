@@ -29,6 +29,7 @@ import org.apache.log4j.Logger;
 import org.restcomm.connect.dao.DaoManager;
 import org.restcomm.connect.mscontrol.api.MediaServerControllerFactory;
 import org.restcomm.connect.sms.SmsService;
+import org.restcomm.connect.telephony.api.BulkCalls;
 import org.restcomm.connect.telephony.api.util.B2BUAHelper;
 import org.restcomm.connect.ussd.telephony.UssdCallManager;
 
@@ -143,6 +144,17 @@ public final class CallManagerProxy extends SipServlet implements SipServletList
         return system.actorOf(props);
     }
 
+    private ActorRef bulkCallDialer(final ActorRef manager) {
+        final Props props = new Props(new UntypedActorFactory() {
+            private static final long serialVersionUID = 1L;
+            @Override
+            public UntypedActor create() throws Exception {
+                return new BulkCallDialer(manager);
+            }
+        });
+        return system.actorOf(props);
+    }
+
     private ActorRef conferences(final MediaServerControllerFactory factory, final DaoManager storage) {
 
         final Props props = new Props(new UntypedActorFactory() {
@@ -205,6 +217,8 @@ public final class CallManagerProxy extends SipServlet implements SipServletList
             ussdManager = ussdManager(configuration, context, factory, storage);
             context.setAttribute(CallManager.class.getName(), manager);
             context.setAttribute(UssdCallManager.class.getName(), ussdManager);
+            context.setAttribute(BulkCallDialer.class.getName(), bulkCallDialer(manager));
+            context.setAttribute(BulkCalls.class.getName(), new BulkCalls());
         }
     }
 
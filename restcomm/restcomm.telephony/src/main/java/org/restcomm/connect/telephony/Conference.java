@@ -46,6 +46,7 @@ import org.restcomm.connect.dao.entities.CallDetailRecord;
 import org.restcomm.connect.dao.entities.ConferenceDetailRecord;
 import org.restcomm.connect.http.client.CallApiResponse;
 import org.restcomm.connect.http.client.api.CallApiClient;
+import org.restcomm.connect.monitoringservice.ConferenceOccupancy;
 import org.restcomm.connect.mscontrol.api.MediaServerControllerFactory;
 import org.restcomm.connect.mscontrol.api.messages.CreateMediaSession;
 import org.restcomm.connect.mscontrol.api.messages.JoinCall;
@@ -108,6 +109,9 @@ public final class Conference extends RestcommUntypedActor {
     private Sid sid;
     private final List<ActorRef> calls;
     private final List<ActorRef> observers;
+    // Calls holding a seat in the ConferenceOccupancy, from their admission until they leave
+    private final Set<ActorRef> seated;
+    private final ConferenceOccupancy occupancy;
 
     private boolean moderatorPresent = false;
 
@@ -170,6 +174,8 @@ public final class Conference extends RestcommUntypedActor {
         this.mscontroller = getContext().actorOf(factory.provideConferenceControllerProps());
         this.calls = new ArrayList<ActorRef>();
         this.observers = new ArrayList<ActorRef>();
+        this.seated = new HashSet<ActorRef>();
+        this.occupancy = ConferenceOccupancy.getInstance();
     }
 
     private boolean is(State state) {
@@ -456,6 +462,11 @@ public final class Conference extends RestcommUntypedActor {
 
     private void onAddParticipant(AddParticipant message, ActorRef self, ActorRef sender) {
         if (isRunning()) {
+            if (!admit(message.call())) {
+                logger.warning("Conference: "+name+" is at capacity, local participants: "+occupancy.getParticipants(sid)+", media server: "+occupancy.getMediaServer(sid)+", rejecting Call: "+message.call().path());
+                sender.tell(new ConferenceStateChanged(name, ConferenceStateChanged.State.FAILED), self);
+                return;
+            }
             final JoinCall joinCall = new JoinCall(message.call(), ConnectionMode.Confrnce, this.sid, message.mediaAttributes());
             this.mscontroller.tell(joinCall, self);
         }else{
@@ -464,6 +475,21 @@ public final class Conference extends RestcommUntypedActor {
         }
     }
 
+    /**
+     * Takes a seat in the room for the call unless it holds one already.
+     * @return false if the room or its media server has no seat left
+     */
+    private boolean admit(final ActorRef call) {
+        if (sid == null || seated.contains(call)) {
+            return true;
+        }
+        if (!occupancy.admit(sid)) {
+            return false;
+        }
+        seated.add(call);
+        return true;
+    }
+
     private void onRemoveParticipant(RemoveParticipant message, ActorRef self, ActorRef sender) throws Exception {
         if (isRunning()) {
             if (logger.isInfoEnabled()) {
@@ -484,6 +510,9 @@ public final class Conference extends RestcommUntypedActor {
             boolean removed = calls.remove(sender);
             if(!removed)
                 logger.error("Call was not in conference participant list. Call: "+sender.path());
+            if (seated.remove(sender)) {
+                occupancy.release(sid);
+            }
 
             int participantsNr = calls.size();
             if(logger.isInfoEnabled()) {
@@ -701,6 +730,10 @@ public final class Conference extends RestcommUntypedActor {
             }
             if(callApiClient != null && !callApiClient.isTerminated())
                 getContext().stop(callApiClient);
+            if (sid != null) {
+                occupancy.close(sid, seated.size());
+                seated.clear();
+            }
 
             getContext().stop(self());
         }
@@ -129,21 +129,38 @@ public final class UserAgentManager extends RestcommUntypedActor {
         }
         useSbc = runtime.getBoolean("use-sbc", false);
 
-        firstTimeCleanup();
+        // The cleanup scans every registration of this instance, run it in the background so REGISTER
+        // requests are served meanwhile
+        final ActorRef self = self();
+        final DateTime started = DateTime.now();
+        getContext().system().dispatchers().lookup("restcomm-blocking-dispatcher").execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    firstTimeCleanup(self, started);
+                } catch (final RuntimeException exception) {
+                    logger.error(exception, "Initial registration cleanup failed");
+                }
+            }
+        });
     }
 
-    private void firstTimeCleanup() {
+    private void firstTimeCleanup(final ActorRef self, final DateTime started) {
         if (logger.isInfoEnabled())
             logger.info("Initial registration cleanup. Will check existing registrations in DB and cleanup appropriately");
         final RegistrationsDao registrations = storage.getRegistrationsDao();
         List<Registration> results = registrations.getRegistrationsByInstanceId(instanceId);
         for (final Registration result : results) {
+            if (result.getDateUpdated() != null && result.getDateUpdated().isAfter(started)) {
+                //Registered or refreshed since this node started, nothing to clean up
+                continue;
+            }
             if (result.isWebRTC()) {
                 //If this is a WebRTC registration remove it since after restart the websocket connection is gone
                 if (logger.isInfoEnabled())
                     logger.info("Will remove WebRTC client: "+result.getLocation());
                 registrations.removeRegistration(result);
-                monitoringService.tell(new UserRegistration(result.getUserName(), result.getLocation(), false, result.getOrganizationSid()), self());
+                monitoringService.tell(new UserRegistration(result.getUserName(), result.getLocation(), false, result.getOrganizationSid()), self);
             } else {
                 final DateTime expires = result.getDateExpires();
                 if (expires.isBeforeNow() || expires.isEqualNow()) {
@@ -151,8 +168,8 @@ public final class UserAgentManager extends RestcommUntypedActor {
                         logger.info("Registration: " + result.getLocation() + " expired and will be removed now");
                     }
                     registrations.removeRegistration(result);
-                    monitoringService.tell(new UserRegistration(result.getUserName(), result.getLocation(), false, result.getOrganizationSid()), self());
-                    monitoringService.tell(new GetCall(result.getLocation()), self());
+                    monitoringService.tell(new UserRegistration(result.getUserName(), result.getLocation(), false, result.getOrganizationSid()), self);
+                    monitoringService.tell(new GetCall(result.getLocation()), self);
                 } else {
                     final DateTime updated = result.getDateUpdated();
                     Long pingIntervalMillis = new Long(pingInterval * 1000 * 3);
@@ -162,8 +179,8 @@ public final class UserAgentManager extends RestcommUntypedActor {
                             logger.info("Registration: " + result.getLocation() + " didn't respond to OPTIONS and will be removed now");
                         }
                         registrations.removeRegistration(result);
-                        monitoringService.tell(new UserRegistration(result.getUserName(), result.getLocation(), false, result.getOrganizationSid()), self());
-                        monitoringService.tell(new GetCall(result.getLocation()), self());
+                        monitoringService.tell(new UserRegistration(result.getUserName(), result.getLocation(), false, result.getOrganizationSid()), self);
+                        monitoringService.tell(new GetCall(result.getLocation()), self);
                     }
                 }
             }
@@ -30,6 +30,7 @@ import org.restcomm.connect.dao.DaoManager;
 import org.restcomm.connect.dao.entities.CallDetailRecord;
 import org.restcomm.connect.http.client.CallApiResponse;
 import org.restcomm.connect.http.client.api.CallApiClient;
+import org.restcomm.connect.monitoringservice.ConferenceOccupancy;
 import org.restcomm.connect.mscontrol.api.MediaServerControllerFactory;
 import org.restcomm.connect.mscontrol.api.messages.JoinComplete;
 import org.restcomm.connect.mscontrol.api.messages.Leave;
@@ -341,4 +342,50 @@ public class ConferenceTest extends ConferenceTestUtil{
             }};
 	}
 
+    @Test
+    public void testJoinFullConferenceIsRejected() throws URISyntaxException {
+        new JavaTestKit(system) {
+            {
+                daoManager = mock(DaoManager.class);
+                CallDetailRecordsDao callDetailRecordsDao = mock(CallDetailRecordsDao.class);
+                ConferenceDetailRecordsDao conferenceDetailRecordsDao = mock(ConferenceDetailRecordsDao.class);
+                when(callDetailRecordsDao.getTotalRunningCallDetailRecordsByConferenceSid(any(Sid.class))).thenReturn(0);
+                when(daoManager.getCallDetailRecordsDao()).thenReturn(callDetailRecordsDao);
+                when(daoManager.getConferenceDetailRecordsDao()).thenReturn(conferenceDetailRecordsDao);
+
+                final ActorRef tester = getRef();
+                final ActorRef firstCall = new JavaTestKit(system).getRef();
+                final ActorRef secondCall = new JavaTestKit(system).getRef();
+                MediaServerControllerFactory factory = new MockMmsControllerFactory(system, null);
+                final ActorRef conferenceCenter = conferenceCenter(factory, daoManager);
+                final ConferenceOccupancy occupancy = ConferenceOccupancy.getInstance();
+                final long rejected = occupancy.getRejected();
+                occupancy.setMaxParticipantsPerRoom(1);
+                try {
+                    final CreateConference create = new CreateConference(CONFERENCE_FRIENDLY_NAME_2, new Sid(CALL_SID));
+                    conferenceCenter.tell(create, tester);
+                    ConferenceCenterResponse conferenceCenterResponse = expectMsgClass(ConferenceCenterResponse.class);
+                    ActorRef conferene = conferenceCenterResponse.get();
+
+                    conferene.tell(new Observe(tester), tester);
+                    Observing observingResponse = expectMsgClass(Observing.class);
+                    assertTrue(observingResponse.succeeded());
+
+                    // the first call takes the only seat of the room
+                    conferene.tell(new AddParticipant(firstCall), tester);
+                    // the second one is refused, the interpreter that asked for it is told the join failed
+                    conferene.tell(new AddParticipant(secondCall), tester);
+                    boolean failed = false;
+                    while (!failed) {
+                        final Object message = receiveN(1, duration("10 seconds"))[0];
+                        failed = message instanceof ConferenceStateChanged
+                                && ConferenceStateChanged.State.FAILED.equals(((ConferenceStateChanged) message).state());
+                    }
+                    assertEquals(rejected + 1, occupancy.getRejected());
+                } finally {
+                    occupancy.setMaxParticipantsPerRoom(0);
+                }
+            }};
+    }
+
 }
@@ -10,6 +10,7 @@ import com.sun.jersey.api.client.WebResource;
 import com.sun.jersey.api.client.filter.HTTPBasicAuthFilter;
 import com.sun.jersey.core.util.MultivaluedMapImpl;
 import com.thoughtworks.xstream.XStream;
+import java.util.List;
 import java.util.Map;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
@@ -46,6 +47,14 @@ public class RestcommCallsTool {
         return accountsUrl;
     }
 
+    private String getBulkCallsUrl(String deploymentUrl, String username) {
+        if (deploymentUrl.endsWith("/")) {
+            deploymentUrl = deploymentUrl.substring(0, deploymentUrl.length() - 1);
+        }
+
+        return deploymentUrl + "/2012-04-24/Accounts/" + username + "/BulkCalls";
+    }
+
     private String getRecordingsUrl(String deploymentUrl, String username, Boolean json) {
         if (accountsUrl == null) {
             if (deploymentUrl.endsWith("/")) {
@@ -377,6 +386,59 @@ public class RestcommCallsTool {
         return jsonObject;
     }
 
+    public JsonObject createBulkCall(String deploymentUrl, String username, String authToken, String from, List<String> to,
+            String rcmlUrl, Integer callsPerSecond, Integer maxConcurrentCalls) {
+
+        Client jerseyClient = Client.create();
+        jerseyClient.addFilter(new HTTPBasicAuthFilter(username, authToken));
+
+        WebResource webResource = jerseyClient.resource(getBulkCallsUrl(deploymentUrl, username) + ".json");
+
+        MultivaluedMap<String, String> params = new MultivaluedMapImpl();
+        params.add("From", from);
+        for (String destination : to) {
+            params.add("To", destination);
+        }
+        params.add("Url", rcmlUrl);
+        if (callsPerSecond != null) {
+            params.add("CallsPerSecond", String.valueOf(callsPerSecond));
+        }
+        if (maxConcurrentCalls != null) {
+            params.add("MaxConcurrentCalls", String.valueOf(maxConcurrentCalls));
+        }
+
+        String response = webResource.accept(MediaType.APPLICATION_JSON).post(String.class, params);
+        JsonParser parser = new JsonParser();
+        return parser.parse(response).getAsJsonObject();
+    }
+
+    public JsonObject getBulkCall(String deploymentUrl, String username, String authToken, String sid) {
+
+        Client jerseyClient = Client.create();
+        jerseyClient.addFilter(new HTTPBasicAuthFilter(username, authToken));
+
+        WebResource webResource = jerseyClient.resource(getBulkCallsUrl(deploymentUrl, username));
+
+        String response = webResource.path(sid + ".json").accept(MediaType.APPLICATION_JSON).get(String.class);
+        JsonParser parser = new JsonParser();
+        return parser.parse(response).getAsJsonObject();
+    }
+
+    public JsonObject cancelBulkCall(String deploymentUrl, String username, String authToken, String sid) {
+
+        Client jerseyClient = Client.create();
+        jerseyClient.addFilter(new HTTPBasicAuthFilter(username, authToken));
+
+        WebResource webResource = jerseyClient.resource(getBulkCallsUrl(deploymentUrl, username));
+
+        MultivaluedMap<String, String> params = new MultivaluedMapImpl();
+        params.add("Status", "canceled");
+
+        String response = webResource.path(sid + ".json").accept(MediaType.APPLICATION_JSON).post(String.class, params);
+        JsonParser parser = new JsonParser();
+        return parser.parse(response).getAsJsonObject();
+    }
+
     public JsonArray getCallRecordings(String deploymentUrl, String username, String authToken, String callWithRecordingsSid) {
         Client jerseyClient = Client.create();
         jerseyClient.addFilter(new HTTPBasicAuthFilter(username, authToken));
@@ -7,6 +7,7 @@ import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.log4j.Logger;
 import org.restcomm.connect.sms.smpp.SmppInboundMessageEntity;
@@ -51,6 +52,8 @@ public class MockSmppServer {
     private static boolean messageReceived;
     private static String smppMessageId;
     private static boolean sendFailureOnSubmitSmResponse;
+    private static final AtomicInteger submitSmCount = new AtomicInteger();
+    private static final AtomicLong lastSmppMessageId = new AtomicLong();
 
     private String getDlrMessage(final String smppMessageId, final SmppDeliveryStatus smppStatus){
         String dlrFormat = "id:%s sub:001 dlvrd:001 submit date:1805170144 done date:1805170144 stat:%s err:000 text:none";
@@ -170,6 +173,7 @@ public class MockSmppServer {
         this.messageSent = false;
         this.messageReceived = false;
         this.smppInboundMessageEntity = null;
+        submitSmCount.set(0);
     }
 
     public static boolean isLinkEstablished() {
@@ -196,6 +200,13 @@ public class MockSmppServer {
         return smppMessageId;
     }
 
+    /**
+     * @return the submit_sm received since the last cleanup
+     */
+    public static int getSubmitSmCount() {
+        return submitSmCount.get();
+    }
+
     public static boolean isSendFailureOnSubmitSmResponse() {
         return sendFailureOnSubmitSmResponse;
     }
@@ -204,6 +215,16 @@ public class MockSmppServer {
         MockSmppServer.sendFailureOnSubmitSmResponse = sendFailureOnSubmitSmResponse;
     }
 
+    private static long nextSmppMessageId() {
+        while (true) {
+            final long last = lastSmppMessageId.get();
+            final long next = Math.max(last + 1, System.currentTimeMillis());
+            if (lastSmppMessageId.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+
     private static class DefaultSmppServerHandler implements SmppServerHandler {
 
         @Override
@@ -301,9 +322,11 @@ public class MockSmppServer {
 
                 smppInboundMessageEntity = new SmppInboundMessageEntity(destSmppAddress, sourceSmppAddress, decodedPduMessage, charset, isDeliveryReceipt);
                 messageReceived = true;
+                submitSmCount.incrementAndGet();
             }
             SubmitSmResp response = submitSm.createResponse();
-            final String smppMessageIdLocal = System.currentTimeMillis()+"";
+            // Unique even for several submit_sm within the same millisecond
+            final String smppMessageIdLocal = nextSmppMessageId()+"";
             response.setMessageId(smppMessageIdLocal);
             if(sendFailureOnSubmitSmResponse) {
                 response.setCommandStatus(10);//just setting the status to one of error code: Source address invalid.
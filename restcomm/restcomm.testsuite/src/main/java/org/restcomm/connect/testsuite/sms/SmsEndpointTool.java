@@ -21,6 +21,7 @@ package org.restcomm.connect.testsuite.sms;
 
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
@@ -217,4 +218,64 @@ public class SmsEndpointTool {
 
         return jsonObject;
     }
+
+    private String getBulkMessagesUrl(String deploymentUrl, String username) {
+        if (deploymentUrl.endsWith("/")) {
+            deploymentUrl = deploymentUrl.substring(0, deploymentUrl.length() - 1);
+        }
+        return deploymentUrl + "/2012-04-24/Accounts/" + username + "/SMS/BulkMessages";
+    }
+
+    public JsonObject createBulkSms(String deploymentUrl, String username, String authToken, String from, List<String> to,
+            String body, Integer messagesPerSecond, Integer maxInFlight) {
+
+        Client jerseyClient = Client.create();
+        jerseyClient.addFilter(new HTTPBasicAuthFilter(username, authToken));
+
+        WebResource webResource = jerseyClient.resource(getBulkMessagesUrl(deploymentUrl, username) + ".json");
+
+        MultivaluedMap<String, String> params = new MultivaluedMapImpl();
+        params.add("From", from);
+        for (String recipient : to) {
+            params.add("To", recipient);
+        }
+        params.add("Body", body);
+        if (messagesPerSecond != null) {
+            params.add("MessagesPerSecond", messagesPerSecond.toString());
+        }
+        if (maxInFlight != null) {
+            params.add("MaxInFlight", maxInFlight.toString());
+        }
+
+        String response = webResource.accept(MediaType.APPLICATION_JSON).post(String.class, params);
+        JsonParser parser = new JsonParser();
+        return parser.parse(response).getAsJsonObject();
+    }
+
+    public JsonObject getBulkSms(String deploymentUrl, String username, String authToken, String sid) {
+
+        Client jerseyClient = Client.create();
+        jerseyClient.addFilter(new HTTPBasicAuthFilter(username, authToken));
+
+        WebResource webResource = jerseyClient.resource(getBulkMessagesUrl(deploymentUrl, username) + "/" + sid + ".json");
+
+        String response = webResource.accept(MediaType.APPLICATION_JSON).get(String.class);
+        JsonParser parser = new JsonParser();
+        return parser.parse(response).getAsJsonObject();
+    }
+
+    public JsonObject cancelBulkSms(String deploymentUrl, String username, String authToken, String sid) {
+
+        Client jerseyClient = Client.create();
+        jerseyClient.addFilter(new HTTPBasicAuthFilter(username, authToken));
+
+        WebResource webResource = jerseyClient.resource(getBulkMessagesUrl(deploymentUrl, username) + "/" + sid + ".json");
+
+        MultivaluedMap<String, String> params = new MultivaluedMapImpl();
+        params.add("Status", "canceled");
+
+        String response = webResource.accept(MediaType.APPLICATION_JSON).post(String.class, params);
+        JsonParser parser = new JsonParser();
+        return parser.parse(response).getAsJsonObject();
+    }
 }
@@ -0,0 +1,203 @@
+package org.restcomm.connect.testsuite.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sip.RequestEvent;
+import javax.sip.message.Request;
+
+import org.apache.log4j.Logger;
+import org.cafesip.sipunit.SipPhone;
+import org.cafesip.sipunit.SipStack;
+import org.jboss.arquillian.container.mss.extension.SipStackTool;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.arquillian.test.api.ArquillianResource;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.jboss.shrinkwrap.resolver.api.maven.Maven;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.junit.runners.MethodSorters;
+import org.restcomm.connect.commons.Version;
+import org.restcomm.connect.commons.annotations.FeatureExpTests;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Load test of the BulkCalls API. Restcomm runs against the MockMediaGateway of the test restcomm.xml and Bob rejects
+ * every INVITE with a 486 so the pace of the BulkCallDialer is measured on the INVITEs Bob receives.
+ */
+@RunWith(Arquillian.class)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class BulkCallsTest {
+
+    private final static Logger logger = Logger.getLogger(BulkCallsTest.class.getName());
+
+    private static final String version = Version.getVersion();
+
+    @ArquillianResource
+    URL deploymentUrl;
+
+    private String adminAccountSid = "ACae6e420f425248d6a26948c17a9e2acf";
+    private String adminAuthToken = "77f8c12cc7b8f8423e5c38b035249166";
+
+    private static SipStackTool tool1;
+
+    private SipStack bobSipStack;
+    private SipPhone bobPhone;
+    private String bobContact = "sip:bob@127.0.0.1:5090";
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        tool1 = new SipStackTool("BulkCalls1");
+    }
+
+    @Before
+    public void before() throws Exception {
+        bobSipStack = tool1.initializeSipStack(SipStack.PROTOCOL_UDP, "127.0.0.1", "5090", "127.0.0.1:5080");
+        bobPhone = bobSipStack.createSipPhone("127.0.0.1", SipStack.PROTOCOL_UDP, 5080, bobContact);
+    }
+
+    @After
+    public void after() throws Exception {
+        if (bobPhone != null) {
+            bobPhone.dispose();
+        }
+        if (bobSipStack != null) {
+            bobSipStack.dispose();
+        }
+
+        Thread.sleep(1000);
+    }
+
+    private List<String> destinations(int count) {
+        List<String> destinations = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            destinations.add(bobContact);
+        }
+        return destinations;
+    }
+
+    /**
+     * Waits for the next INVITE and rejects it with a 486.
+     *
+     * @return the time the INVITE was received
+     */
+    private long rejectInvite() {
+        while (true) {
+            RequestEvent requestEvent = bobPhone.waitRequest(10000);
+            assertNotNull(requestEvent);
+            if (Request.INVITE.equals(requestEvent.getRequest().getMethod())) {
+                long received = System.currentTimeMillis();
+                assertNotNull(bobPhone.sendReply(requestEvent, 486, "Busy Here", Long.toString(received), null, -1));
+                return received;
+            }
+        }
+    }
+
+    private JsonObject waitForStatus(String sid, String status, long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        JsonObject bulkCall = RestcommCallsTool.getInstance().getBulkCall(deploymentUrl.toString(), adminAccountSid,
+                adminAuthToken, sid);
+        while (!status.equals(bulkCall.get("status").getAsString()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(500);
+            bulkCall = RestcommCallsTool.getInstance().getBulkCall(deploymentUrl.toString(), adminAccountSid,
+                    adminAuthToken, sid);
+        }
+        return bulkCall;
+    }
+
+    @Test
+    public void bulkCallIsPacedTest() throws InterruptedException {
+        int count = 20;
+        int callsPerSecond = 5;
+        assertTrue(bobPhone.listenRequestMessage());
+
+        String rcmlUrl = deploymentUrl.toString() + "/dial-number-entry.xml";
+        JsonObject bulkCall = RestcommCallsTool.getInstance().createBulkCall(deploymentUrl.toString(), adminAccountSid,
+                adminAuthToken, "+15126002188", destinations(count), rcmlUrl, callsPerSecond, 2);
+        assertNotNull(bulkCall);
+        String sid = bulkCall.get("sid").getAsString();
+        assertEquals(count, bulkCall.get("destinations").getAsInt());
+
+        long first = rejectInvite();
+        long last = first;
+        for (int i = 1; i < count; i++) {
+            last = rejectInvite();
+            int outstanding = RestcommCallsTool.getInstance().getBulkCall(deploymentUrl.toString(), adminAccountSid,
+                    adminAuthToken, sid).get("outstanding").getAsInt();
+            assertTrue(outstanding <= 2);
+        }
+        long elapsed = last - first;
+        logger.info("Received " + count + " INVITEs in " + elapsed + "ms");
+        // One permit is available at start, the others come at callsPerSecond.
+        assertTrue(elapsed >= (count - 1) * 1000 / callsPerSecond - 500);
+
+        bulkCall = waitForStatus(sid, "completed", 10000);
+        assertEquals("completed", bulkCall.get("status").getAsString());
+        assertEquals(count, bulkCall.get("dialed").getAsInt());
+        assertEquals(count, bulkCall.get("created").getAsInt());
+        assertEquals(0, bulkCall.get("failed").getAsInt());
+        assertEquals(0, bulkCall.get("outstanding").getAsInt());
+        assertEquals(0, bulkCall.get("pending").getAsInt());
+    }
+
+    @Test
+    @Category(FeatureExpTests.class)
+    public void bulkCallCancelTest() throws InterruptedException {
+        int count = 20;
+        assertTrue(bobPhone.listenRequestMessage());
+
+        String rcmlUrl = deploymentUrl.toString() + "/dial-number-entry.xml";
+        JsonObject bulkCall = RestcommCallsTool.getInstance().createBulkCall(deploymentUrl.toString(), adminAccountSid,
+                adminAuthToken, "+15126002188", destinations(count), rcmlUrl, 1, null);
+        String sid = bulkCall.get("sid").getAsString();
+
+        rejectInvite();
+        rejectInvite();
+
+        bulkCall = RestcommCallsTool.getInstance().cancelBulkCall(deploymentUrl.toString(), adminAccountSid,
+                adminAuthToken, sid);
+        assertEquals("canceled", bulkCall.get("status").getAsString());
+
+        Thread.sleep(3000);
+        bulkCall = RestcommCallsTool.getInstance().getBulkCall(deploymentUrl.toString(), adminAccountSid, adminAuthToken,
+                sid);
+        assertEquals("canceled", bulkCall.get("status").getAsString());
+        int dialed = bulkCall.get("dialed").getAsInt();
+        assertTrue(dialed >= 2 && dialed < count);
+        assertEquals(count - dialed, bulkCall.get("pending").getAsInt());
+    }
+
+    @Deployment(name = "BulkCallsTest", managed = true, testable = false)
+    public static WebArchive createWebArchiveNoGw() {
+        logger.info("Packaging Test App");
+        WebArchive archive = ShrinkWrap.create(WebArchive.class, "restcomm.war");
+        final WebArchive restcommArchive = Maven.resolver()
+                .resolve("org.restcomm:restcomm-connect.application:war:" + version).withoutTransitivity()
+                .asSingle(WebArchive.class);
+        archive = archive.merge(restcommArchive);
+        archive.delete("/WEB-INF/sip.xml");
+        archive.delete("/WEB-INF/web.xml");
+        archive.delete("/WEB-INF/conf/restcomm.xml");
+        archive.delete("/WEB-INF/data/hsql/restcomm.script");
+        archive.addAsWebInfResource("sip.xml");
+        archive.addAsWebInfResource("web.xml");
+        archive.addAsWebInfResource("restcomm.xml", "conf/restcomm.xml");
+        archive.addAsWebInfResource("restcomm.script_dialTest", "data/hsql/restcomm.script");
+        archive.addAsWebResource("dial-number-entry.xml");
+        logger.info("Packaged Test App");
+        return archive;
+    }
+}
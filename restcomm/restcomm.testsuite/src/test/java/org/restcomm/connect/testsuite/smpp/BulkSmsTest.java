@@ -0,0 +1,233 @@
+package org.restcomm.connect.testsuite.smpp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.arquillian.test.api.ArquillianResource;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.junit.runners.MethodSorters;
+import org.restcomm.connect.commons.annotations.FeatureExpTests;
+import org.restcomm.connect.commons.annotations.ParallelClassTests;
+import org.restcomm.connect.dao.entities.SmsMessage;
+import org.restcomm.connect.testsuite.NetworkPortAssigner;
+import org.restcomm.connect.testsuite.WebArchiveUtil;
+import org.restcomm.connect.testsuite.sms.SmsEndpointTool;
+
+import com.cloudhopper.smpp.type.SmppChannelException;
+import com.google.gson.JsonObject;
+
+/**
+ * Sends the same text to many recipients through the SMPP link, once with one REST request per message and once with
+ * a bulk message, and logs the throughput of both.
+ */
+@RunWith(Arquillian.class)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+@Category(value = {ParallelClassTests.class, FeatureExpTests.class})
+public class BulkSmsTest {
+
+    private final static Logger logger = Logger.getLogger(BulkSmsTest.class);
+
+    private static int mediaPort = NetworkPortAssigner.retrieveNextPortByFile();
+    private static int wirePort = NetworkPortAssigner.retrieveNextPortByFile();
+    private static int smppPort = NetworkPortAssigner.retrieveNextPortByFile();
+
+    @ArquillianResource
+    URL deploymentUrl;
+    private static MockSmppServer mockSmppServer;
+
+    private static int restcommPort = 5080;
+    private static int restcommHTTPPort = 8080;
+
+    private String adminAccountSid = "ACae6e420f425248d6a26948c17a9e2acf";
+    private String adminAuthToken = "77f8c12cc7b8f8423e5c38b035249166";
+
+    public static void reconfigurePorts() {
+        if (System.getProperty("arquillian_sip_port") != null) {
+            restcommPort = Integer.valueOf(System.getProperty("arquillian_sip_port"));
+        }
+        if (System.getProperty("arquillian_http_port") != null) {
+            restcommHTTPPort = Integer.valueOf(System.getProperty("arquillian_http_port"));
+        }
+    }
+
+    @BeforeClass
+    public static void prepare() throws SmppChannelException, InterruptedException {
+        mockSmppServer = new MockSmppServer(smppPort);
+        logger.info("Will wait for the SMPP link to be established");
+        do {
+            Thread.sleep(1000);
+        } while (!mockSmppServer.isLinkEstablished());
+        logger.info("SMPP link is now established");
+    }
+
+    @Before
+    public void before() throws Exception {
+        mockSmppServer.cleanup();
+        mockSmppServer.setSendFailureOnSubmitSmResponse(false);
+    }
+
+    @AfterClass
+    public static void cleanup() {
+        if (mockSmppServer != null) {
+            mockSmppServer.stop();
+        }
+    }
+
+    @Test
+    public void bulkSmsThroughputTest() throws Exception {
+        final int messages = 50;
+        final int messagesPerSecond = 25;
+
+        // One REST request per message, each one waits for its SmsSession before returning.
+        final String singleBody = "Single message " + System.currentTimeMillis();
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < messages; i++) {
+            SmsEndpointTool.getInstance().createSms(deploymentUrl.toString(), adminAccountSid, adminAuthToken, "alice",
+                    recipient(i), singleBody, null);
+        }
+        waitForSubmitSm(messages, 60000);
+        final long singleElapsed = System.currentTimeMillis() - start;
+        assertEquals(messages, MockSmppServer.getSubmitSmCount());
+        logger.info("Single messages: " + messages + " submit_sm in " + singleElapsed + " ms, "
+                + throughput(messages, singleElapsed) + " messages per second");
+
+        mockSmppServer.cleanup();
+
+        // One bulk message, the records are batch inserted and the submissions pipelined.
+        final String bulkBody = "Bulk message " + System.currentTimeMillis();
+        final List<String> recipients = new ArrayList<String>();
+        for (int i = 0; i < messages; i++) {
+            recipients.add(recipient(i));
+        }
+        start = System.currentTimeMillis();
+        JsonObject bulkSms = SmsEndpointTool.getInstance().createBulkSms(deploymentUrl.toString(), adminAccountSid,
+                adminAuthToken, "alice", recipients, bulkBody, messagesPerSecond, 10);
+        final String sid = bulkSms.get("sid").getAsString();
+        assertEquals(messages, bulkSms.get("recipients").getAsInt());
+        bulkSms = waitForCompletion(sid, 60000);
+        final long bulkElapsed = System.currentTimeMillis() - start;
+        logger.info("Bulk message: " + bulkSms);
+        logger.info("Bulk message: " + messages + " submit_sm in " + bulkElapsed + " ms, "
+                + throughput(messages, bulkElapsed) + " messages per second");
+
+        assertEquals("completed", bulkSms.get("status").getAsString());
+        assertEquals(messages, bulkSms.get("queued").getAsInt());
+        assertEquals(messages, bulkSms.get("submitted").getAsInt());
+        assertEquals(messages, bulkSms.get("sent").getAsInt());
+        assertEquals(0, bulkSms.get("failed").getAsInt());
+        assertEquals(0, bulkSms.get("in_flight").getAsInt());
+        assertEquals(messages, MockSmppServer.getSubmitSmCount());
+        // Paced at messagesPerSecond with a one second burst.
+        assertTrue(bulkElapsed >= (messages / messagesPerSecond - 1) * 1000);
+
+        final Map<String, String> filters = new HashMap<String, String>();
+        filters.put("Body", bulkBody);
+        filters.put("Status", SmsMessage.Status.SENT.toString());
+        final JsonObject records = SmsEndpointTool.getInstance().getSmsMessageListUsingFilter(deploymentUrl.toString(),
+                adminAccountSid, adminAuthToken, filters);
+        assertEquals(messages, records.get("total").getAsInt());
+    }
+
+    @Test
+    public void bulkSmsCancelTest() throws Exception {
+        final int messages = 100;
+        final String body = "Canceled bulk message " + System.currentTimeMillis();
+        final List<String> recipients = new ArrayList<String>();
+        for (int i = 0; i < messages; i++) {
+            recipients.add(recipient(i));
+        }
+        JsonObject bulkSms = SmsEndpointTool.getInstance().createBulkSms(deploymentUrl.toString(), adminAccountSid,
+                adminAuthToken, "alice", recipients, body, 5, 2);
+        final String sid = bulkSms.get("sid").getAsString();
+        Thread.sleep(2000);
+        bulkSms = SmsEndpointTool.getInstance().cancelBulkSms(deploymentUrl.toString(), adminAccountSid, adminAuthToken, sid);
+        assertEquals("canceled", bulkSms.get("status").getAsString());
+        waitForCompletion(sid, 30000);
+        // Leave a tick to the sender to fail the records it persisted ahead.
+        Thread.sleep(1000);
+        bulkSms = SmsEndpointTool.getInstance().getBulkSms(deploymentUrl.toString(), adminAccountSid, adminAuthToken, sid);
+        logger.info("Canceled bulk message: " + bulkSms);
+
+        final int submitted = bulkSms.get("submitted").getAsInt();
+        assertEquals("canceled", bulkSms.get("status").getAsString());
+        assertTrue(submitted > 0 && submitted < messages);
+        assertEquals(0, bulkSms.get("in_flight").getAsInt());
+        // The records persisted and not submitted are failed by the cancel.
+        assertEquals(bulkSms.get("queued").getAsInt(), bulkSms.get("sent").getAsInt()
+                + bulkSms.get("failed").getAsInt() + bulkSms.get("unconfirmed").getAsInt());
+        assertEquals(submitted, MockSmppServer.getSubmitSmCount());
+    }
+
+    private String recipient(final int index) {
+        return "9999" + String.format("%04d", index);
+    }
+
+    private double throughput(final int messages, final long elapsed) {
+        return elapsed == 0 ? messages : messages * 1000.0 / elapsed;
+    }
+
+    private void waitForSubmitSm(final int count, final long timeout) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + timeout;
+        while (MockSmppServer.getSubmitSmCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+
+    /**
+     * Waits until the bulk message finished and has no message in flight anymore.
+     */
+    private JsonObject waitForCompletion(final String sid, final long timeout) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + timeout;
+        JsonObject bulkSms;
+        String status;
+        do {
+            Thread.sleep(100);
+            bulkSms = SmsEndpointTool.getInstance().getBulkSms(deploymentUrl.toString(), adminAccountSid, adminAuthToken, sid);
+            status = bulkSms.get("status").getAsString();
+        } while (!(("completed".equals(status) || "canceled".equals(status)) && bulkSms.get("in_flight").getAsInt() == 0)
+                && System.currentTimeMillis() < deadline);
+        return bulkSms;
+    }
+
+    @Deployment(name = "BulkSmsTest", managed = true, testable = false)
+    public static WebArchive createWebArchive() {
+        logger.info("Packaging Test App");
+        reconfigurePorts();
+
+        Map<String, String> webInfResources = new HashMap();
+        webInfResources.put("restcomm-smpp.xml", "conf/restcomm.xml");
+        webInfResources.put("restcomm.script-smpp", "data/hsql/restcomm.script");
+        webInfResources.put("sip.xml", "sip.xml");
+        webInfResources.put("web.xml", "web.xml");
+        webInfResources.put("akka_application.conf", "classes/application.conf");
+
+        Map<String, String> replacements = new HashMap();
+        //replace mediaport 2727
+        replacements.put("2727", String.valueOf(mediaPort));
+        replacements.put("2776", String.valueOf(smppPort));
+        replacements.put("8080", String.valueOf(restcommHTTPPort));
+        replacements.put("8090", String.valueOf(wirePort));
+        replacements.put("5080", String.valueOf(restcommPort));
+
+        List<String> resources = new ArrayList();
+        return WebArchiveUtil.createWebArchiveNoGw(webInfResources,
+                resources,
+                replacements);
+    }
+}